@@ -1,37 +1,55 @@
 package com.devd.spring.bookstoreaccountservice.config;
 
+import com.devd.spring.bookstoreaccountservice.exception.LoginThrottledException;
+import com.devd.spring.bookstoreaccountservice.exception.PasswordHashingRejectedException;
 import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
+import com.devd.spring.bookstoreaccountservice.security.AppUser;
+import com.devd.spring.bookstoreaccountservice.security.CachingClientDetailsService;
+import com.devd.spring.bookstoreaccountservice.security.JwtSigningKeys;
 import com.devd.spring.bookstoreaccountservice.service.AppUserDetailsService;
+import com.devd.spring.bookstorecommons.security.CachingTokenServices;
+import com.devd.spring.bookstorecommons.security.KeyRotatingJwtAccessTokenConverter;
+import com.devd.spring.bookstorecommons.security.TokenRevocationList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
 import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
 import org.springframework.security.oauth2.config.annotation.configurers.ClientDetailsServiceConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.AuthorizationServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerSecurityConfigurer;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.client.JdbcClientDetailsService;
+import org.springframework.security.oauth2.provider.error.DefaultWebResponseExceptionTranslator;
+import org.springframework.security.oauth2.provider.error.WebResponseExceptionTranslator;
 import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
 import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
-import org.springframework.security.oauth2.provider.token.store.KeyStoreKeyFactory;
 
 import javax.sql.DataSource;
 import java.io.IOException;
-import java.security.KeyPair;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import static org.apache.commons.lang.CharEncoding.UTF_8;
 
@@ -69,12 +87,31 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
   @Value("${security.jwt.key-pair-password}")
   private String keyPairPassword;
 
+  @Value("${security.jwt.published-key-aliases:}")
+  private List<String> publishedKeyAliases;
+
   @Value("${security.jwt.public-key}")
   private Resource publicKey;
 
+  @Value("${security.jwt.verified-cache-size:10000}")
+  private long verifiedTokenCacheSize;
+
+  @Value("${security.client-details-cache.max-size:1000}")
+  private long clientDetailsCacheSize;
+
+  @Value("${security.client-details-cache.ttl:5m}")
+  private Duration clientDetailsCacheTtl;
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
   @Override
   public void configure(ClientDetailsServiceConfigurer clients) throws Exception {
-    clients.jdbc(dataSource);
+    CachingClientDetailsService clientDetailsService = new CachingClientDetailsService(
+        new JdbcClientDetailsService(dataSource), clientDetailsCacheSize, clientDetailsCacheTtl);
+    meterRegistry.ifAvailable(registry ->
+        CaffeineCacheMetrics.monitor(registry, clientDetailsService.getClients(), "clientDetails"));
+    clients.withClientDetails(clientDetailsService);
   }
 
   @Override
@@ -82,7 +119,30 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
     endpoints.authenticationManager(this.authenticationManager)
         .userDetailsService(appUserDetailsService)
         .accessTokenConverter(jwtAccessTokenConverter())
-        .tokenStore(tokenStore());
+        .tokenStore(tokenStore())
+        .exceptionTranslator(exceptionTranslator());
+  }
+
+  //a saturated password hashing pool answers 503 and a throttled sign in 429, instead of the 500 of any other failure
+  private WebResponseExceptionTranslator<OAuth2Exception> exceptionTranslator() {
+    DefaultWebResponseExceptionTranslator defaultTranslator = new DefaultWebResponseExceptionTranslator();
+    return e -> {
+      if (e instanceof PasswordHashingRejectedException) {
+        return retryLater(new RetryLaterException("temporarily_unavailable", HttpStatus.SERVICE_UNAVAILABLE,
+            e.getMessage()), 1);
+      }
+      if (e instanceof LoginThrottledException) {
+        return retryLater(new RetryLaterException("too_many_requests", HttpStatus.TOO_MANY_REQUESTS,
+            e.getMessage()), ((LoginThrottledException) e).getRetryAfterSeconds());
+      }
+      return defaultTranslator.translate(e);
+    };
+  }
+
+  private static ResponseEntity<OAuth2Exception> retryLater(RetryLaterException exception, long retryAfterSeconds) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    return new ResponseEntity<>(exception, headers, HttpStatus.valueOf(exception.getHttpErrorCode()));
   }
 
   @Bean
@@ -93,25 +153,36 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
 
   @Bean
   @Primary
-  public DefaultTokenServices tokenServices(final TokenStore tokenStore) {
-    DefaultTokenServices tokenServices = new DefaultTokenServices();
+  public DefaultTokenServices tokenServices(final TokenStore tokenStore, TokenRevocationList tokenRevocationList) {
+    CachingTokenServices tokenServices = new CachingTokenServices(verifiedTokenCacheSize);
     tokenServices.setSupportRefreshToken(true);
     tokenServices.setTokenStore(tokenStore);
+    tokenServices.setRevocationList(tokenRevocationList);
+    meterRegistry.ifAvailable(registry ->
+        CaffeineCacheMetrics.monitor(registry, tokenServices.getVerifiedTokens(), "verifiedJwt"));
     return tokenServices;
   }
 
   @Bean
   @Primary
   public JwtAccessTokenConverter jwtAccessTokenConverter() {
-    JwtAccessTokenConverter jwtAccessTokenConverter = new JwtAccessTokenConverter() {
+    JwtSigningKeys signingKeys = jwtSigningKeys();
+    KeyRotatingJwtAccessTokenConverter jwtAccessTokenConverter = new KeyRotatingJwtAccessTokenConverter(
+        signingKeys::verifier, new RsaVerifier(getPublicKeyAsString())) {
       @Override
       public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
 
-        User principal = (User) authentication.getUserAuthentication().getPrincipal();
-          Optional<com.devd.spring.bookstoreaccountservice.repository.dao.User> userDetail
-                  = userRepository.findByUserName(principal.getUsername());
-          final Map<String, Object> additionalInfo = new HashMap<>();
-        userDetail.ifPresent(user -> additionalInfo.put("user_id", user.getUserId()));
+        Authentication userAuthentication = authentication.getUserAuthentication();
+        final Map<String, Object> additionalInfo = new HashMap<>();
+        //revoking a user revokes the tokens issued before, in seconds like exp
+        additionalInfo.put("iat", System.currentTimeMillis() / 1000);
+        if (userAuthentication != null && userAuthentication.getPrincipal() instanceof AppUser) {
+          //loaded by AppUserDetailsService during authentication, no need to read the user again
+          additionalInfo.put("user_id", ((AppUser) userAuthentication.getPrincipal()).getUserId());
+        } else if (userAuthentication != null) {
+          userRepository.findByUserName(userAuthentication.getName())
+              .ifPresent(user -> additionalInfo.put("user_id", user.getUserId()));
+        }
           ((DefaultOAuth2AccessToken) accessToken)
                   .setAdditionalInformation(additionalInfo);
 
@@ -121,28 +192,22 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
       }
     };
 
-    KeyStoreKeyFactory keyStoreKeyFactory = keyStoreKeyFactory();
-    KeyPair keyPair = keyPair(keyStoreKeyFactory);
-    jwtAccessTokenConverter.setKeyPair(keyPair);
-    jwtAccessTokenConverter.setVerifierKey(getPublicKeyAsString());
+    jwtAccessTokenConverter.setSigningKey(signingKeys.getSigningKeyId(), signingKeys.getSigner());
     return jwtAccessTokenConverter;
   }
 
+  //the key pair alias is the signing key, RSA or EC, and the kid of the tokens it signs
+  @Bean
+  public JwtSigningKeys jwtSigningKeys() {
+    return new JwtSigningKeys(keyStore, keyStorePassword, keyPairPassword, keyPairAlias, publishedKeyAliases);
+  }
+
   @Override
   public void configure(final AuthorizationServerSecurityConfigurer oauthServer) {
     oauthServer.passwordEncoder(this.passwordEncoder).tokenKeyAccess("permitAll()")
         .checkTokenAccess("isAuthenticated()");
   }
 
-  private KeyPair keyPair(KeyStoreKeyFactory keyStoreKeyFactory) {
-    return keyStoreKeyFactory.getKeyPair(keyPairAlias, keyPairPassword
-        .toCharArray());
-  }
-
-  private KeyStoreKeyFactory keyStoreKeyFactory() {
-    return new KeyStoreKeyFactory(keyStore, keyStorePassword.toCharArray());
-  }
-
   private String getPublicKeyAsString() {
     try {
       return IOUtils.toString(publicKey.getInputStream(), UTF_8);
@@ -150,4 +215,27 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
       throw new RuntimeException(e);
     }
   }
+
+  private static class RetryLaterException extends OAuth2Exception {
+
+    private final String errorCode;
+
+    private final HttpStatus status;
+
+    RetryLaterException(String errorCode, HttpStatus status, String message) {
+      super(message);
+      this.errorCode = errorCode;
+      this.status = status;
+    }
+
+    @Override
+    public String getOAuth2ErrorCode() {
+      return errorCode;
+    }
+
+    @Override
+    public int getHttpErrorCode() {
+      return status.value();
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package com.devd.spring.bookstoreaccountservice.config;
+
+import com.devd.spring.bookstoreaccountservice.security.InMemoryLoginAttemptStore;
+import com.devd.spring.bookstoreaccountservice.security.LoginAttemptStore;
+import com.devd.spring.bookstoreaccountservice.security.LoginThrottle;
+import com.devd.spring.bookstoreaccountservice.security.OffloadingPasswordEncoder;
+import com.devd.spring.bookstoreaccountservice.security.ThrottlingAuthenticationProvider;
+import com.devd.spring.bookstoreaccountservice.service.AppUserDetailsService;
+import com.devd.spring.bookstorecommons.security.GatewayClaimsAuthenticator;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+
+/**
+ * Sign in with user name and password, throttled per user name and client address.
+ */
+@Configuration
+public class LoginThrottleConfig {
+
+  @Value("${security.login-throttle.window:15m}")
+  private Duration window;
+
+  @Bean
+  public LoginThrottle loginThrottle(ObjectProvider<LoginAttemptStore> loginAttemptStore,
+      @Value("${security.login-throttle.max-failures-per-user:10}") int maxFailuresPerUser,
+      @Value("${security.login-throttle.max-failures-per-address:0}") int maxFailuresPerAddress,
+      @Value("${security.login-throttle.max-keys:100000}") long maximumKeys) {
+
+    //a LoginAttemptStore bean shared by the instances replaces the per instance counters
+    LoginAttemptStore store = loginAttemptStore.getIfAvailable(() ->
+        new InMemoryLoginAttemptStore(window, maximumKeys));
+    return new LoginThrottle(store, maxFailuresPerUser, maxFailuresPerAddress, window);
+  }
+
+  /**
+   * Picked up by the global authentication manager instead of the default provider, so sign in
+   * is throttled, verifies on the hashing pool and upgrades weaker hashes through the user details
+   * service.
+   */
+  @Bean
+  public DaoAuthenticationProvider daoAuthenticationProvider(AppUserDetailsService appUserDetailsService,
+      OffloadingPasswordEncoder offloadingPasswordEncoder, LoginThrottle loginThrottle,
+      GatewayClaimsAuthenticator gatewayClaimsAuthenticator) {
+    DaoAuthenticationProvider provider = new ThrottlingAuthenticationProvider(loginThrottle,
+        gatewayClaimsAuthenticator);
+    provider.setUserDetailsService(appUserDetailsService);
+    provider.setUserDetailsPasswordService(appUserDetailsService);
+    provider.setPasswordEncoder(offloadingPasswordEncoder);
+    return provider;
+  }
+}
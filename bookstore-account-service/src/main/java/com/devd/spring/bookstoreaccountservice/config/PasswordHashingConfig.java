@@ -0,0 +1,28 @@
+package com.devd.spring.bookstoreaccountservice.config;
+
+import com.devd.spring.bookstoreaccountservice.security.OffloadingPasswordEncoder;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Password hashing of sign up, sign in and password changes, see {@link OffloadingPasswordEncoder}.
+ */
+@Configuration
+public class PasswordHashingConfig {
+
+  @Bean
+  public OffloadingPasswordEncoder offloadingPasswordEncoder(
+      @Value("${security.password-hashing.bcrypt-strength:10}") int strength,
+      @Value("${security.password-hashing.threads:0}") int threads,
+      @Value("${security.password-hashing.queue-per-thread:4}") int queuePerThread,
+      @Value("${security.password-hashing.timeout:5s}") Duration timeout) {
+
+    //half of the cores by default, the other half keeps serving everything else
+    int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    //a few hashes per thread drain in well under the timeout, a longer queue would only hold
+    //hashes whose callers give up on them
+    return new OffloadingPasswordEncoder(strength, poolSize, poolSize * queuePerThread, timeout);
+  }
+}
@@ -1,6 +1,9 @@
 package com.devd.spring.bookstoreaccountservice.config;
 
+import com.devd.spring.bookstorecommons.security.GatewayClaimsAuthenticator;
+import com.devd.spring.bookstorecommons.security.InternalNetworks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -16,9 +19,17 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
   @Autowired
   private ResourceServerTokenServices tokenServices;
 
+  @Autowired
+  private GatewayClaimsAuthenticator gatewayClaimsAuthenticator;
+
+  @Value("${security.internal-networks:}")
+  private String[] internalNetworks;
+
   @Override
   public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
-    resources.resourceId("web").tokenServices(tokenServices);
+    resources.resourceId("web").tokenServices(tokenServices)
+        .tokenExtractor(gatewayClaimsAuthenticator.tokenExtractor())
+        .authenticationManager(gatewayClaimsAuthenticator.authenticationManager("web", tokenServices));
   }
 
   @Override
@@ -33,7 +44,9 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
         .requestMatchers()
         .and()
         .authorizeRequests()
-        .antMatchers("/actuator/**", "/api-docs/**", "/h2-console/**", "/signin", "/authorize", "/signup").permitAll()
+        .antMatchers("/actuator/**", "/api-docs/**", "/h2-console/**", "/signin", "/authorize", "/signup",
+            "/.well-known/jwks.json").permitAll()
+        .antMatchers(HttpMethod.GET, "/revocations/feed").access(InternalNetworks.accessExpression(internalNetworks))
         .antMatchers(HttpMethod.POST, "/oauth/token").permitAll()
         .antMatchers("/**").authenticated();
   }
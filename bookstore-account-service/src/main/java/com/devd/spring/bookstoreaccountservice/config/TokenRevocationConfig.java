@@ -0,0 +1,27 @@
+package com.devd.spring.bookstoreaccountservice.config;
+
+import com.devd.spring.bookstoreaccountservice.service.TokenRevocationService;
+import com.devd.spring.bookstorecommons.security.TokenRevocationList;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The revocation list this service checks its own requests against, read from the TOKEN_REVOCATION
+ * table so the revocations of the other instances arrive within the refresh interval.
+ */
+@Configuration
+public class TokenRevocationConfig {
+
+  @Bean(destroyMethod = "close")
+  public TokenRevocationList tokenRevocationList(TokenRevocationService tokenRevocationService,
+      @Value("${security.jwt.revocation-list-refresh-interval:10s}") Duration refreshInterval,
+      @Value("${security.jwt.revocation-list-expected-size:10000}") long expectedSize) {
+
+    TokenRevocationList revocationList = new TokenRevocationList(tokenRevocationService::getRevocations,
+        expectedSize, 0.001);
+    revocationList.start(refreshInterval);
+    return revocationList;
+  }
+}
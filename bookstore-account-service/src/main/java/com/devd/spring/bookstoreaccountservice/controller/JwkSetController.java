@@ -0,0 +1,28 @@
+package com.devd.spring.bookstoreaccountservice.controller;
+
+import com.devd.spring.bookstoreaccountservice.security.JwtSigningKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public keys the access tokens are verified with, as a JWK set, for the gateway and the resource servers.
+ */
+@RestController
+public class JwkSetController {
+
+  @Autowired
+  JwtSigningKeys jwtSigningKeys;
+
+  @GetMapping("/.well-known/jwks.json")
+  public ResponseEntity<Map<String, Object>> getJwkSet() {
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+        .body(jwtSigningKeys.getJwkSet());
+  }
+}
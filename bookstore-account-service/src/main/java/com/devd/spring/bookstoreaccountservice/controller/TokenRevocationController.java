@@ -0,0 +1,50 @@
+package com.devd.spring.bookstoreaccountservice.controller;
+
+import com.devd.spring.bookstoreaccountservice.service.TokenRevocationService;
+import com.devd.spring.bookstoreaccountservice.web.RevokeTokensRequest;
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorecommons.security.TokenRevocation;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Revoked access tokens and users, polled by the resource servers at {@code /revocations/feed} with
+ * the last id they have seen. The feed is only open to the internal networks, the gateway does not route it.
+ */
+@RestController
+public class TokenRevocationController {
+
+  @Autowired
+  private TokenRevocationService tokenRevocationService;
+
+  @GetMapping("/revocations/feed")
+  public ResponseEntity<List<TokenRevocation>> getRevocations(
+      @RequestParam(value = "after", defaultValue = "0") long after) {
+    return ResponseEntity.ok(tokenRevocationService.getRevocations(after));
+  }
+
+  @PostMapping("/revocations")
+  @PreAuthorize("hasAuthority('ADMIN_USER')")
+  public ResponseEntity<?> revoke(@RequestBody RevokeTokensRequest revokeTokensRequest) {
+    if (!StringUtils.hasText(revokeTokensRequest.getTokenId())
+        && !StringUtils.hasText(revokeTokensRequest.getUserId())) {
+      throw new RunTimeExceptionPlaceHolder("tokenId or userId is required!!");
+    }
+    if (StringUtils.hasText(revokeTokensRequest.getTokenId())) {
+      tokenRevocationService.revokeToken(revokeTokensRequest.getTokenId(),
+          revokeTokensRequest.getTokenExpiresAt());
+    }
+    if (StringUtils.hasText(revokeTokensRequest.getUserId())) {
+      tokenRevocationService.revokeUser(revokeTokensRequest.getUserId());
+    }
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -4,8 +4,9 @@ import com.devd.spring.bookstoreaccountservice.service.UserService;
 import com.devd.spring.bookstoreaccountservice.web.CreateUserRequest;
 import com.devd.spring.bookstoreaccountservice.web.GetUserInfoResponse;
 import com.devd.spring.bookstoreaccountservice.web.GetUserResponse;
+import com.devd.spring.bookstoreaccountservice.web.GetUsersResponse;
+import com.devd.spring.bookstoreaccountservice.web.SearchUsersRequest;
 import java.net.URI;
-import java.util.List;
 import java.util.Optional;
 import javax.validation.Valid;
 
@@ -75,9 +76,9 @@ public class UserController {
 
   @GetMapping("/users")
   @PreAuthorize("hasAuthority('ADMIN_USER')")
-  public ResponseEntity<List<GetUserResponse>> getAllUsers() {
-    List<GetUserResponse> allUsers = userService.getAllUsers();
-    return ResponseEntity.ok(allUsers);
+  public ResponseEntity<GetUsersResponse> getAllUsers(@Valid SearchUsersRequest searchUsersRequest) {
+    GetUsersResponse users = userService.searchUsers(searchUsersRequest);
+    return ResponseEntity.ok(users);
   }
 
   @GetMapping("/userInfo")
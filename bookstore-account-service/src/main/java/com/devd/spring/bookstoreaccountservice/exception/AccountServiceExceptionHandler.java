@@ -5,6 +5,7 @@ import com.devd.spring.bookstorecommons.exception.GlobalExceptionHandler;
 import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -38,6 +39,17 @@ public class AccountServiceExceptionHandler extends GlobalExceptionHandler {
 
     }
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleCustomException(PasswordHashingRejectedException ex) {
+
+        ErrorResponse errorResponse = populateErrorResponse("503", ex.getMessage());
+        log.warn("Password hashing rejected : " + ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleCustomException(Exception ex) {
 
@@ -0,0 +1,18 @@
+package com.devd.spring.bookstoreaccountservice.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of checking the password when a user name or client address failed to sign in
+ * too often recently, mapped to a 429.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+  @Getter
+  private final long retryAfterSeconds;
+
+  public LoginThrottledException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
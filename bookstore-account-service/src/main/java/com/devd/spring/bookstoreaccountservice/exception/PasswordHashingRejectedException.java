@@ -0,0 +1,12 @@
+package com.devd.spring.bookstoreaccountservice.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated, mapped to a 503 so clients back off
+ * instead of waiting behind the burst.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+  public PasswordHashingRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,20 @@
+package com.devd.spring.bookstoreaccountservice.repository;
+
+import com.devd.spring.bookstoreaccountservice.repository.dao.Revocation;
+import java.util.List;
+import javax.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface RevocationRepository extends CrudRepository<Revocation, Long> {
+
+  List<Revocation> findByIdGreaterThanAndExpiresAtGreaterThanOrderById(long id, long now, Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM Revocation r WHERE r.expiresAt <= :now")
+  int deleteExpired(@Param("now") long now);
+}
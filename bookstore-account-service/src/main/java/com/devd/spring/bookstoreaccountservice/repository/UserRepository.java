@@ -1,11 +1,19 @@
 package com.devd.spring.bookstoreaccountservice.repository;
 
 
+import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
 import com.devd.spring.bookstoreaccountservice.repository.dao.User;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import javax.transaction.Transactional;
 
@@ -13,7 +21,7 @@ import javax.transaction.Transactional;
  * @author: Devaraj Reddy, Date : 2019-05-17
  */
 @Transactional
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends CrudRepository<User, Long>, UserSearchRepository {
 
   Optional<User> findByUserName(String username);
 
@@ -27,4 +35,88 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
   Boolean existsByEmail(String email);
 
+  /**
+   * Users holding the user name or the email, one query for both uniqueness checks of a sign up.
+   */
+  @Query("select u.userName as userName, u.email as email from User u"
+      + " where u.userName = :userName or u.email = :email")
+  List<UserNameAndEmail> findUserNameAndEmailByUserNameOrEmail(@Param("userName") String userName,
+      @Param("email") String email);
+
+  @Query("select u.userName as userName, u.email as email from User u")
+  Slice<UserNameAndEmail> findAllUserNamesAndEmails(Pageable pageable);
+
+  @Query("select u.userId as userId, r as role from User u join u.roles r where u.userId in :userIds")
+  List<UserIdAndRole> findRolesByUserIdIn(@Param("userIds") Collection<String> userIds);
+
+  @Query("select u.userId as userId, u.userName as userName from User u where u.userName in :userNames")
+  List<UserIdAndName> findUserIdsByUserNameIn(@Param("userNames") Collection<String> userNames);
+
+  /**
+   * Applies a role change as the difference only, the rows of the unchanged roles are left alone.
+   * Both statements run in one transaction.
+   */
+  default void updateRoles(String userId, Collection<String> addedRoleIds, Collection<String> removedRoleIds) {
+    if (!removedRoleIds.isEmpty()) {
+      removeRoles(userId, removedRoleIds);
+    }
+    if (!addedRoleIds.isEmpty()) {
+      addRoles(userId, addedRoleIds);
+    }
+  }
+
+  @Modifying
+  @Query(value = "INSERT INTO USER_ROLES (USER_ID, ROLE_ID) SELECT :userId, r.ROLE_ID FROM ROLE r"
+      + " WHERE r.ROLE_ID IN :roleIds AND NOT EXISTS"
+      + " (SELECT 1 FROM USER_ROLES ur WHERE ur.USER_ID = :userId AND ur.ROLE_ID = r.ROLE_ID)",
+      nativeQuery = true)
+  int addRoles(@Param("userId") String userId, @Param("roleIds") Collection<String> roleIds);
+
+  @Modifying
+  @Query(value = "DELETE FROM USER_ROLES WHERE USER_ID = :userId AND ROLE_ID IN :roleIds", nativeQuery = true)
+  int removeRoles(@Param("userId") String userId, @Param("roleIds") Collection<String> roleIds);
+
+  @Modifying
+  @Query(value = "INSERT INTO USER_ROLES (USER_ID, ROLE_ID) SELECT u.USER_ID, :roleId FROM USER u"
+      + " WHERE u.USER_ID IN :userIds AND NOT EXISTS"
+      + " (SELECT 1 FROM USER_ROLES ur WHERE ur.USER_ID = u.USER_ID AND ur.ROLE_ID = :roleId)",
+      nativeQuery = true)
+  int addRoleToUsers(@Param("roleId") String roleId, @Param("userIds") Collection<String> userIds);
+
+  interface UserIdAndName {
+
+    String getUserId();
+
+    String getUserName();
+  }
+
+  interface UserSummary {
+
+    String getUserId();
+
+    String getUserName();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+
+    Instant getCreatedAt();
+  }
+
+  interface UserIdAndRole {
+
+    String getUserId();
+
+    Role getRole();
+  }
+
+  interface UserNameAndEmail {
+
+    String getUserName();
+
+    String getEmail();
+  }
+
 }
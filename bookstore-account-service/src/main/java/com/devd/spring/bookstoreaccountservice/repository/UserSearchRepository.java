@@ -0,0 +1,20 @@
+package com.devd.spring.bookstoreaccountservice.repository;
+
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserSummary;
+import java.time.Instant;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * The admin user search, part of {@link UserRepository}.
+ */
+public interface UserSearchRepository {
+
+  /**
+   * One keyset page of users after the given user name, in user name order; null filters are left
+   * out of the query. Reads the user columns only, the roles of the page come from
+   * {@link UserRepository#findRolesByUserIdIn}.
+   */
+  Slice<UserSummary> searchUsers(String after, String prefix, String roleName, Instant createdFrom,
+      Instant createdTo, Pageable pageable);
+}
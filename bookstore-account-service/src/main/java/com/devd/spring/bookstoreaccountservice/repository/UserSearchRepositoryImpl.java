@@ -0,0 +1,92 @@
+package com.devd.spring.bookstoreaccountservice.repository;
+
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserSummary;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * Builds the search query from the filters actually given. With a {@code :filter is null or ...}
+ * condition for every optional filter, each one an OR the optimizer has to see through, MySQL
+ * often falls back to scanning instead of using the index of the filters that are set.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public Slice<UserSummary> searchUsers(String after, String prefix, String roleName, Instant createdFrom,
+      Instant createdTo, Pageable pageable) {
+
+    StringBuilder jpql = new StringBuilder("select u.userId as userId, u.userName as userName,"
+        + " u.firstName as firstName, u.lastName as lastName, u.email as email, u.createdAt as createdAt"
+        + " from User u where u.userName > :after");
+    if (prefix != null) {
+      jpql.append(" and (u.userName like :prefix or u.email like :prefix)");
+    }
+    if (roleName != null) {
+      jpql.append(" and exists (select r.id from User ru join ru.roles r"
+          + " where ru.userId = u.userId and r.roleName = :roleName)");
+    }
+    if (createdFrom != null) {
+      jpql.append(" and u.createdAt >= :createdFrom");
+    }
+    if (createdTo != null) {
+      jpql.append(" and u.createdAt < :createdTo");
+    }
+    jpql.append(" order by u.userName");
+
+    TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class)
+        .setParameter("after", after);
+    if (prefix != null) {
+      query.setParameter("prefix", prefix);
+    }
+    if (roleName != null) {
+      query.setParameter("roleName", roleName);
+    }
+    if (createdFrom != null) {
+      query.setParameter("createdFrom", createdFrom);
+    }
+    if (createdTo != null) {
+      query.setParameter("createdTo", createdTo);
+    }
+
+    //one more than the page, to tell whether there is a next one
+    List<UserSummary> users = query.setMaxResults(pageable.getPageSize() + 1).getResultList().stream()
+        .map(UserSearchRepositoryImpl::toUserSummary)
+        .collect(Collectors.toList());
+    boolean hasNext = users.size() > pageable.getPageSize();
+    return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+  }
+
+  private static UserSummary toUserSummary(Tuple row) {
+    return new UserSummaryRow(row.get("userId", String.class), row.get("userName", String.class),
+        row.get("firstName", String.class), row.get("lastName", String.class), row.get("email", String.class),
+        row.get("createdAt", Instant.class));
+  }
+
+  @Value
+  private static class UserSummaryRow implements UserSummary {
+
+    String userId;
+
+    String userName;
+
+    String firstName;
+
+    String lastName;
+
+    String email;
+
+    Instant createdAt;
+  }
+}
@@ -0,0 +1,54 @@
+package com.devd.spring.bookstoreaccountservice.repository.dao;
+
+import com.devd.spring.bookstorecommons.security.TokenRevocation;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A revoked access token or a user whose tokens issued until {@link #revokedAt} are revoked.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TOKEN_REVOCATION")
+@Builder
+public class Revocation {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "REVOCATION_ID", updatable = false, nullable = false)
+  private Long id;
+
+  @Column(name = "TOKEN_ID")
+  private String tokenId;
+
+  @Column(name = "USER_ID")
+  private String userId;
+
+  @Column(name = "REVOKED_AT", nullable = false)
+  private long revokedAt;
+
+  @Column(name = "EXPIRES_AT", nullable = false)
+  private long expiresAt;
+
+  public TokenRevocation toTokenRevocation() {
+    return TokenRevocation.builder()
+        .id(id)
+        .tokenId(tokenId)
+        .userId(userId)
+        .revokedAt(revokedAt)
+        .expiresAt(expiresAt)
+        .build();
+  }
+}
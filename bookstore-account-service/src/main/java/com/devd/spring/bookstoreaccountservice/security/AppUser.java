@@ -0,0 +1,31 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Authenticated user that also carries its id, so the token enhancer can add the {@code user_id}
+ * claim without loading the user a second time.
+ */
+public class AppUser extends User {
+
+  private final String userId;
+
+  public AppUser(String userId, String username, String password,
+      Collection<? extends GrantedAuthority> authorities) {
+    super(username, password, authorities);
+    this.userId = userId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  /**
+   * Credentials of an authenticated user are erased, so every authentication gets its own copy.
+   */
+  public AppUser copy() {
+    return new AppUser(userId, getUsername(), getPassword(), getAuthorities());
+  }
+}
@@ -0,0 +1,41 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationException;
+
+/**
+ * Remembers the OAuth clients read by the delegate, which is queried several times for every
+ * token request otherwise.
+ *
+ * Unknown clients are not cached, so a newly created client is found right away. Clients are only
+ * ever changed or removed directly in the database, and expiry after {@code ttl} is the only way the
+ * cache picks that up: until then a changed client keeps its old details and secret.
+ */
+public class CachingClientDetailsService implements ClientDetailsService {
+
+  private final ClientDetailsService delegate;
+
+  private final Cache<String, ClientDetails> clients;
+
+  public CachingClientDetailsService(ClientDetailsService delegate, long maximumSize, Duration ttl) {
+    this.delegate = delegate;
+    this.clients = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public ClientDetails loadClientByClientId(String clientId) throws ClientRegistrationException {
+    return clients.get(clientId, delegate::loadClientByClientId);
+  }
+
+  public Cache<String, ClientDetails> getClients() {
+    return clients;
+  }
+}
@@ -0,0 +1,89 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Sliding window counters held in a bounded Caffeine cache, two counts and a timestamp per key.
+ *
+ * The estimate weighs the count of the previous fixed window by how much of it still overlaps the
+ * sliding one and adds the count of the current window, which is close to an exact sliding window
+ * without keeping a timestamp per failure.
+ */
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+  private final long windowMillis;
+
+  private final LongSupplier clock;
+
+  private final Cache<String, Window> windows;
+
+  public InMemoryLoginAttemptStore(Duration window, long maximumKeys) {
+    this(window, maximumKeys, System::currentTimeMillis);
+  }
+
+  InMemoryLoginAttemptStore(Duration window, long maximumKeys, LongSupplier clock) {
+    this.windowMillis = window.toMillis();
+    this.clock = clock;
+    this.windows = Caffeine.newBuilder()
+        .maximumSize(maximumKeys)
+        .expireAfterAccess(window.multipliedBy(2))
+        .build();
+  }
+
+  @Override
+  public double failures(String key) {
+    Window window = windows.getIfPresent(key);
+    return window == null ? 0 : window.estimate(clock.getAsLong());
+  }
+
+  @Override
+  public double recordFailure(String key) {
+    long now = clock.getAsLong();
+    return windows.get(key, k -> new Window(now)).increment(now);
+  }
+
+  @Override
+  public void reset(String key) {
+    windows.invalidate(key);
+  }
+
+  private final class Window {
+
+    private long start;
+    private int previous;
+    private int current;
+
+    private Window(long start) {
+      this.start = start;
+    }
+
+    synchronized double increment(long now) {
+      roll(now);
+      current++;
+      return weighted(now);
+    }
+
+    synchronized double estimate(long now) {
+      roll(now);
+      return weighted(now);
+    }
+
+    private void roll(long now) {
+      long elapsedWindows = (now - start) / windowMillis;
+      if (elapsedWindows <= 0) {
+        return;
+      }
+      previous = elapsedWindows == 1 ? current : 0;
+      current = 0;
+      start += elapsedWindows * windowMillis;
+    }
+
+    private double weighted(long now) {
+      double overlap = 1 - (double) (now - start) / windowMillis;
+      return previous * overlap + current;
+    }
+  }
+}
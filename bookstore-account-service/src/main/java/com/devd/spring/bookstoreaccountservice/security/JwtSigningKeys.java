@@ -0,0 +1,122 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.devd.spring.bookstorecommons.security.EcdsaSigner;
+import com.devd.spring.bookstorecommons.security.EcdsaVerifier;
+import com.devd.spring.bookstorecommons.security.Jwks;
+import org.springframework.core.io.Resource;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.jwt.crypto.sign.Signer;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The token signing keys of the keystore, by alias. The alias is the {@code kid} of the tokens.
+ *
+ * Tokens are signed with the signing key, RSA or EC; the published keys are the ones tokens are still
+ * verified with and listed in the JWK set. To rotate, add the new key to the keystore and to the published
+ * keys, let the resource servers see it, make it the signing key, and drop the old one from the published
+ * keys once its last tokens have expired.
+ */
+public class JwtSigningKeys {
+
+  private final String signingKeyId;
+
+  private final Signer signer;
+
+  private final Map<String, SignatureVerifier> verifiers = new LinkedHashMap<>();
+
+  private final Map<String, Object> jwkSet;
+
+  public JwtSigningKeys(Resource keyStore, String keyStorePassword, String keyPassword,
+                        String signingKeyId, List<String> publishedKeyIds) {
+    KeyStore store = load(keyStore, keyStorePassword);
+    Set<String> keyIds = new LinkedHashSet<>();
+    keyIds.add(signingKeyId);
+    publishedKeyIds.stream().filter(StringUtils::hasText).map(String::trim).forEach(keyIds::add);
+
+    List<Map<String, Object>> keys = new ArrayList<>();
+    try {
+      for (String keyId : keyIds) {
+        if (store.getCertificate(keyId) == null) {
+          throw new IllegalStateException("No key " + keyId + " in " + keyStore);
+        }
+        PublicKey publicKey = store.getCertificate(keyId).getPublicKey();
+        verifiers.put(keyId, verifier(publicKey));
+        keys.add(Jwks.toJwk(keyId, publicKey));
+      }
+      this.signingKeyId = signingKeyId;
+      this.signer = signer(store.getKey(signingKeyId, keyPassword.toCharArray()));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot read the token signing keys from " + keyStore, e);
+    }
+    this.jwkSet = Collections.singletonMap("keys", Collections.unmodifiableList(keys));
+  }
+
+  public String getSigningKeyId() {
+    return signingKeyId;
+  }
+
+  public Signer getSigner() {
+    return signer;
+  }
+
+  /**
+   * @return the verifier of a published key, null for any other key id
+   */
+  public SignatureVerifier verifier(String keyId) {
+    return verifiers.get(keyId);
+  }
+
+  public Map<String, Object> getJwkSet() {
+    return jwkSet;
+  }
+
+  private static KeyStore load(Resource keyStore, String password) {
+    try (InputStream in = keyStore.getInputStream()) {
+      KeyStore store = KeyStore.getInstance("PKCS12");
+      store.load(in, password.toCharArray());
+      return store;
+    } catch (IOException | GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot load keystore " + keyStore, e);
+    }
+  }
+
+  private static Signer signer(Key privateKey) {
+    if (privateKey instanceof ECPrivateKey) {
+      return new EcdsaSigner((ECPrivateKey) privateKey);
+    }
+    if (privateKey instanceof RSAPrivateKey) {
+      return new RsaSigner((RSAPrivateKey) privateKey);
+    }
+    throw new IllegalStateException("Unsupported signing key " + (privateKey == null ? null : privateKey.getAlgorithm()));
+  }
+
+  private static SignatureVerifier verifier(PublicKey publicKey) {
+    if (publicKey instanceof ECPublicKey) {
+      return new EcdsaVerifier((ECPublicKey) publicKey);
+    }
+    if (publicKey instanceof RSAPublicKey) {
+      return new RsaVerifier((RSAPublicKey) publicKey);
+    }
+    throw new IllegalStateException("Unsupported signing key " + publicKey.getAlgorithm());
+  }
+}
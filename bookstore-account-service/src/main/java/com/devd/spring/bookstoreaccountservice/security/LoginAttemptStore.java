@@ -0,0 +1,22 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+/**
+ * Failed sign in counters over a sliding window, keyed by user name or client address.
+ *
+ * {@link InMemoryLoginAttemptStore} counts per instance. Exposing another implementation as a
+ * bean, backed by a store the instances share, makes the limits apply to the whole cluster.
+ */
+public interface LoginAttemptStore {
+
+  /**
+   * Estimated number of failures of the key within the last window.
+   */
+  double failures(String key);
+
+  /**
+   * Counts a failure of the key and returns the updated estimate.
+   */
+  double recordFailure(String key);
+
+  void reset(String key);
+}
@@ -0,0 +1,94 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.devd.spring.bookstoreaccountservice.exception.LoginThrottledException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns sign ins away before their password is checked once the user name or the client address
+ * failed more than its limit within the window, so guessing passwords stops costing bcrypt time.
+ * A {@code maxFailuresPerAddress} of zero or less leaves addresses unlimited.
+ */
+public class LoginThrottle implements MeterBinder {
+
+  private final LoginAttemptStore store;
+
+  private final int maxFailuresPerUser;
+
+  private final int maxFailuresPerAddress;
+
+  private final long retryAfterSeconds;
+
+  private final AtomicLong failures = new AtomicLong();
+
+  private final AtomicLong blockedByUser = new AtomicLong();
+
+  private final AtomicLong blockedByAddress = new AtomicLong();
+
+  public LoginThrottle(LoginAttemptStore store, int maxFailuresPerUser, int maxFailuresPerAddress,
+      Duration window) {
+    this.store = store;
+    this.maxFailuresPerUser = maxFailuresPerUser;
+    this.maxFailuresPerAddress = maxFailuresPerAddress;
+    this.retryAfterSeconds = Math.max(1, window.getSeconds());
+  }
+
+  public void checkAllowed(String userName, String clientAddress) {
+    if (store.failures(userKey(userName)) >= maxFailuresPerUser) {
+      blockedByUser.incrementAndGet();
+      throw new LoginThrottledException("Too many failed sign ins for this user, try again later",
+          retryAfterSeconds);
+    }
+    if (limitsAddresses(clientAddress) && store.failures(addressKey(clientAddress)) >= maxFailuresPerAddress) {
+      blockedByAddress.incrementAndGet();
+      throw new LoginThrottledException("Too many failed sign ins from this address, try again later",
+          retryAfterSeconds);
+    }
+  }
+
+  public void recordFailure(String userName, String clientAddress) {
+    failures.incrementAndGet();
+    store.recordFailure(userKey(userName));
+    if (limitsAddresses(clientAddress)) {
+      store.recordFailure(addressKey(clientAddress));
+    }
+  }
+
+  /**
+   * Forgets the failures of the user, those of the address keep counting toward its limit.
+   */
+  public void recordSuccess(String userName) {
+    store.reset(userKey(userName));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("login.failures", failures, AtomicLong::doubleValue)
+        .description("Sign ins rejected for bad credentials")
+        .register(registry);
+    FunctionCounter.builder("login.throttled", blockedByUser, AtomicLong::doubleValue)
+        .description("Sign ins turned away before checking the password")
+        .tag("scope", "user")
+        .register(registry);
+    FunctionCounter.builder("login.throttled", blockedByAddress, AtomicLong::doubleValue)
+        .description("Sign ins turned away before checking the password")
+        .tag("scope", "address")
+        .register(registry);
+  }
+
+  private boolean limitsAddresses(String clientAddress) {
+    return maxFailuresPerAddress > 0 && clientAddress != null;
+  }
+
+  private static String userKey(String userName) {
+    return "user:" + (userName == null ? "" : userName.toLowerCase(Locale.ROOT));
+  }
+
+  private static String addressKey(String clientAddress) {
+    return "address:" + clientAddress;
+  }
+}
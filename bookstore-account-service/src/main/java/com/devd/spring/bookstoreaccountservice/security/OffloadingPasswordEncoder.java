@@ -0,0 +1,117 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.devd.spring.bookstoreaccountservice.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt encoder that hashes and verifies passwords on a small dedicated pool instead of the
+ * calling request thread, so a burst of sign ups or sign ins keeps at most {@code threads} cores
+ * busy and the rest of the service stays responsive.
+ *
+ * This bounds how many hashes run at once, not how long a caller waits: the calling thread still
+ * blocks until its hash is done. When {@code queueCapacity} hashes are already waiting the call
+ * fails right away with {@link PasswordHashingRejectedException}, and it fails the same way once
+ * {@code timeout} has passed. BCrypt does not stop when interrupted, so a hash that already started
+ * runs to the end after its caller gave up; one still queued is taken off the queue instead. Keep
+ * the queue small enough that {@code threads} drain it well within {@code timeout}, then a caller
+ * only gives up on hashes that are running, and those never exceed {@code threads}.
+ * Hashes made with a cost lower than {@code strength} report {@link #upgradeEncoding(String)},
+ * so they are replaced on the next successful sign in.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+  private final BCryptPasswordEncoder delegate;
+
+  private final ThreadPoolExecutor pool;
+
+  private final Duration timeout;
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  public OffloadingPasswordEncoder(int strength, int threads, int queueCapacity, Duration timeout) {
+    this.delegate = new BCryptPasswordEncoder(strength);
+    this.timeout = timeout;
+
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+    threadFactory.setDaemon(true);
+    this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return call(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return call(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    new ExecutorServiceMetrics(pool, "passwordHashing", Tags.empty()).bindTo(registry);
+    FunctionCounter.builder("password.hashing.rejected", rejected, AtomicLong::doubleValue)
+        .description("Password hashes rejected because the hashing pool was saturated")
+        .register(registry);
+  }
+
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  private <T> T call(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = pool.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      throw new PasswordHashingRejectedException("Too many password checks in progress, try again later");
+    }
+
+    try {
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      abandon(future);
+      rejected.incrementAndGet();
+      throw new PasswordHashingRejectedException("Password check timed out, try again later");
+    } catch (InterruptedException e) {
+      abandon(future);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingRejectedException("Interrupted while waiting for the password check");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  //interrupting would not stop a running hash, a queued one leaves the queue rather than waiting to be skipped
+  private void abandon(Future<?> future) {
+    future.cancel(false);
+    pool.remove((Runnable) future);
+  }
+}
@@ -0,0 +1,51 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.devd.spring.bookstorecommons.security.GatewayClaimsAuthenticator;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Sign in with user name and password, consulting the {@link LoginThrottle} before the password
+ * is verified and reporting the outcome to it afterwards.
+ */
+public class ThrottlingAuthenticationProvider extends DaoAuthenticationProvider {
+
+  private final LoginThrottle loginThrottle;
+
+  private final GatewayClaimsAuthenticator gatewayClaimsAuthenticator;
+
+  public ThrottlingAuthenticationProvider(LoginThrottle loginThrottle,
+      GatewayClaimsAuthenticator gatewayClaimsAuthenticator) {
+    this.loginThrottle = loginThrottle;
+    this.gatewayClaimsAuthenticator = gatewayClaimsAuthenticator;
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+    String userName = authentication.getName();
+    String clientAddress = clientAddress();
+
+    loginThrottle.checkAllowed(userName, clientAddress);
+    try {
+      Authentication result = super.authenticate(authentication);
+      loginThrottle.recordSuccess(userName);
+      return result;
+    } catch (BadCredentialsException e) {
+      loginThrottle.recordFailure(userName, clientAddress);
+      throw e;
+    }
+  }
+
+  private String clientAddress() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes instanceof ServletRequestAttributes) {
+      return gatewayClaimsAuthenticator.clientAddress(((ServletRequestAttributes) attributes).getRequest());
+    }
+    return null;
+  }
+}
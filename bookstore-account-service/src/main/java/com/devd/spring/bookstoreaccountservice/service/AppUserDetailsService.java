@@ -1,15 +1,22 @@
 package com.devd.spring.bookstoreaccountservice.service;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 /**
  * @author: Devaraj Reddy, Date : 2019-09-27
  */
-public interface AppUserDetailsService extends UserDetailsService {
+public interface AppUserDetailsService extends UserDetailsService, UserDetailsPasswordService {
 
   @Override
   UserDetails loadUserByUsername(String userNameOrEmail) throws UsernameNotFoundException;
 
+  /**
+   * Forgets the cached details of the user, to be called whenever its password, email or roles
+   * change or it is deleted.
+   */
+  void evictUser(String userId);
+
 }
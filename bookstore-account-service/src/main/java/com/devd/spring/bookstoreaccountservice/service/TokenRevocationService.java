@@ -0,0 +1,23 @@
+package com.devd.spring.bookstoreaccountservice.service;
+
+import com.devd.spring.bookstorecommons.security.TokenRevocation;
+import java.util.List;
+
+public interface TokenRevocationService {
+
+  /**
+   * Revokes a single access token by its {@code jti}, until the token expires at {@code expiresAt}
+   * epoch milliseconds, or for the longest access token validity when that is not known.
+   */
+  void revokeToken(String tokenId, Long expiresAt);
+
+  /**
+   * Revokes every access token of the user issued until now.
+   */
+  void revokeUser(String userId);
+
+  /**
+   * The unexpired revocations with an id greater than {@code after}, in id order, a page at a time.
+   */
+  List<TokenRevocation> getRevocations(long after);
+}
@@ -1,7 +1,9 @@
 package com.devd.spring.bookstoreaccountservice.service;
 
+import com.devd.spring.bookstoreaccountservice.repository.dao.User;
 import com.devd.spring.bookstoreaccountservice.web.MapRoleToUsersRequest;
 import com.devd.spring.bookstoreaccountservice.web.MapUserToRolesRequest;
+import java.util.List;
 
 /**
  * @author: Devaraj Reddy, Date : 2019-09-27
@@ -12,5 +14,10 @@ public interface UserRoleService {
 
   void removeRolesFromUser(String userNameOrEmail, MapUserToRolesRequest mapUserToRolesRequest);
 
+  /**
+   * Gives the user exactly the named roles, writing only the roles that were added or removed.
+   */
+  void replaceUserRoles(User user, List<String> roleNames);
+
   void mapRoleToUsers(String roleName, MapRoleToUsersRequest mapRoleToUsersRequest);
 }
@@ -3,11 +3,11 @@ package com.devd.spring.bookstoreaccountservice.service;
 import com.devd.spring.bookstoreaccountservice.web.CreateUserRequest;
 import com.devd.spring.bookstoreaccountservice.web.GetUserInfoResponse;
 import com.devd.spring.bookstoreaccountservice.web.GetUserResponse;
+import com.devd.spring.bookstoreaccountservice.web.GetUsersResponse;
+import com.devd.spring.bookstoreaccountservice.web.SearchUsersRequest;
 import com.devd.spring.bookstoreaccountservice.web.UpdateUserRequest;
 import com.devd.spring.bookstoreaccountservice.web.UpdateUserRequestFromAdmin;
 
-import java.util.List;
-
 /**
  * @author: Devaraj Reddy, Date : 2019-09-27
  */
@@ -25,7 +25,7 @@ public interface UserService {
 
   void deleteUserById(String userId);
 
-  List<GetUserResponse> getAllUsers();
+  GetUsersResponse searchUsers(SearchUsersRequest searchUsersRequest);
 
   void updateUser(String userId, UpdateUserRequestFromAdmin updateUserRequestFromAdmin);
 }
@@ -2,11 +2,19 @@ package com.devd.spring.bookstoreaccountservice.service.impl;
 
 import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
 import com.devd.spring.bookstoreaccountservice.repository.dao.User;
+import com.devd.spring.bookstoreaccountservice.security.AppUser;
 import com.devd.spring.bookstoreaccountservice.service.AppUserDetailsService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,9 +30,52 @@ public class AppUserDetailsServiceImpl implements AppUserDetailsService {
   @Autowired
   private UserRepository userRepository;
 
+  //keyed by the user name or email the user signed in with, unknown users are not cached
+  private final Cache<String, AppUser> users;
+
+  public AppUserDetailsServiceImpl(
+      @Value("${security.user-details-cache.max-size:10000}") long maximumSize,
+      @Value("${security.user-details-cache.ttl:5m}") Duration ttl,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.users = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, users, "userDetails"));
+  }
+
   @Override
   public UserDetails loadUserByUsername(String userNameOrEmail) throws UsernameNotFoundException {
 
+    return users.get(userNameOrEmail, this::loadUser).copy();
+  }
+
+  /**
+   * Called after a successful sign in whose stored hash is weaker than the configured cost, with
+   * the password hashed again at that cost.
+   */
+  @Override
+  public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+
+    User user = userRepository.findByUserName(userDetails.getUsername()).orElseThrow(() ->
+        new UsernameNotFoundException(String.format("The username %s doesn't exist",
+            userDetails.getUsername()))
+    );
+    user.setPassword(newPassword);
+    userRepository.save(user);
+    evictUser(user.getUserId());
+
+    return new AppUser(user.getUserId(), user.getUserName(), newPassword, userDetails.getAuthorities());
+  }
+
+  @Override
+  public void evictUser(String userId) {
+    users.asMap().values().removeIf(user -> user.getUserId().equals(userId));
+  }
+
+  private AppUser loadUser(String userNameOrEmail) {
+
     Optional<User> userOptional = userRepository
         .findByUserNameOrEmail(userNameOrEmail, userNameOrEmail);
 
@@ -38,9 +89,6 @@ public class AppUserDetailsServiceImpl implements AppUserDetailsService {
       authorities.add(new SimpleGrantedAuthority(role.getRoleName()));
     });
 
-    UserDetails userDetails = new org.springframework.security.core.userdetails.
-        User(user.getUserName(), user.getPassword(), authorities);
-
-    return userDetails;
+    return new AppUser(user.getUserId(), user.getUserName(), user.getPassword(), authorities);
   }
 }
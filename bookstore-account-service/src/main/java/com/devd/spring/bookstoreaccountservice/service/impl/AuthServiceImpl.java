@@ -1,21 +1,20 @@
 package com.devd.spring.bookstoreaccountservice.service.impl;
 
 import com.devd.spring.bookstoreaccountservice.repository.OAuthClientRepository;
-import com.devd.spring.bookstoreaccountservice.repository.RoleRepository;
 import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
 import com.devd.spring.bookstoreaccountservice.repository.dao.OAuthClient;
 import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
+import com.devd.spring.bookstoreaccountservice.security.OffloadingPasswordEncoder;
 import com.devd.spring.bookstoreaccountservice.service.AuthService;
 import com.devd.spring.bookstoreaccountservice.web.CreateOAuthClientRequest;
 import com.devd.spring.bookstoreaccountservice.web.CreateOAuthClientResponse;
 import com.devd.spring.bookstoreaccountservice.web.CreateUserResponse;
 import com.devd.spring.bookstoreaccountservice.web.SignUpRequest;
-import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.core.io.Resource;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
@@ -28,13 +27,13 @@ import java.util.UUID;
 public class AuthServiceImpl implements AuthService {
 
   @Autowired
-  BCryptPasswordEncoder passwordEncoder;
+  OffloadingPasswordEncoder passwordEncoder;
 
   @Autowired
   UserRepository userRepository;
 
   @Autowired
-  RoleRepository roleRepository;
+  RoleRegistry roleRegistry;
 
   @Autowired
   OAuthClientRepository oAuthClientRepository;
@@ -42,6 +41,9 @@ public class AuthServiceImpl implements AuthService {
   @Autowired
   AuthenticationManager authenticationManager;
 
+  @Autowired
+  SignupMembershipFilter signupMembershipFilter;
+
   @Value("${security.jwt.key-store}")
   private Resource keyStore;
 
@@ -86,13 +88,8 @@ public class AuthServiceImpl implements AuthService {
   @Override
   public CreateUserResponse registerUser(SignUpRequest signUpRequest) {
 
-    if (userRepository.existsByUserName(signUpRequest.getUserName())) {
-      throw new RunTimeExceptionPlaceHolder("Username is already taken!!");
-    }
-
-    if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-      throw new RunTimeExceptionPlaceHolder("Email address already in use!!");
-    }
+    //reject taken user names and emails before spending a hash on them
+    signupMembershipFilter.checkAvailable(signUpRequest.getUserName(), signUpRequest.getEmail());
 
     // Creating user's account
     com.devd.spring.bookstoreaccountservice.repository.dao.User user =
@@ -105,13 +102,19 @@ public class AuthServiceImpl implements AuthService {
 
     user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-    Role userRole = roleRepository.findByRoleName("STANDARD_USER")
+    Role userRole = roleRegistry.findByRoleName("STANDARD_USER")
         .orElseThrow(() -> new RuntimeException("User Role not set."));
 
     user.setRoles(Collections.singleton(userRole));
 
-    com.devd.spring.bookstoreaccountservice.repository.dao.User savedUser =
-        userRepository.save(user);
+    com.devd.spring.bookstoreaccountservice.repository.dao.User savedUser;
+    try {
+      savedUser = userRepository.save(user);
+    } catch (DataIntegrityViolationException e) {
+      signupMembershipFilter.rejectIfTaken(user.getUserName(), user.getEmail());
+      throw e;
+    }
+    signupMembershipFilter.record(savedUser.getUserName(), savedUser.getEmail());
 
     return CreateUserResponse.builder()
         .userId(savedUser.getUserId())
@@ -0,0 +1,54 @@
+package com.devd.spring.bookstoreaccountservice.service.impl;
+
+import com.devd.spring.bookstoreaccountservice.repository.RoleRepository;
+import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every role by name, so mapping users to roles does not read the ROLE table once per role name.
+ *
+ * Loaded at startup and again whenever this instance creates a role. A name it does not know is
+ * looked up in the database, which also picks up the roles other instances created meanwhile.
+ * The roles are detached entities, only their ids and columns may be used.
+ */
+@Slf4j
+@Component
+public class RoleRegistry {
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  private volatile Map<String, Role> rolesByName = Collections.emptyMap();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void reload() {
+    Map<String, Role> loaded = new HashMap<>();
+    roleRepository.findAll().forEach(role -> loaded.put(role.getRoleName(), role));
+    rolesByName = Collections.unmodifiableMap(loaded);
+    log.info("Role registry loaded {} roles", loaded.size());
+  }
+
+  public Optional<Role> findByRoleName(String roleName) {
+    Role role = rolesByName.get(roleName);
+    if (role != null) {
+      return Optional.of(role);
+    }
+    Optional<Role> stored = roleRepository.findByRoleName(roleName);
+    stored.ifPresent(this::add);
+    return stored;
+  }
+
+  private synchronized void add(Role role) {
+    Map<String, Role> updated = new HashMap<>(rolesByName);
+    updated.put(role.getRoleName(), role);
+    rolesByName = Collections.unmodifiableMap(updated);
+  }
+}
@@ -17,6 +17,8 @@ public class RoleServiceImpl implements RoleService {
   @Autowired
   RoleRepository roleRepository;
 
+  @Autowired
+  RoleRegistry roleRegistry;
 
   @Override
   public String createRole(CreateRoleRequest createRoleRequest) {
@@ -27,6 +29,7 @@ public class RoleServiceImpl implements RoleService {
         .build();
 
     Role savedRole = roleRepository.save(role);
+    roleRegistry.reload();
     return savedRole.getId();
   }
 
@@ -0,0 +1,125 @@
+package com.devd.spring.bookstoreaccountservice.service.impl;
+
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserNameAndEmail;
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorecommons.util.BloomFilter;
+import java.util.List;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks that the user name and email of a sign up are free before the password is hashed.
+ *
+ * Bloom filters of every user name and email answer "certainly free" for most new sign ups
+ * without touching the database. Anything they might contain is confirmed with one query for both
+ * values. The filters only know the sign ups of this instance since they were built, so the unique
+ * constraints of the USER table stay the source of truth, see {@link #rejectIfTaken(String, String)}.
+ */
+@Slf4j
+@Component
+public class SignupMembershipFilter {
+
+  private static final int LOAD_PAGE_SIZE = 10_000;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Value("${security.signup-filter.expected-users:1000000}")
+  private long expectedUsers;
+
+  @Value("${security.signup-filter.false-positive-probability:0.01}")
+  private double falsePositiveProbability;
+
+  //null until built at startup, every check goes to the database meanwhile
+  private volatile Filters filters;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    Filters rebuilt = new Filters(new BloomFilter(expectedUsers, falsePositiveProbability),
+        new BloomFilter(expectedUsers, falsePositiveProbability));
+
+    long count = 0;
+    Slice<UserNameAndEmail> slice = userRepository.findAllUserNamesAndEmails(
+        PageRequest.of(0, LOAD_PAGE_SIZE, Sort.by("userId")));
+    while (true) {
+      for (UserNameAndEmail user : slice) {
+        rebuilt.put(user.getUserName(), user.getEmail());
+        count++;
+      }
+      if (!slice.hasNext()) {
+        break;
+      }
+      slice = userRepository.findAllUserNamesAndEmails(slice.nextPageable());
+    }
+
+    this.filters = rebuilt;
+    log.info("Signup membership filters built from {} users", count);
+  }
+
+  public void checkAvailable(String userName, String email) {
+    Filters current = filters;
+    if (current != null && !current.mightContainUserName(userName) && !current.mightContainEmail(email)) {
+      return;
+    }
+    rejectIfTaken(userName, email);
+  }
+
+  /**
+   * Throws the same error as a sign up would for a taken user name or email, to be called when a
+   * save fails on a unique constraint that another instance filled after {@link #checkAvailable}.
+   */
+  public void rejectIfTaken(String userName, String email) {
+    List<UserNameAndEmail> taken = userRepository.findUserNameAndEmailByUserNameOrEmail(userName, email);
+    for (UserNameAndEmail user : taken) {
+      if (user.getUserName().equalsIgnoreCase(userName)) {
+        throw new RunTimeExceptionPlaceHolder("Username is already taken!!");
+      }
+    }
+    if (!taken.isEmpty()) {
+      throw new RunTimeExceptionPlaceHolder("Email address already in use!!");
+    }
+  }
+
+  public void record(String userName, String email) {
+    Filters current = filters;
+    if (current != null) {
+      current.put(userName, email);
+    }
+  }
+
+  private static final class Filters {
+
+    private final BloomFilter userNames;
+    private final BloomFilter emails;
+
+    private Filters(BloomFilter userNames, BloomFilter emails) {
+      this.userNames = userNames;
+      this.emails = emails;
+    }
+
+    //lower cased, the database may compare them ignoring case and a false positive only costs a query
+    private void put(String userName, String email) {
+      userNames.put(userName.toLowerCase(Locale.ROOT));
+      if (email != null) {
+        emails.put(email.toLowerCase(Locale.ROOT));
+      }
+    }
+
+    private boolean mightContainUserName(String userName) {
+      return userNames.mightContain(userName.toLowerCase(Locale.ROOT));
+    }
+
+    private boolean mightContainEmail(String email) {
+      return emails.mightContain(email.toLowerCase(Locale.ROOT));
+    }
+  }
+}
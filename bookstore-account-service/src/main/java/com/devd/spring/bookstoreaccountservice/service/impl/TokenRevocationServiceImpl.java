@@ -0,0 +1,68 @@
+package com.devd.spring.bookstoreaccountservice.service.impl;
+
+import com.devd.spring.bookstoreaccountservice.repository.RevocationRepository;
+import com.devd.spring.bookstoreaccountservice.repository.dao.Revocation;
+import com.devd.spring.bookstoreaccountservice.service.TokenRevocationService;
+import com.devd.spring.bookstorecommons.security.TokenRevocation;
+import com.devd.spring.bookstorecommons.security.TokenRevocationList;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+  private static final int PAGE_SIZE = 1000;
+
+  @Autowired
+  private RevocationRepository revocationRepository;
+
+  //built from this service, so looked up when revoking
+  @Autowired
+  private ObjectProvider<TokenRevocationList> tokenRevocationList;
+
+  //no access token lives longer, so a revocation is kept this long at most
+  @Value("${security.jwt.revocation-retention:3d}")
+  private Duration retention;
+
+  @Override
+  public void revokeToken(String tokenId, Long expiresAt) {
+    long now = System.currentTimeMillis();
+    save(Revocation.builder()
+        .tokenId(tokenId)
+        .revokedAt(now)
+        .expiresAt(expiresAt != null ? Math.min(expiresAt, now + retention.toMillis()) : now + retention.toMillis())
+        .build());
+  }
+
+  @Override
+  public void revokeUser(String userId) {
+    long now = System.currentTimeMillis();
+    save(Revocation.builder()
+        .userId(userId)
+        .revokedAt(now)
+        .expiresAt(now + retention.toMillis())
+        .build());
+  }
+
+  @Override
+  public List<TokenRevocation> getRevocations(long after) {
+    return revocationRepository.findByIdGreaterThanAndExpiresAtGreaterThanOrderById(after,
+        System.currentTimeMillis(), PageRequest.of(0, PAGE_SIZE))
+        .stream()
+        .map(Revocation::toTokenRevocation)
+        .collect(Collectors.toList());
+  }
+
+  //the other services see the revocation on their next poll, this one right away
+  private void save(Revocation revocation) {
+    revocationRepository.deleteExpired(revocation.getRevokedAt());
+    revocationRepository.save(revocation);
+    tokenRevocationList.ifAvailable(TokenRevocationList::refresh);
+  }
+}
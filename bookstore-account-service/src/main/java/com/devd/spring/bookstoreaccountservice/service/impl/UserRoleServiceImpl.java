@@ -1,17 +1,23 @@
 package com.devd.spring.bookstoreaccountservice.service.impl;
 
 import com.devd.spring.bookstoreaccountservice.exception.SuccessCodeWithErrorResponse;
-import com.devd.spring.bookstoreaccountservice.repository.RoleRepository;
 import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserIdAndName;
 import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
 import com.devd.spring.bookstoreaccountservice.repository.dao.User;
+import com.devd.spring.bookstoreaccountservice.service.AppUserDetailsService;
 import com.devd.spring.bookstoreaccountservice.service.UserRoleService;
 import com.devd.spring.bookstoreaccountservice.web.MapRoleToUsersRequest;
 import com.devd.spring.bookstoreaccountservice.web.MapUserToRolesRequest;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import com.devd.spring.bookstorecommons.exception.Error;
 import com.devd.spring.bookstorecommons.exception.ErrorResponse;
@@ -29,42 +35,20 @@ public class UserRoleServiceImpl implements UserRoleService {
   UserRepository userRepository;
 
   @Autowired
-  RoleRepository roleRepository;
+  RoleRegistry roleRegistry;
+
+  @Autowired
+  AppUserDetailsService appUserDetailsService;
 
   @Override
   public void mapUserToRoles(String userNameOrEmail, MapUserToRolesRequest mapUserToRolesRequest) {
 
-    Optional<User> userNameOrEmailOptional = userRepository
-        .findByUserNameOrEmail(userNameOrEmail, userNameOrEmail);
-
-    User user = userNameOrEmailOptional.orElseThrow(() ->
-        new RunTimeExceptionPlaceHolder("UserNameOrEmail doesn't exist!!")
-    );
-
-    Set<Role> roles = user.getRoles();
-
-    ErrorResponse errorResponse = ErrorResponse.builder()
-        .uuid(UUID.randomUUID())
-        .errors(new ArrayList<>())
-        .build();
-
-    mapUserToRolesRequest.getRoleNames().forEach(roleName -> {
-      //if role exists add to list and persist, else add to error response persist valid roles and send
-      // response containing invalid roles.
-      roleRepository.findByRoleName(roleName).<Runnable>map(role -> () -> roles.add(role))
-          .orElse(() -> {
-            Error error = Error.builder()
-                .code("400")
-                .message(roleName + " role doesn't exist!!")
-                .build();
-            errorResponse.getErrors().add(error);
-          })
-          .run();
-    });
-
-    user.setRoles(roles);
+    User user = findUser(userNameOrEmail);
 
-    userRepository.save(user);
+    ErrorResponse errorResponse = newErrorResponse();
+    Set<String> roleIds = roleIds(user.getRoles());
+    roleIds.addAll(resolveRoleIds(mapUserToRolesRequest.getRoleNames(), errorResponse));
+    applyRoles(user, roleIds);
 
     if (!errorResponse.getErrors().isEmpty()) {
       throw new SuccessCodeWithErrorResponse(errorResponse);
@@ -75,37 +59,23 @@ public class UserRoleServiceImpl implements UserRoleService {
   @Override
   public void removeRolesFromUser(String userNameOrEmail, MapUserToRolesRequest mapUserToRolesRequest) {
 
-    Optional<User> userNameOrEmailOptional = userRepository
-            .findByUserNameOrEmail(userNameOrEmail, userNameOrEmail);
+    User user = findUser(userNameOrEmail);
 
-    User user = userNameOrEmailOptional.orElseThrow(() ->
-            new RunTimeExceptionPlaceHolder("UserNameOrEmail doesn't exist!!")
-    );
+    ErrorResponse errorResponse = newErrorResponse();
+    Set<String> roleIds = roleIds(user.getRoles());
+    roleIds.removeAll(resolveRoleIds(mapUserToRolesRequest.getRoleNames(), errorResponse));
+    applyRoles(user, roleIds);
 
-    Set<Role> roles = user.getRoles();
-
-    ErrorResponse errorResponse = ErrorResponse.builder()
-            .uuid(UUID.randomUUID())
-            .errors(new ArrayList<>())
-            .build();
-
-    mapUserToRolesRequest.getRoleNames().forEach(roleName -> {
-      //if role exists add to list and persist, else add to error response persist valid roles and send
-      // response containing invalid roles.
-      roleRepository.findByRoleName(roleName).<Runnable>map(role -> () -> roles.remove(role))
-              .orElse(() -> {
-                Error error = Error.builder()
-                        .code("400")
-                        .message(roleName + " role doesn't exist!!")
-                        .build();
-                errorResponse.getErrors().add(error);
-              })
-              .run();
-    });
+    if (!errorResponse.getErrors().isEmpty()) {
+      throw new SuccessCodeWithErrorResponse(errorResponse);
+    }
+  }
 
-    user.setRoles(roles);
+  @Override
+  public void replaceUserRoles(User user, List<String> roleNames) {
 
-    userRepository.save(user);
+    ErrorResponse errorResponse = newErrorResponse();
+    applyRoles(user, resolveRoleIds(roleNames, errorResponse));
 
     if (!errorResponse.getErrors().isEmpty()) {
       throw new SuccessCodeWithErrorResponse(errorResponse);
@@ -115,30 +85,85 @@ public class UserRoleServiceImpl implements UserRoleService {
   @Override
   public void mapRoleToUsers(String roleName, MapRoleToUsersRequest mapRoleToUsersRequest) {
 
-    Role role = roleRepository.findByRoleName(roleName)
+    Role role = roleRegistry.findByRoleName(roleName)
         .orElseThrow(() -> new RuntimeException("Role doesn't exist!!"));
 
-    ErrorResponse errorResponse = ErrorResponse.builder()
-        .uuid(UUID.randomUUID())
-        .errors(new ArrayList<>())
-        .build();
+    ErrorResponse errorResponse = newErrorResponse();
 
-    mapRoleToUsersRequest.getUserNames().forEach(userName -> {
-      userRepository.findByUserName(userName).<Runnable>map(user -> () -> role.addUser(user))
-          .orElse(() -> {
-            Error error = Error.builder()
-                .code("400")
-                .message(userName + " userName doesn't exist!!")
-                .build();
-            errorResponse.getErrors().add(error);
-          })
-          .run();
-    });
+    Set<String> userNames = new LinkedHashSet<>(mapRoleToUsersRequest.getUserNames());
+    List<UserIdAndName> users = userNames.isEmpty()
+        ? Collections.emptyList() : userRepository.findUserIdsByUserNameIn(userNames);
+    users.forEach(user -> userNames.remove(user.getUserName()));
+    userNames.forEach(userName -> errorResponse.getErrors().add(Error.builder()
+        .code("400")
+        .message(userName + " userName doesn't exist!!")
+        .build()));
 
-    roleRepository.save(role);
+    List<String> mappedUserIds = users.stream().map(UserIdAndName::getUserId).collect(Collectors.toList());
+    if (!mappedUserIds.isEmpty()) {
+      userRepository.addRoleToUsers(role.getId(), mappedUserIds);
+    }
+    mappedUserIds.forEach(appUserDetailsService::evictUser);
 
     if (!errorResponse.getErrors().isEmpty()) {
       throw new SuccessCodeWithErrorResponse(errorResponse);
     }
   }
+
+  private User findUser(String userNameOrEmail) {
+    Optional<User> userNameOrEmailOptional = userRepository
+        .findByUserNameOrEmail(userNameOrEmail, userNameOrEmail);
+
+    return userNameOrEmailOptional.orElseThrow(() ->
+        new RunTimeExceptionPlaceHolder("UserNameOrEmail doesn't exist!!")
+    );
+  }
+
+  //ids of the existing roles, unknown names are reported in the error response
+  private Set<String> resolveRoleIds(List<String> roleNames, ErrorResponse errorResponse) {
+    Set<String> roleIds = new HashSet<>();
+    roleNames.forEach(roleName -> {
+      Optional<Role> role = roleRegistry.findByRoleName(roleName);
+      if (role.isPresent()) {
+        roleIds.add(role.get().getId());
+      } else {
+        errorResponse.getErrors().add(Error.builder()
+            .code("400")
+            .message(roleName + " role doesn't exist!!")
+            .build());
+      }
+    });
+    return roleIds;
+  }
+
+  //writes only the USER_ROLES rows that differ from the roles the user holds now
+  private void applyRoles(User user, Set<String> roleIds) {
+    Set<String> currentRoleIds = roleIds(user.getRoles());
+
+    Set<String> added = new HashSet<>(roleIds);
+    added.removeAll(currentRoleIds);
+    Set<String> removed = new HashSet<>(currentRoleIds);
+    removed.removeAll(roleIds);
+
+    if (added.isEmpty() && removed.isEmpty()) {
+      return;
+    }
+    userRepository.updateRoles(user.getUserId(), added, removed);
+    appUserDetailsService.evictUser(user.getUserId());
+  }
+
+  private static Set<String> roleIds(Set<Role> roles) {
+    Set<String> roleIds = new HashSet<>();
+    if (roles != null) {
+      roles.forEach(role -> roleIds.add(role.getId()));
+    }
+    return roleIds;
+  }
+
+  private static ErrorResponse newErrorResponse() {
+    return ErrorResponse.builder()
+        .uuid(UUID.randomUUID())
+        .errors(new ArrayList<>())
+        .build();
+  }
 }
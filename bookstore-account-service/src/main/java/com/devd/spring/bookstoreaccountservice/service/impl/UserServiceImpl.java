@@ -1,31 +1,40 @@
 package com.devd.spring.bookstoreaccountservice.service.impl;
 
 import com.devd.spring.bookstoreaccountservice.exception.SuccessCodeWithErrorResponse;
-import com.devd.spring.bookstoreaccountservice.repository.RoleRepository;
 import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
 import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
 import com.devd.spring.bookstoreaccountservice.repository.dao.User;
+import com.devd.spring.bookstoreaccountservice.security.OffloadingPasswordEncoder;
+import com.devd.spring.bookstoreaccountservice.service.AppUserDetailsService;
+import com.devd.spring.bookstoreaccountservice.service.TokenRevocationService;
 import com.devd.spring.bookstoreaccountservice.service.UserRoleService;
 import com.devd.spring.bookstoreaccountservice.service.UserService;
 import com.devd.spring.bookstoreaccountservice.web.CreateUserRequest;
 import com.devd.spring.bookstoreaccountservice.web.GetUserInfoResponse;
 import com.devd.spring.bookstoreaccountservice.web.GetUserResponse;
-import com.devd.spring.bookstoreaccountservice.web.MapUserToRolesRequest;
+import com.devd.spring.bookstoreaccountservice.web.GetUsersResponse;
+import com.devd.spring.bookstoreaccountservice.web.SearchUsersRequest;
 import com.devd.spring.bookstoreaccountservice.web.UpdateUserRequest;
 import com.devd.spring.bookstoreaccountservice.web.UpdateUserRequestFromAdmin;
 import com.devd.spring.bookstorecommons.exception.Error;
 import com.devd.spring.bookstorecommons.exception.ErrorResponse;
 import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -36,29 +45,33 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
   @Autowired
-  private BCryptPasswordEncoder passwordEncoder;
+  private OffloadingPasswordEncoder passwordEncoder;
 
   @Autowired
   private UserRepository userRepository;
 
   @Autowired
-  private RoleRepository roleRepository;
+  private RoleRegistry roleRegistry;
 
   @Autowired
   private UserRoleService userRoleService;
 
+  @Autowired
+  private AppUserDetailsService appUserDetailsService;
+
+  @Autowired
+  private SignupMembershipFilter signupMembershipFilter;
+
+  @Autowired
+  private TokenRevocationService tokenRevocationService;
+
   @Override
   public String createUser(CreateUserRequest createUserRequest) {
 
-    String encodedPassword = passwordEncoder.encode(createUserRequest.getPassword());
-
-    if (userRepository.existsByUserName(createUserRequest.getUserName())) {
-      throw new RunTimeExceptionPlaceHolder("Username is already taken!!");
-    }
+    //reject taken user names and emails before spending a hash on them
+    signupMembershipFilter.checkAvailable(createUserRequest.getUserName(), createUserRequest.getEmail());
 
-    if (userRepository.existsByEmail(createUserRequest.getEmail())) {
-      throw new RunTimeExceptionPlaceHolder("Email address already in use!!");
-    }
+    String encodedPassword = passwordEncoder.encode(createUserRequest.getPassword());
 
     ErrorResponse errorResponse = ErrorResponse.builder()
         .uuid(UUID.randomUUID())
@@ -71,7 +84,7 @@ public class UserServiceImpl implements UserService {
 
       //if role exists add to list and persist, else add to error response persist valid roles and send
       // response containing invalid roles.
-      roleRepository.findByRoleName(roleName).<Runnable>map(role -> () -> validRoles.add(role))
+      roleRegistry.findByRoleName(roleName).<Runnable>map(role -> () -> validRoles.add(role))
           .orElse(() -> {
             Error error = Error.builder()
                 .code("400")
@@ -91,7 +104,14 @@ public class UserServiceImpl implements UserService {
         .roles(new HashSet<>(validRoles))
         .build();
 
-    User savedUser = userRepository.save(user);
+    User savedUser;
+    try {
+      savedUser = userRepository.save(user);
+    } catch (DataIntegrityViolationException e) {
+      signupMembershipFilter.rejectIfTaken(user.getUserName(), user.getEmail());
+      throw e;
+    }
+    signupMembershipFilter.record(savedUser.getUserName(), savedUser.getEmail());
 
     if (!errorResponse.getErrors().isEmpty()) {
       throw new SuccessCodeWithErrorResponse(savedUser.getUserId(), errorResponse);
@@ -180,6 +200,8 @@ public class UserServiceImpl implements UserService {
     }
 
     userRepository.save(userByUserName);
+    appUserDetailsService.evictUser(userByUserName.getUserId());
+    signupMembershipFilter.record(userByUserName.getUserName(), userByUserName.getEmail());
   }
 
   @Override
@@ -193,26 +215,52 @@ public class UserServiceImpl implements UserService {
     }
 
     userRepository.deleteByUserId(userId);
+    appUserDetailsService.evictUser(userId);
+    //ends the sessions of the deleted user on every service, not only once their tokens expire
+    tokenRevocationService.revokeUser(userId);
   }
 
   @Override
-  public List<GetUserResponse> getAllUsers() {
-
-    Iterable<User> all = userRepository.findAll();
-    List<GetUserResponse> allUsers = new ArrayList<>();
-    all.iterator().forEachRemaining(u->{
-      GetUserResponse userResponse = GetUserResponse.builder()
-              .userId(u.getUserId())
-              .userName(u.getUserName())
-              .firstName(u.getFirstName())
-              .lastName(u.getLastName())
-              .email(u.getEmail())
-              .roles(u.getRoles())
-              .build();
-      allUsers.add(userResponse);
-    });
+  public GetUsersResponse searchUsers(SearchUsersRequest searchUsersRequest) {
+
+    String prefix = StringUtils.hasText(searchUsersRequest.getQ())
+        ? escapeLike(searchUsersRequest.getQ().trim()) + "%" : null;
+    String roleName = StringUtils.hasText(searchUsersRequest.getRole()) ? searchUsersRequest.getRole() : null;
+    String after = searchUsersRequest.getAfter() == null ? "" : searchUsersRequest.getAfter();
+
+    Slice<UserRepository.UserSummary> page = userRepository.searchUsers(after, prefix, roleName,
+        searchUsersRequest.getCreatedFrom(), searchUsersRequest.getCreatedTo(),
+        PageRequest.of(0, searchUsersRequest.getSize()));
+
+    //roles of the whole page in one query, instead of the eager fetch of every user
+    Map<String, Set<Role>> rolesByUserId = new HashMap<>();
+    if (page.hasContent()) {
+      List<String> userIds = page.getContent().stream()
+          .map(UserRepository.UserSummary::getUserId)
+          .collect(Collectors.toList());
+      userRepository.findRolesByUserIdIn(userIds).forEach(userRole ->
+          rolesByUserId.computeIfAbsent(userRole.getUserId(), id -> new HashSet<>()).add(userRole.getRole()));
+    }
+
+    List<GetUserResponse> users = page.getContent().stream()
+        .map(u -> GetUserResponse.builder()
+            .userId(u.getUserId())
+            .userName(u.getUserName())
+            .firstName(u.getFirstName())
+            .lastName(u.getLastName())
+            .email(u.getEmail())
+            .roles(rolesByUserId.getOrDefault(u.getUserId(), new HashSet<>()))
+            .build())
+        .collect(Collectors.toList());
+
+    return GetUsersResponse.builder()
+        .users(users)
+        .nextCursor(page.hasNext() ? users.get(users.size() - 1).getUserName() : null)
+        .build();
+  }
 
-    return allUsers;
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
   }
 
   @Override
@@ -234,20 +282,12 @@ public class UserServiceImpl implements UserService {
       user.setEmail(updateUserRequestFromAdmin.getEmail());
     }
 
-    if(user.getRoles().size()>0){
-      MapUserToRolesRequest mapUserToRolesRequest = new MapUserToRolesRequest();
-      List<String> existingRoles = user.getRoles().stream().map(Role::getRoleName).collect(Collectors.toList());
-      mapUserToRolesRequest.setRoleNames(existingRoles);
-      userRoleService.removeRolesFromUser(user.getUserName(), mapUserToRolesRequest);
-    }
-
-    if (updateUserRequestFromAdmin.getRoles().size() > 0) {
-      MapUserToRolesRequest mapUserToRolesRequest = new MapUserToRolesRequest();
-      mapUserToRolesRequest.setRoleNames(updateUserRequestFromAdmin.getRoles());
-      userRoleService.mapUserToRoles(user.getUserName(), mapUserToRolesRequest);
-    }
-
     userRepository.save(user);
+    appUserDetailsService.evictUser(user.getUserId());
+    signupMembershipFilter.record(user.getUserName(), user.getEmail());
+
+    //only the roles that differ from the current ones are written to USER_ROLES
+    userRoleService.replaceUserRoles(user, updateUserRequestFromAdmin.getRoles());
   }
 
 }
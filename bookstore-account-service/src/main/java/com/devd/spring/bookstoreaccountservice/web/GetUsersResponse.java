@@ -0,0 +1,22 @@
+package com.devd.spring.bookstoreaccountservice.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of users ordered by user name, nextCursor is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class GetUsersResponse {
+
+  private List<GetUserResponse> users;
+  private String nextCursor;
+
+}
@@ -0,0 +1,21 @@
+package com.devd.spring.bookstoreaccountservice.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Revokes a single access token by its {@code jti}, all access tokens of a user, or both.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokeTokensRequest {
+
+  private String tokenId;
+
+  //epoch milliseconds the token expires at, if known
+  private Long tokenExpiresAt;
+
+  private String userId;
+}
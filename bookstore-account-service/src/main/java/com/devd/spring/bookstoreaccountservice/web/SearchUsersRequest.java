@@ -0,0 +1,40 @@
+package com.devd.spring.bookstoreaccountservice.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import java.time.Instant;
+
+/**
+ * Filters and keyset cursor of {@code GET /users}, all optional.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchUsersRequest {
+
+    //prefix of the user name or the email
+    @Size(max = 40, message = "query length should not be grater than 40 characters")
+    private String q;
+
+    private String role;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant createdFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant createdTo;
+
+    //nextCursor of the previous page
+    private String after;
+
+    @Min(value = 1, message = "size should be at least 1")
+    @Max(value = 200, message = "size should not be greater than 200")
+    private int size = 50;
+
+}
@@ -0,0 +1,6 @@
+-- admin user search filters on the creation date and on the roles of a page of users
+CREATE INDEX USER_CREATED_AT_INDEX ON USER (CREATED_AT);
+
+-- covers the role lookups of a page of users, and replaces the single column index behind USER_FK
+CREATE INDEX USER_ROLES_USER_ROLE_INDEX ON USER_ROLES (USER_ID, ROLE_ID);
+DROP INDEX USER_FK_INDEX ON USER_ROLES;
@@ -0,0 +1,11 @@
+-- revoked access tokens (TOKEN_ID) and users (USER_ID), read by every resource server by increasing REVOCATION_ID
+-- times are epoch milliseconds; a row is deleted once EXPIRES_AT passed, no token it applies to is valid anymore
+CREATE TABLE IF NOT EXISTS TOKEN_REVOCATION (
+	REVOCATION_ID BIGINT NOT NULL AUTO_INCREMENT,
+	TOKEN_ID VARCHAR(255),
+	USER_ID VARCHAR(255),
+	REVOKED_AT BIGINT NOT NULL,
+	EXPIRES_AT BIGINT NOT NULL,
+	PRIMARY KEY (REVOCATION_ID)
+);
+CREATE INDEX TOKEN_REVOCATION_EXPIRES_AT_INDEX ON TOKEN_REVOCATION (EXPIRES_AT);
@@ -0,0 +1,160 @@
+package com.devd.spring.bookstoreaccountservice.benchmark;
+
+import com.devd.spring.bookstoreaccountservice.BookstoreAccountServiceApplication;
+import com.devd.spring.bookstoreaccountservice.service.AuthService;
+import com.devd.spring.bookstoreaccountservice.web.CreateOAuthClientRequest;
+import com.devd.spring.bookstoreaccountservice.web.CreateOAuthClientResponse;
+import com.devd.spring.bookstoreaccountservice.web.SignUpRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Throughput of {@code POST /oauth/token} with the password grant against a real MySQL.
+ *
+ * Skipped by default, run it with {@code mvn test -Dtest=TokenIssuanceBenchmarkTest -Dbenchmark=true}.
+ * It prints the tokens issued per second and the hit ratio of the user and client caches, which
+ * should be close to one since every request signs in the same user with the same client.
+ */
+@SpringBootTest(
+        classes = BookstoreAccountServiceApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@Testcontainers
+@ActiveProfiles("integration-test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TokenIssuanceBenchmarkTest {
+
+    private static final int WARMUP_REQUESTS = 50;
+    private static final int MEASURED_REQUESTS = 500;
+    private static final int THREADS = 8;
+    private static final String PASSWORD = "benchmarkPassword123";
+
+    @Container
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0.33")
+            .withDatabaseName("bookstore_test")
+            .withUsername("test")
+            .withPassword("test")
+            .withReuse(true);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.MySQL8Dialect");
+        registry.add("spring.cloud.discovery.enabled", () -> false);
+        registry.add("spring.sleuth.zipkin.enabled", () -> false);
+        registry.add("spring.sleuth.sampler.probability", () -> 0.0);
+        registry.add("logging.level.com.devd.spring", () -> "INFO");
+        registry.add("logging.level.org.springframework.security", () -> "INFO");
+        registry.add("logging.level.org.hibernate.SQL", () -> "INFO");
+    }
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+    private String userName;
+    private CreateOAuthClientResponse client;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+
+        userName = "bench-" + UUID.randomUUID().toString().substring(0, 8);
+        SignUpRequest signUpRequest = new SignUpRequest();
+        signUpRequest.setUserName(userName);
+        signUpRequest.setPassword(PASSWORD);
+        signUpRequest.setFirstName("Bench");
+        signUpRequest.setLastName("Mark");
+        signUpRequest.setEmail(userName + "@example.com");
+        authService.registerUser(signUpRequest);
+
+        CreateOAuthClientRequest clientRequest = new CreateOAuthClientRequest();
+        clientRequest.setAuthorities(Arrays.asList("STANDARD_USER"));
+        clientRequest.setAuthorized_grant_types(Arrays.asList("password", "refresh_token"));
+        clientRequest.setScope(Arrays.asList("read", "write"));
+        clientRequest.setResource_ids(Arrays.asList("web"));
+        client = authService.createOAuthClient(clientRequest);
+    }
+
+    @Test
+    void tokenIssuanceThroughput() throws Exception {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            assertThat(issueToken()).isEqualTo(200);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            statuses.add(executor.submit(this::issueToken));
+        }
+        for (Future<Integer> status : statuses) {
+            assertThat(status.get()).isEqualTo(200);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.printf("token issuance: %d requests on %d threads in %d ms, %.1f tokens/s%n",
+                MEASURED_REQUESTS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                MEASURED_REQUESTS / (elapsedNanos / 1e9));
+        System.out.printf("userDetails cache hit ratio %.3f, clientDetails cache hit ratio %.3f%n",
+                hitRatio("userDetails"), hitRatio("clientDetails"));
+
+        assertThat(hitRatio("userDetails")).isGreaterThan(0.9);
+    }
+
+    private int issueToken() throws Exception {
+        return mockMvc.perform(post("/oauth/token")
+                .with(httpBasic(client.getClient_id(), client.getClient_secret()))
+                .param("grant_type", "password")
+                .param("username", userName)
+                .param("password", PASSWORD))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private double hitRatio(String cacheName) {
+        double hits = meterRegistry.get("cache.gets").tag("cache", cacheName).tag("result", "hit")
+                .functionCounter().count();
+        double misses = meterRegistry.get("cache.gets").tag("cache", cacheName).tag("result", "miss")
+                .functionCounter().count();
+        double total = hits + misses;
+        return total == 0 ? 0 : hits / total;
+    }
+}
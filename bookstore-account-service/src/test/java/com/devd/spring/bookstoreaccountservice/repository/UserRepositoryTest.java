@@ -0,0 +1,134 @@
+package com.devd.spring.bookstoreaccountservice.repository;
+
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserIdAndRole;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserSummary;
+import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
+import com.devd.spring.bookstoreaccountservice.repository.dao.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the user search and the role updates against the in-memory database, the service tests mock
+ * the repository.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class UserRepositoryTest {
+
+    //only the repositories and entities, not the whole service behind the application class
+    @Configuration
+    @AutoConfigurationPackage
+    static class Config {
+    }
+
+    private static final Instant JANUARY = Instant.parse("2024-01-15T00:00:00Z");
+
+    private static final Instant MARCH = Instant.parse("2024-03-15T00:00:00Z");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Role admin;
+
+    private Role standard;
+
+    @BeforeEach
+    void setUp() {
+        admin = entityManager.persist(Role.builder().roleName("ADMIN_USER").build());
+        standard = entityManager.persist(Role.builder().roleName("STANDARD_USER").build());
+        user("alice", "alice@example.com", JANUARY, admin);
+        user("bob", "bob@example.com", JANUARY, null);
+        user("carol", "carol@example.com", MARCH, admin);
+        user("dave", "bob.jr@example.com", MARCH, null);
+        user("dev_d", "devd@example.com", MARCH, null);
+        user("devxd", "devxd@example.com", MARCH, null);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesInUserNameOrderFromTheCursor() {
+        Slice<UserSummary> first = userRepository.searchUsers("", null, null, null, null, PageRequest.of(0, 2));
+        assertThat(first.getContent()).extracting(UserSummary::getUserName).containsExactly("alice", "bob");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<UserSummary> last = userRepository.searchUsers("dave", null, null, null, null, PageRequest.of(0, 2));
+        assertThat(last.getContent()).extracting(UserSummary::getUserName).containsExactly("dev_d", "devxd");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void matchesAPrefixOfTheUserNameOrTheEmail() {
+        Slice<UserSummary> users = userRepository.searchUsers("", "bob%", null, null, null, PageRequest.of(0, 10));
+
+        assertThat(users.getContent()).extracting(UserSummary::getUserName).containsExactly("bob", "dave");
+        assertThat(users.getContent().get(0).getEmail()).isEqualTo("bob@example.com");
+    }
+
+    @Test
+    void treatsAnEscapedWildcardAsItself() {
+        Slice<UserSummary> users = userRepository.searchUsers("", "dev\\_d%", null, null, null, PageRequest.of(0, 10));
+
+        assertThat(users.getContent()).extracting(UserSummary::getUserName).containsExactly("dev_d");
+    }
+
+    @Test
+    void filtersByRoleAndCreationDate() {
+        Slice<UserSummary> admins = userRepository.searchUsers("", null, "ADMIN_USER", null, null, PageRequest.of(0, 10));
+        assertThat(admins.getContent()).extracting(UserSummary::getUserName).containsExactly("alice", "carol");
+
+        Slice<UserSummary> recentAdmins = userRepository.searchUsers("", null, "ADMIN_USER",
+                Instant.parse("2024-02-01T00:00:00Z"), Instant.parse("2024-04-01T00:00:00Z"), PageRequest.of(0, 10));
+        assertThat(recentAdmins.getContent()).extracting(UserSummary::getUserName).containsExactly("carol");
+        assertThat(recentAdmins.getContent().get(0).getCreatedAt()).isEqualTo(MARCH);
+    }
+
+    @Test
+    void appliesARoleChangeAsTheDifference() {
+        String aliceId = userRepository.findByUserName("alice").get().getUserId();
+
+        userRepository.updateRoles(aliceId, Collections.singletonList(standard.getId()),
+                Collections.singletonList(admin.getId()));
+        entityManager.clear();
+
+        assertThat(userRepository.findRolesByUserIdIn(Collections.singletonList(aliceId)))
+                .extracting(userRole -> userRole.getRole().getRoleName())
+                .containsExactly("STANDARD_USER");
+    }
+
+    @Test
+    void addsARoleOnlyToTheUsersMissingIt() {
+        String aliceId = userRepository.findByUserName("alice").get().getUserId();
+        String bobId = userRepository.findByUserName("bob").get().getUserId();
+
+        assertThat(userRepository.addRoleToUsers(admin.getId(), Arrays.asList(aliceId, bobId))).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(userRepository.findRolesByUserIdIn(Arrays.asList(aliceId, bobId)))
+                .extracting(UserIdAndRole::getUserId)
+                .containsExactlyInAnyOrder(aliceId, bobId);
+    }
+
+    private void user(String userName, String email, Instant createdAt, Role role) {
+        User user = new User(userName, "secret", userName, null, email);
+        user.setRoles(role == null ? new HashSet<>() : new HashSet<>(Collections.singleton(role)));
+        user.setCreatedAt(createdAt);
+        entityManager.persist(user);
+    }
+}
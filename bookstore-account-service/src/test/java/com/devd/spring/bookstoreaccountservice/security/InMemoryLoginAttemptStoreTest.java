@@ -0,0 +1,86 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.devd.spring.bookstoreaccountservice.exception.LoginThrottledException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class InMemoryLoginAttemptStoreTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private final InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(WINDOW, 1000, now::get);
+
+    @Test
+    void countsFailuresWithinTheWindow() {
+        store.recordFailure("user:devd");
+        store.recordFailure("user:devd");
+
+        assertThat(store.failures("user:devd")).isEqualTo(2.0);
+        assertThat(store.failures("user:someone-else")).isZero();
+    }
+
+    @Test
+    void previousWindowFadesOutAsTheWindowSlides() {
+        for (int i = 0; i < 10; i++) {
+            store.recordFailure("user:devd");
+        }
+
+        now.addAndGet(WINDOW.toMillis() + WINDOW.toMillis() / 4);
+        assertThat(store.failures("user:devd")).isCloseTo(7.5, offset(0.01));
+
+        now.addAndGet(WINDOW.toMillis());
+        assertThat(store.failures("user:devd")).isZero();
+    }
+
+    @Test
+    void resetForgetsTheKey() {
+        store.recordFailure("user:devd");
+
+        store.reset("user:devd");
+
+        assertThat(store.failures("user:devd")).isZero();
+    }
+
+    @Test
+    void throttleBlocksTheUserOnceTheLimitIsReached() {
+        LoginThrottle throttle = new LoginThrottle(store, 3, 100, WINDOW);
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAllowed("Devd", "10.0.0.1");
+            throttle.recordFailure("Devd", "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> throttle.checkAllowed("devd", "10.0.0.2"))
+                .isInstanceOf(LoginThrottledException.class);
+        throttle.checkAllowed("someone-else", "10.0.0.1");
+    }
+
+    @Test
+    void throttleBlocksTheAddressAcrossUsers() {
+        LoginThrottle throttle = new LoginThrottle(store, 100, 3, WINDOW);
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("user-" + i, "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> throttle.checkAllowed("user-9", "10.0.0.1"))
+                .isInstanceOf(LoginThrottledException.class);
+    }
+
+    @Test
+    void throttleLeavesAddressesAloneWithoutAnAddressLimit() {
+        LoginThrottle throttle = new LoginThrottle(store, 100, 0, WINDOW);
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("user-" + i, "10.0.0.1");
+        }
+
+        throttle.checkAllowed("user-9", "10.0.0.1");
+        assertThat(store.failures("address:10.0.0.1")).isZero();
+    }
+}
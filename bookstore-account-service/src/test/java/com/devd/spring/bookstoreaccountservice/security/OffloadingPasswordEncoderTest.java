@@ -0,0 +1,89 @@
+package com.devd.spring.bookstoreaccountservice.security;
+
+import com.devd.spring.bookstoreaccountservice.exception.PasswordHashingRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffloadingPasswordEncoderTest {
+
+    private OffloadingPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void hashesAndVerifiesOnThePool() {
+        encoder = new OffloadingPasswordEncoder(4, 1, 4, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("not-the-secret", hash)).isFalse();
+    }
+
+    @Test
+    void upgradesHashesWeakerThanTheConfiguredStrength() {
+        encoder = new OffloadingPasswordEncoder(6, 1, 4, Duration.ofSeconds(5));
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+    }
+
+    @Test
+    void rejectsRightAwayWhenThePoolIsSaturated() throws Exception {
+        //one hash running and one waiting, every other caller is turned away
+        encoder = new OffloadingPasswordEncoder(12, 1, 1, Duration.ofSeconds(30));
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(callers.submit(() -> encoder.encode("secret")));
+        }
+
+        int rejected = 0;
+        for (Future<String> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(PasswordHashingRejectedException.class);
+                rejected++;
+            }
+        }
+        callers.shutdown();
+
+        assertThat(rejected).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void takesAHashItGaveUpOnOffTheQueue() throws Exception {
+        encoder = new OffloadingPasswordEncoder(14, 1, 1, Duration.ofMillis(50));
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) ReflectionTestUtils.getField(encoder, "pool");
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        callers.submit(() -> encoder.encode("secret"));
+        while (pool.getActiveCount() == 0) {
+            Thread.sleep(5);
+        }
+
+        //still queued behind the running hash when it times out
+        assertThatThrownBy(() -> encoder.encode("secret")).isInstanceOf(PasswordHashingRejectedException.class);
+
+        assertThat(pool.getQueue()).isEmpty();
+        callers.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+package com.devd.spring.bookstoreaccountservice.service.impl;
+
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserNameAndEmail;
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SignupMembershipFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final SignupMembershipFilter filter = new SignupMembershipFilter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "userRepository", userRepository);
+        ReflectionTestUtils.setField(filter, "expectedUsers", 1000L);
+        ReflectionTestUtils.setField(filter, "falsePositiveProbability", 0.001);
+        when(userRepository.findAllUserNamesAndEmails(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(user("devd", "devd@example.com"))));
+    }
+
+    @Test
+    void skipsTheDatabaseForNamesTheFiltersHaveNeverSeen() {
+        filter.rebuild();
+
+        filter.checkAvailable("someone-new", "someone-new@example.com");
+
+        verify(userRepository, never()).findUserNameAndEmailByUserNameOrEmail(anyString(), anyString());
+    }
+
+    @Test
+    void confirmsWithTheDatabaseWhenTheFiltersMightContainTheName() {
+        filter.rebuild();
+        when(userRepository.findUserNameAndEmailByUserNameOrEmail("DEVD", "other@example.com"))
+                .thenReturn(Collections.singletonList(user("devd", "devd@example.com")));
+
+        assertThatThrownBy(() -> filter.checkAvailable("DEVD", "other@example.com"))
+                .isInstanceOf(RunTimeExceptionPlaceHolder.class)
+                .hasMessage("Username is already taken!!");
+    }
+
+    @Test
+    void rejectsTakenEmailsRecordedAfterStartup() {
+        filter.rebuild();
+        filter.record("newcomer", "newcomer@example.com");
+        when(userRepository.findUserNameAndEmailByUserNameOrEmail("another", "newcomer@example.com"))
+                .thenReturn(Collections.singletonList(user("newcomer", "newcomer@example.com")));
+
+        assertThatThrownBy(() -> filter.checkAvailable("another", "newcomer@example.com"))
+                .isInstanceOf(RunTimeExceptionPlaceHolder.class)
+                .hasMessage("Email address already in use!!");
+    }
+
+    @Test
+    void queriesTheDatabaseUntilTheFiltersAreBuilt() {
+        filter.checkAvailable("someone-new", "someone-new@example.com");
+
+        verify(userRepository).findUserNameAndEmailByUserNameOrEmail("someone-new", "someone-new@example.com");
+    }
+
+    private static UserNameAndEmail user(String userName, String email) {
+        return new UserNameAndEmail() {
+            @Override
+            public String getUserName() {
+                return userName;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.devd.spring.bookstoreaccountservice.service.impl;
+
+import com.devd.spring.bookstoreaccountservice.exception.SuccessCodeWithErrorResponse;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
+import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
+import com.devd.spring.bookstoreaccountservice.repository.dao.User;
+import com.devd.spring.bookstoreaccountservice.service.AppUserDetailsService;
+import com.devd.spring.bookstoreaccountservice.web.MapUserToRolesRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserRoleUpdateTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final RoleRegistry roleRegistry = mock(RoleRegistry.class);
+
+    private final AppUserDetailsService appUserDetailsService = mock(AppUserDetailsService.class);
+
+    private final UserRoleServiceImpl userRoleService = new UserRoleServiceImpl();
+
+    private final Role admin = Role.builder().id("r1").roleName("ADMIN_USER").build();
+
+    private final Role standard = Role.builder().id("r2").roleName("STANDARD_USER").build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userRoleService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userRoleService, "roleRegistry", roleRegistry);
+        ReflectionTestUtils.setField(userRoleService, "appUserDetailsService", appUserDetailsService);
+        when(roleRegistry.findByRoleName(anyString())).thenReturn(Optional.empty());
+        when(roleRegistry.findByRoleName("ADMIN_USER")).thenReturn(Optional.of(admin));
+        when(roleRegistry.findByRoleName("STANDARD_USER")).thenReturn(Optional.of(standard));
+    }
+
+    @Test
+    void writesOnlyTheRolesThatChanged() {
+        User user = user(standard);
+
+        userRoleService.replaceUserRoles(user, Collections.singletonList("ADMIN_USER"));
+
+        verify(userRepository).updateRoles("u1", Collections.singleton("r1"), Collections.singleton("r2"));
+        verify(appUserDetailsService).evictUser("u1");
+    }
+
+    @Test
+    void leavesUnchangedRolesAlone() {
+        User user = user(admin, standard);
+
+        userRoleService.replaceUserRoles(user, Arrays.asList("STANDARD_USER", "ADMIN_USER"));
+
+        verify(userRepository, never()).updateRoles(anyString(), anyCollection(), anyCollection());
+        verify(appUserDetailsService, never()).evictUser(any());
+    }
+
+    @Test
+    void mapsTheKnownRolesAndReportsTheUnknownOnes() {
+        User user = user(standard);
+        when(userRepository.findByUserNameOrEmail("devd", "devd")).thenReturn(Optional.of(user));
+        MapUserToRolesRequest request = new MapUserToRolesRequest();
+        request.setRoleNames(Arrays.asList("ADMIN_USER", "MADE_UP"));
+
+        assertThatThrownBy(() -> userRoleService.mapUserToRoles("devd", request))
+                .isInstanceOf(SuccessCodeWithErrorResponse.class);
+
+        verify(userRepository).updateRoles("u1", Collections.singleton("r1"), Collections.emptySet());
+    }
+
+    private static User user(Role... roles) {
+        User user = new User();
+        user.setUserId("u1");
+        user.setUserName("devd");
+        user.setRoles(new HashSet<>(Arrays.asList(roles)));
+        return user;
+    }
+}
@@ -0,0 +1,90 @@
+package com.devd.spring.bookstoreaccountservice.service.impl;
+
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserIdAndRole;
+import com.devd.spring.bookstoreaccountservice.repository.UserRepository.UserSummary;
+import com.devd.spring.bookstoreaccountservice.repository.dao.Role;
+import com.devd.spring.bookstoreaccountservice.web.GetUsersResponse;
+import com.devd.spring.bookstoreaccountservice.web.SearchUsersRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserSearchTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final UserServiceImpl userService = new UserServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+    }
+
+    @Test
+    void fetchesTheRolesOfAPageInOneQueryAndReturnsTheNextCursor() {
+        SearchUsersRequest request = new SearchUsersRequest();
+        request.setSize(2);
+        List<UserSummary> page = Arrays.asList(user("u1", "alice"), user("u2", "bob"));
+        when(userRepository.searchUsers(eq(""), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 2))))
+                .thenReturn(new SliceImpl<>(page, PageRequest.of(0, 2), true));
+        Role admin = Role.builder().id("r1").roleName("ADMIN_USER").build();
+        List<UserIdAndRole> roles = Collections.singletonList(userRole("u1", admin));
+        when(userRepository.findRolesByUserIdIn(anyCollection())).thenReturn(roles);
+
+        GetUsersResponse response = userService.searchUsers(request);
+
+        assertThat(response.getUsers()).extracting("userName").containsExactly("alice", "bob");
+        assertThat(response.getUsers().get(0).getRoles()).containsExactly(admin);
+        assertThat(response.getUsers().get(1).getRoles()).isEmpty();
+        assertThat(response.getNextCursor()).isEqualTo("bob");
+        verify(userRepository, times(1)).findRolesByUserIdIn(anyCollection());
+    }
+
+    @Test
+    void searchesByEscapedPrefixAfterTheCursor() {
+        SearchUsersRequest request = new SearchUsersRequest();
+        request.setQ("dev_d ");
+        request.setAfter("bob");
+        when(userRepository.searchUsers(eq("bob"), eq("dev\\_d%"), isNull(), isNull(), isNull(), any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        GetUsersResponse response = userService.searchUsers(request);
+
+        assertThat(response.getUsers()).isEmpty();
+        assertThat(response.getNextCursor()).isNull();
+        verify(userRepository, never()).findRolesByUserIdIn(any(Collection.class));
+    }
+
+    private static UserSummary user(String userId, String userName) {
+        UserSummary user = mock(UserSummary.class);
+        when(user.getUserId()).thenReturn(userId);
+        when(user.getUserName()).thenReturn(userName);
+        return user;
+    }
+
+    private static UserIdAndRole userRole(String userId, Role role) {
+        UserIdAndRole userRole = mock(UserIdAndRole.class);
+        when(userRole.getUserId()).thenReturn(userId);
+        when(userRole.getRole()).thenReturn(role);
+        return userRole;
+    }
+}
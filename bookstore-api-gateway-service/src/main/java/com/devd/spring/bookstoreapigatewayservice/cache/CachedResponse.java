@@ -0,0 +1,24 @@
+package com.devd.spring.bookstoreapigatewayservice.cache;
+
+import com.netflix.util.Pair;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * An upstream response kept by the {@link GatewayResponseCache}.
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+
+    private final int status;
+
+    private final List<Pair<String, String>> headers;
+
+    private final byte[] body;
+
+    private final boolean gzipped;
+
+}
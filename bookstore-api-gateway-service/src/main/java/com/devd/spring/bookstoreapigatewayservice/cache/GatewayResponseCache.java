@@ -0,0 +1,178 @@
+package com.devd.spring.bookstoreapigatewayservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Response cache for anonymous GET requests on the configured routes and paths.
+ *
+ * Concurrent misses on the same key are collapsed: the first request fills the entry and the
+ * others wait for its response instead of all going to the backend. Any successful write through
+ * a cached route clears the route's entries.
+ */
+public class GatewayResponseCache {
+
+    private final List<String> routes;
+
+    private final List<String> paths;
+
+    private final int maxEntryBytes;
+
+    private final long collapseTimeoutMillis;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Cache<String, CachedResponse> responses;
+
+    private final ConcurrentMap<String, Fill> fills = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter collapsed;
+
+    public GatewayResponseCache(List<String> routes, List<String> paths, Duration ttl, long maxBytes,
+                                int maxEntryBytes, long collapseTimeoutMillis, MeterRegistry registry) {
+        this.routes = routes;
+        this.paths = paths;
+        this.maxEntryBytes = maxEntryBytes;
+        this.collapseTimeoutMillis = collapseTimeoutMillis;
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) -> key.length() + response.getBody().length)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, responses, "gatewayResponses");
+        this.hits = requests(registry, "hit");
+        this.misses = requests(registry, "miss");
+        this.collapsed = requests(registry, "collapsed");
+    }
+
+    public boolean isCachedRoute(String routeId) {
+        return routeId != null && routes.contains(routeId);
+    }
+
+    public boolean isCachedPath(String path) {
+        for (String pattern : paths) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public CachedResponse get(String key) {
+        CachedResponse response = responses.getIfPresent(key);
+        if (response != null) {
+            hits.increment();
+        }
+        return response;
+    }
+
+    /**
+     * Registers the caller as the request filling {@code key}, unless another request is already
+     * filling it. A leading fill must always be {@link #complete completed}.
+     */
+    public Fill startFill(String key) {
+        Fill fill = new Fill(generation.get(), new CompletableFuture<>(), true);
+        Fill inFlight = fills.putIfAbsent(key, fill);
+        // a fill that never completed must not hold back the requests for its key
+        if (inFlight == null || (inFlight.isAbandoned() && fills.replace(key, inFlight, fill))) {
+            misses.increment();
+            return fill;
+        }
+        collapsed.increment();
+        return new Fill(inFlight.generation, inFlight.response, false);
+    }
+
+    /**
+     * Publishes the response of a leading fill; a {@code null} response releases the waiting
+     * requests without caching anything.
+     */
+    public void complete(String key, Fill fill, CachedResponse response) {
+        fills.remove(key, fill);
+        // a write went through while we were fetching, the response may already be stale
+        if (response != null && fill.generation == generation.get()) {
+            responses.put(key, response);
+        }
+        fill.response.complete(response);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        responses.invalidateAll();
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("gateway.cache.requests")
+                .description("Cacheable gateway requests by cache outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public class Fill {
+
+        private final long generation;
+
+        private final CompletableFuture<CachedResponse> response;
+
+        private final boolean leader;
+
+        private final long startedAt = System.currentTimeMillis();
+
+        private Fill(long generation, CompletableFuture<CachedResponse> response, boolean leader) {
+            this.generation = generation;
+            this.response = response;
+            this.leader = leader;
+        }
+
+        /**
+         * @return whether the caller has to fetch the response itself.
+         */
+        public boolean isLeader() {
+            return leader;
+        }
+
+        private boolean isAbandoned() {
+            return System.currentTimeMillis() - startedAt > collapseTimeoutMillis;
+        }
+
+        /**
+         * @return the response of the leading request, or {@code null} if it was not cacheable or
+         * did not arrive within the collapse timeout.
+         */
+        public CachedResponse await() {
+            try {
+                return response.get(collapseTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
+        }
+    }
+}
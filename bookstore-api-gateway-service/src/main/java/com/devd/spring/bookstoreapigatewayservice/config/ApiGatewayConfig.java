@@ -1,11 +1,29 @@
 package com.devd.spring.bookstoreapigatewayservice.config;
 
 import brave.sampler.Sampler;
-import com.devd.spring.bookstoreapigatewayservice.filters.PostFilter;
-import com.devd.spring.bookstoreapigatewayservice.filters.PreFilter;
-import com.devd.spring.bookstoreapigatewayservice.filters.RouteFilter;
+import com.devd.spring.bookstoreapigatewayservice.filters.TokenValidationFilter;
+import com.devd.spring.bookstoreapigatewayservice.filters.UrlEncodedFormBodyWrapperFilter;
+import com.devd.spring.bookstoreapigatewayservice.security.GatewayClaimsSigner;
+import com.devd.spring.bookstoreapigatewayservice.security.JwkSetVerifiers;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Function;
 
 /**
  * @author: Devaraj Reddy,
@@ -20,18 +38,32 @@ public class ApiGatewayConfig {
     }
 
     @Bean
-    public PreFilter preFilter() {
-        return new PreFilter();
-    }
-
-    @Bean
-    public PostFilter postFilter() {
-        return new PostFilter();
+    public UrlEncodedFormBodyWrapperFilter urlEncodedFormBodyWrapperFilter() {
+        return new UrlEncodedFormBodyWrapperFilter();
     }
 
     @Bean
-    public RouteFilter routeFilter() {
-        return new RouteFilter();
+    @ConditionalOnExpression("'${security.gateway.claims-secret:}' != ''")
+    public TokenValidationFilter tokenValidationFilter(@Value("${security.jwt.public-key}") Resource publicKey,
+                                                       @Value("${security.jwt.jwk-set-uri:}") String jwkSetUri,
+                                                       @Value("${security.jwt.jwk-set-refresh-interval:1h}") Duration jwkSetRefreshInterval,
+                                                       @Value("${security.jwt.jwk-set-min-fetch-interval:30s}") Duration jwkSetMinFetchInterval,
+                                                       @Value("${security.gateway.claims-secret}") String claimsSecret,
+                                                       ObjectProvider<LoadBalancerClient> loadBalancerClient)
+            throws IOException {
+        String publicKeyAsString = StreamUtils.copyToString(publicKey.getInputStream(), StandardCharsets.UTF_8);
+        Function<String, SignatureVerifier> verifiers = keyId -> null;
+        if (!jwkSetUri.isEmpty()) {
+            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+            requestFactory.setConnectTimeout(2000);
+            requestFactory.setReadTimeout(5000);
+            RestTemplate restTemplate = new RestTemplate(requestFactory);
+            loadBalancerClient.ifAvailable(client ->
+                    restTemplate.setInterceptors(Collections.singletonList(new LoadBalancerInterceptor(client))));
+            verifiers = new JwkSetVerifiers(jwkSetUri, restTemplate, jwkSetRefreshInterval, jwkSetMinFetchInterval);
+        }
+        return new TokenValidationFilter(verifiers, new RsaVerifier(publicKeyAsString),
+                new GatewayClaimsSigner(claimsSecret));
     }
 
 }
@@ -0,0 +1,37 @@
+package com.devd.spring.bookstoreapigatewayservice.config;
+
+import com.devd.spring.bookstoreapigatewayservice.filters.ConcurrencyLimitFilter;
+import com.devd.spring.bookstoreapigatewayservice.filters.ConcurrencyLimitReleaseFilter;
+import com.devd.spring.bookstoreapigatewayservice.ratelimit.RouteConcurrencyLimits;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adaptive concurrency limit per route, see {@link ConcurrencyLimitFilter}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "gateway.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public RouteConcurrencyLimits routeConcurrencyLimits(@Value("${gateway.concurrency-limit.initial:20}") int initialLimit,
+                                                         @Value("${gateway.concurrency-limit.min:5}") int minLimit,
+                                                         @Value("${gateway.concurrency-limit.max:100}") int maxLimit,
+                                                         MeterRegistry meterRegistry) {
+        return new RouteConcurrencyLimits(initialLimit, minLimit, maxLimit, meterRegistry);
+    }
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(RouteConcurrencyLimits routeConcurrencyLimits,
+                                                         MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter(routeConcurrencyLimits, meterRegistry);
+    }
+
+    @Bean
+    public ConcurrencyLimitReleaseFilter concurrencyLimitReleaseFilter() {
+        return new ConcurrencyLimitReleaseFilter();
+    }
+}
@@ -0,0 +1,53 @@
+package com.devd.spring.bookstoreapigatewayservice.config;
+
+import brave.Tracer;
+import com.devd.spring.bookstoreapigatewayservice.filters.PostFilter;
+import com.devd.spring.bookstoreapigatewayservice.filters.PreFilter;
+import com.devd.spring.bookstoreapigatewayservice.filters.RouteFilter;
+import com.devd.spring.bookstoreapigatewayservice.metrics.GatewayMetrics;
+import com.devd.spring.bookstoreapigatewayservice.metrics.SlowRequestLog;
+import com.devd.spring.bookstoreapigatewayservice.metrics.SlowRequestsEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Latency and response size instrumentation of the routed requests, see {@link PostFilter}.
+ */
+@Configuration
+public class GatewayMetricsConfig {
+
+    @Bean
+    public GatewayMetrics gatewayMetrics(MeterRegistry meterRegistry) {
+        return new GatewayMetrics(meterRegistry);
+    }
+
+    @Bean
+    public SlowRequestLog slowRequestLog(@Value("${gateway.metrics.slow-threshold:1s}") Duration slowThreshold,
+                                         @Value("${gateway.metrics.slow-capacity:100}") int slowCapacity) {
+        return new SlowRequestLog(slowThreshold, slowCapacity);
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        return new SlowRequestsEndpoint(slowRequestLog);
+    }
+
+    @Bean
+    public PreFilter preFilter() {
+        return new PreFilter();
+    }
+
+    @Bean
+    public RouteFilter routeFilter() {
+        return new RouteFilter();
+    }
+
+    @Bean
+    public PostFilter postFilter(GatewayMetrics gatewayMetrics, SlowRequestLog slowRequestLog, Tracer tracer) {
+        return new PostFilter(gatewayMetrics, slowRequestLog, tracer);
+    }
+}
@@ -0,0 +1,31 @@
+package com.devd.spring.bookstoreapigatewayservice.config;
+
+import com.devd.spring.bookstoreapigatewayservice.filters.RateLimitFilter;
+import com.devd.spring.bookstoreapigatewayservice.ratelimit.RateLimitProperties;
+import com.devd.spring.bookstoreapigatewayservice.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per client rate limiting of the routed requests, see {@link RateLimitFilter}.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(value = "gateway.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public TokenBucketRateLimiter tokenBucketRateLimiter(RateLimitProperties rateLimitProperties) {
+        return new TokenBucketRateLimiter(rateLimitProperties.getMaxClients());
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties rateLimitProperties,
+                                           TokenBucketRateLimiter tokenBucketRateLimiter,
+                                           MeterRegistry meterRegistry) {
+        return new RateLimitFilter(rateLimitProperties, tokenBucketRateLimiter, meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package com.devd.spring.bookstoreapigatewayservice.config;
+
+import com.devd.spring.bookstoreapigatewayservice.cache.GatewayResponseCache;
+import com.devd.spring.bookstoreapigatewayservice.filters.ResponseCacheFillFilter;
+import com.devd.spring.bookstoreapigatewayservice.filters.ResponseCacheFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Response cache for the public catalog reads, see {@link GatewayResponseCache}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "gateway.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public GatewayResponseCache gatewayResponseCache(@Value("${gateway.cache.routes}") String[] routes,
+                                                     @Value("${gateway.cache.paths}") String[] paths,
+                                                     @Value("${gateway.cache.ttl:30s}") Duration ttl,
+                                                     @Value("${gateway.cache.max-bytes:67108864}") long maxBytes,
+                                                     @Value("${gateway.cache.max-entry-bytes:1048576}") int maxEntryBytes,
+                                                     @Value("${gateway.cache.collapse-timeout-millis:5000}") long collapseTimeoutMillis,
+                                                     MeterRegistry meterRegistry) {
+        return new GatewayResponseCache(Arrays.asList(routes), Arrays.asList(paths), ttl, maxBytes,
+                maxEntryBytes, collapseTimeoutMillis, meterRegistry);
+    }
+
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(GatewayResponseCache gatewayResponseCache) {
+        return new ResponseCacheFilter(gatewayResponseCache);
+    }
+
+    @Bean
+    public ResponseCacheFillFilter responseCacheFillFilter(GatewayResponseCache gatewayResponseCache) {
+        return new ResponseCacheFillFilter(gatewayResponseCache);
+    }
+}
@@ -0,0 +1,78 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreapigatewayservice.ratelimit.RouteConcurrencyLimits;
+import com.devd.spring.bookstoreloadbalancer.limit.AdaptiveConcurrencyLimiter;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sheds the requests above the adaptive concurrency limit of their route with a 503, so an
+ * overloaded backend answers fast instead of queueing requests until they time out.
+ *
+ * Runs after the rate limit and the response cache, only the requests actually routed count
+ * against the limit; {@link ConcurrencyLimitReleaseFilter} releases them.
+ */
+public class ConcurrencyLimitFilter extends ZuulFilter {
+
+    static final String LIMITER_KEY = "concurrencyLimiter";
+
+    static final String LIMITER_START_KEY = "concurrencyLimiterStartNanos";
+
+    private final RouteConcurrencyLimits limits;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(RouteConcurrencyLimits limits, MeterRegistry meterRegistry) {
+        this.limits = limits;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String filterType() {
+        return FilterConstants.PRE_TYPE;
+    }
+
+    @Override
+    public int filterOrder() {
+        return FilterConstants.PRE_DECORATION_FILTER_ORDER + 4;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        return ctx.sendZuulResponse() && ctx.get(FilterConstants.PROXY_KEY) != null;
+    }
+
+    @Override
+    public Object run() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        String routeId = (String) ctx.get(FilterConstants.PROXY_KEY);
+        AdaptiveConcurrencyLimiter limiter = limits.forRoute(routeId);
+        if (limiter.tryAcquire()) {
+            ctx.set(LIMITER_KEY, limiter);
+            ctx.set(LIMITER_START_KEY, System.nanoTime());
+        } else {
+            rejected.computeIfAbsent(routeId, this::rejectedCounter).increment();
+            ZuulErrorResponses.reject(ctx, HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, try again later");
+            ctx.addZuulResponseHeader(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return null;
+    }
+
+    private Counter rejectedCounter(String routeId) {
+        return Counter.builder("gateway.concurrency.rejected")
+                .description("Requests shed by the gateway concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreloadbalancer.limit.AdaptiveConcurrencyLimiter;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Releases a request let through by {@link ConcurrencyLimitFilter}, counting failed routing,
+ * 503 and 504 answers as dropped.
+ */
+public class ConcurrencyLimitReleaseFilter extends ZuulFilter {
+
+    @Override
+    public String filterType() {
+        return FilterConstants.POST_TYPE;
+    }
+
+    @Override
+    public int filterOrder() {
+        return -1;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        return RequestContext.getCurrentContext().containsKey(ConcurrencyLimitFilter.LIMITER_KEY);
+    }
+
+    @Override
+    public Object run() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        AdaptiveConcurrencyLimiter limiter = (AdaptiveConcurrencyLimiter) ctx.remove(ConcurrencyLimitFilter.LIMITER_KEY);
+        long start = (long) ctx.get(ConcurrencyLimitFilter.LIMITER_START_KEY);
+        int status = ctx.getResponseStatusCode();
+        boolean dropped = ctx.getThrowable() != null
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        limiter.release(System.nanoTime() - start, dropped);
+        return null;
+    }
+}
@@ -1,6 +1,7 @@
 package com.devd.spring.bookstoreapigatewayservice.filters;
 
 import com.devd.spring.bookstoreapigatewayservice.exception.RunTimeExceptionPlaceHolder;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
 import com.netflix.zuul.exception.ZuulException;
@@ -9,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
@@ -48,8 +51,33 @@ public class ErrorFilter extends ZuulFilter {
         if (throwable instanceof ZuulException) {
             final ZuulException zuulException = (ZuulException) throwable;
             LOG.error("Zuul failure detected: " + zuulException.getMessage());
-            resolver.resolveException(context.getRequest(), context.getResponse(), null, new RunTimeExceptionPlaceHolder(zuulException.getCause().getMessage(), context.getResponseStatusCode()));
+            Throwable cause = zuulException.getCause() != null ? zuulException.getCause() : zuulException;
+            int status = statusOf(cause, context.getResponseStatusCode());
+            if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                context.getResponse().setHeader(HttpHeaders.RETRY_AFTER, "1");
+            }
+            resolver.resolveException(context.getRequest(), context.getResponse(), null, new RunTimeExceptionPlaceHolder(cause.getMessage(), status));
         }
         return null;
     }
+
+    /**
+     * Requests shed by the per service bulkhead or an open circuit are reported as 503 and timed
+     * out ones as 504, so clients can tell an overloaded backend from a failing one.
+     */
+    private static int statusOf(Throwable cause, int defaultStatus) {
+        if (cause instanceof HystrixRuntimeException) {
+            switch (((HystrixRuntimeException) cause).getFailureType()) {
+                case REJECTED_SEMAPHORE_EXECUTION:
+                case REJECTED_THREAD_EXECUTION:
+                case SHORTCIRCUIT:
+                    return HttpStatus.SERVICE_UNAVAILABLE.value();
+                case TIMEOUT:
+                    return HttpStatus.GATEWAY_TIMEOUT.value();
+                default:
+                    break;
+            }
+        }
+        return defaultStatus;
+    }
 }
@@ -1,13 +1,45 @@
 package com.devd.spring.bookstoreapigatewayservice.filters;
 
+import brave.Span;
+import brave.Tracer;
+import com.devd.spring.bookstoreapigatewayservice.metrics.CountingInputStream;
+import com.devd.spring.bookstoreapigatewayservice.metrics.GatewayMetrics;
+import com.devd.spring.bookstoreapigatewayservice.metrics.SlowRequest;
+import com.devd.spring.bookstoreapigatewayservice.metrics.SlowRequestLog;
 import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
 import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
 
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author: Devaraj Reddy, Date : 2019-10-02
+ *
+ * Records the upstream latency, gateway overhead and response size of every request in
+ * {@link GatewayMetrics}, and keeps the slow ones in the {@link SlowRequestLog}.
+ *
+ * Streamed responses are recorded once {@code SendResponseFilter} has written and closed the body,
+ * so the overhead includes copying the body to the client.
  */
 public class PostFilter extends ZuulFilter {
 
+  private static final String UNROUTED = "unrouted";
+
+  private final GatewayMetrics gatewayMetrics;
+
+  private final SlowRequestLog slowRequestLog;
+
+  private final Tracer tracer;
+
+  public PostFilter(GatewayMetrics gatewayMetrics, SlowRequestLog slowRequestLog, Tracer tracer) {
+    this.gatewayMetrics = gatewayMetrics;
+    this.slowRequestLog = slowRequestLog;
+    this.tracer = tracer;
+  }
+
   @Override
   public String filterType() {
     return FilterConstants.POST_TYPE;
@@ -15,17 +47,55 @@ public class PostFilter extends ZuulFilter {
 
   @Override
   public int filterOrder() {
-    return 1;
+    return 0;
   }
 
   @Override
   public boolean shouldFilter() {
-    return true;
+    return RequestContext.getCurrentContext().containsKey(PreFilter.REQUEST_START_KEY);
   }
 
   @Override
   public Object run() {
-    System.out.println("Inside Response Filter");
+    RequestContext ctx = RequestContext.getCurrentContext();
+    Object routeStart = ctx.get(RouteFilter.ROUTE_START_KEY);
+    long upstreamNanos = routeStart == null ? 0 : System.nanoTime() - (long) routeStart;
+
+    if (ctx.getThrowable() == null && ctx.getResponseDataStream() != null) {
+      ctx.setResponseDataStream(new CountingInputStream(ctx.getResponseDataStream(),
+          bytes -> record(ctx, upstreamNanos, bytes)));
+    } else {
+      String body = ctx.getResponseBody();
+      record(ctx, upstreamNanos, body == null ? 0 : body.getBytes(StandardCharsets.UTF_8).length);
+    }
     return null;
   }
+
+  private void record(RequestContext ctx, long upstreamNanos, long bytes) {
+    long totalNanos = System.nanoTime() - (long) ctx.get(PreFilter.REQUEST_START_KEY);
+    String routeId = (String) ctx.get(FilterConstants.PROXY_KEY);
+    String route = routeId == null ? UNROUTED : routeId;
+    int status = ctx.getResponseStatusCode();
+
+    if (ctx.containsKey(RouteFilter.ROUTE_START_KEY)) {
+      gatewayMetrics.recordUpstreamLatency(route, status, upstreamNanos);
+    }
+    gatewayMetrics.recordOverhead(route, Math.max(0, totalNanos - upstreamNanos));
+    gatewayMetrics.recordResponseSize(route, bytes);
+
+    if (slowRequestLog.isSlow(totalNanos)) {
+      HttpServletRequest request = ctx.getRequest();
+      Span span = tracer.currentSpan();
+      slowRequestLog.add(SlowRequest.builder()
+          .timestamp(Instant.now())
+          .method(request.getMethod())
+          .uri(request.getRequestURI())
+          .route(route)
+          .status(status)
+          .totalMillis(TimeUnit.NANOSECONDS.toMillis(totalNanos))
+          .upstreamMillis(TimeUnit.NANOSECONDS.toMillis(upstreamNanos))
+          .traceId(span == null ? null : span.context().traceIdString())
+          .build());
+    }
+  }
 }
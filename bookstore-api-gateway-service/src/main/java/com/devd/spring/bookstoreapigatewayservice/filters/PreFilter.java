@@ -2,17 +2,19 @@ package com.devd.spring.bookstoreapigatewayservice.filters;
 
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
-import javax.servlet.http.HttpServletRequest;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
 
 /**
  * @author: Devaraj Reddy,
  * Date : 2019-05-14 22:12
+ *
+ * Runs before every other pre filter and marks the time the request entered the gateway, see
+ * {@link PostFilter}.
  */
-@Slf4j
 public class PreFilter extends ZuulFilter {
 
+    static final String REQUEST_START_KEY = "gatewayRequestStartNanos";
+
     @Override
     public String filterType() {
         return FilterConstants.PRE_TYPE;
@@ -20,7 +22,7 @@ public class PreFilter extends ZuulFilter {
 
     @Override
     public int filterOrder() {
-        return 1;
+        return FilterConstants.SERVLET_DETECTION_FILTER_ORDER - 1;
     }
 
     @Override
@@ -30,9 +32,7 @@ public class PreFilter extends ZuulFilter {
 
     @Override
     public Object run() {
-        RequestContext ctx = RequestContext.getCurrentContext();
-        HttpServletRequest request = ctx.getRequest();
-        log.info("PreFilter: " + String.format("%s request to %s", request.getMethod(), request.getRequestURL().toString()));
+        RequestContext.getCurrentContext().set(REQUEST_START_KEY, System.nanoTime());
         return null;
     }
 }
@@ -0,0 +1,86 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreapigatewayservice.ratelimit.RateLimitProperties;
+import com.devd.spring.bookstoreapigatewayservice.ratelimit.TokenBucketRateLimiter;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles each client with a token bucket per route, answering 429 with a {@code Retry-After}
+ * header once its bucket is empty.
+ *
+ * Clients are identified by the {@code user_name} of the token verified by
+ * {@link TokenValidationFilter}, or by their IP address for anonymous requests. That is the remote
+ * address tomcat resolved from X-Forwarded-For past the ingress, see {@code server.forward-headers-strategy}.
+ */
+public class RateLimitFilter extends ZuulFilter {
+
+    private final RateLimitProperties properties;
+
+    private final TokenBucketRateLimiter rateLimiter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties, TokenBucketRateLimiter rateLimiter,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String filterType() {
+        return FilterConstants.PRE_TYPE;
+    }
+
+    @Override
+    public int filterOrder() {
+        return FilterConstants.PRE_DECORATION_FILTER_ORDER + 2;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        return RequestContext.getCurrentContext().sendZuulResponse();
+    }
+
+    @Override
+    public Object run() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        String routeId = (String) ctx.get(FilterConstants.PROXY_KEY);
+        String key = routeId + ":" + clientKey(ctx);
+
+        long waitNanos = rateLimiter.tryAcquire(key, properties.limitFor(routeId));
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            rejected.computeIfAbsent(String.valueOf(routeId), this::rejectedCounter).increment();
+            ZuulErrorResponses.reject(ctx, HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+            ctx.addZuulResponseHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        }
+        return null;
+    }
+
+    private static String clientKey(RequestContext ctx) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> claims = (Map<String, Object>) ctx.get(TokenValidationFilter.CLAIMS_KEY);
+        Object userName = claims == null ? null : claims.get("user_name");
+        return userName != null ? "user:" + userName : "ip:" + ctx.getRequest().getRemoteAddr();
+    }
+
+    private Counter rejectedCounter(String routeId) {
+        return Counter.builder("gateway.ratelimit.rejected")
+                .description("Requests rejected by the gateway rate limiter")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+}
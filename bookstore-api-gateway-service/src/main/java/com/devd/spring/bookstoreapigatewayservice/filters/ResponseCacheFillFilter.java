@@ -0,0 +1,147 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreapigatewayservice.cache.CachedResponse;
+import com.devd.spring.bookstoreapigatewayservice.cache.GatewayResponseCache;
+import com.netflix.util.Pair;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the upstream response of a request marked by {@link ResponseCacheFilter} and clears the
+ * cache when a write on a cached route succeeds.
+ */
+@Slf4j
+public class ResponseCacheFillFilter extends ZuulFilter {
+
+    private static final List<String> SKIPPED_HEADERS = Arrays.asList(
+            ResponseCacheFilter.X_CACHE.toLowerCase(), "set-cookie", "date", "content-length", "transfer-encoding");
+
+    private final GatewayResponseCache cache;
+
+    public ResponseCacheFillFilter(GatewayResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public String filterType() {
+        return FilterConstants.POST_TYPE;
+    }
+
+    @Override
+    public int filterOrder() {
+        return FilterConstants.SEND_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        return ctx.containsKey(ResponseCacheFilter.CACHE_FILL_KEY) || isWrite(ctx);
+    }
+
+    @Override
+    public Object run() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        if (isWrite(ctx)) {
+            if (ctx.getThrowable() == null && ctx.getResponseStatusCode() < 400) {
+                cache.invalidateAll();
+            }
+            return null;
+        }
+
+        String key = (String) ctx.get(ResponseCacheFilter.CACHE_KEY);
+        GatewayResponseCache.Fill fill = (GatewayResponseCache.Fill) ctx.get(ResponseCacheFilter.CACHE_FILL_KEY);
+        CachedResponse response = null;
+        try {
+            if (ctx.getThrowable() == null && ctx.getResponseStatusCode() == HttpStatus.OK.value()) {
+                response = capture(ctx);
+            }
+        } finally {
+            cache.complete(key, fill, response);
+        }
+        return null;
+    }
+
+    private boolean isWrite(RequestContext ctx) {
+        String method = ctx.getRequest().getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)
+                && !HttpMethod.OPTIONS.matches(method)
+                && cache.isCachedRoute((String) ctx.get(FilterConstants.PROXY_KEY));
+    }
+
+    private CachedResponse capture(RequestContext ctx) {
+        List<Pair<String, String>> headers = new ArrayList<>();
+        for (Pair<String, String> header : ctx.getZuulResponseHeaders()) {
+            String name = header.first().toLowerCase();
+            if (HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name)
+                    && (header.second().contains("no-store") || header.second().contains("private"))) {
+                return null;
+            }
+            if (!SKIPPED_HEADERS.contains(name)) {
+                headers.add(header);
+            }
+        }
+
+        byte[] body;
+        if (ctx.getResponseDataStream() != null) {
+            body = readUpToLimit(ctx);
+            if (body == null) {
+                return null;
+            }
+        } else if (ctx.getResponseBody() != null) {
+            body = ctx.getResponseBody().getBytes(StandardCharsets.UTF_8);
+        } else {
+            body = new byte[0];
+        }
+        return body.length > cache.getMaxEntryBytes()
+                ? null : new CachedResponse(HttpStatus.OK.value(), headers, body, ctx.getResponseGZipped());
+    }
+
+    /**
+     * Buffers the upstream body if it fits in a cache entry. Larger bodies are handed back to the
+     * response untouched, with the part read so far put in front of the remaining stream.
+     */
+    private byte[] readUpToLimit(RequestContext ctx) {
+        InputStream upstream = ctx.getResponseDataStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try {
+            int read;
+            while ((read = upstream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+                if (buffer.size() > cache.getMaxEntryBytes()) {
+                    ctx.setResponseDataStream(new SequenceInputStream(
+                            new ByteArrayInputStream(buffer.toByteArray()), upstream));
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Not caching response, failed to read upstream body: " + e.getMessage());
+            ctx.setResponseDataStream(new SequenceInputStream(
+                    new ByteArrayInputStream(buffer.toByteArray()), upstream));
+            return null;
+        }
+        try {
+            upstream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close upstream body: " + e.getMessage());
+        }
+        byte[] body = buffer.toByteArray();
+        ctx.setResponseDataStream(new ByteArrayInputStream(body));
+        return body;
+    }
+}
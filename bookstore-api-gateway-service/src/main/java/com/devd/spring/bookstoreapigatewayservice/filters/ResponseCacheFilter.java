@@ -0,0 +1,91 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreapigatewayservice.cache.CachedResponse;
+import com.devd.spring.bookstoreapigatewayservice.cache.GatewayResponseCache;
+import com.netflix.util.Pair;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Serves anonymous GET requests on the cached routes from the {@link GatewayResponseCache}.
+ *
+ * On a miss the request is marked so that {@link ResponseCacheFillFilter} stores the upstream
+ * response; concurrent misses for the same key wait for that response instead of being routed.
+ */
+public class ResponseCacheFilter extends ZuulFilter {
+
+    public static final String X_CACHE = "X-Cache";
+
+    static final String CACHE_KEY = "responseCacheKey";
+
+    static final String CACHE_FILL_KEY = "responseCacheFill";
+
+    private final GatewayResponseCache cache;
+
+    public ResponseCacheFilter(GatewayResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public String filterType() {
+        return FilterConstants.PRE_TYPE;
+    }
+
+    @Override
+    public int filterOrder() {
+        return FilterConstants.PRE_DECORATION_FILTER_ORDER + 3;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        HttpServletRequest request = ctx.getRequest();
+        return ctx.sendZuulResponse()
+                && HttpMethod.GET.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.AUTHORIZATION) == null
+                && request.getParameter("access_token") == null
+                && cache.isCachedRoute((String) ctx.get(FilterConstants.PROXY_KEY))
+                && cache.isCachedPath((String) ctx.get(FilterConstants.REQUEST_URI_KEY));
+    }
+
+    @Override
+    public Object run() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        HttpServletRequest request = ctx.getRequest();
+        String key = request.getQueryString() == null
+                ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+
+        CachedResponse cached = cache.get(key);
+        if (cached == null) {
+            GatewayResponseCache.Fill fill = cache.startFill(key);
+            if (fill.isLeader()) {
+                ctx.set(CACHE_KEY, key);
+                ctx.set(CACHE_FILL_KEY, fill);
+            } else {
+                cached = fill.await();
+            }
+        }
+
+        if (cached == null) {
+            ctx.addZuulResponseHeader(X_CACHE, "MISS");
+            return null;
+        }
+
+        ctx.setSendZuulResponse(false);
+        ctx.setResponseStatusCode(cached.getStatus());
+        for (Pair<String, String> header : cached.getHeaders()) {
+            ctx.addZuulResponseHeader(header.first(), header.second());
+        }
+        ctx.addZuulResponseHeader(X_CACHE, "HIT");
+        ctx.setResponseGZipped(cached.isGzipped());
+        ctx.setOriginContentLength((long) cached.getBody().length);
+        ctx.setResponseDataStream(new ByteArrayInputStream(cached.getBody()));
+        return null;
+    }
+}
@@ -1,15 +1,19 @@
 package com.devd.spring.bookstoreapigatewayservice.filters;
 
 import com.netflix.zuul.ZuulFilter;
-import lombok.extern.slf4j.Slf4j;
+import com.netflix.zuul.context.RequestContext;
 import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
 
 /**
  * @author: Devaraj Reddy, Date : 2019-10-02
+ *
+ * Marks the time the request is handed to the routing filters, so {@link PostFilter} can tell the
+ * backend call apart from the time spent in the gateway.
  */
-@Slf4j
 public class RouteFilter extends ZuulFilter {
 
+  static final String ROUTE_START_KEY = "gatewayRouteStartNanos";
+
   @Override
   public String filterType() {
     return FilterConstants.ROUTE_TYPE;
@@ -17,17 +21,17 @@ public class RouteFilter extends ZuulFilter {
 
   @Override
   public int filterOrder() {
-    return 1;
+    return FilterConstants.RIBBON_ROUTING_FILTER_ORDER - 1;
   }
 
   @Override
   public boolean shouldFilter() {
-    return true;
+    return RequestContext.getCurrentContext().sendZuulResponse();
   }
 
   @Override
   public Object run() {
-    System.out.println("Inside Route Filter");
+    RequestContext.getCurrentContext().set(ROUTE_START_KEY, System.nanoTime());
     return null;
   }
 }
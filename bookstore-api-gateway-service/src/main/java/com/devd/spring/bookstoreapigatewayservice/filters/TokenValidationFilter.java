@@ -0,0 +1,129 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreapigatewayservice.security.GatewayClaimsSigner;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.jwt.Jwt;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Verifies the bearer token once at the edge and forwards its claims to the services in a signed
+ * {@value GatewayClaimsSigner#CLAIMS_HEADER} header, so they can skip the signature verification.
+ *
+ * Requests with an invalid or expired token are rejected here with a 401. Tokens are verified with the
+ * key named by their {@code kid} header, tokens without one with the fallback key.
+ */
+@Slf4j
+public class TokenValidationFilter extends ZuulFilter {
+
+    /**
+     * Request context key of the verified token claims, for the filters that run after this one.
+     */
+    public static final String CLAIMS_KEY = "verifiedTokenClaims";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final List<String> FORWARDED_CLAIMS = Arrays.asList(
+            "user_id", "user_name", "authorities", "client_id", "scope", "aud", "exp", "iat", "jti");
+
+    private final Function<String, SignatureVerifier> verifiers;
+
+    private final SignatureVerifier fallbackVerifier;
+
+    private final GatewayClaimsSigner signer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public TokenValidationFilter(Function<String, SignatureVerifier> verifiers, SignatureVerifier fallbackVerifier,
+                                 GatewayClaimsSigner signer) {
+        this.verifiers = verifiers;
+        this.fallbackVerifier = fallbackVerifier;
+        this.signer = signer;
+    }
+
+    @Override
+    public String filterType() {
+        return FilterConstants.PRE_TYPE;
+    }
+
+    @Override
+    public int filterOrder() {
+        return FilterConstants.PRE_DECORATION_FILTER_ORDER + 1;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        return true;
+    }
+
+    @Override
+    public Object run() {
+        RequestContext ctx = RequestContext.getCurrentContext();
+        HttpServletRequest request = ctx.getRequest();
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            // never pass on a claims header we did not sign ourselves
+            if (request.getHeader(GatewayClaimsSigner.CLAIMS_HEADER) != null) {
+                ctx.addZuulRequestHeader(GatewayClaimsSigner.CLAIMS_HEADER, "");
+            }
+            return null;
+        }
+
+        Map<String, Object> claims = verify(authorization.substring(BEARER_PREFIX.length()).trim());
+        if (claims == null) {
+            ZuulErrorResponses.reject(ctx, HttpStatus.UNAUTHORIZED, "Invalid or expired access token");
+            return null;
+        }
+
+        ctx.set(CLAIMS_KEY, claims);
+
+        Map<String, Object> forwarded = new LinkedHashMap<>();
+        for (String claim : FORWARDED_CLAIMS) {
+            if (claims.containsKey(claim)) {
+                forwarded.put(claim, claims.get(claim));
+            }
+        }
+        ctx.addZuulRequestHeader(GatewayClaimsSigner.CLAIMS_HEADER, signer.sign(forwarded));
+        return null;
+    }
+
+    private Map<String, Object> verify(String token) {
+        try {
+            String keyId = JwtHelper.headers(token).get("kid");
+            SignatureVerifier verifier = keyId == null ? fallbackVerifier : verifiers.apply(keyId);
+            if (verifier == null) {
+                log.debug("Rejecting access token signed with unknown key " + keyId);
+                return null;
+            }
+            Jwt jwt = JwtHelper.decodeAndVerify(token, verifier);
+            Map<String, Object> claims = objectMapper.readValue(jwt.getClaims(),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            Object exp = claims.get("exp");
+            if (exp instanceof Number && ((Number) exp).longValue() * 1000 > System.currentTimeMillis()) {
+                return claims;
+            }
+            log.debug("Rejecting expired access token");
+        } catch (RuntimeException | IOException e) {
+            log.debug("Rejecting invalid access token: " + e.getMessage());
+        }
+        return null;
+    }
+
+}
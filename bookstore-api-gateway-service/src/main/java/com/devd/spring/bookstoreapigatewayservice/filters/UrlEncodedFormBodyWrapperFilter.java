@@ -0,0 +1,30 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.netflix.zuul.context.RequestContext;
+import org.springframework.cloud.netflix.zuul.filters.pre.FormBodyWrapperFilter;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Zuul's {@link FormBodyWrapperFilter} for url encoded forms only, it replaces the stock filter
+ * ({@code zuul.FormBodyWrapperFilter.pre.disable}).
+ *
+ * The stock filter also rebuilds multipart requests that came through the DispatcherServlet from
+ * their parsed parts. With spring multipart handling off there are no parts, so uploads lost their
+ * files; here they are left alone and streamed to the service as they came in.
+ */
+public class UrlEncodedFormBodyWrapperFilter extends FormBodyWrapperFilter {
+
+    @Override
+    public boolean shouldFilter() {
+        String contentType = RequestContext.getCurrentContext().getRequest().getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_FORM_URLENCODED.includes(MediaType.valueOf(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.devd.spring.bookstoreapigatewayservice.exception.Error;
+import com.devd.spring.bookstoreapigatewayservice.exception.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.zuul.context.RequestContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Answers a request from a pre filter with the gateway's {@link ErrorResponse} body instead of
+ * routing it.
+ */
+final class ZuulErrorResponses {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ZuulErrorResponses() {
+    }
+
+    static void reject(RequestContext ctx, HttpStatus status, String message) {
+        Error error = Error.builder()
+                .code(String.valueOf(status.value()))
+                .message(message)
+                .build();
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .uuid(UUID.randomUUID())
+                .errors(Collections.singletonList(error))
+                .build();
+
+        ctx.setSendZuulResponse(false);
+        ctx.setResponseStatusCode(status.value());
+        ctx.addZuulResponseHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        try {
+            ctx.setResponseBody(OBJECT_MAPPER.writeValueAsString(errorResponse));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.devd.spring.bookstoreapigatewayservice.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per route histograms of the routed requests, with SLO buckets so latency percentiles can be
+ * aggregated across gateway instances.
+ */
+public class GatewayMetrics {
+
+    private static final Duration[] LATENCY_SLOS = {
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)};
+
+    private static final double[] SIZE_SLOS = {1024, 10 * 1024, 100 * 1024, 1024 * 1024, 10 * 1024 * 1024};
+
+    private final MeterRegistry registry;
+
+    //registering looks the meter up again on every call, so each one is built once and kept here
+    private final ConcurrentMap<String, ConcurrentMap<Integer, Timer>> upstreamLatency = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> overhead = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, DistributionSummary> responseSize = new ConcurrentHashMap<>();
+
+    public GatewayMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordUpstreamLatency(String route, int status, long nanos) {
+        upstreamLatency.computeIfAbsent(route, r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, s -> Timer.builder("gateway.upstream.latency")
+                        .description("Time from routing a request to receiving the backend response headers")
+                        .tags("route", route, "status", String.valueOf(status))
+                        .serviceLevelObjectives(LATENCY_SLOS)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOverhead(String route, long nanos) {
+        overhead.computeIfAbsent(route, r -> Timer.builder("gateway.overhead")
+                        .description("Time spent in the gateway itself, outside the backend call")
+                        .tags("route", route)
+                        .serviceLevelObjectives(LATENCY_SLOS)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordResponseSize(String route, long bytes) {
+        responseSize.computeIfAbsent(route, r -> DistributionSummary.builder("gateway.response.size")
+                        .description("Size of the response bodies sent by the gateway")
+                        .baseUnit("bytes")
+                        .tags("route", route)
+                        .serviceLevelObjectives(SIZE_SLOS)
+                        .register(registry))
+                .record(bytes);
+    }
+}
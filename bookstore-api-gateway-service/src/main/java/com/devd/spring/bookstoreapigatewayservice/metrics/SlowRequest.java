@@ -0,0 +1,23 @@
+package com.devd.spring.bookstoreapigatewayservice.metrics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A request kept by the {@link SlowRequestLog}.
+ */
+@Data
+@Builder
+public class SlowRequest {
+
+    private Instant timestamp;
+    private String method;
+    private String uri;
+    private String route;
+    private int status;
+    private long totalMillis;
+    private long upstreamMillis;
+    private String traceId;
+}
@@ -0,0 +1,51 @@
+package com.devd.spring.bookstoreapigatewayservice.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code capacity} slowest requests since the gateway started, of those slower than a
+ * threshold. Kept in a min-heap, so a request only displaces the fastest one kept. Requests under
+ * the threshold only cost a comparison, and slow ones are rare enough to take a lock.
+ */
+public class SlowRequestLog {
+
+    private static final Comparator<SlowRequest> BY_TOTAL = Comparator.comparingLong(SlowRequest::getTotalMillis);
+
+    private final long thresholdNanos;
+
+    private final int capacity;
+
+    private final PriorityQueue<SlowRequest> entries;
+
+    public SlowRequestLog(Duration threshold, int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+        this.entries = new PriorityQueue<>(capacity, BY_TOTAL);
+    }
+
+    public boolean isSlow(long totalNanos) {
+        return totalNanos >= thresholdNanos;
+    }
+
+    public synchronized void add(SlowRequest request) {
+        if (entries.size() < capacity) {
+            entries.add(request);
+        } else if (request.getTotalMillis() > entries.peek().getTotalMillis()) {
+            entries.poll();
+            entries.add(request);
+        }
+    }
+
+    /**
+     * @return the kept requests, slowest first.
+     */
+    public synchronized List<SlowRequest> slowest() {
+        List<SlowRequest> requests = new ArrayList<>(entries);
+        requests.sort(BY_TOTAL.reversed());
+        return requests;
+    }
+}
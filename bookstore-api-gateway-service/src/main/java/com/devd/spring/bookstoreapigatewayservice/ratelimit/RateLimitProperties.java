@@ -0,0 +1,51 @@
+package com.devd.spring.bookstoreapigatewayservice.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token bucket limits applied per client, configured under {@code gateway.rate-limit}.
+ */
+@Data
+@ConfigurationProperties("gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on the number of clients tracked at once, idle clients are evicted first.
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * Limit for routes without an entry in {@link #routes}.
+     */
+    private Limit limit = new Limit();
+
+    /**
+     * Limits by zuul route id.
+     */
+    private Map<String, Limit> routes = new HashMap<>();
+
+    public Limit limitFor(String routeId) {
+        Limit routeLimit = routeId == null ? null : routes.get(routeId);
+        return routeLimit != null ? routeLimit : limit;
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Requests a client can burst before being throttled.
+         */
+        private int capacity = 100;
+
+        /**
+         * Requests per second added back to the bucket.
+         */
+        private double refillPerSecond = 50;
+    }
+}
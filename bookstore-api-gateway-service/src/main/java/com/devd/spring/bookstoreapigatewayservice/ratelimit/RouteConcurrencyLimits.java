@@ -0,0 +1,50 @@
+package com.devd.spring.bookstoreapigatewayservice.ratelimit;
+
+import com.devd.spring.bookstoreloadbalancer.limit.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link AdaptiveConcurrencyLimiter} per zuul route, created on the first request of the route
+ * and published as the {@code gateway.concurrency.limit} and {@code gateway.concurrency.inflight}
+ * gauges.
+ */
+public class RouteConcurrencyLimits {
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RouteConcurrencyLimits(int initialLimit, int minLimit, int maxLimit, MeterRegistry meterRegistry) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AdaptiveConcurrencyLimiter forRoute(String routeId) {
+        return limiters.computeIfAbsent(routeId, this::newLimiter);
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(String routeId) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Requests the gateway currently lets through to the route at once")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently in flight to the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limiter;
+    }
+}
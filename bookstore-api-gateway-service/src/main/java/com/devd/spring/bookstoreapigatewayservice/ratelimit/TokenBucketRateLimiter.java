@@ -0,0 +1,54 @@
+package com.devd.spring.bookstoreapigatewayservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token buckets, one per client key.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the GCRA formulation of a token bucket), updated with a compare-and-set, so the allowed path
+ * costs one map lookup and one CAS.
+ */
+public class TokenBucketRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(long maxClients) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of {@code key}.
+     *
+     * @return {@code 0} if the request is allowed, otherwise the nanoseconds until a token is
+     * available.
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        return tryAcquire(key, limit, System.nanoTime());
+    }
+
+    long tryAcquire(String key, RateLimitProperties.Limit limit, long now) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond());
+        long burst = interval * limit.getCapacity();
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > burst) {
+                return next - now - burst;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.devd.spring.bookstoreapigatewayservice.security;
+
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.util.Arrays;
+
+/**
+ * Verifies ES256, ES384 and ES512 signed JWTs. JWS carries the two ECDSA integers concatenated at the
+ * fixed length of the curve, the JDK expects them DER encoded.
+ */
+public class EcdsaVerifier implements SignatureVerifier {
+
+    private final ECPublicKey key;
+
+    private final String algorithm;
+
+    private final int coordinateLength;
+
+    public EcdsaVerifier(ECPublicKey key) {
+        this.key = key;
+        this.coordinateLength = (key.getParams().getOrder().bitLength() + 7) / 8;
+        switch (coordinateLength) {
+            case 32:
+                this.algorithm = "SHA256withECDSA";
+                break;
+            case 48:
+                this.algorithm = "SHA384withECDSA";
+                break;
+            case 66:
+                this.algorithm = "SHA512withECDSA";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported curve, expected P-256, P-384 or P-521");
+        }
+    }
+
+    @Override
+    public void verify(byte[] content, byte[] sig) {
+        if (sig.length != 2 * coordinateLength) {
+            throw new InvalidSignatureException("Invalid ECDSA signature length " + sig.length);
+        }
+        boolean valid;
+        try {
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initVerify(key);
+            signature.update(content);
+            valid = signature.verify(toDer(sig, coordinateLength));
+        } catch (GeneralSecurityException e) {
+            throw new InvalidSignatureException("ECDSA signature could not be verified: " + e.getMessage());
+        }
+        if (!valid) {
+            throw new InvalidSignatureException("ECDSA signature did not match content");
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm;
+    }
+
+    private static byte[] toDer(byte[] concatenated, int coordinateLength) {
+        byte[] r = derInteger(Arrays.copyOfRange(concatenated, 0, coordinateLength));
+        byte[] s = derInteger(Arrays.copyOfRange(concatenated, coordinateLength, 2 * coordinateLength));
+        int length = r.length + s.length;
+
+        ByteArrayOutputStream der = new ByteArrayOutputStream(length + 3);
+        der.write(0x30);
+        if (length > 127) {
+            der.write(0x81);
+        }
+        der.write(length);
+        der.write(r, 0, r.length);
+        der.write(s, 0, s.length);
+        return der.toByteArray();
+    }
+
+    private static byte[] derInteger(byte[] unsigned) {
+        int start = 0;
+        while (start < unsigned.length - 1 && unsigned[start] == 0) {
+            start++;
+        }
+        int pad = (unsigned[start] & 0x80) != 0 ? 1 : 0;
+        int length = unsigned.length - start + pad;
+        byte[] integer = new byte[length + 2];
+        integer[0] = 0x02;
+        integer[1] = (byte) length;
+        System.arraycopy(unsigned, start, integer, 2 + pad, unsigned.length - start);
+        return integer;
+    }
+}
@@ -0,0 +1,135 @@
+package com.devd.spring.bookstoreapigatewayservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Signature verifiers of the token signing keys in the JWK set of the account service, by key id.
+ *
+ * The set is fetched on first use, again when a token names a key id it does not contain yet and once
+ * it is older than the refresh interval; fetches are at least the minimum interval apart and a failed
+ * fetch keeps the keys already known.
+ */
+@Slf4j
+public class JwkSetVerifiers implements Function<String, SignatureVerifier> {
+
+    private final String jwkSetUri;
+
+    private final RestTemplate restTemplate;
+
+    private final long refreshIntervalMillis;
+
+    private final long minFetchIntervalMillis;
+
+    private volatile Map<String, SignatureVerifier> verifiers = Collections.emptyMap();
+
+    private volatile long fetchedAt;
+
+    private volatile long attemptedAt;
+
+    public JwkSetVerifiers(String jwkSetUri, RestTemplate restTemplate,
+                           Duration refreshInterval, Duration minFetchInterval) {
+        this.jwkSetUri = jwkSetUri;
+        this.restTemplate = restTemplate;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        this.minFetchIntervalMillis = minFetchInterval.toMillis();
+        this.attemptedAt = System.currentTimeMillis() - minFetchIntervalMillis;
+    }
+
+    @Override
+    public SignatureVerifier apply(String keyId) {
+        long now = System.currentTimeMillis();
+        SignatureVerifier verifier = verifiers.get(keyId);
+        boolean stale = now - fetchedAt >= refreshIntervalMillis;
+        if ((verifier == null || stale) && now - attemptedAt >= minFetchIntervalMillis) {
+            fetch(now);
+            verifier = verifiers.get(keyId);
+        }
+        return verifier;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void fetch(long now) {
+        if (now - attemptedAt < minFetchIntervalMillis) {
+            return;
+        }
+        attemptedAt = now;
+        try {
+            Map<?, ?> jwkSet = restTemplate.getForObject(jwkSetUri, Map.class);
+            Object keys = jwkSet == null ? null : jwkSet.get("keys");
+            if (!(keys instanceof List)) {
+                log.warn("JWK set at {} has no keys", jwkSetUri);
+                return;
+            }
+            Map<String, SignatureVerifier> fetched = new HashMap<>();
+            for (Object key : (List<?>) keys) {
+                Map<String, ?> jwk = (Map<String, ?>) key;
+                SignatureVerifier verifier = verifier(jwk);
+                if (verifier != null && jwk.get("kid") != null) {
+                    fetched.put((String) jwk.get("kid"), verifier);
+                }
+            }
+            verifiers = fetched;
+            fetchedAt = now;
+            log.info("Fetched {} token signing keys {} from {}", fetched.size(), fetched.keySet(), jwkSetUri);
+        } catch (RestClientException | GeneralSecurityException | IllegalArgumentException | ClassCastException e) {
+            log.warn("Could not fetch the JWK set from {}, keeping {} known keys: {}",
+                    jwkSetUri, verifiers.size(), e.getMessage());
+        }
+    }
+
+    private static SignatureVerifier verifier(Map<String, ?> jwk) throws GeneralSecurityException {
+        if (jwk.get("use") != null && !"sig".equals(jwk.get("use"))) {
+            return null;
+        }
+        if ("EC".equals(jwk.get("kty"))) {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curveName((String) jwk.get("crv"))));
+            ECPoint point = new ECPoint(decode(jwk.get("x")), decode(jwk.get("y")));
+            return new EcdsaVerifier((ECPublicKey) KeyFactory.getInstance("EC").generatePublic(
+                    new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class))));
+        }
+        if ("RSA".equals(jwk.get("kty"))) {
+            return new RsaVerifier((RSAPublicKey) KeyFactory.getInstance("RSA")
+                    .generatePublic(new RSAPublicKeySpec(decode(jwk.get("n")), decode(jwk.get("e")))));
+        }
+        return null;
+    }
+
+    private static String curveName(String crv) throws GeneralSecurityException {
+        if ("P-256".equals(crv)) {
+            return "secp256r1";
+        } else if ("P-384".equals(crv)) {
+            return "secp384r1";
+        } else if ("P-521".equals(crv)) {
+            return "secp521r1";
+        }
+        throw new GeneralSecurityException("Unsupported curve " + crv);
+    }
+
+    private static BigInteger decode(Object value) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode((String) value));
+    }
+}
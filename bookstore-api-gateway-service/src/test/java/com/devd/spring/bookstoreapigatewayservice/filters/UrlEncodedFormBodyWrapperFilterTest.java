@@ -0,0 +1,47 @@
+package com.devd.spring.bookstoreapigatewayservice.filters;
+
+import com.netflix.zuul.context.RequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlEncodedFormBodyWrapperFilterTest {
+
+    private final UrlEncodedFormBodyWrapperFilter filter = new UrlEncodedFormBodyWrapperFilter();
+
+    @AfterEach
+    void tearDown() {
+        RequestContext.getCurrentContext().unset();
+    }
+
+    @Test
+    void rewrapsUrlEncodedForms() {
+        request("application/x-www-form-urlencoded; charset=UTF-8");
+
+        assertThat(filter.shouldFilter()).isTrue();
+    }
+
+    @Test
+    void leavesMultipartUploadsToStreamThrough() {
+        request("multipart/form-data; boundary=----upload");
+
+        assertThat(filter.shouldFilter()).isFalse();
+    }
+
+    @Test
+    void leavesRequestsWithoutOrWithABrokenContentTypeAlone() {
+        request(null);
+        assertThat(filter.shouldFilter()).isFalse();
+
+        request("not a media type");
+        assertThat(filter.shouldFilter()).isFalse();
+    }
+
+    private static void request(String contentType) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/catalog/image/upload");
+        request.setContentType(contentType);
+        RequestContext.getCurrentContext().setRequest(request);
+    }
+}
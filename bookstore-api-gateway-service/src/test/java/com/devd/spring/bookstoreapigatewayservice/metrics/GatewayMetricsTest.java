@@ -0,0 +1,40 @@
+package com.devd.spring.bookstoreapigatewayservice.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final GatewayMetrics gatewayMetrics = new GatewayMetrics(registry);
+
+    @Test
+    void recordsEachRouteAndStatusOnItsOwnTimer() {
+        gatewayMetrics.recordUpstreamLatency("catalog", 200, TimeUnit.MILLISECONDS.toNanos(20));
+        gatewayMetrics.recordUpstreamLatency("catalog", 200, TimeUnit.MILLISECONDS.toNanos(40));
+        gatewayMetrics.recordUpstreamLatency("catalog", 503, TimeUnit.MILLISECONDS.toNanos(5));
+        gatewayMetrics.recordUpstreamLatency("order", 200, TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertThat(registry.get("gateway.upstream.latency").tags("route", "catalog", "status", "200").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("gateway.upstream.latency").tags("route", "catalog", "status", "503").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("gateway.upstream.latency").timers()).hasSize(3);
+    }
+
+    @Test
+    void recordsOverheadAndResponseSizePerRoute() {
+        gatewayMetrics.recordOverhead("catalog", TimeUnit.MILLISECONDS.toNanos(2));
+        gatewayMetrics.recordOverhead("catalog", TimeUnit.MILLISECONDS.toNanos(3));
+        gatewayMetrics.recordResponseSize("catalog", 2048);
+
+        assertThat(registry.get("gateway.overhead").tags("route", "catalog").timer().count()).isEqualTo(2);
+        assertThat(registry.get("gateway.response.size").tags("route", "catalog").summary().totalAmount())
+                .isEqualTo(2048);
+    }
+}
@@ -0,0 +1,41 @@
+package com.devd.spring.bookstoreapigatewayservice.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowRequestLogTest {
+
+    private final SlowRequestLog slowRequestLog = new SlowRequestLog(Duration.ofMillis(500), 3);
+
+    @Test
+    void onlyRequestsOverThresholdAreSlow() {
+        assertThat(slowRequestLog.isSlow(TimeUnit.MILLISECONDS.toNanos(499))).isFalse();
+        assertThat(slowRequestLog.isSlow(TimeUnit.MILLISECONDS.toNanos(500))).isTrue();
+    }
+
+    @Test
+    void keepsTheSlowestRequestsSlowestFirst() {
+        slowRequestLog.add(request(900));
+        slowRequestLog.add(request(600));
+        slowRequestLog.add(request(2000));
+        // displaces the fastest one kept
+        slowRequestLog.add(request(700));
+        // faster than every one kept
+        slowRequestLog.add(request(650));
+
+        assertThat(slowRequestLog.slowest())
+                .extracting(SlowRequest::getTotalMillis)
+                .containsExactly(2000L, 900L, 700L);
+    }
+
+    private static SlowRequest request(long totalMillis) {
+        return SlowRequest.builder()
+                .route("catalog")
+                .totalMillis(totalMillis)
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.devd.spring.bookstoreapigatewayservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1000);
+
+    @Test
+    void allowsBurstUpToCapacityThenThrottles() {
+        RateLimitProperties.Limit limit = limit(5, 1);
+        long now = TimeUnit.SECONDS.toNanos(100);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("user:devd", limit, now)).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire("user:devd", limit, now)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        // another client has its own bucket
+        assertThat(rateLimiter.tryAcquire("ip:10.0.0.1", limit, now)).isZero();
+    }
+
+    @Test
+    void refillsOverTime() {
+        RateLimitProperties.Limit limit = limit(2, 10);
+        long now = TimeUnit.SECONDS.toNanos(100);
+
+        assertThat(rateLimiter.tryAcquire("user:devd", limit, now)).isZero();
+        assertThat(rateLimiter.tryAcquire("user:devd", limit, now)).isZero();
+        assertThat(rateLimiter.tryAcquire("user:devd", limit, now)).isPositive();
+
+        long later = now + TimeUnit.MILLISECONDS.toNanos(100);
+        assertThat(rateLimiter.tryAcquire("user:devd", limit, later)).isZero();
+        assertThat(rateLimiter.tryAcquire("user:devd", limit, later)).isPositive();
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, double refillPerSecond) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+}
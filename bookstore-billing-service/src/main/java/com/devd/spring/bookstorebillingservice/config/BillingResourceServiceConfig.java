@@ -1,5 +1,6 @@
 package com.devd.spring.bookstorebillingservice.config;
 
+import com.devd.spring.bookstorecommons.security.GatewayClaimsAuthenticator;
 import com.devd.spring.bookstorecommons.security.GlobalResourceServerConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -15,10 +16,15 @@ public class BillingResourceServiceConfig extends GlobalResourceServerConfig {
     
     @Autowired
     private ResourceServerTokenServices tokenServices;
+
+    @Autowired
+    private GatewayClaimsAuthenticator gatewayClaimsAuthenticator;
     
     @Override
     public void configure(ResourceServerSecurityConfigurer resources) {
-        resources.resourceId("web").tokenServices(tokenServices);
+        resources.resourceId("web").tokenServices(tokenServices)
+                .tokenExtractor(gatewayClaimsAuthenticator.tokenExtractor())
+                .authenticationManager(gatewayClaimsAuthenticator.authenticationManager("web", tokenServices));
     }
     
 }
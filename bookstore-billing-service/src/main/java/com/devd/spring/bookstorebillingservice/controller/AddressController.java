@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -51,6 +52,12 @@ public class AddressController {
         return ResponseEntity.ok(address);
     }
 
+    @GetMapping("/addressesByIds")
+    public ResponseEntity<List<GetAddressResponse>> getAddressesByIds(@RequestParam("ids") List<String> addressIds) {
+        List<GetAddressResponse> addresses = addressService.getAddressesByIds(addressIds);
+        return ResponseEntity.ok(addresses);
+    }
+
     @DeleteMapping("/address/{addressId}")
     public ResponseEntity<?> deleteAddressById(@PathVariable("addressId") String addressId) {
         addressService.deleteAddressById(addressId);
@@ -19,5 +19,11 @@ public interface AddressService {
 
   GetAddressResponse getAddressById(String addressId);
 
+  /**
+   * The addresses of the signed in user with the given ids, in the order of the ids, so a checkout
+   * resolves its billing and shipping address together.
+   */
+  List<GetAddressResponse> getAddressesByIds(List<String> addressIds);
+
   void deleteAddressById(String addressId);
 }
@@ -7,13 +7,23 @@ import com.devd.spring.bookstorebillingservice.web.CreateAddressRequest;
 import com.devd.spring.bookstorebillingservice.web.GetAddressResponse;
 import com.devd.spring.bookstorebillingservice.web.UpdateAddressRequest;
 import com.devd.spring.bookstorecommons.util.CommonUtilityMethods;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,6 +35,20 @@ public class AddressServiceImpl implements AddressService {
     @Autowired
     AddressRepository addressRepository;
 
+    //all addresses of a user by address id, read with one query and dropped on every change of the user
+    private final Cache<String, Map<String, GetAddressResponse>> addressesByUser;
+
+    public AddressServiceImpl(@Value("${billing.address-cache.max-size:10000}") long maximumSize,
+                              @Value("${billing.address-cache.ttl:1m}") Duration ttl,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.addressesByUser = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, addressesByUser, "addresses"));
+    }
+
     @Override
     public void createAddress(CreateAddressRequest createAddressRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -42,7 +66,7 @@ public class AddressServiceImpl implements AddressService {
                 .build();
 
         addressRepository.save(addressDao);
-
+        addressesByUser.invalidate(userIdFromToken);
     }
 
 
@@ -52,30 +76,7 @@ public class AddressServiceImpl implements AddressService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userIdFromToken = CommonUtilityMethods.getUserIdFromToken(authentication);
 
-        Optional<List<AddressDao>> addresses = addressRepository
-                .findByUserId(userIdFromToken);
-
-        List<GetAddressResponse> responseList = new ArrayList<>();
-
-        if (addresses.isPresent()) {
-            addresses.get().forEach(address -> {
-                responseList.add(GetAddressResponse.builder()
-                        .addressId(address.getAddressId())
-                        .addressLine1(address.getAddressLine1())
-                        .addressLine2(address.getAddressLine2())
-                        .city(address.getCity())
-                        .country(address.getCountry())
-                        .phone(address.getPhone())
-                        .postalCode(address.getPostalCode())
-                        .state(address.getState())
-                        .userId(address.getUserId())
-                        .build());
-            });
-
-            return responseList;
-        }
-
-        return new ArrayList<>();
+        return new ArrayList<>(getUserAddresses(userIdFromToken).values());
     }
 
     @Override
@@ -106,6 +107,7 @@ public class AddressServiceImpl implements AddressService {
                 .build();
 
         addressRepository.save(addressDao);
+        addressesByUser.invalidate(userIdFromToken);
     }
 
     @Override
@@ -113,35 +115,76 @@ public class AddressServiceImpl implements AddressService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userIdFromToken = CommonUtilityMethods.getUserIdFromToken(authentication);
 
+        return getUserAddress(userIdFromToken, getUserAddresses(userIdFromToken), addressId);
+    }
+
+    @Override
+    public List<GetAddressResponse> getAddressesByIds(List<String> addressIds) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userIdFromToken = CommonUtilityMethods.getUserIdFromToken(authentication);
+
+        Map<String, GetAddressResponse> userAddresses = getUserAddresses(userIdFromToken);
+        List<GetAddressResponse> responseList = new ArrayList<>();
+        for (String addressId : addressIds) {
+            responseList.add(getUserAddress(userIdFromToken, userAddresses, addressId));
+        }
+        return responseList;
+    }
+
+    @Override
+    public void deleteAddressById(String addressId) {
+        GetAddressResponse address = getAddressById(addressId);
+        addressRepository.deleteById(addressId);
+        addressesByUser.invalidate(address.getUserId());
+    }
+
+    private Map<String, GetAddressResponse> getUserAddresses(String userId) {
+        return addressesByUser.get(userId, this::loadUserAddresses);
+    }
+
+    private Map<String, GetAddressResponse> loadUserAddresses(String userId) {
+        Map<String, GetAddressResponse> addresses = new LinkedHashMap<>();
+        addressRepository.findByUserId(userId)
+                .ifPresent(userAddresses -> userAddresses.forEach(address ->
+                        addresses.put(address.getAddressId(), toGetAddressResponse(address))));
+        return Collections.unmodifiableMap(addresses);
+    }
+
+    //an id missing from the cached addresses is looked up, it may be another user's or created on another instance
+    private GetAddressResponse getUserAddress(String userId, Map<String, GetAddressResponse> userAddresses,
+                                              String addressId) {
+        GetAddressResponse cached = userAddresses.get(addressId);
+        if (cached != null) {
+            return cached;
+        }
+
         Optional<AddressDao> addressOptional = addressRepository.findByAddressId(addressId);
 
         if (addressOptional.isPresent()) {
             AddressDao address = addressOptional.get();
 
-            if (!address.getUserId().equals(userIdFromToken)) {
+            if (!address.getUserId().equals(userId)) {
                 throw new RuntimeException("UnAuthorized");
             }
 
-            return GetAddressResponse.builder()
-                    .addressId(address.getAddressId())
-                    .addressLine1(address.getAddressLine1())
-                    .addressLine2(address.getAddressLine2())
-                    .city(address.getCity())
-                    .country(address.getCountry())
-                    .phone(address.getPhone())
-                    .postalCode(address.getPostalCode())
-                    .state(address.getState())
-                    .userId(address.getUserId())
-                    .build();
+            addressesByUser.invalidate(userId);
+            return toGetAddressResponse(address);
         }
 
         throw new RuntimeException("Address doesn't exist");
     }
 
-    @Override
-    public void deleteAddressById(String addressId) {
-        getAddressById(addressId);
-        addressRepository.deleteById(addressId);
+    private static GetAddressResponse toGetAddressResponse(AddressDao address) {
+        return GetAddressResponse.builder()
+                .addressId(address.getAddressId())
+                .addressLine1(address.getAddressLine1())
+                .addressLine2(address.getAddressLine2())
+                .city(address.getCity())
+                .country(address.getCountry())
+                .phone(address.getPhone())
+                .postalCode(address.getPostalCode())
+                .state(address.getState())
+                .userId(address.getUserId())
+                .build();
     }
 }
-
@@ -0,0 +1,128 @@
+package com.devd.spring.bookstorebillingservice.service.impl;
+
+import com.devd.spring.bookstorebillingservice.repository.AddressRepository;
+import com.devd.spring.bookstorebillingservice.repository.dao.AddressDao;
+import com.devd.spring.bookstorebillingservice.web.GetAddressResponse;
+import com.devd.spring.bookstorebillingservice.web.UpdateAddressRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AddressServiceImplTest {
+
+    private final AddressRepository addressRepository = mock(AddressRepository.class);
+
+    @SuppressWarnings("unchecked")
+    private final AddressServiceImpl addressService =
+            new AddressServiceImpl(100, Duration.ofMinutes(1), mock(ObjectProvider.class));
+
+    private final AddressDao home = address("a1", "u1", "1 Home St");
+
+    private final AddressDao work = address("a2", "u1", "2 Work St");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(addressService, "addressRepository", addressRepository);
+        signIn("u1");
+        when(addressRepository.findByUserId("u1")).thenReturn(Optional.of(Arrays.asList(home, work)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolvesSeveralAddressesWithOneQuery() {
+        assertThat(addressService.getAddressesByIds(Arrays.asList("a2", "a1")))
+                .extracting(GetAddressResponse::getAddressId)
+                .containsExactly("a2", "a1");
+        assertThat(addressService.getAddressById("a1").getAddressLine1()).isEqualTo("1 Home St");
+
+        verify(addressRepository, times(1)).findByUserId("u1");
+        verify(addressRepository, never()).findByAddressId("a1");
+    }
+
+    @Test
+    void rejectsAddressOfAnotherUser() {
+        when(addressRepository.findByAddressId("a3")).thenReturn(Optional.of(address("a3", "u2", "3 Other St")));
+
+        assertThatThrownBy(() -> addressService.getAddressesByIds(Arrays.asList("a1", "a3")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("UnAuthorized");
+    }
+
+    @Test
+    void rejectsUnknownAddress() {
+        when(addressRepository.findByAddressId("a9")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> addressService.getAddressById("a9"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Address doesn't exist");
+    }
+
+    @Test
+    void rereadsAddressesAfterUpdate() {
+        addressService.getAddress();
+        when(addressRepository.findByAddressId("a1")).thenReturn(Optional.of(home));
+        UpdateAddressRequest updateRequest = UpdateAddressRequest.builder()
+                .addressId("a1")
+                .addressLine1("10 Home St")
+                .city("Boston")
+                .state("MA")
+                .postalCode("02101")
+                .country("US")
+                .build();
+
+        addressService.updateAddress(updateRequest);
+        when(addressRepository.findByUserId("u1"))
+                .thenReturn(Optional.of(Collections.singletonList(address("a1", "u1", "10 Home St"))));
+
+        assertThat(addressService.getAddress())
+                .extracting(GetAddressResponse::getAddressLine1)
+                .containsExactly("10 Home St");
+        verify(addressRepository, times(2)).findByUserId("u1");
+    }
+
+    private static AddressDao address(String addressId, String userId, String addressLine1) {
+        return AddressDao.builder()
+                .addressId(addressId)
+                .userId(userId)
+                .addressLine1(addressLine1)
+                .city("New York")
+                .state("NY")
+                .postalCode("10001")
+                .country("US")
+                .build();
+    }
+
+    private static void signIn(String userId) {
+        Map<String, String> details = new HashMap<>();
+        details.put("user_id", userId);
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken("devd", null);
+        user.setDetails(details);
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        SecurityContextHolder.getContext().setAuthentication(new OAuth2Authentication(request, user));
+    }
+}
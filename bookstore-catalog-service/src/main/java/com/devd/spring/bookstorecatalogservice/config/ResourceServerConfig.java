@@ -1,5 +1,6 @@
 package com.devd.spring.bookstorecatalogservice.config;
 
+import com.devd.spring.bookstorecommons.security.GatewayClaimsAuthenticator;
 import com.devd.spring.bookstorecommons.security.GlobalResourceServerConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -13,10 +14,15 @@ public class ResourceServerConfig extends GlobalResourceServerConfig {
     
     @Autowired
     private ResourceServerTokenServices tokenServices;
+
+    @Autowired
+    private GatewayClaimsAuthenticator gatewayClaimsAuthenticator;
     
     @Override
     public void configure(ResourceServerSecurityConfigurer resources) {
-        resources.resourceId("web").tokenServices(tokenServices);
+        resources.resourceId("web").tokenServices(tokenServices)
+                .tokenExtractor(gatewayClaimsAuthenticator.tokenExtractor())
+                .authenticationManager(gatewayClaimsAuthenticator.authenticationManager("web", tokenServices));
     }
     
     @Override
@@ -28,6 +34,7 @@ public class ResourceServerConfig extends GlobalResourceServerConfig {
                 .antMatchers(HttpMethod.GET, "/product**/**").permitAll()
                 .antMatchers(HttpMethod.GET, "/review/**").permitAll()
                 .antMatchers(HttpMethod.GET, "/image/**").permitAll()
+                .antMatchers(HttpMethod.POST, "/graphql").permitAll()
                 .antMatchers("/**").authenticated();
     }
 }
@@ -0,0 +1,35 @@
+package com.devd.spring.bookstorecatalogservice.controller;
+
+import com.devd.spring.bookstorecatalogservice.graphql.CatalogGraphQLWiring;
+import com.devd.spring.bookstorecommons.graphql.GraphQLExecutor;
+import com.devd.spring.bookstorecommons.graphql.GraphQLRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Read only GraphQL API over products, categories and reviews.
+ */
+@RestController
+@CrossOrigin
+public class GraphQLController {
+
+    @Autowired
+    private GraphQLExecutor graphQLExecutor;
+
+    @Autowired
+    private CatalogGraphQLWiring catalogGraphQLWiring;
+
+    @PostMapping(value = "/graphql", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> graphql(@RequestBody GraphQLRequest graphQLRequest) {
+
+        Map<String, Object> result = graphQLExecutor.execute(graphQLRequest, catalogGraphQLWiring.newDataLoaderRegistry());
+
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,7 +1,7 @@
 package com.devd.spring.bookstorecatalogservice.controller;
 
 import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,10 +18,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -35,6 +33,8 @@ import java.util.UUID;
 @RestController
 public class ImageUploadController {
 
+    private static final Path IMAGES_DIR = Paths.get("images");
+
     @PostMapping("image/upload")
     @PreAuthorize("hasAuthority('ADMIN_USER')")
     public ResponseEntity<?> uploadImage(@RequestParam("imageFile") MultipartFile file) throws IOException {
@@ -43,14 +43,12 @@ public class ImageUploadController {
         }
         UUID uuid = UUID.randomUUID();
         String fileName = StringUtils.cleanPath(file.getOriginalFilename());
-        Files.createDirectories(Paths.get("images"));
-        Path path = Paths.get("images/" + uuid.toString() + "__" + fileName);
-        Path absolutePath = path.toAbsolutePath();
-        try {
-            Files.copy(file.getInputStream(), absolutePath, StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Files.createDirectories(IMAGES_DIR);
+        Path absolutePath = IMAGES_DIR.resolve(uuid.toString() + "__" + fileName).toAbsolutePath();
+        // the part is spooled to disk as it arrives (file-size-threshold 0). Given a File, the container
+        // renames the spooled file into place when the upload temp dir is on the same filesystem as
+        // IMAGES_DIR and streams it across otherwise; either way it is never held in the heap whole
+        file.transferTo(absolutePath.toFile());
         Map<String, String> response = new HashMap<>();
         response.put("imageId", uuid.toString() + "__" + fileName);
         return ResponseEntity.status(HttpStatus.OK).body(response);
@@ -58,14 +56,14 @@ public class ImageUploadController {
 
     @GetMapping(path = "image/{imageId}")
     public ResponseEntity<?> getImage(@PathVariable String imageId) throws IOException {
-        Optional<Path> images = Files.list(Paths.get("images")).filter(img -> img.getFileName().toString().equals(imageId)).findFirst();
-        if (images.isPresent()) {
-            final ByteArrayResource inputStream = new ByteArrayResource(Files.readAllBytes(images.get()));
+        Path image = IMAGES_DIR.resolve(imageId).normalize();
+        if (image.startsWith(IMAGES_DIR) && Files.isRegularFile(image)) {
+            final FileSystemResource resource = new FileSystemResource(image);
             return ResponseEntity
                     .status(HttpStatus.OK)
                     .contentType(MediaType.IMAGE_JPEG)
-                    .contentLength(inputStream.contentLength())
-                    .body(inputStream);
+                    .contentLength(resource.contentLength())
+                    .body(resource);
         }
         return ResponseEntity.ok().build();
     }
@@ -2,6 +2,7 @@ package com.devd.spring.bookstorecatalogservice.controller;
 
 import com.devd.spring.bookstorecatalogservice.service.ProductService;
 import com.devd.spring.bookstorecatalogservice.web.CreateProductRequest;
+import com.devd.spring.bookstorecatalogservice.web.ProductDetailResponse;
 import com.devd.spring.bookstorecatalogservice.web.ProductResponse;
 import com.devd.spring.bookstorecatalogservice.web.ProductsPagedResponse;
 import com.devd.spring.bookstorecatalogservice.web.UpdateProductRequest;
@@ -26,6 +27,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
 
 /**
  * @author: Devaraj Reddy,
@@ -59,6 +61,23 @@ public class ProductController {
         return ResponseEntity.ok(product);
     }
 
+    @GetMapping("/productsByIds")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam("ids") List<String> productIds) {
+
+        List<ProductResponse> products = productService.getProductsByIds(productIds);
+
+        return ResponseEntity.ok(products);
+    }
+
+    @GetMapping("/product/{productId}/detail")
+    public ResponseEntity<ProductDetailResponse> getProductDetail(@PathVariable("productId") String productId,
+                                                                  @RequestParam(value = "reviewsSize", required = false) Integer reviewsSize) {
+
+        ProductDetailResponse productDetail = productService.getProductDetail(productId, reviewsSize);
+
+        return ResponseEntity.ok(productDetail);
+    }
+
     @DeleteMapping("/product/{productId}")
     @PreAuthorize("hasAuthority('ADMIN_USER')")
     public ResponseEntity<?> deleteProductCategory(@PathVariable("productId") String productId) {
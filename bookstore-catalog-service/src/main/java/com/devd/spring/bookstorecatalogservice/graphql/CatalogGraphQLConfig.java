@@ -0,0 +1,23 @@
+package com.devd.spring.bookstorecatalogservice.graphql;
+
+import com.devd.spring.bookstorecommons.graphql.GraphQLExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+
+@Configuration
+public class CatalogGraphQLConfig {
+
+    @Bean
+    public GraphQLExecutor catalogGraphQLExecutor(CatalogGraphQLWiring catalogGraphQLWiring,
+                                                  @Value("classpath:graphql/catalog.graphqls") Resource schema,
+                                                  @Value("${bookstore.graphql.max-depth:8}") int maxDepth,
+                                                  @Value("${bookstore.graphql.max-complexity:500}") int maxComplexity) throws IOException {
+        //lists are priced at the largest default and maximum page any catalog fetcher uses
+        return new GraphQLExecutor(schema, catalogGraphQLWiring.runtimeWiring(), maxDepth, maxComplexity,
+                CatalogGraphQLWiring.DEFAULT_PAGE_SIZE, CatalogGraphQLWiring.MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,127 @@
+package com.devd.spring.bookstorecatalogservice.graphql;
+
+import com.devd.spring.bookstorecatalogservice.model.RatingSummary;
+import com.devd.spring.bookstorecatalogservice.repository.ProductCategoryRepository;
+import com.devd.spring.bookstorecatalogservice.repository.ProductRepository;
+import com.devd.spring.bookstorecatalogservice.repository.ReviewRepository;
+import com.devd.spring.bookstorecatalogservice.repository.dao.Product;
+import com.devd.spring.bookstorecatalogservice.repository.dao.Review;
+import com.devd.spring.bookstorecatalogservice.service.ProductService;
+import com.devd.spring.bookstorecommons.graphql.GraphQLQueryLimits;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.idl.RuntimeWiring;
+import lombok.Value;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Data fetchers of the catalog GraphQL schema.
+ *
+ * The ratings and reviews of the products in a response are resolved through data loaders, so a
+ * page of products costs one grouped ratings query and one reviews query, limited per product to
+ * the reviews asked for, however many products it holds.
+ */
+@Component
+public class CatalogGraphQLWiring {
+
+    static final String RATINGS_LOADER = "ratings";
+    static final String REVIEWS_LOADER = "reviews";
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_REVIEWS = 10;
+    private static final int MAX_REVIEWS = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    public RuntimeWiring runtimeWiring() {
+        return RuntimeWiring.newRuntimeWiring()
+                .type("Query", typeWiring -> typeWiring
+                        .dataFetcher("products", env -> productRepository.findAll(pageRequest(env)).getContent())
+                        .dataFetcher("product", env -> productRepository.findById(env.getArgument("productId")).orElse(null))
+                        .dataFetcher("categories", env -> productCategoryRepository.findAll(pageRequest(env)).getContent()))
+                .type("Product", typeWiring -> typeWiring
+                        .dataFetcher("averageRating", env -> ratingSummary(env).thenApply(RatingSummary::getAverageRating))
+                        .dataFetcher("noOfRatings", env -> ratingSummary(env).thenApply(RatingSummary::getNoOfRatings))
+                        .dataFetcher("reviews", this::reviews))
+                .build();
+    }
+
+    /**
+     * Loaders hold the values they fetched, so a new registry is needed for every request.
+     */
+    public DataLoaderRegistry newDataLoaderRegistry() {
+        DataLoader<String, RatingSummary> ratingsLoader = DataLoader.newMappedDataLoader(productIds ->
+                CompletableFuture.completedFuture(productService.getRatingSummaries(productIds)));
+
+        //One query per distinct number of reviews asked for, usually just one.
+        DataLoader<ReviewsKey, List<Review>> reviewsLoader = DataLoader.newMappedDataLoader(keys -> {
+            Map<ReviewsKey, List<Review>> reviews = new HashMap<>();
+            keys.stream()
+                    .collect(Collectors.groupingBy(ReviewsKey::getFirst,
+                            Collectors.mapping(ReviewsKey::getProductId, Collectors.toSet())))
+                    .forEach((first, productIds) -> reviewRepository.findLatestByProductIdIn(productIds, first)
+                            .stream()
+                            .collect(Collectors.groupingBy(Review::getProductId))
+                            .forEach((productId, latest) -> reviews.put(new ReviewsKey(productId, first), latest)));
+            return CompletableFuture.completedFuture(reviews);
+        });
+
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+        registry.register(RATINGS_LOADER, ratingsLoader);
+        registry.register(REVIEWS_LOADER, reviewsLoader);
+        return registry;
+    }
+
+    private CompletableFuture<RatingSummary> ratingSummary(DataFetchingEnvironment env) {
+        Product product = env.getSource();
+        DataLoader<String, RatingSummary> ratingsLoader = env.getDataLoader(RATINGS_LOADER);
+        return ratingsLoader.load(product.getProductId());
+    }
+
+    private CompletableFuture<List<Review>> reviews(DataFetchingEnvironment env) {
+        Product product = env.getSource();
+        int first = boundedArgument(env, "first", DEFAULT_REVIEWS, MAX_REVIEWS);
+        DataLoader<ReviewsKey, List<Review>> reviewsLoader = env.getDataLoader(REVIEWS_LOADER);
+        return reviewsLoader.load(new ReviewsKey(product.getProductId(), first))
+                .thenApply(reviews -> reviews == null ? Collections.emptyList() : reviews);
+    }
+
+    private static PageRequest pageRequest(DataFetchingEnvironment env) {
+        Integer page = env.getArgument("page");
+        return PageRequest.of(page == null ? 0 : Math.max(page, 0),
+                boundedArgument(env, "size", DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE));
+    }
+
+    private static int boundedArgument(DataFetchingEnvironment env, String name, int defaultValue, int max) {
+        return GraphQLQueryLimits.listSize(env.getArgument(name), defaultValue, max);
+    }
+
+    @Value
+    private static class ReviewsKey {
+
+        String productId;
+
+        int first;
+    }
+}
@@ -0,0 +1,32 @@
+package com.devd.spring.bookstorecatalogservice.model;
+
+import com.devd.spring.bookstorecatalogservice.repository.ReviewRepository;
+import lombok.Value;
+
+import java.util.Collection;
+
+/**
+ * Number of ratings of a product and their average, null when it has none.
+ */
+@Value
+public class RatingSummary {
+
+    public static final RatingSummary NONE = new RatingSummary(null, 0);
+
+    Double averageRating;
+    int noOfRatings;
+
+    //Count and average come from the ratings grouped by value, the reviews themselves are not loaded.
+    public static RatingSummary of(Collection<? extends ReviewRepository.RatingCount> ratingCounts) {
+        long count = 0;
+        double sum = 0;
+        for (ReviewRepository.RatingCount ratingCount : ratingCounts) {
+            count += ratingCount.getCount();
+            sum += ratingCount.getRatingValue() * ratingCount.getCount();
+        }
+        if (count == 0) {
+            return NONE;
+        }
+        return new RatingSummary(sum / count, Math.toIntExact(count));
+    }
+}
@@ -1,9 +1,13 @@
 package com.devd.spring.bookstorecatalogservice.repository;
 
 import com.devd.spring.bookstorecatalogservice.repository.dao.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,45 @@ public interface ReviewRepository extends JpaRepository<Review, String> {
 
     Optional<List<Review>> findAllByProductId(String productId);
 
+    List<Review> findByProductId(String productId, Pageable pageable);
+
     //    long countAllByProductIdAndReviewMessageNotNull (String productId);
     long countAllByProductId(String productId);
+
+    /**
+     * Number of reviews of the product per rating value, enough to derive the count, the average
+     * and the histogram of its ratings without loading the reviews.
+     */
+    @Query("select r.ratingValue as ratingValue, count(r) as count from Review r"
+            + " where r.productId = :productId group by r.ratingValue")
+    List<RatingCount> countRatingsByProductId(@Param("productId") String productId);
+
+    /**
+     * Same as {@link #countRatingsByProductId(String)} for many products in one query.
+     */
+    @Query("select r.productId as productId, r.ratingValue as ratingValue, count(r) as count from Review r"
+            + " where r.productId in :productIds group by r.productId, r.ratingValue")
+    List<ProductRatingCount> countRatingsByProductIdIn(@Param("productIds") Collection<String> productIds);
+
+    /**
+     * The {@code limit} newest reviews of each of the products, newest first. They are ranked in the
+     * database, so a product with many reviews does not load them all.
+     */
+    @Query(value = "select ranked.* from (select r.*, row_number() over (partition by r.PRODUCT_ID"
+            + " order by r.CREATED_AT desc) as REVIEW_RANK from REVIEW r where r.PRODUCT_ID in (:productIds)) ranked"
+            + " where ranked.REVIEW_RANK <= :limit order by ranked.PRODUCT_ID, ranked.CREATED_AT desc",
+            nativeQuery = true)
+    List<Review> findLatestByProductIdIn(@Param("productIds") Collection<String> productIds, @Param("limit") int limit);
+
+    interface RatingCount {
+
+        double getRatingValue();
+
+        long getCount();
+    }
+
+    interface ProductRatingCount extends RatingCount {
+
+        String getProductId();
+    }
 }
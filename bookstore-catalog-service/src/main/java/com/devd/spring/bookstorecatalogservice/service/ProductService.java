@@ -1,9 +1,14 @@
 package com.devd.spring.bookstorecatalogservice.service;
 
+import com.devd.spring.bookstorecatalogservice.model.RatingSummary;
 import com.devd.spring.bookstorecatalogservice.repository.dao.Product;
 import com.devd.spring.bookstorecatalogservice.web.CreateProductRequest;
+import com.devd.spring.bookstorecatalogservice.web.ProductDetailResponse;
 import com.devd.spring.bookstorecatalogservice.web.ProductResponse;
 import com.devd.spring.bookstorecatalogservice.web.UpdateProductRequest;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import javax.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -17,6 +22,12 @@ public interface ProductService {
 
   ProductResponse getProduct(String productId);
 
+  List<ProductResponse> getProductsByIds(List<String> productIds);
+
+  Map<String, RatingSummary> getRatingSummaries(Collection<String> productIds);
+
+  ProductDetailResponse getProductDetail(String productId, Integer reviewsSize);
+
   void deleteProduct(String productId);
 
   void updateProduct(UpdateProductRequest updateProductRequest);
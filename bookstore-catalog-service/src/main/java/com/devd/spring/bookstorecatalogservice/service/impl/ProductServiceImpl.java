@@ -1,5 +1,6 @@
 package com.devd.spring.bookstorecatalogservice.service.impl;
 
+import com.devd.spring.bookstorecatalogservice.model.RatingSummary;
 import com.devd.spring.bookstorecatalogservice.repository.ProductCategoryRepository;
 import com.devd.spring.bookstorecatalogservice.repository.ProductRepository;
 import com.devd.spring.bookstorecatalogservice.repository.ReviewRepository;
@@ -7,8 +8,8 @@ import com.devd.spring.bookstorecatalogservice.repository.dao.Product;
 import com.devd.spring.bookstorecatalogservice.repository.dao.ProductCategory;
 import com.devd.spring.bookstorecatalogservice.repository.dao.Review;
 import com.devd.spring.bookstorecatalogservice.service.ProductService;
-import com.devd.spring.bookstorecatalogservice.service.ReviewService;
 import com.devd.spring.bookstorecatalogservice.web.CreateProductRequest;
+import com.devd.spring.bookstorecatalogservice.web.ProductDetailResponse;
 import com.devd.spring.bookstorecatalogservice.web.ProductResponse;
 import com.devd.spring.bookstorecatalogservice.web.UpdateProductRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -20,8 +21,15 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * @author: Devaraj Reddy,
@@ -30,15 +38,14 @@ import java.util.Optional;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_DETAIL_REVIEWS = 50;
+
     @Autowired
     ProductRepository productRepository;
 
     @Autowired
     ProductCategoryRepository productCategoryRepository;
 
-    @Autowired
-    private ReviewService reviewService;
-
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -74,20 +81,88 @@ public class ProductServiceImpl implements ProductService {
 
         Product product = productOptional.orElseThrow(() -> new RuntimeException("Product Id doesn't exist!"));
         ProductResponse productResponse = objectMapper.convertValue(product, ProductResponse.class);
-        populateRatingForProduct(productId, productResponse);
+        populateRatingForProduct(productResponse, RatingSummary.of(reviewRepository.countRatingsByProductId(productId)));
         return productResponse;
     }
 
-    //This way of setting rating for productResponse is not okay, But this is okay for now.
-    private void populateRatingForProduct(String productId, ProductResponse productResponse) {
-        List<Review> reviewsForProduct = reviewService.getReviewsForProduct(productId);
-        if (reviewsForProduct.size() > 0) {
-            double sum = reviewsForProduct.stream().mapToDouble(Review::getRatingValue).sum();
-            double rating = sum / reviewsForProduct.size();
-            productResponse.setAverageRating(rating);
+    @Override
+    public List<ProductResponse> getProductsByIds(List<String> productIds) {
+        List<ProductResponse> productResponses = productRepository.findAllById(productIds)
+                .stream()
+                .map(Product::fromEntity)
+                .collect(Collectors.toList());
+
+        populateRatingForProducts(productResponses);
+        return productResponses;
+    }
+
+    @Override
+    public Map<String, RatingSummary> getRatingSummaries(Collection<String> productIds) {
+        Map<String, List<ReviewRepository.ProductRatingCount>> ratingCountsByProduct =
+                reviewRepository.countRatingsByProductIdIn(productIds)
+                        .stream()
+                        .collect(Collectors.groupingBy(ReviewRepository.ProductRatingCount::getProductId));
+
+        Map<String, RatingSummary> ratingSummaries = new HashMap<>();
+        for (String productId : productIds) {
+            ratingSummaries.put(productId,
+                    RatingSummary.of(ratingCountsByProduct.getOrDefault(productId, Collections.emptyList())));
+        }
+        return ratingSummaries;
+    }
+
+    @Override
+    public ProductDetailResponse getProductDetail(String productId, Integer reviewsSize) {
+
+        //set defaults
+        if (reviewsSize == null || reviewsSize <= 0) {
+            reviewsSize = 10;
+        }
+        reviewsSize = Math.min(reviewsSize, MAX_DETAIL_REVIEWS);
+
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product Id doesn't exist!"));
+        ProductResponse productResponse = objectMapper.convertValue(product, ProductResponse.class);
+
+        List<ReviewRepository.RatingCount> ratingCounts = reviewRepository.countRatingsByProductId(productId);
+        populateRatingForProduct(productResponse, RatingSummary.of(ratingCounts));
+
+        Map<Integer, Long> ratingHistogram = new TreeMap<>();
+        for (int stars = 1; stars <= 5; stars++) {
+            ratingHistogram.put(stars, 0L);
+        }
+        for (ReviewRepository.RatingCount ratingCount : ratingCounts) {
+            ratingHistogram.merge((int) Math.round(ratingCount.getRatingValue()), ratingCount.getCount(), Long::sum);
+        }
+
+        List<Review> reviews = productResponse.getNoOfRatings() == 0
+                ? Collections.emptyList()
+                : reviewRepository.findByProductId(productId,
+                        PageRequest.of(0, reviewsSize, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        return ProductDetailResponse.builder()
+                .product(productResponse)
+                .ratingHistogram(ratingHistogram)
+                .reviews(reviews)
+                .build();
+    }
+
+    private void populateRatingForProduct(ProductResponse productResponse, RatingSummary ratingSummary) {
+        productResponse.setAverageRating(ratingSummary.getAverageRating());
+        productResponse.setNoOfRatings(ratingSummary.getNoOfRatings());
+    }
+
+    //One grouped query for the ratings of all the products instead of one per product.
+    private void populateRatingForProducts(Iterable<ProductResponse> productResponses) {
+        List<String> productIds = new ArrayList<>();
+        productResponses.forEach(productResponse -> productIds.add(productResponse.getProductId()));
+        if (productIds.isEmpty()) {
+            return;
         }
 
-        productResponse.setNoOfRatings(Math.toIntExact(reviewRepository.countAllByProductId(productId)));
+        Map<String, RatingSummary> ratingSummaries = getRatingSummaries(productIds);
+        productResponses.forEach(productResponse ->
+                populateRatingForProduct(productResponse, ratingSummaries.get(productResponse.getProductId())));
     }
 
     @Override
@@ -181,7 +256,7 @@ public class ProductServiceImpl implements ProductService {
         }
         Page<Product> allProducts = productRepository.findAll(pageable);
         Page<ProductResponse> allProductsResponse = allProducts.map(Product::fromEntity);
-        allProductsResponse.forEach(productResponse -> populateRatingForProduct(productResponse.getProductId(), productResponse));
+        populateRatingForProducts(allProductsResponse);
 
         return allProductsResponse;
     }
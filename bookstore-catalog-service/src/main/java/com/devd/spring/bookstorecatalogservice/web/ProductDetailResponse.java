@@ -0,0 +1,26 @@
+package com.devd.spring.bookstorecatalogservice.web;
+
+import com.devd.spring.bookstorecatalogservice.repository.dao.Review;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the product page shows: the product with its rating, the number of ratings per star
+ * and the most recent reviews.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductDetailResponse {
+
+    private ProductResponse product;
+    private Map<Integer, Long> ratingHistogram;
+    private List<Review> reviews;
+
+}
@@ -0,0 +1 @@
+create index IDX_REVIEW_PRODUCT_ID on REVIEW (product_id);
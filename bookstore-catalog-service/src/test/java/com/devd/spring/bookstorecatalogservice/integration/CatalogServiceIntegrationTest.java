@@ -288,6 +288,62 @@ class CatalogServiceIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Should get product detail with rating histogram and reviews")
+    void shouldGetProductDetailWithRatingHistogramAndReviews() throws Exception {
+        // Given - Create category, product and a review
+        CreateProductCategoryRequest categoryRequest = new CreateProductCategoryRequest();
+        categoryRequest.setProductCategoryName("Architecture Books");
+        categoryRequest.setDescription("Books about software architecture");
+
+        String categoryResponse = mockMvc.perform(post("/productCategory")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(categoryRequest)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+
+        String categoryId = categoryResponse.substring(categoryResponse.lastIndexOf("/") + 1);
+
+        CreateProductRequest productRequest = new CreateProductRequest();
+        productRequest.setProductName("Building Microservices");
+        productRequest.setDescription("Designing fine-grained systems");
+        productRequest.setPrice(39.99);
+        productRequest.setProductCategoryId(categoryId);
+        productRequest.setAvailableItemCount(20);
+
+        String productResponse = mockMvc.perform(post("/product")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(productRequest)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+
+        String productId = productResponse.substring(productResponse.lastIndexOf("/") + 1);
+
+        CreateOrUpdateReviewRequest reviewRequest = new CreateOrUpdateReviewRequest();
+        reviewRequest.setProductId(productId);
+        reviewRequest.setReviewMessage("Great overview of microservices");
+        reviewRequest.setRatingValue(4.0);
+
+        mockMvc.perform(post("/review")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reviewRequest)))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/product/{productId}/detail", productId)
+                .param("reviewsSize", "5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.product.productName", is("Building Microservices")))
+                .andExpect(jsonPath("$.product.averageRating", is(4.0)))
+                .andExpect(jsonPath("$.product.noOfRatings", is(1)))
+                .andExpect(jsonPath("$.ratingHistogram.4", is(1)))
+                .andExpect(jsonPath("$.ratingHistogram.5", is(0)))
+                .andExpect(jsonPath("$.reviews", hasSize(1)))
+                .andExpect(jsonPath("$.reviews[0].reviewMessage", is("Great overview of microservices")));
+    }
+
     @Test
     @DisplayName("Should verify database connectivity and container status")
     void shouldVerifyDatabaseConnectivity() {
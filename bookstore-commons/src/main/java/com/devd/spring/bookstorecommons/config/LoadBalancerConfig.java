@@ -0,0 +1,14 @@
+package com.devd.spring.bookstorecommons.config;
+
+import com.devd.spring.bookstoreloadbalancer.LatencyAwareRibbonConfiguration;
+import org.springframework.cloud.netflix.ribbon.RibbonClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Balances the Feign clients across the service instances by latency instead of round robin, see
+ * {@link LatencyAwareRibbonConfiguration}.
+ */
+@Configuration
+@RibbonClients(defaultConfiguration = LatencyAwareRibbonConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,67 @@
+package com.devd.spring.bookstorecommons.graphql;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Executes GraphQL requests against a schema built from an SDL file, with the depth and cost
+ * limits of {@link GraphQLQueryLimits}.
+ *
+ * Each request gets its own {@link DataLoaderRegistry}, so loaders batch the lookups of one
+ * query and never serve values cached for another user.
+ */
+public class GraphQLExecutor {
+
+    private final GraphQL graphQL;
+
+    /**
+     * With the default and maximum list sizes of the data fetchers, see
+     * {@link GraphQLQueryLimits#instrumentation(int, int, int, int)}.
+     */
+    public GraphQLExecutor(Resource schemaDefinition, RuntimeWiring runtimeWiring,
+                           int maxDepth, int maxComplexity, int defaultListSize, int maxListSize) throws IOException {
+        this(schemaDefinition, runtimeWiring,
+                GraphQLQueryLimits.instrumentation(maxDepth, maxComplexity, defaultListSize, maxListSize));
+    }
+
+    private GraphQLExecutor(Resource schemaDefinition, RuntimeWiring runtimeWiring,
+                            Instrumentation instrumentation) throws IOException {
+
+        String sdl;
+        try (InputStream in = schemaDefinition.getInputStream()) {
+            sdl = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+        GraphQLSchema schema = new SchemaGenerator()
+                .makeExecutableSchema(new SchemaParser().parse(sdl), runtimeWiring);
+
+        this.graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(instrumentation)
+                .build();
+    }
+
+    public Map<String, Object> execute(GraphQLRequest request, DataLoaderRegistry dataLoaderRegistry) {
+
+        ExecutionInput executionInput = ExecutionInput.newExecutionInput()
+                .query(request.getQuery())
+                .operationName(request.getOperationName())
+                .variables(request.getVariables() == null ? Collections.emptyMap() : request.getVariables())
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .build();
+
+        return graphQL.execute(executionInput).toSpecification();
+    }
+}
@@ -0,0 +1,59 @@
+package com.devd.spring.bookstorecommons.graphql;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentation that rejects a query before any data fetcher runs when it nests deeper than
+ * {@code maxDepth} or its estimated cost exceeds {@code maxComplexity}.
+ *
+ * Every field costs one. A list field multiplies the cost of its selection by the page it asks
+ * for, taken from its {@code size} or {@code first} argument the way {@link #listSize} bounds it
+ * for the data fetchers, so nesting lists inside lists is priced the way it is executed.
+ */
+public final class GraphQLQueryLimits {
+
+    private GraphQLQueryLimits() {
+    }
+
+    /**
+     * Prices lists without a usable size at {@code defaultListSize} and caps the others at
+     * {@code maxListSize}, which must be at least the largest default and maximum the data fetchers
+     * pass to {@link #listSize}.
+     */
+    public static Instrumentation instrumentation(int maxDepth, int maxComplexity, int defaultListSize, int maxListSize) {
+        return new ChainedInstrumentation(Arrays.asList(
+                new MaxQueryDepthInstrumentation(maxDepth),
+                new MaxQueryComplexityInstrumentation(maxComplexity, listSizeComplexity(defaultListSize, maxListSize)),
+                new DataLoaderDispatcherInstrumentation()));
+    }
+
+    /**
+     * Page size a list field fetches for the {@code requested} argument: the default when it is
+     * missing or not positive, otherwise the requested size capped at {@code max}.
+     */
+    public static int listSize(Integer requested, int defaultValue, int max) {
+        if (requested == null || requested <= 0) {
+            return defaultValue;
+        }
+        return Math.min(requested, max);
+    }
+
+    static FieldComplexityCalculator listSizeComplexity(int defaultListSize, int maxListSize) {
+        return (environment, childComplexity) -> {
+            if (!GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType()))) {
+                return 1 + childComplexity;
+            }
+            Object size = environment.getArguments().getOrDefault("size", environment.getArguments().get("first"));
+            int listSize = listSize(size instanceof Number ? ((Number) size).intValue() : null, defaultListSize, maxListSize);
+            return 1 + childComplexity * listSize;
+        };
+    }
+}
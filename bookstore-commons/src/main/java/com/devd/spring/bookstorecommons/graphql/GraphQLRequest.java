@@ -0,0 +1,21 @@
+package com.devd.spring.bookstorecommons.graphql;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Body of a GraphQL request sent as {@code application/json}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GraphQLRequest {
+
+    private String query;
+    private String operationName;
+    private Map<String, Object> variables;
+
+}
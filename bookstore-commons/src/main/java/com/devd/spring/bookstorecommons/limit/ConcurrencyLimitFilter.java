@@ -0,0 +1,104 @@
+package com.devd.spring.bookstorecommons.limit;
+
+import com.devd.spring.bookstorecommons.exception.Error;
+import com.devd.spring.bookstorecommons.exception.ErrorResponse;
+import com.devd.spring.bookstoreloadbalancer.limit.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Sheds the requests above the service's {@link AdaptiveConcurrencyLimiter} limit with a 503,
+ * before they reach security or the controllers. Actuator requests are never shed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(value = "bookstore.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final ObjectMapper objectMapper;
+
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(@Value("${bookstore.concurrency-limit.initial:50}") int initialLimit,
+                                  @Value("${bookstore.concurrency-limit.min:10}") int minLimit,
+                                  @Value("${bookstore.concurrency-limit.max:200}") int maxLimit,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+        this.objectMapper = objectMapper;
+        Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Requests the service currently lets in at once")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently in flight")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("concurrency.rejected")
+                .description("Requests shed by the concurrency limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed) {
+                int status = response.getStatus();
+                limiter.release(System.nanoTime() - start, status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                        || status == HttpStatus.GATEWAY_TIMEOUT.value());
+            } else {
+                limiter.releaseIgnored();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .uuid(UUID.randomUUID())
+                .errors(Collections.singletonList(Error.builder()
+                        .code(String.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value()))
+                        .message("Service is overloaded, try again later")
+                        .build()))
+                .build();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
@@ -0,0 +1,162 @@
+package com.devd.spring.bookstorecommons.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token services that remember the {@link OAuth2Authentication} of every successfully verified
+ * JWT, so a bearer token reused across a session is only signature checked and parsed once.
+ *
+ * Entries are keyed by the SHA-256 of the token and expire together with the token itself. Each call
+ * returns a fresh copy of the cached authentication, so concurrent requests never share one. With a
+ * {@link TokenRevocationList} set, cached tokens are checked against it on every use as well.
+ */
+public class CachingTokenServices extends DefaultTokenServices {
+
+    private static final String[] REVOCATION_CLAIMS = {"jti", "user_id", "iat"};
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private TokenStore tokenStore;
+
+    private TokenRevocationList revocationList;
+
+    public CachingTokenServices(long maximumSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void setTokenStore(TokenStore tokenStore) {
+        super.setTokenStore(tokenStore);
+        this.tokenStore = tokenStore;
+    }
+
+    public void setRevocationList(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessTokenValue)
+            throws AuthenticationException, InvalidTokenException {
+
+        String key = tokenHash(accessTokenValue);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (revocationList != null && revocationList.isRevoked(cached.claims)) {
+                throw new InvalidTokenException("Access token revoked: " + accessTokenValue);
+            }
+            return copyOf(cached.authentication);
+        }
+
+        OAuth2AccessToken accessToken = tokenStore.readAccessToken(accessTokenValue);
+        if (accessToken == null) {
+            throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
+        } else if (accessToken.isExpired()) {
+            tokenStore.removeAccessToken(accessToken);
+            throw new InvalidTokenException("Access token expired: " + accessTokenValue);
+        }
+
+        if (revocationList != null && revocationList.isRevoked(accessToken.getAdditionalInformation())) {
+            throw new InvalidTokenException("Access token revoked: " + accessTokenValue);
+        }
+
+        OAuth2Authentication authentication = tokenStore.readAuthentication(accessToken);
+        if (authentication == null) {
+            throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
+        }
+
+        long expiresAt = accessToken.getExpiration() != null
+                ? accessToken.getExpiration().getTime() : Long.MAX_VALUE;
+        verifiedTokens.put(key, new VerifiedToken(authentication, revocationClaims(accessToken), expiresAt));
+        return copyOf(authentication);
+    }
+
+    public Cache<String, ?> getVerifiedTokens() {
+        return verifiedTokens;
+    }
+
+    //OAuth2AuthenticationManager sets the details and the authenticated flag on what it is handed, so
+    //every request gets its own authentication built from the cached request and user
+    private static OAuth2Authentication copyOf(OAuth2Authentication authentication) {
+        return new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+    }
+
+    //only the claims a revocation can match, not the whole token
+    private static Map<String, Object> revocationClaims(OAuth2AccessToken accessToken) {
+        Map<String, Object> claims = new HashMap<>();
+        for (String claim : REVOCATION_CLAIMS) {
+            Object value = accessToken.getAdditionalInformation().get(claim);
+            if (value != null) {
+                claims.put(claim, value);
+            }
+        }
+        return claims;
+    }
+
+    static String tokenHash(String accessTokenValue) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(accessTokenValue.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final OAuth2Authentication authentication;
+        private final Map<String, Object> claims;
+        private final long expiresAt;
+
+        private VerifiedToken(OAuth2Authentication authentication, Map<String, Object> claims, long expiresAt) {
+            this.authentication = authentication;
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAt - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                return 0;
+            }
+            return remainingMillis >= TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE)
+                    ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(remainingMillis);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
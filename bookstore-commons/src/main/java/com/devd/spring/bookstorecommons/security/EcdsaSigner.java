@@ -0,0 +1,80 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.springframework.security.jwt.crypto.sign.Signer;
+
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+
+/**
+ * Signs JWTs with an elliptic curve key, ES256 for a P-256 key, ES384 for P-384 and ES512 for P-521.
+ *
+ * The JDK produces DER encoded ECDSA signatures while JWS expects the two integers concatenated
+ * at the fixed length of the curve, so the signature is transcoded before it is returned.
+ */
+public class EcdsaSigner implements Signer {
+
+    private final ECPrivateKey key;
+
+    private final String algorithm;
+
+    private final int coordinateLength;
+
+    public EcdsaSigner(ECPrivateKey key) {
+        this.key = key;
+        this.coordinateLength = coordinateLength(key.getParams().getOrder().bitLength());
+        this.algorithm = javaAlgorithm(coordinateLength);
+    }
+
+    @Override
+    public byte[] sign(byte[] bytes) {
+        try {
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initSign(key);
+            signature.update(bytes);
+            return toConcatenated(signature.sign(), coordinateLength);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm;
+    }
+
+    static int coordinateLength(int orderBits) {
+        return (orderBits + 7) / 8;
+    }
+
+    static String javaAlgorithm(int coordinateLength) {
+        switch (coordinateLength) {
+            case 32:
+                return "SHA256withECDSA";
+            case 48:
+                return "SHA384withECDSA";
+            case 66:
+                return "SHA512withECDSA";
+            default:
+                throw new IllegalArgumentException("Unsupported curve, expected P-256, P-384 or P-521");
+        }
+    }
+
+    /**
+     * DER {@code SEQUENCE { INTEGER r, INTEGER s }} to {@code r || s}, each left padded to the curve length.
+     */
+    static byte[] toConcatenated(byte[] der, int coordinateLength) {
+        int offset = der[1] == (byte) 0x81 ? 3 : 2;
+        byte[] concatenated = new byte[2 * coordinateLength];
+        for (int i = 0; i < 2; i++) {
+            int length = der[offset + 1];
+            int start = offset + 2;
+            // drop the sign byte and any leading zeros DER keeps in front of the integer
+            int skip = Math.max(0, length - coordinateLength);
+            System.arraycopy(der, start + skip, concatenated,
+                    (i + 1) * coordinateLength - (length - skip), length - skip);
+            offset = start + length;
+        }
+        return concatenated;
+    }
+}
@@ -0,0 +1,86 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.util.Arrays;
+
+/**
+ * Verifies JWTs signed by {@link EcdsaSigner}, or by any other ES256, ES384 or ES512 issuer.
+ */
+public class EcdsaVerifier implements SignatureVerifier {
+
+    private final ECPublicKey key;
+
+    private final String algorithm;
+
+    private final int coordinateLength;
+
+    public EcdsaVerifier(ECPublicKey key) {
+        this.key = key;
+        this.coordinateLength = EcdsaSigner.coordinateLength(key.getParams().getOrder().bitLength());
+        this.algorithm = EcdsaSigner.javaAlgorithm(coordinateLength);
+    }
+
+    @Override
+    public void verify(byte[] content, byte[] sig) {
+        if (sig.length != 2 * coordinateLength) {
+            throw new InvalidSignatureException("Invalid ECDSA signature length " + sig.length);
+        }
+        boolean valid;
+        try {
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initVerify(key);
+            signature.update(content);
+            valid = signature.verify(toDer(sig, coordinateLength));
+        } catch (GeneralSecurityException e) {
+            throw new InvalidSignatureException("ECDSA signature could not be verified: " + e.getMessage());
+        }
+        if (!valid) {
+            throw new InvalidSignatureException("ECDSA signature did not match content");
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * {@code r || s} to DER {@code SEQUENCE { INTEGER r, INTEGER s }}.
+     */
+    static byte[] toDer(byte[] concatenated, int coordinateLength) {
+        byte[] r = derInteger(Arrays.copyOfRange(concatenated, 0, coordinateLength));
+        byte[] s = derInteger(Arrays.copyOfRange(concatenated, coordinateLength, 2 * coordinateLength));
+        int length = r.length + s.length;
+
+        ByteArrayOutputStream der = new ByteArrayOutputStream(length + 3);
+        der.write(0x30);
+        if (length > 127) {
+            der.write(0x81);
+        }
+        der.write(length);
+        der.write(r, 0, r.length);
+        der.write(s, 0, s.length);
+        return der.toByteArray();
+    }
+
+    private static byte[] derInteger(byte[] unsigned) {
+        int start = 0;
+        while (start < unsigned.length - 1 && unsigned[start] == 0) {
+            start++;
+        }
+        // a set high bit would read as a negative number, DER needs a zero in front of it
+        int pad = (unsigned[start] & 0x80) != 0 ? 1 : 0;
+        int length = unsigned.length - start + pad;
+        byte[] integer = new byte[length + 2];
+        integer[0] = 0x02;
+        integer[1] = (byte) length;
+        System.arraycopy(unsigned, start, integer, 2 + pad, unsigned.length - start);
+        return integer;
+    }
+}
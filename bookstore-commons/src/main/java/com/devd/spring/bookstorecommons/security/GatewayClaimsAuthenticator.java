@@ -0,0 +1,222 @@
+package com.devd.spring.bookstorecommons.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.client.resource.OAuth2AccessDeniedException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.authentication.BearerTokenExtractor;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationManager;
+import org.springframework.security.oauth2.provider.authentication.TokenExtractor;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a resource server accept the HMAC signed claims the api gateway forwards after verifying
+ * the JWT at the edge, instead of repeating the RSA verification in every service.
+ *
+ * Claims are only honoured when a shared secret is configured and the request comes from one of
+ * the trusted gateway networks. Otherwise the bearer token is verified as before.
+ */
+@Component
+public class GatewayClaimsAuthenticator {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final GatewayClaimsVerifier verifier;
+
+    private final List<IpAddressMatcher> trustedNetworks = new ArrayList<>();
+
+    private final ObjectProvider<JwtAccessTokenConverter> accessTokenConverter;
+
+    private final ObjectProvider<TokenRevocationList> revocationList;
+
+    private final Timer jwtVerificationCpu;
+
+    private final Timer gatewayVerificationCpu;
+
+    public GatewayClaimsAuthenticator(@Value("${security.gateway.claims-secret:}") String claimsSecret,
+                                      @Value("${security.gateway.trusted-networks:}") String[] trustedNetworks,
+                                      ObjectProvider<JwtAccessTokenConverter> accessTokenConverter,
+                                      ObjectProvider<TokenRevocationList> revocationList,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        this.verifier = StringUtils.hasText(claimsSecret) ? new GatewayClaimsVerifier(claimsSecret) : null;
+        for (String network : trustedNetworks) {
+            if (StringUtils.hasText(network)) {
+                this.trustedNetworks.add(new IpAddressMatcher(network.trim()));
+            }
+        }
+        this.accessTokenConverter = accessTokenConverter;
+        this.revocationList = revocationList;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.jwtVerificationCpu = verificationTimer(registry, "jwt");
+        this.gatewayVerificationCpu = verificationTimer(registry, "gateway");
+    }
+
+    public boolean isEnabled() {
+        return verifier != null && !trustedNetworks.isEmpty();
+    }
+
+    /**
+     * Address of the client behind the request. For requests from a trusted gateway network it is
+     * the last X-Forwarded-For entry outside the trusted networks. The gateway appends the client
+     * address it resolved past the ingress, so clients cannot pick their own.
+     */
+    public String clientAddress(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (StringUtils.hasText(forwardedFor) && isTrusted(request)) {
+            String[] addresses = forwardedFor.split(",");
+            for (int i = addresses.length - 1; i > 0; i--) {
+                if (!isTrusted(addresses[i].trim())) {
+                    return addresses[i].trim();
+                }
+            }
+            return addresses[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    public TokenExtractor tokenExtractor() {
+        return new GatewayClaimsTokenExtractor();
+    }
+
+    public AuthenticationManager authenticationManager(String resourceId,
+                                                       ResourceServerTokenServices tokenServices) {
+        OAuth2AuthenticationManager delegate = new OAuth2AuthenticationManager();
+        delegate.setResourceId(resourceId);
+        delegate.setTokenServices(tokenServices);
+        return authentication -> {
+            long start = threadCpuTime();
+            if (authentication instanceof GatewayClaimsAuthenticationToken) {
+                GatewayClaimsAuthenticationToken gatewayToken = (GatewayClaimsAuthenticationToken) authentication;
+                Map<String, Object> claims = verifier.verify(gatewayToken.claimsHeader);
+                if (claims != null) {
+                    Authentication result = fromClaims(claims, resourceId, authentication.getDetails());
+                    gatewayVerificationCpu.record(threadCpuTime() - start, TimeUnit.NANOSECONDS);
+                    return result;
+                }
+                if (gatewayToken.bearerToken == null) {
+                    throw new InvalidTokenException("Invalid gateway claims");
+                }
+                PreAuthenticatedAuthenticationToken bearer =
+                        new PreAuthenticatedAuthenticationToken(gatewayToken.bearerToken, "");
+                bearer.setDetails(authentication.getDetails());
+                authentication = bearer;
+            }
+            Authentication result = delegate.authenticate(authentication);
+            jwtVerificationCpu.record(threadCpuTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        };
+    }
+
+    private Authentication fromClaims(Map<String, Object> claims, String resourceId, Object details) {
+        TokenRevocationList revocations = revocationList.getIfAvailable();
+        if (revocations != null && revocations.isRevoked(claims)) {
+            throw new InvalidTokenException("Access token revoked");
+        }
+        OAuth2Authentication authentication = accessTokenConverter.getObject().extractAuthentication(claims);
+        Collection<String> resourceIds = authentication.getOAuth2Request().getResourceIds();
+        if (resourceId != null && resourceIds != null && !resourceIds.isEmpty()
+                && !resourceIds.contains(resourceId)) {
+            throw new OAuth2AccessDeniedException("Invalid token does not contain resource id (" + resourceId + ")");
+        }
+        authentication.setDetails(details);
+        authentication.setAuthenticated(true);
+        return authentication;
+    }
+
+    private boolean isTrusted(HttpServletRequest request) {
+        for (IpAddressMatcher network : trustedNetworks) {
+            if (network.matches(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTrusted(String address) {
+        for (IpAddressMatcher network : trustedNetworks) {
+            try {
+                if (network.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static long threadCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+                ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String path) {
+        return Timer.builder("auth.verification.cpu")
+                .description("CPU time spent authenticating a request, by verification path")
+                .tag("path", path)
+                .register(registry);
+    }
+
+    private class GatewayClaimsTokenExtractor extends BearerTokenExtractor {
+
+        @Override
+        public Authentication extract(HttpServletRequest request) {
+            String claimsHeader = request.getHeader(GatewayClaimsVerifier.CLAIMS_HEADER);
+            if (!isEnabled() || !StringUtils.hasText(claimsHeader) || !isTrusted(request)) {
+                return super.extract(request);
+            }
+            String bearerToken = extractToken(request);
+            if (bearerToken != null) {
+                request.setAttribute(OAuth2AuthenticationDetails.ACCESS_TOKEN_VALUE, bearerToken);
+            }
+            return new GatewayClaimsAuthenticationToken(claimsHeader, bearerToken);
+        }
+    }
+
+    private static class GatewayClaimsAuthenticationToken extends AbstractAuthenticationToken {
+
+        private final String claimsHeader;
+
+        private final String bearerToken;
+
+        GatewayClaimsAuthenticationToken(String claimsHeader, String bearerToken) {
+            super(Collections.emptyList());
+            this.claimsHeader = claimsHeader;
+            this.bearerToken = bearerToken;
+        }
+
+        @Override
+        public Object getCredentials() {
+            return "";
+        }
+
+        @Override
+        public Object getPrincipal() {
+            return claimsHeader;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.devd.spring.bookstorecommons.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Verifies the claims header added by the api gateway after it has validated a JWT.
+ *
+ * The header value is {@code base64url(claims json) + "." + base64url(HmacSHA256(payload))},
+ * signed with the secret shared between the gateway and the services.
+ */
+public class GatewayClaimsVerifier {
+
+    public static final String CLAIMS_HEADER = "X-Gateway-Claims";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public GatewayClaimsVerifier(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    /**
+     * @return the verified, unexpired claims or {@code null} if the header is malformed, was not
+     * signed with the shared secret or has expired.
+     */
+    public Map<String, Object> verify(String headerValue) {
+        int separator = headerValue.indexOf('.');
+        if (separator <= 0 || separator == headerValue.length() - 1) {
+            return null;
+        }
+        String payload = headerValue.substring(0, separator);
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        try {
+            byte[] signature = decoder.decode(headerValue.substring(separator + 1));
+            byte[] expected = macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, signature)) {
+                return null;
+            }
+            Map<String, Object> claims = objectMapper.readValue(decoder.decode(payload),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            Object exp = claims.get("exp");
+            if (!(exp instanceof Number)
+                    || ((Number) exp).longValue() * 1000 <= System.currentTimeMillis()) {
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
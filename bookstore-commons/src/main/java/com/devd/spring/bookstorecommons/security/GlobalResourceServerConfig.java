@@ -1,16 +1,26 @@
 package com.devd.spring.bookstorecommons.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
@@ -18,10 +28,14 @@ import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
 import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import static org.apache.commons.lang.CharEncoding.UTF_8;
 
@@ -37,6 +51,30 @@ public class GlobalResourceServerConfig extends ResourceServerConfigurerAdapter
     @Value("${security.jwt.public-key}")
     private Resource publicKey;
 
+    @Value("${security.jwt.verified-cache-size:10000}")
+    private long verifiedTokenCacheSize;
+
+    @Value("${security.jwt.jwk-set-uri:}")
+    private String jwkSetUri;
+
+    @Value("${security.jwt.jwk-set-refresh-interval:1h}")
+    private Duration jwkSetRefreshInterval;
+
+    @Value("${security.jwt.jwk-set-min-fetch-interval:30s}")
+    private Duration jwkSetMinFetchInterval;
+
+    @Value("${security.jwt.revocation-list-uri:}")
+    private String revocationListUri;
+
+    @Value("${security.jwt.revocation-list-refresh-interval:10s}")
+    private Duration revocationListRefreshInterval;
+
+    @Value("${security.jwt.revocation-list-expected-size:10000}")
+    private long revocationListExpectedSize;
+
+    @Autowired
+    private ObjectProvider<LoadBalancerClient> loadBalancerClient;
+
     @Override
     public void configure(HttpSecurity http) throws Exception {
         http
@@ -57,12 +95,28 @@ public class GlobalResourceServerConfig extends ResourceServerConfigurerAdapter
 
     @Bean
     @Primary
-    public DefaultTokenServices tokenServices(final TokenStore tokenStore) {
-        DefaultTokenServices tokenServices = new DefaultTokenServices();
+    public DefaultTokenServices tokenServices(final TokenStore tokenStore,
+                                              ObjectProvider<TokenRevocationList> revocationList,
+                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        CachingTokenServices tokenServices = new CachingTokenServices(verifiedTokenCacheSize);
         tokenServices.setTokenStore(tokenStore);
+        revocationList.ifAvailable(tokenServices::setRevocationList);
+        meterRegistry.ifAvailable(registry ->
+                CaffeineCacheMetrics.monitor(registry, tokenServices.getVerifiedTokens(), "verifiedJwt"));
         return tokenServices;
     }
 
+    //revoked tokens and users published by the account service, polled in the background
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("!'${security.jwt.revocation-list-uri:}'.isEmpty()")
+    public TokenRevocationList tokenRevocationList() {
+        TokenRevocationList revocationList = new TokenRevocationList(
+                TokenRevocationList.remote(revocationListUri, accountServiceRestTemplate()),
+                revocationListExpectedSize, 0.001);
+        revocationList.start(revocationListRefreshInterval);
+        return revocationList;
+    }
+
     @Bean
     @Primary
     public TokenStore tokenStore() {
@@ -71,7 +125,8 @@ public class GlobalResourceServerConfig extends ResourceServerConfigurerAdapter
 
     @Bean
     public JwtAccessTokenConverter jwtAccessTokenConverter() {
-        JwtAccessTokenConverter converter = new JwtAccessTokenConverter() {
+        JwtAccessTokenConverter converter = new KeyRotatingJwtAccessTokenConverter(signingKeyVerifiers(),
+                new RsaVerifier(getPublicKeyAsString())) {
 //            @Override
 //            public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
 //                if (authentication.getOAuth2Request().getGrantType().equalsIgnoreCase("password")) {
@@ -106,11 +161,28 @@ public class GlobalResourceServerConfig extends ResourceServerConfigurerAdapter
                 return new OAuth2Authentication(authentication.getOAuth2Request(), userAuthentication);
             }
         };
-        String publicKeyAsString = getPublicKeyAsString();
-        converter.setVerifierKey(publicKeyAsString);
         return converter;
     }
 
+    //keys by id from the JWK set of the account service, only tokens without a key id use the static public key
+    private Function<String, SignatureVerifier> signingKeyVerifiers() {
+        if (jwkSetUri.isEmpty()) {
+            return keyId -> null;
+        }
+        return new JwkSetVerifiers(jwkSetUri, accountServiceRestTemplate(), jwkSetRefreshInterval,
+                jwkSetMinFetchInterval);
+    }
+
+    private RestTemplate accountServiceRestTemplate() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(2000);
+        requestFactory.setReadTimeout(5000);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        loadBalancerClient.ifAvailable(client ->
+                restTemplate.setInterceptors(Collections.singletonList(new LoadBalancerInterceptor(client))));
+        return restTemplate;
+    }
+
     private String getPublicKeyAsString() {
         try {
             return IOUtils.toString(publicKey.getInputStream(), UTF_8);
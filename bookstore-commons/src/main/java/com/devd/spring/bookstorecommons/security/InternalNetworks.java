@@ -0,0 +1,31 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access rule for the feeds the services poll from each other without a user token, such as the
+ * revocation list. The gateway does not route them, so only callers inside the networks the
+ * services run in ({@code security.internal-networks}) can read them.
+ */
+public final class InternalNetworks {
+
+    private InternalNetworks() {
+    }
+
+    /**
+     * Security expression allowing requests from any of the {@code networks}, in CIDR notation;
+     * with none configured nobody is allowed.
+     */
+    public static String accessExpression(String[] networks) {
+        List<String> allowed = new ArrayList<>();
+        for (String network : networks) {
+            if (StringUtils.hasText(network)) {
+                allowed.add("hasIpAddress('" + network.trim() + "')");
+            }
+        }
+        return allowed.isEmpty() ? "denyAll" : String.join(" or ", allowed);
+    }
+}
@@ -0,0 +1,102 @@
+package com.devd.spring.bookstorecommons.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Signature verifiers of the token signing keys published by the account service as a JWK set,
+ * by key id.
+ *
+ * The set is fetched on first use and again when a token names a key id it does not contain yet,
+ * which is how a newly rotated signing key is picked up, or once it is older than the refresh
+ * interval, which is how a retired key is dropped. Fetches are at least the minimum interval
+ * apart, so tokens with made up key ids cannot turn every request into a call to the account
+ * service. A failed fetch keeps the keys already known.
+ */
+@Slf4j
+public class JwkSetVerifiers implements Function<String, SignatureVerifier> {
+
+    private final String jwkSetUri;
+
+    private final RestTemplate restTemplate;
+
+    private final long refreshIntervalMillis;
+
+    private final long minFetchIntervalMillis;
+
+    private final LongSupplier clock;
+
+    private volatile Map<String, SignatureVerifier> verifiers = Collections.emptyMap();
+
+    private volatile long fetchedAt;
+
+    private volatile long attemptedAt;
+
+    public JwkSetVerifiers(String jwkSetUri, RestTemplate restTemplate,
+                           Duration refreshInterval, Duration minFetchInterval) {
+        this(jwkSetUri, restTemplate, refreshInterval, minFetchInterval, System::currentTimeMillis);
+    }
+
+    JwkSetVerifiers(String jwkSetUri, RestTemplate restTemplate,
+                    Duration refreshInterval, Duration minFetchInterval, LongSupplier clock) {
+        this.jwkSetUri = jwkSetUri;
+        this.restTemplate = restTemplate;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        this.minFetchIntervalMillis = minFetchInterval.toMillis();
+        this.clock = clock;
+        this.attemptedAt = clock.getAsLong() - minFetchIntervalMillis;
+    }
+
+    @Override
+    public SignatureVerifier apply(String keyId) {
+        long now = clock.getAsLong();
+        SignatureVerifier verifier = verifiers.get(keyId);
+        boolean stale = now - fetchedAt >= refreshIntervalMillis;
+        if ((verifier == null || stale) && now - attemptedAt >= minFetchIntervalMillis) {
+            fetch(now);
+            verifier = verifiers.get(keyId);
+        }
+        return verifier;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void fetch(long now) {
+        if (now - attemptedAt < minFetchIntervalMillis) {
+            // another thread fetched while this one waited for the lock
+            return;
+        }
+        attemptedAt = now;
+        try {
+            Map<?, ?> jwkSet = restTemplate.getForObject(jwkSetUri, Map.class);
+            Object keys = jwkSet == null ? null : jwkSet.get("keys");
+            if (!(keys instanceof List)) {
+                log.warn("JWK set at {} has no keys", jwkSetUri);
+                return;
+            }
+            Map<String, SignatureVerifier> fetched = new HashMap<>();
+            for (Object key : (List<?>) keys) {
+                Map<String, ?> jwk = (Map<String, ?>) key;
+                SignatureVerifier verifier = Jwks.verifier(jwk);
+                if (verifier != null && jwk.get(Jwks.KEY_ID) != null) {
+                    fetched.put((String) jwk.get(Jwks.KEY_ID), verifier);
+                }
+            }
+            verifiers = fetched;
+            fetchedAt = now;
+            log.info("Fetched {} token signing keys {} from {}", fetched.size(), fetched.keySet(), jwkSetUri);
+        } catch (RestClientException | IllegalArgumentException | ClassCastException e) {
+            log.warn("Could not fetch the JWK set from {}, keeping {} known keys: {}",
+                    jwkSetUri, verifiers.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts the token signing public keys to and from JSON Web Keys (RFC 7517), for the JWK set the
+ * account service publishes and the resource servers read.
+ */
+public final class Jwks {
+
+    public static final String KEY_ID = "kid";
+
+    private Jwks() {
+    }
+
+    public static Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put(KEY_ID, kid);
+        jwk.put("use", "sig");
+        if (publicKey instanceof ECPublicKey) {
+            ECPublicKey ecKey = (ECPublicKey) publicKey;
+            int length = EcdsaSigner.coordinateLength(ecKey.getParams().getOrder().bitLength());
+            jwk.put("kty", "EC");
+            jwk.put("alg", "ES" + jwsHashBits(length));
+            jwk.put("crv", curveName(length));
+            jwk.put("x", encoder.encodeToString(unsigned(ecKey.getW().getAffineX(), length)));
+            jwk.put("y", encoder.encodeToString(unsigned(ecKey.getW().getAffineY(), length)));
+        } else if (publicKey instanceof RSAPublicKey) {
+            RSAPublicKey rsaKey = (RSAPublicKey) publicKey;
+            jwk.put("kty", "RSA");
+            jwk.put("alg", "RS256");
+            jwk.put("n", encoder.encodeToString(unsigned(rsaKey.getModulus(), 0)));
+            jwk.put("e", encoder.encodeToString(unsigned(rsaKey.getPublicExponent(), 0)));
+        } else {
+            throw new IllegalArgumentException("Unsupported key type " + publicKey.getAlgorithm());
+        }
+        return jwk;
+    }
+
+    /**
+     * @return the verifier of an RSA or EC signing key, or null for any other key
+     */
+    public static SignatureVerifier verifier(Map<String, ?> jwk) {
+        if (jwk.get("use") != null && !"sig".equals(jwk.get("use"))) {
+            return null;
+        }
+        try {
+            if ("EC".equals(jwk.get("kty"))) {
+                ECParameterSpec curve = curve((String) jwk.get("crv"));
+                ECPoint point = new ECPoint(decode(jwk.get("x")), decode(jwk.get("y")));
+                return new EcdsaVerifier((ECPublicKey) KeyFactory.getInstance("EC")
+                        .generatePublic(new ECPublicKeySpec(point, curve)));
+            }
+            if ("RSA".equals(jwk.get("kty"))) {
+                return new RsaVerifier((RSAPublicKey) KeyFactory.getInstance("RSA")
+                        .generatePublic(new RSAPublicKeySpec(decode(jwk.get("n")), decode(jwk.get("e")))));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid JWK " + jwk.get(KEY_ID), e);
+        }
+        return null;
+    }
+
+    private static ECParameterSpec curve(String name) throws GeneralSecurityException {
+        String stdName;
+        if ("P-256".equals(name)) {
+            stdName = "secp256r1";
+        } else if ("P-384".equals(name)) {
+            stdName = "secp384r1";
+        } else if ("P-521".equals(name)) {
+            stdName = "secp521r1";
+        } else {
+            throw new GeneralSecurityException("Unsupported curve " + name);
+        }
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec(stdName));
+        return parameters.getParameterSpec(ECParameterSpec.class);
+    }
+
+    private static String curveName(int coordinateLength) {
+        return coordinateLength == 66 ? "P-521" : "P-" + coordinateLength * 8;
+    }
+
+    private static int jwsHashBits(int coordinateLength) {
+        return coordinateLength == 66 ? 512 : coordinateLength * 8;
+    }
+
+    private static BigInteger decode(Object value) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode((String) value));
+    }
+
+    /**
+     * Big endian magnitude without the sign byte, left padded to {@code length} when it is not zero.
+     */
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length >= length) {
+            return bytes;
+        }
+        byte[] padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+        return padded;
+    }
+}
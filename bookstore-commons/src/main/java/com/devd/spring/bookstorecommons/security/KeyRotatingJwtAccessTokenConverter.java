@@ -0,0 +1,92 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.springframework.security.jwt.Jwt;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.jwt.crypto.sign.Signer;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * JWT converter that writes the id of the signing key in the {@value Jwks#KEY_ID} header and verifies
+ * every token with the key of its own {@value Jwks#KEY_ID}, so a new signing key can be rolled out while
+ * the tokens signed with the previous one are still accepted.
+ *
+ * Tokens without a key id, issued before the keys were rotated, are verified with the fallback verifier.
+ */
+public class KeyRotatingJwtAccessTokenConverter extends JwtAccessTokenConverter {
+
+    private final Function<String, SignatureVerifier> verifiers;
+
+    private final SignatureVerifier fallbackVerifier;
+
+    private final JsonParser jsonParser = JsonParserFactory.create();
+
+    private String signingKeyId;
+
+    private Signer signer;
+
+    /**
+     * @param verifiers        the verifier of a key id, null when the key is unknown
+     * @param fallbackVerifier verifier of the tokens without a key id, may be null
+     */
+    public KeyRotatingJwtAccessTokenConverter(Function<String, SignatureVerifier> verifiers,
+                                              SignatureVerifier fallbackVerifier) {
+        this.verifiers = verifiers;
+        this.fallbackVerifier = fallbackVerifier;
+    }
+
+    public void setSigningKey(String keyId, Signer signer) {
+        this.signingKeyId = keyId;
+        this.signer = signer;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // the keys come from the constructor and setSigningKey, not from the single key pair of the parent
+    }
+
+    @Override
+    protected String encode(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+        if (signer == null) {
+            throw new IllegalStateException("No signing key configured, this converter only verifies tokens");
+        }
+        String content;
+        try {
+            content = jsonParser.formatMap(getAccessTokenConverter().convertAccessToken(accessToken, authentication));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot convert access token to JSON", e);
+        }
+        return JwtHelper.encode(content, signer, Collections.singletonMap(Jwks.KEY_ID, signingKeyId)).getEncoded();
+    }
+
+    @Override
+    protected Map<String, Object> decode(String token) {
+        try {
+            String keyId = JwtHelper.headers(token).get(Jwks.KEY_ID);
+            SignatureVerifier verifier = keyId == null ? fallbackVerifier : verifiers.apply(keyId);
+            if (verifier == null) {
+                throw new InvalidTokenException("Unknown signing key " + keyId);
+            }
+            Jwt jwt = JwtHelper.decodeAndVerify(token, verifier);
+            Map<String, Object> claims = jsonParser.parseMap(jwt.getClaims());
+            if (claims.get(EXP) instanceof Integer) {
+                claims.put(EXP, ((Integer) claims.get(EXP)).longValue());
+            }
+            getJwtClaimsSetVerifier().verify(claims);
+            return claims;
+        } catch (InvalidTokenException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+    }
+}
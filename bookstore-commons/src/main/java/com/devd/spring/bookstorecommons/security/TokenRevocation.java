@@ -0,0 +1,30 @@
+package com.devd.spring.bookstorecommons.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the revocation list the account service publishes: either a single access token by
+ * its {@code jti}, or every token of a user issued before {@link #revokedAt}.
+ *
+ * Times are epoch milliseconds. After {@link #expiresAt} no token the entry applies to is valid
+ * anymore, so the entry is dropped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    private long id;
+
+    private String tokenId;
+
+    private String userId;
+
+    private long revokedAt;
+
+    private long expiresAt;
+}
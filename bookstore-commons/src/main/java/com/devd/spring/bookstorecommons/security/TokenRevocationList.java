@@ -0,0 +1,208 @@
+package com.devd.spring.bookstorecommons.security;
+
+import com.devd.spring.bookstorecommons.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Local copy of the revoked access tokens and users, refreshed in the background from the entries
+ * the account service appends to its revocation list.
+ *
+ * Every authenticated request asks {@link #isRevoked}. A Bloom filter answers that for almost all
+ * tokens without touching the exact maps; only its positives, real or false, look the entry up.
+ * Until the first refresh succeeded nothing is considered revoked.
+ *
+ * Ids are handed out when a revocation is inserted, not when it commits, so a revocation can
+ * become visible after others with higher ids. Each refresh therefore reads again from the last id
+ * seen {@code lookback} ago, long enough for any insert to have committed.
+ */
+@Slf4j
+public class TokenRevocationList implements Closeable {
+
+    private static final String TOKEN_KEY_PREFIX = "t:";
+
+    private static final String USER_KEY_PREFIX = "u:";
+
+    static final Duration DEFAULT_LOOKBACK = Duration.ofMinutes(1);
+
+    private final LongFunction<List<TokenRevocation>> source;
+
+    private final long expectedSize;
+
+    private final double falsePositiveProbability;
+
+    private final long lookbackMillis;
+
+    //{refreshed at, last id} of the refreshes within the lookback, oldest first
+    private final Deque<long[]> recentRefreshes = new ArrayDeque<>();
+
+    private final Map<String, TokenRevocation> revokedTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, TokenRevocation> revokedUsers = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    private long filterCapacity;
+
+    private long lastId;
+
+    //every revocation up to this id has committed and been read
+    private long settledId;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param source the revocations with an id greater than the given one, in id order, empty once
+     *               there are no more
+     */
+    public TokenRevocationList(LongFunction<List<TokenRevocation>> source, long expectedSize,
+                               double falsePositiveProbability) {
+        this(source, expectedSize, falsePositiveProbability, DEFAULT_LOOKBACK);
+    }
+
+    public TokenRevocationList(LongFunction<List<TokenRevocation>> source, long expectedSize,
+                               double falsePositiveProbability, Duration lookback) {
+        this.source = source;
+        this.lookbackMillis = lookback.toMillis();
+        this.expectedSize = expectedSize;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filterCapacity = expectedSize;
+        this.filter = new BloomFilter(expectedSize, falsePositiveProbability);
+    }
+
+    /**
+     * Revocations published by the account service at {@code uri}, which takes the last id seen as
+     * the {@code after} query parameter.
+     */
+    public static LongFunction<List<TokenRevocation>> remote(String uri, RestTemplate restTemplate) {
+        return after -> {
+            TokenRevocation[] revocations = restTemplate.getForObject(uri + "?after={after}",
+                    TokenRevocation[].class, after);
+            return revocations == null ? null : Arrays.asList(revocations);
+        };
+    }
+
+    public boolean isRevoked(String tokenId, String userId, long issuedAt) {
+        BloomFilter filter = this.filter;
+        if (tokenId != null && filter.mightContain(TOKEN_KEY_PREFIX + tokenId)
+                && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (userId != null && filter.mightContain(USER_KEY_PREFIX + userId)) {
+            TokenRevocation revocation = revokedUsers.get(userId);
+            return revocation != null && issuedAt < revocation.getRevokedAt();
+        }
+        return false;
+    }
+
+    /**
+     * Checks the {@code jti}, {@code user_id} and {@code iat} claims of a token. Tokens issued
+     * before the {@code iat} claim was added count as issued at the epoch.
+     */
+    public boolean isRevoked(Map<String, ?> claims) {
+        Object issuedAt = claims.get("iat");
+        return isRevoked((String) claims.get("jti"), (String) claims.get("user_id"),
+                issuedAt instanceof Number ? ((Number) issuedAt).longValue() * 1000 : 0);
+    }
+
+    public synchronized void start(Duration refreshInterval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the revocations appended since the lookback before the last refresh and drops the
+     * expired ones. Revocations read again are added again, which changes nothing.
+     */
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        while (!recentRefreshes.isEmpty() && recentRefreshes.peekFirst()[0] <= now - lookbackMillis) {
+            settledId = recentRefreshes.pollFirst()[1];
+        }
+
+        long after = settledId;
+        List<TokenRevocation> revocations;
+        while ((revocations = source.apply(after)) != null && !revocations.isEmpty()) {
+            for (TokenRevocation revocation : revocations) {
+                add(revocation);
+                after = Math.max(after, revocation.getId());
+            }
+        }
+        lastId = Math.max(lastId, after);
+        recentRefreshes.addLast(new long[]{now, lastId});
+
+        boolean removed = revokedTokens.values().removeIf(revocation -> revocation.getExpiresAt() <= now);
+        removed |= revokedUsers.values().removeIf(revocation -> revocation.getExpiresAt() <= now);
+        int size = revokedTokens.size() + revokedUsers.size();
+        if (removed || size > filterCapacity) {
+            rebuildFilter(size);
+        }
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    //the entry goes into the exact maps before the filter, so a positive always finds it
+    private void add(TokenRevocation revocation) {
+        if (revocation.getExpiresAt() <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revocation.getTokenId() != null) {
+            revokedTokens.put(revocation.getTokenId(), revocation);
+            filter.put(TOKEN_KEY_PREFIX + revocation.getTokenId());
+        }
+        if (revocation.getUserId() != null) {
+            revokedUsers.merge(revocation.getUserId(), revocation,
+                    (current, added) -> added.getRevokedAt() >= current.getRevokedAt() ? added : current);
+            filter.put(USER_KEY_PREFIX + revocation.getUserId());
+        }
+    }
+
+    //Bloom filters cannot forget, a new one sized for what is left replaces the old one
+    private void rebuildFilter(int size) {
+        long capacity = Math.max(expectedSize, 2L * size);
+        BloomFilter rebuilt = new BloomFilter(capacity, falsePositiveProbability);
+        revokedTokens.keySet().forEach(tokenId -> rebuilt.put(TOKEN_KEY_PREFIX + tokenId));
+        revokedUsers.keySet().forEach(userId -> rebuilt.put(USER_KEY_PREFIX + userId));
+        filter = rebuilt;
+        filterCapacity = capacity;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the token revocation list, keeping {} known entries: {}",
+                    size(), e.getMessage());
+        }
+    }
+}
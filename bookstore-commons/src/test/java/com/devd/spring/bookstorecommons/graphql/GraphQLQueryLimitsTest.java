@@ -0,0 +1,91 @@
+package com.devd.spring.bookstorecommons.graphql;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphQLQueryLimitsTest {
+
+    private static final String SDL = "type Query { items(size: Int): [Item!]! }"
+            + " type Item { name: String children(first: Int): [Item!]! }";
+
+    private final GraphQL graphQL = GraphQL.newGraphQL(schema())
+            .instrumentation(GraphQLQueryLimits.instrumentation(4, 500, 10, 100))
+            .build();
+
+    @Test
+    void executesQueryWithinLimits() {
+        ExecutionResult result = graphQL.execute("{ items(size: 5) { name children(first: 5) { name } } }");
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat((Map<String, Object>) result.getData()).containsKey("items");
+    }
+
+    @Test
+    void rejectsNestedListsWhoseCostExceedsTheLimit() {
+        ExecutionResult result = graphQL.execute("{ items(size: 100) { children(first: 100) { name } } }");
+
+        assertThat(result.getErrors()).isNotEmpty();
+        assertThat((Object) result.getData()).isNull();
+    }
+
+    @Test
+    void pricesListsWithoutSizeArgumentAtDefaultSize() {
+        //1 + (1 + (1 + 1 * 10) * 10) * 10 = 1121
+        ExecutionResult result = graphQL.execute("{ items { children { children { name } } } }");
+
+        assertThat(result.getErrors()).isNotEmpty();
+    }
+
+    @Test
+    void pricesListsWithoutAPositiveSizeAtDefaultSize() {
+        //fetched at the default size, not a single item
+        ExecutionResult result = graphQL.execute("{ items(size: 0) { children(first: -1) { children(first: 0) { name } } } }");
+
+        assertThat(result.getErrors()).isNotEmpty();
+        assertThat((Object) result.getData()).isNull();
+    }
+
+    @Test
+    void pricesListsAtTheMaximumTheFetchersCapThemTo() {
+        GraphQL capped = GraphQL.newGraphQL(schema())
+                .instrumentation(GraphQLQueryLimits.instrumentation(4, 500, 10, 20))
+                .build();
+
+        //1 + (1 + 1 * 20) * 20 = 421
+        ExecutionResult result = capped.execute("{ items(size: 100000) { children(first: 100000) { name } } }");
+
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    void rejectsQueriesDeeperThanTheLimit() {
+        ExecutionResult result = graphQL.execute(
+                "{ items(size: 1) { children(first: 1) { children(first: 1) { children(first: 1) { children(first: 1) { name } } } } } }");
+
+        assertThat(result.getErrors()).isNotEmpty();
+        assertThat((Object) result.getData()).isNull();
+    }
+
+    private static GraphQLSchema schema() {
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", "book");
+        item.put("children", Collections.emptyList());
+
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", typeWiring -> typeWiring
+                        .dataFetcher("items", env -> Collections.singletonList(item)))
+                .build();
+        return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring);
+    }
+}
@@ -0,0 +1,96 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingTokenServicesTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private TokenStore tokenStore;
+
+    private CachingTokenServices tokenServices;
+
+    @BeforeEach
+    void setUp() {
+        tokenServices = new CachingTokenServices(100);
+        tokenServices.setTokenStore(tokenStore);
+    }
+
+    @Test
+    void verifiesTokenOnlyOnceWhileItIsValid() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(TOKEN);
+        accessToken.setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        OAuth2Authentication authentication = authentication();
+        when(tokenStore.readAccessToken(TOKEN)).thenReturn(accessToken);
+        when(tokenStore.readAuthentication(accessToken)).thenReturn(authentication);
+
+        OAuth2Authentication first = tokenServices.loadAuthentication(TOKEN);
+        OAuth2Authentication second = tokenServices.loadAuthentication(TOKEN);
+        assertThat(first.getName()).isEqualTo("user1");
+        assertThat(second.getName()).isEqualTo("user1");
+
+        verify(tokenStore, times(1)).readAccessToken(TOKEN);
+        verify(tokenStore, times(1)).readAuthentication(accessToken);
+    }
+
+    @Test
+    void handsEveryRequestItsOwnAuthentication() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(TOKEN);
+        accessToken.setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        when(tokenStore.readAccessToken(TOKEN)).thenReturn(accessToken);
+        when(tokenStore.readAuthentication(accessToken)).thenReturn(authentication());
+
+        OAuth2Authentication first = tokenServices.loadAuthentication(TOKEN);
+        first.setDetails("request 1");
+        OAuth2Authentication second = tokenServices.loadAuthentication(TOKEN);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getDetails()).isNull();
+        assertThat(second.getUserAuthentication()).isSameAs(first.getUserAuthentication());
+    }
+
+    @Test
+    void doesNotCacheExpiredTokens() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(TOKEN);
+        accessToken.setExpiration(new Date(System.currentTimeMillis() - 1_000));
+        when(tokenStore.readAccessToken(TOKEN)).thenReturn(accessToken);
+
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(TOKEN))
+                .isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(TOKEN))
+                .isInstanceOf(InvalidTokenException.class);
+
+        verify(tokenStore, times(2)).readAccessToken(TOKEN);
+        assertThat(tokenServices.getVerifiedTokens().estimatedSize()).isZero();
+    }
+
+    private static OAuth2Authentication authentication() {
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "web", Collections.emptyList(), true,
+                Collections.singleton("read"), null, null, null, null);
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken("user1", "N/A",
+                Collections.singletonList(new SimpleGrantedAuthority("STANDARD_USER")));
+        return new OAuth2Authentication(request, user);
+    }
+}
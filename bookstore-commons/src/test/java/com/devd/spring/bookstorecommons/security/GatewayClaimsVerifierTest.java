@@ -0,0 +1,53 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayClaimsVerifierTest {
+
+    private static final String SECRET = "gateway-secret";
+
+    private final GatewayClaimsVerifier verifier = new GatewayClaimsVerifier(SECRET);
+
+    @Test
+    void acceptsClaimsSignedWithSharedSecret() throws Exception {
+        long exp = System.currentTimeMillis() / 1000 + 60;
+        String header = sign("{\"user_name\":\"devd.cores\",\"user_id\":\"42\",\"exp\":" + exp + "}", SECRET);
+
+        Map<String, Object> claims = verifier.verify(header);
+
+        assertThat(claims).containsEntry("user_name", "devd.cores").containsEntry("user_id", "42");
+    }
+
+    @Test
+    void rejectsClaimsSignedWithAnotherSecret() throws Exception {
+        long exp = System.currentTimeMillis() / 1000 + 60;
+        String header = sign("{\"user_name\":\"devd.cores\",\"exp\":" + exp + "}", "not-the-secret");
+
+        assertThat(verifier.verify(header)).isNull();
+    }
+
+    @Test
+    void rejectsExpiredOrMalformedClaims() throws Exception {
+        long exp = System.currentTimeMillis() / 1000 - 1;
+
+        assertThat(verifier.verify(sign("{\"user_name\":\"devd.cores\",\"exp\":" + exp + "}", SECRET))).isNull();
+        assertThat(verifier.verify("not-a-claims-header")).isNull();
+        assertThat(verifier.verify("payload.%%%")).isNull();
+    }
+
+    private static String sign(String json, String secret) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return payload + "." + encoder.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
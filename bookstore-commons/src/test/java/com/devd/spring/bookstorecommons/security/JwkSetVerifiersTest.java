@@ -0,0 +1,116 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.InvalidSignatureException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwkSetVerifiersTest {
+
+    private static final String JWK_SET_URI = "http://bookstore-account-service/.well-known/jwks.json";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private RestTemplate restTemplate;
+
+    private JwkSetVerifiers verifiers;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        verifiers = new JwkSetVerifiers(JWK_SET_URI, restTemplate,
+                Duration.ofHours(1), Duration.ofSeconds(30), now::get);
+    }
+
+    @Test
+    void verifiesEs256TokensWithThePublishedKey() throws Exception {
+        KeyPair keyPair = ecKeyPair();
+        publish(Jwks.toJwk("ec-1", keyPair.getPublic()));
+
+        String token = JwtHelper.encode("{\"user_name\":\"devd\"}", new EcdsaSigner((ECPrivateKey) keyPair.getPrivate()),
+                Collections.singletonMap(Jwks.KEY_ID, "ec-1")).getEncoded();
+
+        assertThat(JwtHelper.headers(token)).containsEntry("alg", "ES256");
+        assertThat(JwtHelper.decodeAndVerify(token, verifiers.apply("ec-1")).getClaims()).contains("devd");
+
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"user_name\":\"admin\"}".getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+        assertThatThrownBy(() -> JwtHelper.decodeAndVerify(tampered, verifiers.apply("ec-1")))
+                .isInstanceOf(InvalidSignatureException.class);
+    }
+
+    @Test
+    void refetchesTheKeySetForAnUnknownKeyId() throws Exception {
+        KeyPair first = ecKeyPair();
+        KeyPair rotated = ecKeyPair();
+        publish(Jwks.toJwk("ec-1", first.getPublic()));
+        assertThat(verifiers.apply("ec-1")).isNotNull();
+
+        publish(Jwks.toJwk("ec-1", first.getPublic()), Jwks.toJwk("ec-2", rotated.getPublic()));
+        now.addAndGet(30_000);
+
+        assertThat(verifiers.apply("ec-2")).isNotNull();
+        assertThat(verifiers.apply("ec-1")).isNotNull();
+        verify(restTemplate, times(2)).getForObject(eq(JWK_SET_URI), eq(Map.class));
+    }
+
+    @Test
+    void unknownKeyIdsDoNotFetchMoreOftenThanTheMinimumInterval() throws Exception {
+        publish(Jwks.toJwk("ec-1", ecKeyPair().getPublic()));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(verifiers.apply("made-up-" + i)).isNull();
+            now.addAndGet(100);
+        }
+
+        verify(restTemplate, times(1)).getForObject(eq(JWK_SET_URI), eq(Map.class));
+    }
+
+    @Test
+    void keepsTheKnownKeysWhenTheKeySetCannotBeFetched() throws Exception {
+        publish(Jwks.toJwk("ec-1", ecKeyPair().getPublic()));
+        assertThat(verifiers.apply("ec-1")).isNotNull();
+
+        when(restTemplate.getForObject(JWK_SET_URI, Map.class)).thenThrow(new ResourceAccessException("down"));
+        now.addAndGet(Duration.ofHours(2).toMillis());
+
+        assertThat(verifiers.apply("ec-1")).isNotNull();
+    }
+
+    @SafeVarargs
+    private final void publish(Map<String, Object>... jwks) {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        Collections.addAll(keys, jwks);
+        when(restTemplate.getForObject(JWK_SET_URI, Map.class)).thenReturn(Collections.singletonMap("keys", keys));
+    }
+
+    private static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+}
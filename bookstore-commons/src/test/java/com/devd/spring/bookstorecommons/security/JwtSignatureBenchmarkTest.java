@@ -0,0 +1,101 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.jwt.crypto.sign.Signer;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of signing and verifying an access token with RS256 and a 2048 bit key against ES256.
+ *
+ * Skipped by default, run it with {@code mvn test -Dtest=JwtSignatureBenchmarkTest -Dbenchmark=true}.
+ * It prints the microseconds per signature and per verification of both; ES256 is expected to sign
+ * several times faster, while RSA keeps the cheaper verification.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtSignatureBenchmarkTest {
+
+    private static final int WARMUP_OPERATIONS = 2_000;
+    private static final int MEASURED_OPERATIONS = 10_000;
+    private static final String CLAIMS = "{\"user_name\":\"benchmark\",\"user_id\":\"4f7a2c1e-9b3d-4e8a-a1c2-6d5e8f9a0b1c\","
+            + "\"scope\":[\"read\",\"write\"],\"exp\":1900000000,\"authorities\":[\"STANDARD_USER\"],"
+            + "\"jti\":\"0d9c8b7a-6e5f-4a3b-2c1d-0e9f8a7b6c5d\",\"client_id\":\"bookstore-web\",\"aud\":[\"web\"]}";
+
+    @Test
+    void rs256VersusEs256() throws Exception {
+        KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaGenerator.initialize(2048);
+        KeyPair rsa = rsaGenerator.generateKeyPair();
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair ec = ecGenerator.generateKeyPair();
+
+        Result rs256 = measure(new RsaSigner((RSAPrivateKey) rsa.getPrivate()),
+                new RsaVerifier((RSAPublicKey) rsa.getPublic()));
+        Result es256 = measure(new EcdsaSigner((ECPrivateKey) ec.getPrivate()),
+                new EcdsaVerifier((ECPublicKey) ec.getPublic()));
+
+        System.out.printf("RS256: sign %.1f us, verify %.1f us, token %d chars%n",
+                rs256.signMicros, rs256.verifyMicros, rs256.tokenLength);
+        System.out.printf("ES256: sign %.1f us, verify %.1f us, token %d chars%n",
+                es256.signMicros, es256.verifyMicros, es256.tokenLength);
+
+        assertThat(es256.signMicros).isLessThan(rs256.signMicros);
+    }
+
+    private static Result measure(Signer signer, SignatureVerifier verifier) {
+        String token = sign(signer);
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            JwtHelper.decodeAndVerify(sign(signer), verifier);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            token = sign(signer);
+        }
+        long signNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            JwtHelper.decodeAndVerify(token, verifier);
+        }
+        long verifyNanos = System.nanoTime() - start;
+
+        return new Result(micros(signNanos), micros(verifyNanos), token.length());
+    }
+
+    private static String sign(Signer signer) {
+        return JwtHelper.encode(CLAIMS, signer, Collections.singletonMap(Jwks.KEY_ID, "benchmark")).getEncoded();
+    }
+
+    private static double micros(long nanos) {
+        return (double) nanos / MEASURED_OPERATIONS / 1_000;
+    }
+
+    private static final class Result {
+
+        private final double signMicros;
+        private final double verifyMicros;
+        private final int tokenLength;
+
+        private Result(double signMicros, double verifyMicros, int tokenLength) {
+            this.signMicros = signMicros;
+            this.verifyMicros = verifyMicros;
+            this.tokenLength = tokenLength;
+        }
+    }
+}
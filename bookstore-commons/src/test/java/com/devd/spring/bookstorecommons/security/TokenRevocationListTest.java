@@ -0,0 +1,135 @@
+package com.devd.spring.bookstorecommons.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTest {
+
+    private final List<TokenRevocation> published = new ArrayList<>();
+
+    private final TokenRevocationList revocationList = new TokenRevocationList(
+            after -> published.stream().filter(revocation -> revocation.getId() > after).collect(Collectors.toList()),
+            100, 0.001);
+
+    @Test
+    void revokesTokenById() {
+        publish(TokenRevocation.builder().tokenId("jti-1"));
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("jti-1", "user-1", now())).isTrue();
+        assertThat(revocationList.isRevoked("jti-2", "user-1", now())).isFalse();
+    }
+
+    @Test
+    void revokesTokensOfUserIssuedBeforeTheRevocation() {
+        long revokedAt = now();
+        publish(TokenRevocation.builder().userId("user-1").revokedAt(revokedAt));
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("jti-1", "user-1", revokedAt - 1_000)).isTrue();
+        assertThat(revocationList.isRevoked("jti-2", "user-1", revokedAt + 1_000)).isFalse();
+        assertThat(revocationList.isRevoked("jti-3", "user-2", revokedAt - 1_000)).isFalse();
+    }
+
+    @Test
+    void readsIssuedAtClaimInSeconds() {
+        long revokedAt = now();
+        publish(TokenRevocation.builder().userId("user-1").revokedAt(revokedAt));
+        revocationList.refresh();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("jti", "jti-1");
+        claims.put("user_id", "user-1");
+        claims.put("iat", revokedAt / 1000 - 1);
+        assertThat(revocationList.isRevoked(claims)).isTrue();
+
+        claims.put("iat", revokedAt / 1000 + 1);
+        assertThat(revocationList.isRevoked(claims)).isFalse();
+    }
+
+    @Test
+    void onlyReadsRevocationsAppendedSinceLastRefreshOnceSettled() {
+        List<Long> requested = new ArrayList<>();
+        TokenRevocationList list = new TokenRevocationList(after -> {
+            requested.add(after);
+            return published.stream().filter(revocation -> revocation.getId() > after).collect(Collectors.toList());
+        }, 100, 0.001, Duration.ZERO);
+
+        publish(TokenRevocation.builder().tokenId("jti-1"));
+        list.refresh();
+        publish(TokenRevocation.builder().tokenId("jti-2"));
+        list.refresh();
+
+        assertThat(requested).containsExactly(0L, 1L, 1L, 2L);
+        assertThat(list.isRevoked("jti-2", null, now())).isTrue();
+    }
+
+    @Test
+    void picksUpARevocationThatCommittedAfterOnesWithHigherIds() {
+        publish(TokenRevocation.builder().tokenId("jti-1"));
+        publish(TokenRevocation.builder().tokenId("jti-2"));
+        publish(TokenRevocation.builder().tokenId("jti-3"));
+        TokenRevocation late = published.remove(1);
+        revocationList.refresh();
+        assertThat(revocationList.isRevoked("jti-2", null, now())).isFalse();
+
+        published.add(late);
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("jti-2", null, now())).isTrue();
+        assertThat(revocationList.size()).isEqualTo(3);
+    }
+
+    @Test
+    void dropsExpiredRevocations() {
+        published.add(TokenRevocation.builder().id(1).tokenId("jti-1").revokedAt(now() - 2_000)
+                .expiresAt(now() - 1_000).build());
+        publish(TokenRevocation.builder().tokenId("jti-2"));
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("jti-1", null, now())).isFalse();
+        assertThat(revocationList.size()).isEqualTo(1);
+    }
+
+    @Test
+    void growsBeyondExpectedSize() {
+        for (int i = 0; i < 1_000; i++) {
+            publish(TokenRevocation.builder().tokenId("jti-" + i));
+        }
+        revocationList.refresh();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(revocationList.isRevoked("jti-" + i, null, now())).isTrue();
+        }
+        assertThat(revocationList.isRevoked("jti-other", null, now())).isFalse();
+    }
+
+    @Test
+    void revokesNothingBeforeFirstRefresh() {
+        TokenRevocationList list = new TokenRevocationList(after -> Collections.emptyList(), 100, 0.001);
+
+        assertThat(list.isRevoked("jti-1", "user-1", now())).isFalse();
+    }
+
+    private void publish(TokenRevocation.TokenRevocationBuilder revocation) {
+        long now = now();
+        TokenRevocation built = revocation.id(published.size() + 1).expiresAt(now + 60_000).build();
+        if (built.getRevokedAt() == 0) {
+            built.setRevokedAt(now);
+        }
+        published.add(built);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+}
@@ -4,6 +4,9 @@ import com.devd.spring.bookstorecommons.web.GetAddressResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * @author: Devaraj Reddy, Date : 2019-07-02
@@ -14,4 +17,7 @@ public interface BillingFeignClient {
     @GetMapping("/address/{addressId}")
     GetAddressResponse getAddressById(@PathVariable("addressId") String addressId);
 
+    @GetMapping("/addressesByIds")
+    List<GetAddressResponse> getAddressesByIds(@RequestParam("ids") List<String> addressIds);
+
 }
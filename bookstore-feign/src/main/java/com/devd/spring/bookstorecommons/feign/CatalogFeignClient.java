@@ -4,6 +4,9 @@ import com.devd.spring.bookstorecommons.web.GetProductResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * @author: Devaraj Reddy,
@@ -15,4 +18,7 @@ public interface CatalogFeignClient {
     @GetMapping("/product/{productId}")
     GetProductResponse getProduct(@PathVariable("productId") String productId);
 
+    @GetMapping("/productsByIds")
+    List<GetProductResponse> getProductsByIds(@RequestParam("ids") List<String> productIds);
+
 }
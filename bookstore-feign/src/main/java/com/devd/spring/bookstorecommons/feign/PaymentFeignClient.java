@@ -3,6 +3,7 @@ package com.devd.spring.bookstorecommons.feign;
 import com.devd.spring.bookstorecommons.web.CreatePaymentRequest;
 import com.devd.spring.bookstorecommons.web.CreatePaymentResponse;
 import com.devd.spring.bookstorecommons.web.GetPaymentMethodResponse;
+import com.devd.spring.bookstorecommons.web.PaymentRequestResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,4 +20,19 @@ public interface PaymentFeignClient {
 
     @PostMapping("/pay")
     CreatePaymentResponse doPayment(CreatePaymentRequest createPaymentRequest);
+
+    @PostMapping("/pay/async")
+    PaymentRequestResponse doPaymentAsync(CreatePaymentRequest createPaymentRequest);
+
+    @GetMapping("/pay/async/{paymentRequestId}")
+    PaymentRequestResponse getPaymentRequest(@PathVariable("paymentRequestId") String paymentRequestId);
+
+    @PostMapping("/pay/capture/{paymentId}")
+    void requestCapture(@PathVariable("paymentId") String paymentId);
+
+    @PostMapping("/pay/capture/{paymentId}/confirm")
+    void confirmCapture(@PathVariable("paymentId") String paymentId);
+
+    @PostMapping("/pay/capture/{paymentId}/release")
+    void releaseAuthorization(@PathVariable("paymentId") String paymentId);
 }
@@ -15,5 +15,7 @@ public class CreatePaymentRequest {
     private int amount;
     private String currency;
     private String paymentMethodId;
+    //a retry with the same key gets the first payment back instead of a second charge
+    private String idempotencyKey;
 
 }
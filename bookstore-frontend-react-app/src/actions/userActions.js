@@ -31,7 +31,7 @@ import {
   postSignupApi,
   putUserInfoApi,
   deleteUserApi,
-  getAllUsersApi,
+  getUsersPageApi,
   getUserApi,
   updateUserApi
 } from '../service/RestApiCalls';
@@ -194,14 +194,14 @@ export const updateUserProfile = (user) => async (dispatch) => {
   }
 };
 
-export const listUsersAction = () => async (dispatch) => {
+export const listUsersAction = (q, after, size = 50) => async (dispatch) => {
   try {
     dispatch({
       type: USER_LIST_REQUEST
     });
 
     //list  users
-    const listUsersResponse = await getAllUsersApi();
+    const listUsersResponse = await getUsersPageApi(q, after, size);
 
     dispatch({
       type: USER_LIST_SUCCESS,
@@ -13,6 +13,8 @@ import OrderItem from '../components/OrderItem';
 const PlaceOrderScreen = (props) => {
   const dispatch = useDispatch();
   const [error, setError] = useState(null);
+  // one key per checkout, so placing the order again after a timeout does not charge the card twice
+  const [idempotencyKey] = useState(() => `${Date.now()}-${Math.random().toString(36).slice(2)}`);
   const order = useSelector((state) => state.order);
 
   const orderPreview = useSelector((state) => state.orderPreview);
@@ -53,7 +55,8 @@ const PlaceOrderScreen = (props) => {
     const placeOrderRequestBody = {
       billingAddressId: order.billingAddressId,
       shippingAddressId: order.shippingAddressId,
-      paymentMethodId: order.paymentMethodId
+      paymentMethodId: order.paymentMethodId,
+      idempotencyKey: idempotencyKey
     };
 
     dispatch(placeOrderAction(placeOrderRequestBody));
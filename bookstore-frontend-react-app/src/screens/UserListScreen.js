@@ -11,9 +11,13 @@ import './UserListScreen.css';
 const UserListScreen = ({ history }) => {
   const dispatch = useDispatch();
   const [searchTerm, setSearchTerm] = useState('');
+  const [query, setQuery] = useState('');
+  //cursors of the pages shown so far, the last one is the current page
+  const [cursors, setCursors] = useState([null]);
+  const after = cursors[cursors.length - 1];
 
   const userList = useSelector((state) => state.userList);
-  const { loading, error, users } = userList;
+  const { loading, error, users, nextCursor } = userList;
 
   const userLogin = useSelector((state) => state.userLogin);
   const { userInfo } = userLogin;
@@ -21,13 +25,22 @@ const UserListScreen = ({ history }) => {
   const userDelete = useSelector((state) => state.userDelete);
   const { success: successDelete, error: userDeleteError } = userDelete;
 
+  //searches the server once typing pauses, from the first page
+  useEffect(() => {
+    const timer = setTimeout(() => {
+      setQuery(searchTerm.trim());
+      setCursors([null]);
+    }, 300);
+    return () => clearTimeout(timer);
+  }, [searchTerm]);
+
   useEffect(() => {
     if (userInfo && isAdmin()) {
-      dispatch(listUsersAction());
+      dispatch(listUsersAction(query, after));
     } else {
       history.push('/login');
     }
-  }, [dispatch, history, successDelete, userInfo]);
+  }, [dispatch, history, successDelete, userInfo, query, after]);
 
   const deleteHandler = (userId, userName) => {
     if (window.confirm(`Bạn có chắc chắn muốn xóa người dùng "${userName}" không?`)) {
@@ -35,13 +48,8 @@ const UserListScreen = ({ history }) => {
     }
   };
 
-  // Lọc người dùng theo từ khóa tìm kiếm
-  const filteredUsers = users ? users.filter(user => 
-    user.userName.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    user.firstName.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    user.lastName.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    user.email.toLowerCase().includes(searchTerm.toLowerCase())
-  ) : [];
+  // Người dùng của trang hiện tại, máy chủ đã lọc theo tiền tố tên đăng nhập hoặc email
+  const filteredUsers = users || [];
 
   return (
     <Container className="user-list-screen">
@@ -60,7 +68,7 @@ const UserListScreen = ({ history }) => {
                 </InputGroup.Text>
                 <Form.Control
                   type="text"
-                  placeholder="Tìm kiếm người dùng..."
+                  placeholder="Tên đăng nhập hoặc email bắt đầu bằng..."
                   value={searchTerm}
                   onChange={(e) => setSearchTerm(e.target.value)}
                   className="search-input"
@@ -174,7 +182,21 @@ const UserListScreen = ({ history }) => {
               </div>
               
               <div className="user-count-info">
-                Hiển thị {filteredUsers.length} / {users.length} người dùng
+                Trang {cursors.length}: {filteredUsers.length} người dùng
+                <Button
+                  variant="light"
+                  disabled={cursors.length === 1}
+                  onClick={() => setCursors(cursors.slice(0, -1))}
+                >
+                  <i className="fas fa-chevron-left"></i> Trước
+                </Button>
+                <Button
+                  variant="light"
+                  disabled={!nextCursor}
+                  onClick={() => setCursors([...cursors, nextCursor])}
+                >
+                  Sau <i className="fas fa-chevron-right"></i>
+                </Button>
                 {searchTerm && (
                   <Button 
                     variant="link" 
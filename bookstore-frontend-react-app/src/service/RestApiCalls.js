@@ -130,11 +130,21 @@ export const getAllRolesApi = async () => {
   return responseData;
 };
 
-export const getAllUsersApi = async () => {
+//one page of users, pass its nextCursor as after to get the next one
+export const getUsersPageApi = async (q, after, size) => {
   const axiosConfig = getAxiosConfig();
-  const responseData = axios.get(`${BACKEND_API_GATEWAY_URL}/api/account/users`, axiosConfig).then((response) => {
-    return response.data;
-  });
+  const params = { size };
+  if (q) {
+    params.q = q;
+  }
+  if (after) {
+    params.after = after;
+  }
+  const responseData = axios
+    .get(`${BACKEND_API_GATEWAY_URL}/api/account/users`, { ...axiosConfig, params })
+    .then((response) => {
+      return response.data;
+    });
   return responseData;
 };
 
@@ -0,0 +1,23 @@
+package com.devd.spring.bookstoreloadbalancer;
+
+import com.netflix.loadbalancer.IRule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Ribbon client configuration using a {@link LatencyAwareRule}, meant for
+ * {@code @RibbonClients(defaultConfiguration = LatencyAwareRibbonConfiguration.class)}.
+ *
+ * Not annotated with {@code @Configuration} on purpose, component scanning would otherwise share
+ * one rule between all the Ribbon clients.
+ *
+ * {@code bookstore.loadbalancer.rule} selects {@code peak-ewma} (the default) or
+ * {@code least-outstanding}.
+ */
+public class LatencyAwareRibbonConfiguration {
+
+    @Bean
+    public IRule ribbonRule(@Value("${bookstore.loadbalancer.rule:peak-ewma}") String rule) {
+        return "least-outstanding".equals(rule) ? new LeastOutstandingRule() : new PeakEwmaRule();
+    }
+}
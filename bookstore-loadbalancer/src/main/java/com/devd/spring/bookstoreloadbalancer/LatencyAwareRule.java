@@ -0,0 +1,121 @@
+package com.devd.spring.bookstoreloadbalancer;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+import org.springframework.cloud.consul.discovery.ConsulServer;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Picks two random healthy servers and routes to the one with the lower {@link #cost}, the
+ * "power of two choices" which avoids the herding onto a single server that always picking the
+ * cheapest one causes when the load balancers of several callers see the same stats.
+ *
+ * A server is healthy when Ribbon sees it alive, its circuit breaker is not tripped and, for
+ * servers discovered through Consul, all its health checks pass. When no server is healthy the
+ * reachable ones are tried anyway.
+ *
+ * The stats come from the Ribbon {@link ServerStats} that the Zuul routes and the Feign clients
+ * both update around every call.
+ */
+public abstract class LatencyAwareRule extends AbstractLoadBalancerRule {
+
+    private static final boolean CONSUL_PRESENT = ClassUtils.isPresent(
+            "org.springframework.cloud.consul.discovery.ConsulServer", LatencyAwareRule.class.getClassLoader());
+
+    private final Supplier<Random> random;
+
+    protected LatencyAwareRule() {
+        this(ThreadLocalRandom::current);
+    }
+
+    /**
+     * @param random where the two servers are picked from, seeded in tests so a run is repeatable.
+     */
+    LatencyAwareRule(Supplier<Random> random) {
+        this.random = random;
+    }
+
+    @Override
+    public void initWithNiwsConfig(IClientConfig clientConfig) {
+    }
+
+    @Override
+    public Server choose(Object key) {
+        ILoadBalancer lb = getLoadBalancer();
+        if (lb == null) {
+            return null;
+        }
+        List<Server> reachable = lb.getReachableServers();
+        List<Server> candidates = healthy(lb, reachable);
+        if (candidates.isEmpty()) {
+            candidates = reachable;
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        Random random = this.random.get();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Server a = candidates.get(first);
+        Server b = candidates.get(second);
+        return cost(a, stats(lb, a)) <= cost(b, stats(lb, b)) ? a : b;
+    }
+
+    /**
+     * @param stats the Ribbon stats of the server, null if the load balancer keeps none.
+     * @return the cost of sending the next request to the server, lower is better.
+     */
+    protected abstract double cost(Server server, ServerStats stats);
+
+    private List<Server> healthy(ILoadBalancer lb, List<Server> servers) {
+        long now = System.currentTimeMillis();
+        List<Server> healthy = new ArrayList<>(servers.size());
+        for (Server server : servers) {
+            ServerStats stats = stats(lb, server);
+            if (server.isAlive() && server.isReadyToServe()
+                    && (stats == null || !stats.isCircuitBreakerTripped(now))
+                    && passesConsulChecks(server)) {
+                healthy.add(server);
+            }
+        }
+        return healthy;
+    }
+
+    private static boolean passesConsulChecks(Server server) {
+        return !CONSUL_PRESENT || ConsulChecks.passing(server);
+    }
+
+    private static ServerStats stats(ILoadBalancer lb, Server server) {
+        if (!(lb instanceof AbstractLoadBalancer)) {
+            return null;
+        }
+        return ((AbstractLoadBalancer) lb).getLoadBalancerStats().getSingleServerStat(server);
+    }
+
+    /**
+     * Keeps the Consul classes from being loaded when Consul is not on the classpath.
+     */
+    private static final class ConsulChecks {
+
+        static boolean passing(Server server) {
+            return !(server instanceof ConsulServer) || ((ConsulServer) server).isPassingChecks();
+        }
+    }
+}
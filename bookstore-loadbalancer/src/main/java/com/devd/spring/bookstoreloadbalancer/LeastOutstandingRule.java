@@ -0,0 +1,27 @@
+package com.devd.spring.bookstoreloadbalancer;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Routes to the server with the fewest requests in flight, of two picked at random.
+ */
+public class LeastOutstandingRule extends LatencyAwareRule {
+
+    public LeastOutstandingRule() {
+        this(ThreadLocalRandom::current);
+    }
+
+    LeastOutstandingRule(Supplier<Random> random) {
+        super(random);
+    }
+
+    @Override
+    protected double cost(Server server, ServerStats stats) {
+        return stats == null ? 0 : stats.getActiveRequestsCount();
+    }
+}
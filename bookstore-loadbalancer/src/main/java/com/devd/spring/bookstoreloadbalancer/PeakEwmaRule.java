@@ -0,0 +1,100 @@
+package com.devd.spring.bookstoreloadbalancer;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Routes by a peak-EWMA latency score, the moving average of the server's response times
+ * multiplied by its requests in flight plus one.
+ *
+ * The average jumps straight to any response time above it, so a server that stalls in a GC
+ * pause or on a noisy node is avoided at once, and decays back over {@code decay} so that it is
+ * tried again once it had time to recover.
+ *
+ * Ribbon only keeps the count and the mean of all the response times of a server, the response
+ * times observed since the last look are derived from the change of both.
+ */
+public class PeakEwmaRule extends LatencyAwareRule {
+
+    static final long DEFAULT_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Cost of a server with requests in flight but no response time yet, high enough to send the
+     * requests to servers with a known latency until its first ones complete.
+     */
+    private static final double PENALTY_MILLIS = 1_000;
+
+    private final Map<String, Ewma> ewmas = new ConcurrentHashMap<>();
+
+    private final long decayNanos;
+
+    private final LongSupplier clock;
+
+    public PeakEwmaRule() {
+        this(DEFAULT_DECAY_NANOS, System::nanoTime, ThreadLocalRandom::current);
+    }
+
+    PeakEwmaRule(long decayNanos, LongSupplier clock, Supplier<Random> random) {
+        super(random);
+        this.decayNanos = decayNanos;
+        this.clock = clock;
+    }
+
+    @Override
+    protected double cost(Server server, ServerStats stats) {
+        if (stats == null) {
+            return 0;
+        }
+        int outstanding = stats.getActiveRequestsCount();
+        double latency = ewmas.computeIfAbsent(server.getId(), id -> new Ewma()).update(stats, clock.getAsLong());
+        if (latency == 0) {
+            return outstanding == 0 ? 0 : PENALTY_MILLIS + outstanding;
+        }
+        return latency * (outstanding + 1);
+    }
+
+    private class Ewma {
+
+        private double value;
+
+        private long stamp = clock.getAsLong();
+
+        private long lastCount;
+
+        private double lastMean;
+
+        synchronized double update(ServerStats stats, long now) {
+            long count = stats.getTotalRequestsCount();
+            double mean = stats.getResponseTimeAvg();
+            if (count > lastCount) {
+                double sum = mean * count - lastMean * lastCount;
+                observe(Math.max(0, sum / (count - lastCount)), now);
+            } else {
+                // nothing completed since the last look, let the score fade towards zero
+                observe(0, now);
+            }
+            lastCount = count;
+            lastMean = mean;
+            return value;
+        }
+
+        private void observe(double millis, long now) {
+            long elapsed = Math.max(0, now - stamp);
+            stamp = now;
+            if (millis > value) {
+                value = millis;
+            } else {
+                double weight = Math.exp(-(double) elapsed / decayNanos);
+                value = value * weight + millis * (1 - weight);
+            }
+        }
+    }
+}
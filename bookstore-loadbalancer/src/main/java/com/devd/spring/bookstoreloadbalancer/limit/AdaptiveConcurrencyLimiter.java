@@ -0,0 +1,145 @@
+package com.devd.spring.bookstoreloadbalancer.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the requests in flight to a service to a limit that follows its latency, so overload is
+ * shed right away instead of queueing until it times out.
+ *
+ * The limit is adjusted after every request from the ratio of a long term average of the latency,
+ * the baseline, to a short term one: while the latency stays near the baseline the limit grows by
+ * about its square root, once requests queue up and the latency rises the limit shrinks in
+ * proportion, down to half at a time. Requests dropped by the service, timeouts and 503s, cut the
+ * limit by a tenth. The limit only grows while at least half of it is used, a service that is not
+ * loaded says nothing about how much more it could take.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Latency increase over the baseline that is still not taken as queueing.
+     */
+    private static final double TOLERANCE = 1.5;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Ewma shortRtt = new Ewma(10);
+
+    private final Ewma longRtt = new Ewma(600);
+
+    private double estimatedLimit;
+
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return true if the request may proceed, it must then be released exactly once.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an acquired request and adjusts the limit by its outcome.
+     *
+     * @param rttNanos time the request took.
+     * @param dropped  whether the service dropped the request, timed out or answered 503.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        update(rttNanos, current, dropped);
+    }
+
+    /**
+     * Releases an acquired request without adjusting the limit, for requests that failed before
+     * their latency could tell anything.
+     */
+    public void releaseIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            setEstimatedLimit(estimatedLimit * BACKOFF_RATIO);
+            return;
+        }
+
+        double shortAvg = shortRtt.add(rttNanos);
+        double longAvg = longRtt.add(rttNanos);
+        if (longAvg / shortAvg > 2) {
+            // latency went down for good, bring the baseline down faster than its window would
+            longRtt.scale(0.95);
+        }
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longAvg / shortAvg));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        setEstimatedLimit(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private void setEstimatedLimit(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private static final class Ewma {
+
+        private final double alpha;
+
+        private double value;
+
+        private boolean empty = true;
+
+        Ewma(int window) {
+            this.alpha = 2.0 / (window + 1);
+        }
+
+        double add(double sample) {
+            if (empty) {
+                value = sample;
+                empty = false;
+            } else {
+                value = value * (1 - alpha) + sample * alpha;
+            }
+            return value;
+        }
+
+        void scale(double ratio) {
+            value *= ratio;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.devd.spring.bookstoreloadbalancer;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.RoundRobinRule;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends the same stream of requests through each rule to three servers, one of which answers
+ * 25 times slower than the others, and compares the latencies the callers see. Time is simulated,
+ * the server stats are updated the way Ribbon's {@code LoadBalancerContext} does around a call, and
+ * the latencies and the servers the rules pick from are drawn from seeded randoms, so every run
+ * sees the same requests.
+ */
+class LatencyAwareRuleSimulationTest {
+
+    private static final int REQUESTS = 20_000;
+
+    private static final long ARRIVAL_INTERVAL_MILLIS = 2;
+
+    private static final Server SLOW = new Server("slow", 8080);
+
+    private final AtomicLong nowNanos = new AtomicLong();
+
+    @Test
+    void peakEwmaCutsTailLatencyOfSlowServer() {
+        List<Long> roundRobin = simulate(new RoundRobinRule());
+        Random choices = new Random(7);
+        List<Long> peakEwma = simulate(new PeakEwmaRule(PeakEwmaRule.DEFAULT_DECAY_NANOS, nowNanos::get, () -> choices));
+
+        assertThat(percentile(roundRobin, 99)).isGreaterThanOrEqualTo(250);
+        assertThat(percentile(peakEwma, 99)).isLessThan(50);
+        assertThat(mean(peakEwma)).isLessThan(mean(roundRobin) / 3);
+    }
+
+    @Test
+    void leastOutstandingSendsLessToSlowServer() {
+        List<Long> roundRobin = simulate(new RoundRobinRule());
+        Random choices = new Random(7);
+        List<Long> leastOutstanding = simulate(new LeastOutstandingRule(() -> choices));
+
+        assertThat(mean(leastOutstanding)).isLessThan(mean(roundRobin) / 2);
+    }
+
+    private List<Long> simulate(IRule rule) {
+        BaseLoadBalancer lb = new BaseLoadBalancer();
+        lb.addServers(Arrays.asList(new Server("fast-1", 8080), new Server("fast-2", 8080), SLOW));
+        lb.setRule(rule);
+
+        Random random = new Random(42);
+        PriorityQueue<Completion> inFlight = new PriorityQueue<>();
+        List<Long> latencies = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long now = i * ARRIVAL_INTERVAL_MILLIS;
+            while (!inFlight.isEmpty() && inFlight.peek().at <= now) {
+                Completion completion = inFlight.poll();
+                completion.stats.decrementActiveRequestsCount();
+                completion.stats.incrementNumRequests();
+                completion.stats.noteResponseTime(completion.latency);
+            }
+            nowNanos.set(TimeUnit.MILLISECONDS.toNanos(now));
+
+            Server server = rule.choose(null);
+            ServerStats stats = lb.getLoadBalancerStats().getSingleServerStat(server);
+            stats.incrementActiveRequestsCount();
+            long latency = (SLOW.equals(server) ? 250 : 10) + random.nextInt(5);
+            inFlight.add(new Completion(now + latency, latency, stats));
+            latencies.add(latency);
+        }
+        lb.shutdown();
+        return latencies;
+    }
+
+    private static long percentile(List<Long> latencies, int percentile) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() * percentile / 100);
+    }
+
+    private static double mean(List<Long> latencies) {
+        return latencies.stream().mapToLong(Long::longValue).average().orElse(0);
+    }
+
+    private static final class Completion implements Comparable<Completion> {
+
+        private final long at;
+
+        private final long latency;
+
+        private final ServerStats stats;
+
+        private Completion(long at, long latency, ServerStats stats) {
+            this.at = at;
+            this.latency = latency;
+            this.stats = stats;
+        }
+
+        @Override
+        public int compareTo(Completion other) {
+            return Long.compare(at, other.at);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.devd.spring.bookstoreloadbalancer.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100);
+
+    @Test
+    void rejectsOverLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.releaseIgnored();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtBaseline() {
+        saturate(10, 20);
+
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        saturate(10, 20);
+        int baselineLimit = limiter.getLimit();
+
+        saturate(50, 10);
+
+        assertThat(limiter.getLimit()).isLessThan(baselineLimit);
+    }
+
+    @Test
+    void backsOffOnDrops() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void ignoresLatencyWhenMostlyIdle() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    /**
+     * Fills the limit, then completes all the requests with the same latency, {@code rounds} times.
+     */
+    private void saturate(long rttMillis, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+            }
+        }
+    }
+}
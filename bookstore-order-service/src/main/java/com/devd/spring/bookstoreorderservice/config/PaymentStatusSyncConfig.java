@@ -0,0 +1,44 @@
+package com.devd.spring.bookstoreorderservice.config;
+
+import com.devd.spring.bookstoreorderservice.service.impl.PaymentStatusUpdater;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the payment status feed of the payment service in the background, see
+ * {@link PaymentStatusUpdater}. A full page is followed by the next one right away.
+ */
+@Configuration
+@Slf4j
+public class PaymentStatusSyncConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(value = "order.payment-status-sync.enabled", matchIfMissing = true)
+    public ScheduledExecutorService paymentStatusSyncScheduler(
+            PaymentStatusUpdater paymentStatusUpdater,
+            @Value("${order.payment-status-sync.interval:5s}") Duration interval,
+            @Value("${order.payment-status-sync.batch-size:100}") int batchSize) {
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-status-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                paymentStatusUpdater.update(batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Could not update payment statuses: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
@@ -0,0 +1,35 @@
+package com.devd.spring.bookstoreorderservice.controller;
+
+import com.devd.spring.bookstorecommons.graphql.GraphQLExecutor;
+import com.devd.spring.bookstorecommons.graphql.GraphQLRequest;
+import com.devd.spring.bookstoreorderservice.graphql.OrderGraphQLWiring;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Read only GraphQL API over the cart and the orders of the signed in user.
+ */
+@RestController
+@CrossOrigin
+public class GraphQLController {
+
+    @Autowired
+    private GraphQLExecutor graphQLExecutor;
+
+    @Autowired
+    private OrderGraphQLWiring orderGraphQLWiring;
+
+    @PostMapping(value = "/graphql", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> graphql(@RequestBody GraphQLRequest graphQLRequest) {
+
+        Map<String, Object> result = graphQLExecutor.execute(graphQLRequest, orderGraphQLWiring.newDataLoaderRegistry());
+
+        return ResponseEntity.ok(result);
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -41,6 +42,14 @@ public class OrderController {
         return ResponseEntity.ok(createOrderResponse);
     }
 
+    @PutMapping("/order/{orderId}/delivered")
+    @PreAuthorize("hasAuthority('ADMIN_USER')")
+    public ResponseEntity<?> markDelivered(@PathVariable("orderId") String orderId) {
+
+        orderService.markDelivered(orderId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/order/myorders")
     public ResponseEntity<List<CreateOrderResponse>> getMyOrders() {
 
@@ -0,0 +1,23 @@
+package com.devd.spring.bookstoreorderservice.graphql;
+
+import com.devd.spring.bookstorecommons.graphql.GraphQLExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+
+@Configuration
+public class OrderGraphQLConfig {
+
+    @Bean
+    public GraphQLExecutor orderGraphQLExecutor(OrderGraphQLWiring orderGraphQLWiring,
+                                                @Value("classpath:graphql/order.graphqls") Resource schema,
+                                                @Value("${bookstore.graphql.max-depth:8}") int maxDepth,
+                                                @Value("${bookstore.graphql.max-complexity:500}") int maxComplexity) throws IOException {
+        //lists are priced at the largest default and maximum page of myOrders
+        return new GraphQLExecutor(schema, orderGraphQLWiring.runtimeWiring(), maxDepth, maxComplexity,
+                OrderGraphQLWiring.DEFAULT_ORDERS, OrderGraphQLWiring.MAX_ORDERS);
+    }
+}
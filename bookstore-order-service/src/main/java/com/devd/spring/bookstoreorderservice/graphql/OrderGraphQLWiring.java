@@ -0,0 +1,133 @@
+package com.devd.spring.bookstoreorderservice.graphql;
+
+import com.devd.spring.bookstorecommons.feign.CatalogFeignClient;
+import com.devd.spring.bookstorecommons.graphql.GraphQLQueryLimits;
+import com.devd.spring.bookstorecommons.util.CommonUtilityMethods;
+import com.devd.spring.bookstorecommons.web.GetProductResponse;
+import com.devd.spring.bookstoreorderservice.repository.OrderItemRepository;
+import com.devd.spring.bookstoreorderservice.repository.OrderRepository;
+import com.devd.spring.bookstoreorderservice.repository.dao.CartItem;
+import com.devd.spring.bookstoreorderservice.repository.dao.Order;
+import com.devd.spring.bookstoreorderservice.repository.dao.OrderItem;
+import com.devd.spring.bookstoreorderservice.service.CartService;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.idl.RuntimeWiring;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Data fetchers of the order GraphQL schema.
+ *
+ * Order items are loaded for all the orders of a response in one query and the products of cart
+ * and order items in one call to the catalog service, instead of one lookup per order and item.
+ */
+@Component
+public class OrderGraphQLWiring {
+
+    static final String ORDER_ITEMS_LOADER = "orderItems";
+    static final String PRODUCTS_LOADER = "products";
+
+    //latest orders first, cart and order items are only as many as were put in the cart
+    static final int DEFAULT_ORDERS = 20;
+    static final int MAX_ORDERS = 100;
+
+    //keeps the product ids of one catalog call within a reasonable query string
+    private static final int MAX_PRODUCTS_PER_CALL = 100;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CatalogFeignClient catalogFeignClient;
+
+    public RuntimeWiring runtimeWiring() {
+        return RuntimeWiring.newRuntimeWiring()
+                .type("Query", typeWiring -> typeWiring
+                        .dataFetcher("cart", env -> cartService.getCart())
+                        .dataFetcher("myOrders", this::myOrders)
+                        .dataFetcher("order", this::order))
+                .type("Order", typeWiring -> typeWiring
+                        .dataFetcher("orderItems", this::orderItems))
+                .type("CartItem", typeWiring -> typeWiring
+                        .dataFetcher("product", env -> product(env, ((CartItem) env.getSource()).getProductId())))
+                .type("OrderItem", typeWiring -> typeWiring
+                        .dataFetcher("product", env -> product(env, ((OrderItem) env.getSource()).getProductId())))
+                .build();
+    }
+
+    /**
+     * Loaders hold the values they fetched, so a new registry is needed for every request.
+     */
+    public DataLoaderRegistry newDataLoaderRegistry() {
+        DataLoader<String, List<OrderItem>> orderItemsLoader = DataLoader.newMappedDataLoader(orderIds -> {
+            Map<String, List<OrderItem>> itemsByOrder = orderItemRepository.findByOrderOrderIdIn(orderIds)
+                    .stream()
+                    .collect(Collectors.groupingBy(orderItem -> orderItem.getOrder().getOrderId()));
+            return CompletableFuture.completedFuture(itemsByOrder);
+        });
+
+        DataLoader<String, GetProductResponse> productsLoader = DataLoader.newMappedDataLoader(productIds -> {
+            Map<String, GetProductResponse> products = catalogFeignClient.getProductsByIds(new ArrayList<>(productIds))
+                    .stream()
+                    .collect(Collectors.toMap(GetProductResponse::getProductId, Function.identity()));
+            return CompletableFuture.completedFuture(products);
+        }, DataLoaderOptions.newOptions().setMaxBatchSize(MAX_PRODUCTS_PER_CALL));
+
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+        registry.register(ORDER_ITEMS_LOADER, orderItemsLoader);
+        registry.register(PRODUCTS_LOADER, productsLoader);
+        return registry;
+    }
+
+    private List<Order> myOrders(DataFetchingEnvironment env) {
+        int first = GraphQLQueryLimits.listSize(env.getArgument("first"), DEFAULT_ORDERS, MAX_ORDERS);
+        return orderRepository.findByUserIdOrderByCreatedAtDesc(currentUserId(), PageRequest.of(0, first));
+    }
+
+    private Order order(DataFetchingEnvironment env) {
+        Order order = orderRepository.findByOrderId(env.getArgument("orderId"));
+        if (order == null) {
+            return null;
+        }
+
+        if (!currentUserId().equals(order.getUserId())) {
+            throw new RuntimeException("Order doesn't belong to this User! UnAuthorized!");
+        }
+        return order;
+    }
+
+    private CompletableFuture<List<OrderItem>> orderItems(DataFetchingEnvironment env) {
+        Order order = env.getSource();
+        DataLoader<String, List<OrderItem>> orderItemsLoader = env.getDataLoader(ORDER_ITEMS_LOADER);
+        return orderItemsLoader.load(order.getOrderId())
+                .thenApply(orderItems -> orderItems == null ? Collections.emptyList() : orderItems);
+    }
+
+    private static CompletableFuture<GetProductResponse> product(DataFetchingEnvironment env, String productId) {
+        DataLoader<String, GetProductResponse> productsLoader = env.getDataLoader(PRODUCTS_LOADER);
+        return productsLoader.load(productId);
+    }
+
+    private static String currentUserId() {
+        return CommonUtilityMethods.getUserIdFromToken(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -3,9 +3,14 @@ package com.devd.spring.bookstoreorderservice.repository;
 import com.devd.spring.bookstoreorderservice.repository.dao.OrderItem;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author: Devaraj Reddy,
  * Date : 2019-09-18
  */
 public interface OrderItemRepository extends CrudRepository<OrderItem, String> {
+
+    List<OrderItem> findByOrderOrderIdIn(Collection<String> orderIds);
 }
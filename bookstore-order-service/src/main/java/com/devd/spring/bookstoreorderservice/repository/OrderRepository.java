@@ -1,8 +1,10 @@
 package com.devd.spring.bookstoreorderservice.repository;
 
 import com.devd.spring.bookstoreorderservice.repository.dao.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,4 +16,8 @@ public interface OrderRepository extends CrudRepository<Order, String> {
     Order findByOrderId(String orderId);
 
     List<Order> findByUserId(String userId);
+
+    List<Order> findByUserIdOrderByCreatedAtDesc(String userId, Pageable pageable);
+
+    List<Order> findByPaymentIdIn(Collection<String> paymentIds);
 }
@@ -13,6 +13,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -70,6 +71,12 @@ public class Order extends DateAudit {
     @Column(name = "PAYMENT_RECEIPT_URL")
     private String paymentReceiptUrl;
 
+    @Column(name = "PAYMENT_STATUS")
+    private String paymentStatus;
+
+    @Column(name = "PAYMENT_STATUS_UPDATED_AT")
+    private Instant paymentStatusUpdatedAt;
+
     @Column(name = "DELIVERED_DATE")
     private LocalDateTime deliveredDate;
 
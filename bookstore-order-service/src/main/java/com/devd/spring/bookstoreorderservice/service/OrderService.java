@@ -19,6 +19,8 @@ public interface OrderService {
 
     CreateOrderResponse getOrderById(String orderId);
 
+    void markDelivered(String orderId);
+
     List<CreateOrderResponse> getMyOrders();
 
     List<CreateOrderResponse> getAllOrders();
@@ -25,20 +25,30 @@ import com.devd.spring.bookstoreorderservice.web.CreateOrderRequest;
 import com.devd.spring.bookstoreorderservice.web.CreateOrderResponse;
 import com.devd.spring.bookstoreorderservice.web.PreviewOrderRequest;
 import com.devd.spring.bookstoreorderservice.web.PreviewOrderResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author: Devaraj Reddy,
  * Date : 2019-09-20
  */
 @Service
+@Slf4j
 public class OrderServiceImpl implements OrderService {
     
     @Autowired
@@ -74,10 +84,13 @@ public class OrderServiceImpl implements OrderService {
         //TODO make transactional
         CreateOrderResponse createOrderResponse = new CreateOrderResponse();
 
+        Map<String, GetAddressResponse> addresses =
+                getAddresses(createOrderRequest.getBillingAddressId(), createOrderRequest.getShippingAddressId());
+
         //Get Billing Address
         GetAddressResponse billingAddress = null;
         if (createOrderRequest.getBillingAddressId() != null && !createOrderRequest.getBillingAddressId().isEmpty()) {
-            billingAddress = billingFeignClient.getAddressById(createOrderRequest.getBillingAddressId());
+            billingAddress = addresses.get(createOrderRequest.getBillingAddressId());
             OrderBillingAddress orderBillingAddress = new OrderBillingAddress();
             BeanUtils.copyProperties(billingAddress, orderBillingAddress);
             createOrderResponse.setBillingAddress(orderBillingAddress);
@@ -86,7 +99,7 @@ public class OrderServiceImpl implements OrderService {
         //Get Shipping Address
         GetAddressResponse shippingAddress = null;
         if (createOrderRequest.getShippingAddressId() != null && !createOrderRequest.getShippingAddressId().isEmpty()) {
-            shippingAddress = billingFeignClient.getAddressById(createOrderRequest.getShippingAddressId());
+            shippingAddress = addresses.get(createOrderRequest.getShippingAddressId());
             billingAddress = shippingAddress;
 
             if (createOrderRequest.getBillingAddressId() == null) {
@@ -146,6 +159,8 @@ public class OrderServiceImpl implements OrderService {
         createPaymentRequest.setAmount((int)totalPrice*100);
         createPaymentRequest.setCurrency("USD");
         createPaymentRequest.setPaymentMethodId(createOrderRequest.getPaymentMethodId());
+        createPaymentRequest.setIdempotencyKey(createOrderRequest.getIdempotencyKey() != null
+                ? createOrderRequest.getIdempotencyKey() : UUID.randomUUID().toString());
 
         CreatePaymentResponse createPaymentResponse = paymentFeignClient.doPayment(createPaymentRequest);
 
@@ -153,8 +168,10 @@ public class OrderServiceImpl implements OrderService {
         order.setPaymentDate(createPaymentResponse.getPaymentDate());
         order.setPaymentId(createPaymentResponse.getPaymentId());
         order.setPaymentReceiptUrl(createPaymentResponse.getReceipt_url());
+        order.setPaymentStatus(createPaymentResponse.isCaptured() ? "PAID"
+                : createPaymentResponse.isAuthorized() ? "AUTHORIZED" : null);
         order.setPaymentMethodId(createOrderRequest.getPaymentMethodId());
-        Order save = orderRepository.save(order);
+        Order save = saveAndConfirmPayment(order, createPaymentResponse);
 
         if (billingAddress != null) {
             OrderBillingAddress orderBillingAddress = OrderBillingAddress.builder()
@@ -197,18 +214,52 @@ public class OrderServiceImpl implements OrderService {
         return createOrderResponse;
     }
 
+    //an authorized payment is only captured once confirmed for the saved order, and released if the order is not saved
+    private Order saveAndConfirmPayment(Order order, CreatePaymentResponse createPaymentResponse) {
+        if (!createPaymentResponse.isAuthorized()) {
+            return orderRepository.save(order);
+        }
+        Order save;
+        try {
+            save = orderRepository.save(order);
+        } catch (RuntimeException e) {
+            releaseAuthorization(createPaymentResponse.getPaymentId());
+            throw e;
+        }
+        try {
+            paymentFeignClient.confirmCapture(save.getPaymentId());
+        } catch (RuntimeException e) {
+            orderRepository.delete(save);
+            releaseAuthorization(save.getPaymentId());
+            throw e;
+        }
+        return save;
+    }
+
+    //the payment service releases the hold itself once it went unconfirmed for a while
+    private void releaseAuthorization(String paymentId) {
+        try {
+            paymentFeignClient.releaseAuthorization(paymentId);
+        } catch (Exception e) {
+            log.warn("Could not release the authorization of payment {}: {}", paymentId, e.getMessage());
+        }
+    }
+
     @Override
     public PreviewOrderResponse previewOrder(PreviewOrderRequest previewOrderRequest) {
 
         PreviewOrderResponse previewOrderResponse = new PreviewOrderResponse();
 
+        Map<String, GetAddressResponse> addresses =
+                getAddresses(previewOrderRequest.getBillingAddressId(), previewOrderRequest.getShippingAddressId());
+
         if(previewOrderRequest.getBillingAddressId() != null && !previewOrderRequest.getBillingAddressId().isEmpty()){
-            GetAddressResponse billingAddress = billingFeignClient.getAddressById(previewOrderRequest.getBillingAddressId());
+            GetAddressResponse billingAddress = addresses.get(previewOrderRequest.getBillingAddressId());
             previewOrderResponse.setBillingAddress(billingAddress);
         }
 
         if(previewOrderRequest.getShippingAddressId() != null && !previewOrderRequest.getShippingAddressId().isEmpty()){
-            GetAddressResponse shippingAddress = billingFeignClient.getAddressById(previewOrderRequest.getShippingAddressId());
+            GetAddressResponse shippingAddress = addresses.get(previewOrderRequest.getShippingAddressId());
             if (previewOrderRequest.getBillingAddressId() == null) {
                 previewOrderResponse.setBillingAddress(shippingAddress);
             }
@@ -303,6 +354,28 @@ public class OrderServiceImpl implements OrderService {
         return createOrderResponse;
     }
 
+    @Override
+    public void markDelivered(String orderId) {
+        Order order = orderRepository.findByOrderId(orderId);
+        if (order == null) {
+            throw new RunTimeExceptionPlaceHolder("Order No Found");
+        }
+
+        order.setDelivered(true);
+        order.setDeliveredDate(LocalDateTime.now());
+        orderRepository.save(order);
+
+        //an authorized payment is captured now, the payment service still captures it after its delay if this fails
+        if (order.getPaymentId() != null && !order.isPaid()) {
+            try {
+                paymentFeignClient.requestCapture(order.getPaymentId());
+            } catch (Exception e) {
+                log.warn("Could not request the capture of payment {} for order {}: {}",
+                        order.getPaymentId(), orderId, e.getMessage());
+            }
+        }
+    }
+
     @Override
     public List<CreateOrderResponse> getMyOrders() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -319,6 +392,24 @@ public class OrderServiceImpl implements OrderService {
         return getCreateOrderResponses(order);
     }
 
+    //billing and shipping address in one call to the billing service, which fails for an unknown or foreign id
+    private Map<String, GetAddressResponse> getAddresses(String billingAddressId, String shippingAddressId) {
+        Set<String> addressIds = new LinkedHashSet<>();
+        if (billingAddressId != null && !billingAddressId.isEmpty()) {
+            addressIds.add(billingAddressId);
+        }
+        if (shippingAddressId != null && !shippingAddressId.isEmpty()) {
+            addressIds.add(shippingAddressId);
+        }
+        if (addressIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return billingFeignClient.getAddressesByIds(new ArrayList<>(addressIds))
+                .stream()
+                .collect(Collectors.toMap(GetAddressResponse::getAddressId, Function.identity()));
+    }
+
     private List<CreateOrderResponse> getCreateOrderResponses(Iterable<Order> order) {
         List<CreateOrderResponse> createOrderResponseList = new ArrayList<>();
         order.forEach(o->{
@@ -0,0 +1,135 @@
+package com.devd.spring.bookstoreorderservice.service.impl;
+
+import com.devd.spring.bookstorecommons.web.PaymentStatusChange;
+import com.devd.spring.bookstoreorderservice.repository.OrderRepository;
+import com.devd.spring.bookstoreorderservice.repository.dao.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the payment status changes the payment service derives from its Stripe webhooks to the
+ * orders paid with those payments, a page of the feed at a time.
+ *
+ * The feed position is kept in memory, so after a restart the retained changes are read again.
+ * That is harmless: a change older than the one an order already has is skipped.
+ *
+ * Feed ids are handed out when an event is inserted, not when it commits, so a change can become
+ * visible after others with higher ids. Each update therefore reads again from the last id seen
+ * {@code lookback} ago, long enough for any insert to have committed.
+ */
+@Component
+@Slf4j
+public class PaymentStatusUpdater {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${order.payment-status-sync.uri:http://bookstore-payment-service/payment-events}")
+    private String paymentEventsUri;
+
+    @Value("${order.payment-status-sync.lookback:1m}")
+    private Duration lookback = Duration.ofMinutes(1);
+
+    //{updated at, last id} of the updates within the lookback, oldest first
+    private final Deque<long[]> recentUpdates = new ArrayDeque<>();
+
+    private long lastId;
+
+    //every change up to this id has committed and been applied
+    private long settledId;
+
+    /**
+     * Reads the changes appended since the lookback before the last update, {@code batchSize} at
+     * a time, applies them to the affected orders and returns how many changes were read.
+     */
+    public synchronized int update(int batchSize) {
+        long now = System.currentTimeMillis();
+        while (!recentUpdates.isEmpty() && recentUpdates.peekFirst()[0] <= now - lookback.toMillis()) {
+            settledId = recentUpdates.pollFirst()[1];
+        }
+
+        long after = settledId;
+        int read = 0;
+        PaymentStatusChange[] changes;
+        do {
+            changes = restTemplate.getForObject(paymentEventsUri + "?after={after}&limit={limit}",
+                    PaymentStatusChange[].class, after, batchSize);
+            if (changes == null || changes.length == 0) {
+                break;
+            }
+            applyAll(changes);
+            after = changes[changes.length - 1].getId();
+            read += changes.length;
+        } while (changes.length == batchSize);
+
+        lastId = Math.max(lastId, after);
+        recentUpdates.addLast(new long[]{now, lastId});
+        return read;
+    }
+
+    //updates the affected orders of one page in one save
+    private void applyAll(PaymentStatusChange[] changes) {
+        Set<String> paymentIds = Arrays.stream(changes).map(PaymentStatusChange::getPaymentId).collect(Collectors.toSet());
+        Map<String, List<Order>> ordersByPaymentId = new LinkedHashMap<>();
+        orderRepository.findByPaymentIdIn(paymentIds).forEach(order ->
+                ordersByPaymentId.computeIfAbsent(order.getPaymentId(), paymentId -> new ArrayList<>()).add(order));
+
+        Map<String, Order> changed = new LinkedHashMap<>();
+        for (PaymentStatusChange change : changes) {
+            for (Order order : ordersByPaymentId.getOrDefault(change.getPaymentId(), new ArrayList<>())) {
+                if (apply(order, change)) {
+                    changed.put(order.getOrderId(), order);
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            orderRepository.saveAll(new ArrayList<>(changed.values()));
+            log.debug("Updated the payment status of {} orders", changed.size());
+        }
+    }
+
+    //webhooks may arrive out of order, a change older than the current status is stale; one read again changes nothing
+    static boolean apply(Order order, PaymentStatusChange change) {
+        if (order.getPaymentStatusUpdatedAt() != null
+                && change.getOccurredAt().isBefore(order.getPaymentStatusUpdatedAt())) {
+            return false;
+        }
+        if (change.getOccurredAt().equals(order.getPaymentStatusUpdatedAt())
+                && change.getStatus().equals(order.getPaymentStatus())) {
+            return false;
+        }
+
+        switch (change.getStatus()) {
+            case "PAID":
+                order.setPaid(true);
+                break;
+            case "REFUNDED":
+            case "FAILED":
+            case "EXPIRED":
+                order.setPaid(false);
+                break;
+            default:
+                break;
+        }
+        order.setPaymentStatus(change.getStatus());
+        order.setPaymentStatusUpdatedAt(change.getOccurredAt());
+        return true;
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 /**
  * @author Devaraj Reddy, Date : 06-Dec-2020
@@ -20,4 +21,7 @@ public class CreateOrderRequest {
     private String shippingAddressId;
     @NotBlank
     private String paymentMethodId;
+    //optional, the same key on a retried checkout keeps the card from being charged twice
+    @Size(max = 64)
+    private String idempotencyKey;
 }
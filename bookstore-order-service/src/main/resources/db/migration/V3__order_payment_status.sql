@@ -0,0 +1,4 @@
+-- the payment status reported by the payment service feed, and when it changed at the payment gateway
+ALTER TABLE ORDER_TABLE ADD COLUMN PAYMENT_STATUS VARCHAR(30) NULL;
+ALTER TABLE ORDER_TABLE ADD COLUMN PAYMENT_STATUS_UPDATED_AT TIMESTAMP NULL;
+CREATE INDEX ORDER_TABLE_PAYMENT_ID_INDEX ON ORDER_TABLE (PAYMENT_ID);
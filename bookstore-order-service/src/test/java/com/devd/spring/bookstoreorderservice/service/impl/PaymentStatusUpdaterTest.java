@@ -0,0 +1,109 @@
+package com.devd.spring.bookstoreorderservice.service.impl;
+
+import com.devd.spring.bookstorecommons.web.PaymentStatusChange;
+import com.devd.spring.bookstoreorderservice.repository.OrderRepository;
+import com.devd.spring.bookstoreorderservice.repository.dao.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentStatusUpdaterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    private final PaymentStatusUpdater updater = new PaymentStatusUpdater();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(updater, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(updater, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(updater, "paymentEventsUri", "http://payments/payment-events");
+    }
+
+    @Test
+    void appliesTheChangesToTheOrdersOfThePaymentAndMovesOnOnceSettled() {
+        ReflectionTestUtils.setField(updater, "lookback", Duration.ZERO);
+        Order order = order("ch_1");
+        when(orderRepository.findByPaymentIdIn(Collections.singleton("ch_1")))
+                .thenReturn(Collections.singletonList(order));
+        feed(0L, change(1, "ch_1", "PAID", NOW), change(2, "ch_1", "REFUNDED", NOW.plusSeconds(60)));
+
+        assertThat(updater.update(100)).isEqualTo(2);
+
+        assertThat(order.isPaid()).isFalse();
+        assertThat(order.getPaymentStatus()).isEqualTo("REFUNDED");
+        verify(orderRepository).saveAll(Collections.singletonList(order));
+
+        feed(2L);
+        assertThat(updater.update(100)).isZero();
+    }
+
+    @Test
+    void picksUpAChangeThatCommittedAfterOnesWithHigherIds() {
+        Order first = order("ch_1");
+        Order late = order("ch_2");
+        when(orderRepository.findByPaymentIdIn(Collections.singleton("ch_1")))
+                .thenReturn(Collections.singletonList(first));
+        when(orderRepository.findByPaymentIdIn(new HashSet<>(Arrays.asList("ch_1", "ch_2"))))
+                .thenReturn(Arrays.asList(first, late));
+        feed(0L, change(2, "ch_1", "PAID", NOW));
+        updater.update(100);
+
+        //change 1 was inserted before change 2 but committed after it was read
+        feed(0L, change(1, "ch_2", "PAID", NOW), change(2, "ch_1", "PAID", NOW));
+        assertThat(updater.update(100)).isEqualTo(2);
+
+        assertThat(late.getPaymentStatus()).isEqualTo("PAID");
+        verify(orderRepository).saveAll(Collections.singletonList(late));
+    }
+
+    @Test
+    void skipsChangesOlderThanTheCurrentStatus() {
+        Order order = order("ch_1");
+        order.setPaymentStatus("REFUNDED");
+        order.setPaymentStatusUpdatedAt(NOW);
+
+        assertThat(PaymentStatusUpdater.apply(order, change(1, "ch_1", "PAID", NOW.minusSeconds(5)))).isFalse();
+        assertThat(order.getPaymentStatus()).isEqualTo("REFUNDED");
+
+        assertThat(PaymentStatusUpdater.apply(order, change(2, "ch_1", "DISPUTED", NOW.plusSeconds(5)))).isTrue();
+        assertThat(order.getPaymentStatus()).isEqualTo("DISPUTED");
+
+        assertThat(PaymentStatusUpdater.apply(order, change(2, "ch_1", "DISPUTED", NOW.plusSeconds(5)))).isFalse();
+    }
+
+    private void feed(long after, PaymentStatusChange... changes) {
+        when(restTemplate.getForObject(anyString(), eq(PaymentStatusChange[].class), eq(after), any()))
+                .thenReturn(changes);
+    }
+
+    private static Order order(String paymentId) {
+        Order order = new Order();
+        order.setOrderId("o-" + paymentId);
+        order.setPaymentId(paymentId);
+        return order;
+    }
+
+    private static PaymentStatusChange change(long id, String paymentId, String status, Instant occurredAt) {
+        return PaymentStatusChange.builder().id(id).paymentId(paymentId).status(status).occurredAt(occurredAt).build();
+    }
+}
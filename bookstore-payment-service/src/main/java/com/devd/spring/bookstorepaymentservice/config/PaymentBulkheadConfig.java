@@ -0,0 +1,24 @@
+package com.devd.spring.bookstorepaymentservice.config;
+
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentBulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The pool payments run on, see {@link PaymentBulkhead}.
+ */
+@Configuration
+public class PaymentBulkheadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public PaymentBulkhead paymentBulkhead(
+            @Value("${payment.bulkhead.threads:20}") int threads,
+            @Value("${payment.bulkhead.queue-capacity:50}") int queueCapacity,
+            @Value("${payment.bulkhead.timeout:20s}") Duration timeout) {
+
+        return new PaymentBulkhead(threads, queueCapacity, timeout);
+    }
+}
@@ -0,0 +1,53 @@
+package com.devd.spring.bookstorepaymentservice.config;
+
+import com.devd.spring.bookstorepaymentservice.service.impl.PaymentCaptureProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures the due authorized payments and releases the unconfirmed ones in the background, see
+ * {@link PaymentCaptureProcessor}. A full batch is followed by the next one right away, otherwise the
+ * due captures are looked up every interval.
+ */
+@Configuration
+@Slf4j
+public class PaymentCaptureConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(value = "payment.capture.enabled", matchIfMissing = true)
+    public ScheduledExecutorService paymentCaptureScheduler(
+            PaymentCaptureProcessor paymentCaptureProcessor,
+            @Value("${payment.capture.interval:30s}") Duration interval,
+            @Value("${payment.capture.batch-size:50}") int batchSize) {
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-captures");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int captured;
+                do {
+                    captured = paymentCaptureProcessor.captureDue(batchSize);
+                } while (captured == batchSize && !Thread.currentThread().isInterrupted());
+
+                int released;
+                do {
+                    released = paymentCaptureProcessor.releaseUnconfirmed(batchSize);
+                } while (released == batchSize && !Thread.currentThread().isInterrupted());
+            } catch (RuntimeException e) {
+                log.warn("Could not capture payments: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
@@ -0,0 +1,53 @@
+package com.devd.spring.bookstorepaymentservice.config;
+
+import com.devd.spring.bookstorepaymentservice.service.impl.PaymentEventProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Works off the queued webhook events in the background, see {@link PaymentEventProcessor}. A full
+ * batch is followed by the next one right away, an idle queue is polled every interval.
+ */
+@Configuration
+@Slf4j
+public class PaymentEventConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(value = "payment.events.enabled", matchIfMissing = true)
+    public ScheduledExecutorService paymentEventScheduler(
+            PaymentEventProcessor paymentEventProcessor,
+            @Value("${payment.events.interval:2s}") Duration interval,
+            @Value("${payment.events.batch-size:100}") int batchSize,
+            @Value("${payment.events.retention:7d}") Duration retention) {
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int processed;
+                do {
+                    processed = paymentEventProcessor.processBatch(batchSize);
+                } while (processed == batchSize && !Thread.currentThread().isInterrupted());
+
+                int purged = paymentEventProcessor.purge(retention);
+                if (purged > 0) {
+                    log.debug("Purged {} payment events", purged);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not process payment events: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
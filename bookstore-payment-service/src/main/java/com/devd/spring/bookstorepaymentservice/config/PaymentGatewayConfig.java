@@ -0,0 +1,55 @@
+package com.devd.spring.bookstorepaymentservice.config;
+
+import com.devd.spring.bookstorepaymentservice.gateway.LatencyDistribution;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.SimulatedPaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.StripePaymentGateway;
+import com.stripe.Stripe;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Picks the payment gateway with {@code payment.gateway.type}: {@code stripe}, the default, or
+ * {@code simulator} to run checkout without Stripe.
+ */
+@Configuration
+@Slf4j
+public class PaymentGatewayConfig {
+
+    @Bean
+    @ConditionalOnProperty(value = "payment.gateway.type", havingValue = "stripe", matchIfMissing = true)
+    public PaymentGateway stripePaymentGateway(
+            @Value("${payment.gateway.stripe.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${payment.gateway.stripe.read-timeout:10s}") Duration readTimeout) {
+
+        //the stripe defaults of 30s and 80s would hold a payment thread long after its caller gave up
+        Stripe.setConnectTimeout((int) connectTimeout.toMillis());
+        Stripe.setReadTimeout((int) readTimeout.toMillis());
+        return new StripePaymentGateway();
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "payment.gateway.type", havingValue = "simulator")
+    public PaymentGateway simulatedPaymentGateway(
+            @Value("${payment.gateway.simulator.api-latency.median:80ms}") Duration apiMedian,
+            @Value("${payment.gateway.simulator.api-latency.p99:400ms}") Duration apiP99,
+            @Value("${payment.gateway.simulator.payment-latency.median:300ms}") Duration paymentMedian,
+            @Value("${payment.gateway.simulator.payment-latency.p99:1500ms}") Duration paymentP99,
+            @Value("${payment.gateway.simulator.max-latency:30s}") Duration maxLatency,
+            @Value("${payment.gateway.simulator.failure-rate:0.0}") double failureRate,
+            @Value("${payment.gateway.simulator.decline-rate:0.0}") double declineRate,
+            @Value("${payment.gateway.simulator.seed:0}") long seed) {
+
+        log.warn("Payments go to the simulated payment gateway, no money is moved");
+        return new SimulatedPaymentGateway(
+                new LatencyDistribution(apiMedian, apiP99, maxLatency),
+                new LatencyDistribution(paymentMedian, paymentP99, maxLatency),
+                failureRate, declineRate, seed != 0 ? new Random(seed) : new Random());
+    }
+}
@@ -0,0 +1,48 @@
+package com.devd.spring.bookstorepaymentservice.config;
+
+import com.devd.spring.bookstorepaymentservice.service.impl.PaymentMethodSynchronizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the local copy of the payment methods in the background, a batch of the least
+ * recently synced customers at a time so the payment gateway sees a bounded request rate.
+ */
+@Configuration
+@Slf4j
+public class PaymentMethodSyncConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(value = "payment.payment-method-sync.enabled", matchIfMissing = true)
+    public ScheduledExecutorService paymentMethodSyncScheduler(
+            PaymentMethodSynchronizer paymentMethodSynchronizer,
+            @Value("${payment.payment-method-sync.interval:1m}") Duration interval,
+            @Value("${payment.payment-method-sync.max-age:1h}") Duration maxAge,
+            @Value("${payment.payment-method-sync.batch-size:50}") int batchSize) {
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-method-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int synced = paymentMethodSynchronizer.syncStale(maxAge, batchSize);
+                if (synced > 0) {
+                    log.debug("Synced the payment methods of {} customers", synced);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not sync payment methods: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
@@ -0,0 +1,47 @@
+package com.devd.spring.bookstorepaymentservice.config;
+
+import com.devd.spring.bookstorepaymentservice.service.PaymentsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives up on asynchronous payment requests whose outcome was never recorded, e.g. because the
+ * instance running them stopped, so a poller sees UNKNOWN instead of PENDING forever.
+ */
+@Configuration
+@Slf4j
+public class PaymentRequestConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(value = "payment.requests.enabled", matchIfMissing = true)
+    public ScheduledExecutorService paymentRequestScheduler(
+            PaymentsService paymentsService,
+            @Value("${payment.requests.interval:1m}") Duration interval,
+            @Value("${payment.requests.max-age:10m}") Duration maxAge) {
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-requests");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int expired = paymentsService.expirePaymentRequests(maxAge);
+                if (expired > 0) {
+                    log.warn("Marked {} payment requests without an outcome as UNKNOWN", expired);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not expire payment requests: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
@@ -1,8 +1,13 @@
 package com.devd.spring.bookstorepaymentservice.config;
 
+import com.devd.spring.bookstorecommons.security.GatewayClaimsAuthenticator;
 import com.devd.spring.bookstorecommons.security.GlobalResourceServerConfig;
+import com.devd.spring.bookstorecommons.security.InternalNetworks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
 import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 
@@ -14,10 +19,38 @@ public class PaymentResourceServiceConfig extends GlobalResourceServerConfig {
     
     @Autowired
     private ResourceServerTokenServices tokenServices;
+
+    @Autowired
+    private GatewayClaimsAuthenticator gatewayClaimsAuthenticator;
+
+    @Value("${security.internal-networks:}")
+    private String[] internalNetworks;
     
     @Override
     public void configure(ResourceServerSecurityConfigurer resources) {
-        resources.resourceId("web").tokenServices(tokenServices);
+        resources.resourceId("web").tokenServices(tokenServices)
+                .tokenExtractor(gatewayClaimsAuthenticator.tokenExtractor())
+                .authenticationManager(gatewayClaimsAuthenticator.authenticationManager("web", tokenServices));
+    }
+
+    //stripe authenticates its webhooks with their signature, the order service polls the payment status feed from inside
+    //the internal networks
+    @Override
+    public void configure(HttpSecurity http) throws Exception {
+        http
+                .cors()
+                .and()
+                .headers()
+                .frameOptions()
+                .disable()
+                .and()
+                .requestMatchers()
+                .and()
+                .authorizeRequests()
+                .antMatchers("/actuator/**", "/api-docs/**", "/h2-console/**", "/signin", "/signup").permitAll()
+                .antMatchers(HttpMethod.POST, "/oauth/token", "/webhooks/stripe").permitAll()
+                .antMatchers(HttpMethod.GET, "/payment-events").access(InternalNetworks.accessExpression(internalNetworks))
+                .antMatchers("/**").authenticated();
     }
     
 }
@@ -0,0 +1,42 @@
+package com.devd.spring.bookstorepaymentservice.controller;
+
+import com.devd.spring.bookstorepaymentservice.service.PaymentEventService;
+import com.devd.spring.bookstorepaymentservice.web.PaymentStatusChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Stripe webhooks in, payment status changes out to the order service.
+ */
+@RestController
+@Slf4j
+public class PaymentEventController {
+
+    @Autowired
+    private PaymentEventService paymentEventService;
+
+    //the raw body is what the signature covers, it must not be parsed and written back before verifying
+    @PostMapping("/webhooks/stripe")
+    public ResponseEntity<?> receiveStripeEvent(@RequestBody String payload,
+                                                @RequestHeader("Stripe-Signature") String signature) {
+        paymentEventService.receiveStripeEvent(payload, signature);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @GetMapping("/payment-events")
+    public ResponseEntity<List<PaymentStatusChange>> getPaymentStatusChanges(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return new ResponseEntity<>(paymentEventService.getPaymentStatusChanges(after, limit), HttpStatus.OK);
+    }
+}
@@ -1,17 +1,23 @@
 package com.devd.spring.bookstorepaymentservice.controller;
 
 import com.devd.spring.bookstorepaymentservice.service.PaymentsService;
+import com.devd.spring.bookstorepaymentservice.service.impl.PaymentCaptureProcessor;
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentRequest;
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentResponse;
+import com.devd.spring.bookstorepaymentservice.web.PaymentRequestResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Devaraj Reddy, Date : 25-Jul-2020
@@ -23,10 +29,49 @@ public class PaymentsController {
     @Autowired
     private PaymentsService paymentsService;
 
+    @Autowired
+    private PaymentCaptureProcessor paymentCaptureProcessor;
+
+    //answered once the payment completes, the servlet thread is released meanwhile
     @PostMapping("/pay")
-    public ResponseEntity<?> doPayment(@RequestBody @Valid CreatePaymentRequest createPaymentRequest) {
-        CreatePaymentResponse paymentRequest = paymentsService.createPaymentRequest(createPaymentRequest);
-        return new ResponseEntity<>(paymentRequest, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<CreatePaymentResponse>> doPayment(@RequestBody @Valid CreatePaymentRequest createPaymentRequest) {
+        return paymentsService.createPaymentRequest(createPaymentRequest)
+                .thenApply(paymentRequest -> new ResponseEntity<>(paymentRequest, HttpStatus.CREATED));
+    }
+
+    //queues the payment and answers right away, poll GET /pay/async/{paymentRequestId} for the outcome
+    @PostMapping("/pay/async")
+    public ResponseEntity<PaymentRequestResponse> doPaymentAsync(@RequestBody @Valid CreatePaymentRequest createPaymentRequest) {
+        PaymentRequestResponse paymentRequest = paymentsService.createPaymentRequestAsync(createPaymentRequest);
+        return new ResponseEntity<>(paymentRequest, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/pay/async/{paymentRequestId}")
+    public ResponseEntity<PaymentRequestResponse> getPaymentRequest(@PathVariable("paymentRequestId") String paymentRequestId) {
+        PaymentRequestResponse paymentRequest = paymentsService.getPaymentRequest(paymentRequestId);
+        return new ResponseEntity<>(paymentRequest, HttpStatus.OK);
+    }
+
+    //called by the order service once the order paid with an authorized payment is saved, only then is it captured
+    @PostMapping("/pay/capture/{paymentId}/confirm")
+    public ResponseEntity<?> confirmCapture(@PathVariable("paymentId") String paymentId) {
+        paymentsService.confirmCapture(paymentId);
+        return ResponseEntity.noContent().build();
+    }
+
+    //called by the order service when the order paid with an authorized payment could not be saved
+    @PostMapping("/pay/capture/{paymentId}/release")
+    public ResponseEntity<?> releaseAuthorization(@PathVariable("paymentId") String paymentId) {
+        paymentsService.releaseAuthorization(paymentId);
+        return ResponseEntity.noContent().build();
+    }
+
+    //captures an authorized payment with the next batch instead of after the capture delay, e.g. once the order is delivered
+    @PostMapping("/pay/capture/{paymentId}")
+    @PreAuthorize("hasAuthority('ADMIN_USER')")
+    public ResponseEntity<?> requestCapture(@PathVariable("paymentId") String paymentId) {
+        paymentCaptureProcessor.requestCapture(paymentId);
+        return ResponseEntity.accepted().build();
     }
 
 }
@@ -0,0 +1,45 @@
+package com.devd.spring.bookstorepaymentservice.exception;
+
+import com.devd.spring.bookstorecommons.exception.ErrorResponse;
+import com.devd.spring.bookstorecommons.exception.GlobalExceptionHandler;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayBusyException;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentOutcomeUnknownException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Answers a saturated payment pool with a 503 and a payment whose outcome is not known with a
+ * 504, ahead of the catch-all 500 of {@link GlobalExceptionHandler}.
+ */
+@ControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class PaymentServiceExceptionHandler extends GlobalExceptionHandler {
+
+    @ExceptionHandler(PaymentGatewayBusyException.class)
+    public ResponseEntity<ErrorResponse> handleCustomException(PaymentGatewayBusyException ex) {
+
+        ErrorResponse errorResponse = populateErrorResponse("503", ex.getMessage());
+        log.warn("Payment rejected : " + ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+
+    }
+
+    //no Retry-After, the payment may have gone through and only a retry with the same idempotency key is safe
+    @ExceptionHandler(PaymentOutcomeUnknownException.class)
+    public ResponseEntity<ErrorResponse> handleCustomException(PaymentOutcomeUnknownException ex) {
+
+        ErrorResponse errorResponse = populateErrorResponse("504", ex.getMessage());
+        log.warn("Payment outcome unknown : " + ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(errorResponse);
+
+    }
+}
@@ -0,0 +1,25 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * The outcome of {@link PaymentGateway#pay}. A payment that is not captured has no id yet, unless
+ * it is held by {@link PaymentGateway#authorize} and has an {@code authorizationId} to capture it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class GatewayPayment {
+
+    private String paymentId;
+    private boolean captured;
+    private Instant paidAt;
+    private String receiptUrl;
+    private String authorizationId;
+}
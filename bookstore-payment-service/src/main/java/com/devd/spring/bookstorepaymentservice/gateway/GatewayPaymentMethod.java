@@ -0,0 +1,24 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A card payment method as the gateway reports it, display fields only.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class GatewayPaymentMethod {
+
+    private String paymentMethodId;
+    private String customerId;
+    private String cardType;
+    private String cardLast4Digits;
+    private Long cardExpirationMonth;
+    private Long cardExpirationYear;
+    private String cardCountry;
+}
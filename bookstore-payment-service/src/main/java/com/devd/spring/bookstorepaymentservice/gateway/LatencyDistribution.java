@@ -0,0 +1,36 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Log-normal latency given by its median and 99th percentile, the long right tail remote APIs
+ * show. A p99 equal to the median gives a constant latency.
+ */
+public class LatencyDistribution {
+
+    //the standard normal quantile of 0.99
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+
+    private final double sigma;
+
+    private final long maxMillis;
+
+    public LatencyDistribution(Duration median, Duration p99, Duration max) {
+        if (median.isNegative() || median.isZero()) {
+            throw new IllegalArgumentException("median must be positive");
+        }
+        if (p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("p99 must not be below the median");
+        }
+        this.mu = Math.log(median.toMillis());
+        this.sigma = (Math.log(p99.toMillis()) - mu) / Z_99;
+        this.maxMillis = max.toMillis();
+    }
+
+    public long sampleMillis(Random random) {
+        return Math.min(maxMillis, Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+    }
+}
@@ -0,0 +1,105 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs payments on a dedicated pool of {@code threads}, so a slow payment gateway holds at most
+ * that many threads. Callers get a future back instead of waiting for the payment, so no servlet
+ * thread is parked on the gateway either.
+ *
+ * When {@code queueCapacity} payments are already waiting the call fails right away with
+ * {@link PaymentGatewayBusyException}. The future of {@link #call(Supplier)} fails after
+ * {@code timeout} with {@link PaymentOutcomeUnknownException}: a payment still queued then is not
+ * started, one already running keeps running, as nothing stops a blocking HTTP call, and may still
+ * go through at the gateway. The timeout is meant to be longer than the gateway client's own
+ * connect and read timeouts, so it only fires for payments stuck in the queue or a client that
+ * ignores them.
+ */
+public class PaymentBulkhead implements MeterBinder {
+
+    private final ThreadPoolExecutor pool;
+
+    private final ScheduledThreadPoolExecutor timeouts;
+
+    private final Duration timeout;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public PaymentBulkhead(int threads, int queueCapacity, Duration timeout) {
+        this.timeout = timeout;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("payment-");
+        threadFactory.setDaemon(true);
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        CustomizableThreadFactory timeoutThreadFactory = new CustomizableThreadFactory("payment-timeout-");
+        timeoutThreadFactory.setDaemon(true);
+        this.timeouts = new ScheduledThreadPoolExecutor(1, timeoutThreadFactory);
+        //payments mostly complete well within the timeout, their timers are dropped right away
+        this.timeouts.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Runs the payment on the pool, the returned future fails once it took longer than
+     * {@code timeout}.
+     */
+    public <T> CompletableFuture<T> call(Supplier<T> payment) {
+        CompletableFuture<T> future = submit(payment);
+        ScheduledFuture<?> timer = timeouts.schedule(() -> {
+            if (future.completeExceptionally(new PaymentOutcomeUnknownException(
+                    "Payment did not complete in time, its outcome is not known yet"))) {
+                timedOut.incrementAndGet();
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        future.whenComplete((result, failure) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * Queues the payment without waiting for it. Only the read timeout of the gateway client
+     * bounds how long it runs.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> payment) {
+        try {
+            return CompletableFuture.supplyAsync(payment, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new PaymentGatewayBusyException("Too many payments in progress, try again later");
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(pool, "payments", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("payment.bulkhead.rejected", rejected, AtomicLong::doubleValue)
+                .description("Payments rejected because the payment pool was saturated")
+                .register(registry);
+        FunctionCounter.builder("payment.bulkhead.timed.out", timedOut, AtomicLong::doubleValue)
+                .description("Payments the caller stopped waiting for after the payment timeout")
+                .register(registry);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+        timeouts.shutdown();
+    }
+}
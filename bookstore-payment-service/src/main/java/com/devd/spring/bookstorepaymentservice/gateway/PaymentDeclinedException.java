@@ -0,0 +1,17 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import lombok.Getter;
+
+/**
+ * The card was refused, {@link #getDeclineCode()} tells why, e.g. {@code insufficient_funds}.
+ */
+@Getter
+public class PaymentDeclinedException extends PaymentGatewayException {
+
+    private final String declineCode;
+
+    public PaymentDeclinedException(String message, String declineCode) {
+        super(message);
+        this.declineCode = declineCode;
+    }
+}
@@ -0,0 +1,57 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import java.util.List;
+
+/**
+ * The payment provider the payment service talks to: Stripe in production, or the in-process
+ * {@link SimulatedPaymentGateway} for load tests and offline integration tests.
+ *
+ * Every call may block for as long as the provider takes. Failures are reported as
+ * {@link PaymentGatewayException}, a refused card as {@link PaymentDeclinedException}.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Creates a customer the payment methods are attached to and returns its id.
+     */
+    String createCustomer(String description);
+
+    /**
+     * Creates a card payment method, not yet attached to any customer, and returns its id.
+     */
+    String createPaymentMethod(String cardNumber, int expirationMonth, int expirationYear, int cvc);
+
+    GatewayPaymentMethod attachPaymentMethod(String paymentMethodId, String customerId);
+
+    List<GatewayPaymentMethod> listPaymentMethods(String customerId);
+
+    /**
+     * Charges {@code amount}, in the smallest unit of {@code currency}, to a payment method of the
+     * customer and captures it right away.
+     *
+     * A repeat with the same non null {@code idempotencyKey} returns the first payment instead of
+     * charging again, so a payment whose outcome was lost can be retried safely.
+     */
+    GatewayPayment pay(String customerId, String paymentMethodId, long amount, String currency,
+                       String idempotencyKey);
+
+    /**
+     * Like {@link #pay} but only places a hold on the card. The payment is uncaptured and carries an
+     * {@code authorizationId} to {@link #capture} it with, until the provider lets the hold lapse.
+     * A payment is either held with both its {@code paymentId} and {@code authorizationId}, or not
+     * held at all.
+     */
+    GatewayPayment authorize(String customerId, String paymentMethodId, long amount, String currency,
+                             String idempotencyKey);
+
+    /**
+     * Captures the full amount of a payment held by {@link #authorize}. A payment captured before
+     * is returned as captured again, so a repeated capture is not a failure.
+     */
+    GatewayPayment capture(String authorizationId);
+
+    /**
+     * Releases the hold {@link #authorize} placed on the card, without capturing any of it.
+     */
+    void cancel(String authorizationId);
+}
@@ -0,0 +1,12 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+/**
+ * Thrown when the {@link PaymentBulkhead} is saturated and the payment was never started, mapped
+ * to a 503 so callers back off instead of piling up behind a slow payment gateway.
+ */
+public class PaymentGatewayBusyException extends RuntimeException {
+
+    public PaymentGatewayBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+/**
+ * A call to the payment gateway failed, because the provider refused it or could not be reached.
+ */
+public class PaymentGatewayException extends RuntimeException {
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
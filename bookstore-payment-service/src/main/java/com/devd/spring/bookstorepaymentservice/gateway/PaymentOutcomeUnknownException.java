@@ -0,0 +1,13 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+/**
+ * Fails the future of {@link PaymentBulkhead#call} once it stopped waiting for a payment that may
+ * still go through at the gateway, mapped to a 504. Unlike {@link PaymentGatewayBusyException}
+ * it does not invite a blind retry, only one with the same idempotency key is safe.
+ */
+public class PaymentOutcomeUnknownException extends RuntimeException {
+
+    public PaymentOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
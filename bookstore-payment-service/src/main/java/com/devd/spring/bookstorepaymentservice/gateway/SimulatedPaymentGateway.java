@@ -0,0 +1,249 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-process stand-in for Stripe, so checkout can be load tested and integration tested offline.
+ *
+ * Customers and payment methods live in memory. Every call sleeps for a latency drawn from its
+ * distribution, then fails with the configured failure rate as an unreachable provider would.
+ * Payments are declined with the configured decline rate, and always for the Stripe test cards
+ * that decline, e.g. 4000000000000002 or 4000000000009995 for insufficient funds. Authorized
+ * payments are held until captured or cancelled, they never lapse.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private static final Map<String, String> DECLINING_CARDS = new HashMap<>();
+
+    static {
+        DECLINING_CARDS.put("4000000000000002", "generic_decline");
+        DECLINING_CARDS.put("4000000000009995", "insufficient_funds");
+        DECLINING_CARDS.put("4000000000009987", "lost_card");
+        DECLINING_CARDS.put("4000000000000069", "expired_card");
+    }
+
+    private final LatencyDistribution apiLatency;
+
+    private final LatencyDistribution paymentLatency;
+
+    private final double failureRate;
+
+    private final double declineRate;
+
+    private final Random random;
+
+    private final Set<String> customers = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, SimulatedCard> paymentMethods = new ConcurrentHashMap<>();
+
+    private final Map<String, String> authorizations = new ConcurrentHashMap<>();
+
+    private final Map<String, String> captures = new ConcurrentHashMap<>();
+
+    private final Map<String, GatewayPayment> idempotentPayments = new ConcurrentHashMap<>();
+
+    public SimulatedPaymentGateway(LatencyDistribution apiLatency, LatencyDistribution paymentLatency,
+                                   double failureRate, double declineRate, Random random) {
+        this.apiLatency = apiLatency;
+        this.paymentLatency = paymentLatency;
+        this.failureRate = failureRate;
+        this.declineRate = declineRate;
+        this.random = random;
+    }
+
+    @Override
+    public String createCustomer(String description) {
+        call(apiLatency);
+        String customerId = "cus_sim_" + randomId();
+        customers.add(customerId);
+        return customerId;
+    }
+
+    @Override
+    public String createPaymentMethod(String cardNumber, int expirationMonth, int expirationYear, int cvc) {
+        call(apiLatency);
+        String paymentMethodId = "pm_sim_" + randomId();
+        paymentMethods.put(paymentMethodId, new SimulatedCard(cardNumber, GatewayPaymentMethod.builder()
+                .paymentMethodId(paymentMethodId)
+                .cardType(brand(cardNumber))
+                .cardLast4Digits(cardNumber.substring(cardNumber.length() - 4))
+                .cardExpirationMonth((long) expirationMonth)
+                .cardExpirationYear((long) expirationYear)
+                .cardCountry("US")
+                .build()));
+        return paymentMethodId;
+    }
+
+    @Override
+    public GatewayPaymentMethod attachPaymentMethod(String paymentMethodId, String customerId) {
+        call(apiLatency);
+        SimulatedCard card = paymentMethods.get(paymentMethodId);
+        if (card == null) {
+            throw new PaymentGatewayException("No such PaymentMethod: " + paymentMethodId);
+        }
+        if (!customers.contains(customerId)) {
+            throw new PaymentGatewayException("No such customer: " + customerId);
+        }
+        card.customerId = customerId;
+        return card.toGatewayPaymentMethod();
+    }
+
+    @Override
+    public List<GatewayPaymentMethod> listPaymentMethods(String customerId) {
+        call(apiLatency);
+        if (!customers.contains(customerId)) {
+            return Collections.emptyList();
+        }
+        return paymentMethods.values().stream()
+                .filter(card -> customerId.equals(card.customerId))
+                .map(SimulatedCard::toGatewayPaymentMethod)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public GatewayPayment pay(String customerId, String paymentMethodId, long amount, String currency,
+                              String idempotencyKey) {
+        return idempotent(idempotencyKey, () -> {
+            call(paymentLatency);
+            return captured(charge(customerId, paymentMethodId));
+        });
+    }
+
+    @Override
+    public GatewayPayment authorize(String customerId, String paymentMethodId, long amount, String currency,
+                                    String idempotencyKey) {
+        return idempotent(idempotencyKey, () -> {
+            call(paymentLatency);
+            String paymentId = charge(customerId, paymentMethodId);
+            String authorizationId = "pi_sim_" + randomId();
+            authorizations.put(authorizationId, paymentId);
+            return GatewayPayment.builder()
+                    .paymentId(paymentId)
+                    .captured(false)
+                    .authorizationId(authorizationId)
+                    .build();
+        });
+    }
+
+    @Override
+    public GatewayPayment capture(String authorizationId) {
+        call(apiLatency);
+        String paymentId = authorizations.remove(authorizationId);
+        if (paymentId != null) {
+            captures.put(authorizationId, paymentId);
+        } else {
+            //captured before, like stripe the payment is reported captured again
+            paymentId = captures.get(authorizationId);
+        }
+        if (paymentId == null) {
+            throw new PaymentGatewayException("No uncaptured PaymentIntent: " + authorizationId);
+        }
+        return captured(paymentId);
+    }
+
+    @Override
+    public void cancel(String authorizationId) {
+        call(apiLatency);
+        if (authorizations.remove(authorizationId) == null) {
+            throw new PaymentGatewayException("No uncaptured PaymentIntent: " + authorizationId);
+        }
+    }
+
+    //a repeated key gets the first payment back, like stripe answers it
+    private GatewayPayment idempotent(String idempotencyKey, Supplier<GatewayPayment> payment) {
+        if (idempotencyKey == null) {
+            return payment.get();
+        }
+        GatewayPayment first = idempotentPayments.get(idempotencyKey);
+        if (first != null) {
+            return first;
+        }
+        GatewayPayment paid = payment.get();
+        first = idempotentPayments.putIfAbsent(idempotencyKey, paid);
+        return first != null ? first : paid;
+    }
+
+    //declines like the card would, otherwise returns the id of the new charge
+    private String charge(String customerId, String paymentMethodId) {
+        SimulatedCard card = paymentMethods.get(paymentMethodId);
+        if (card == null || !customerId.equals(card.customerId)) {
+            throw new PaymentGatewayException("No such PaymentMethod: " + paymentMethodId);
+        }
+
+        String declineCode = DECLINING_CARDS.get(card.number);
+        if (declineCode == null && random.nextDouble() < declineRate) {
+            declineCode = "generic_decline";
+        }
+        if (declineCode != null) {
+            throw new PaymentDeclinedException("Your card was declined.", declineCode);
+        }
+        return "ch_sim_" + randomId();
+    }
+
+    private static GatewayPayment captured(String paymentId) {
+        return GatewayPayment.builder()
+                .paymentId(paymentId)
+                .captured(true)
+                .paidAt(Instant.now())
+                .receiptUrl("https://payments.simulator.invalid/receipts/" + paymentId)
+                .build();
+    }
+
+    private void call(LatencyDistribution latency) {
+        try {
+            Thread.sleep(latency.sampleMillis(random));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted while calling the payment gateway", e);
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new PaymentGatewayException("Simulated payment gateway error");
+        }
+    }
+
+    private String randomId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+    }
+
+    private static String brand(String cardNumber) {
+        if (cardNumber.startsWith("4")) {
+            return "visa";
+        }
+        if (cardNumber.startsWith("5") || cardNumber.startsWith("2")) {
+            return "mastercard";
+        }
+        if (cardNumber.startsWith("34") || cardNumber.startsWith("37")) {
+            return "amex";
+        }
+        if (cardNumber.startsWith("6")) {
+            return "discover";
+        }
+        return "unknown";
+    }
+
+    private static final class SimulatedCard {
+
+        private final String number;
+        private final GatewayPaymentMethod card;
+        private volatile String customerId;
+
+        private SimulatedCard(String number, GatewayPaymentMethod card) {
+            this.number = number;
+            this.card = card;
+        }
+
+        private GatewayPaymentMethod toGatewayPaymentMethod() {
+            return card.toBuilder().customerId(customerId).build();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.stripe.Stripe;
+import com.stripe.exception.CardException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Charge;
+import com.stripe.model.Customer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.PaymentMethod;
+import com.stripe.net.RequestOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link PaymentGateway} backed by the Stripe API, authenticated with {@code Stripe.apiKey}.
+ */
+@Slf4j
+public class StripePaymentGateway implements PaymentGateway {
+
+    @Override
+    public String createCustomer(String description) {
+        // Check if Stripe API key is configured
+        if (Stripe.apiKey == null || Stripe.apiKey.isEmpty() || Stripe.apiKey.contains("your_stripe")) {
+            throw new RunTimeExceptionPlaceHolder(
+                    "Stripe API key is not configured. Please set STRIPE_API_KEY in your environment variables.");
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("description", description);
+
+        try {
+            return Customer.create(params).getId();
+        } catch (StripeException e) {
+            log.error("Stripe API error while creating customer: {}", e.getMessage());
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String createPaymentMethod(String cardNumber, int expirationMonth, int expirationYear, int cvc) {
+        Map<String, Object> card = new HashMap<>();
+        card.put("number", cardNumber);
+        card.put("exp_month", expirationMonth);
+        card.put("exp_year", expirationYear);
+        card.put("cvc", cvc);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("type", "card");
+        params.put("card", card);
+
+        try {
+            PaymentMethod paymentMethod = PaymentMethod.create(params);
+            log.info("Successfully created payment method: {}", paymentMethod.getId());
+            return paymentMethod.getId();
+        } catch (StripeException e) {
+            log.error("Stripe error while creating payment method: {}", e.getMessage());
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public GatewayPaymentMethod attachPaymentMethod(String paymentMethodId, String customerId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("customer", customerId);
+
+        try {
+            return toGatewayPaymentMethod(PaymentMethod.retrieve(paymentMethodId).attach(params));
+        } catch (StripeException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<GatewayPaymentMethod> listPaymentMethods(String customerId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("customer", customerId);
+        params.put("type", "card");
+        params.put("limit", 100);
+
+        List<GatewayPaymentMethod> paymentMethods = new ArrayList<>();
+        try {
+            for (PaymentMethod paymentMethod : PaymentMethod.list(params).autoPagingIterable()) {
+                paymentMethods.add(toGatewayPaymentMethod(paymentMethod));
+            }
+        } catch (StripeException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+        return paymentMethods;
+    }
+
+    @Override
+    public GatewayPayment pay(String customerId, String paymentMethodId, long amount, String currency,
+                              String idempotencyKey) {
+        return toGatewayPayment(createPaymentIntent(customerId, paymentMethodId, amount, currency, "automatic",
+                idempotencyKey));
+    }
+
+    @Override
+    public GatewayPayment authorize(String customerId, String paymentMethodId, long amount, String currency,
+                                    String idempotencyKey) {
+        PaymentIntent paymentIntent = createPaymentIntent(customerId, paymentMethodId, amount, currency, "manual",
+                idempotencyKey);
+        if (!"requires_capture".equals(paymentIntent.getStatus())) {
+            return GatewayPayment.builder().captured(false).build();
+        }
+        Optional<Charge> held = paymentIntent.getCharges().getData().stream().findFirst();
+        if (!held.isPresent()) {
+            //without its charge the hold can't be recorded, so it is released instead of left to lapse
+            log.error("Authorized PaymentIntent {} has no charge", paymentIntent.getId());
+            try {
+                paymentIntent.cancel();
+            } catch (StripeException e) {
+                log.warn("Could not release PaymentIntent {}: {}", paymentIntent.getId(), e.getMessage());
+            }
+            throw new PaymentGatewayException("Authorized PaymentIntent " + paymentIntent.getId() + " has no charge");
+        }
+        return GatewayPayment.builder()
+                .paymentId(held.get().getId())
+                .captured(false)
+                .authorizationId(paymentIntent.getId())
+                .build();
+    }
+
+    @Override
+    public GatewayPayment capture(String authorizationId) {
+        try {
+            //a retry within 24 hours gets the first capture back for its key, a later one finds the payment captured
+            PaymentIntent paymentIntent = PaymentIntent.retrieve(authorizationId);
+            if ("succeeded".equals(paymentIntent.getStatus())) {
+                return toGatewayPayment(paymentIntent);
+            }
+            RequestOptions options = RequestOptions.builder().setIdempotencyKey("capture_" + authorizationId).build();
+            return toGatewayPayment(paymentIntent.capture(new HashMap<>(), options));
+        } catch (CardException e) {
+            throw new PaymentDeclinedException(e.getMessage(), e.getDeclineCode());
+        } catch (StripeException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void cancel(String authorizationId) {
+        try {
+            PaymentIntent.retrieve(authorizationId).cancel();
+        } catch (StripeException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    private static PaymentIntent createPaymentIntent(String customerId, String paymentMethodId, long amount,
+                                                     String currency, String captureMethod,
+                                                     String idempotencyKey) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("amount", amount);
+        params.put("currency", currency);
+        params.put("payment_method", paymentMethodId);
+        params.put("customer", customerId);
+        params.put("capture_method", captureMethod);
+        params.put("confirm", true);
+
+        //stripe answers a repeated key with the first PaymentIntent for 24 hours, a null key sends none
+        RequestOptions options = RequestOptions.builder().setIdempotencyKey(idempotencyKey).build();
+        try {
+            return PaymentIntent.create(params, options);
+        } catch (CardException e) {
+            throw new PaymentDeclinedException(e.getMessage(), e.getDeclineCode());
+        } catch (StripeException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    private static GatewayPayment toGatewayPayment(PaymentIntent paymentIntent) {
+        Optional<Charge> paidRecord = paymentIntent.getCharges().getData().stream()
+                .filter(charge -> Boolean.TRUE.equals(charge.getPaid()) && Boolean.TRUE.equals(charge.getCaptured()))
+                .findAny();
+
+        if (!paidRecord.isPresent()) {
+            return GatewayPayment.builder().captured(false).build();
+        }
+        return GatewayPayment.builder()
+                .paymentId(paidRecord.get().getId())
+                .captured(true)
+                .paidAt(Instant.ofEpochSecond(paidRecord.get().getCreated()))
+                .receiptUrl(paidRecord.get().getReceiptUrl())
+                .build();
+    }
+
+    private static GatewayPaymentMethod toGatewayPaymentMethod(PaymentMethod paymentMethod) {
+        PaymentMethod.Card card = paymentMethod.getCard();
+        return GatewayPaymentMethod.builder()
+                .paymentMethodId(paymentMethod.getId())
+                .customerId(paymentMethod.getCustomer())
+                .cardType(card != null ? card.getBrand() : null)
+                .cardLast4Digits(card != null ? card.getLast4() : null)
+                .cardExpirationMonth(card != null ? card.getExpMonth() : null)
+                .cardExpirationYear(card != null ? card.getExpYear() : null)
+                .cardCountry(card != null ? card.getCountry() : null)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.devd.spring.bookstorepaymentservice.repository;
+
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentCapture;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentCaptureStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentCaptureRepository extends JpaRepository<PaymentCapture, String> {
+
+    List<PaymentCapture> findByStatusAndCaptureAfterLessThanEqualOrderByCaptureAfterAsc(
+            PaymentCaptureStatus status, Instant captureAfter, Pageable pageable);
+
+    List<PaymentCapture> findByStatusInAndCaptureAfterLessThanEqualOrderByCaptureAfterAsc(
+            Collection<PaymentCaptureStatus> statuses, Instant captureAfter, Pageable pageable);
+
+    /**
+     * Claims a due capture for this instance by moving it to {@code capturing} until {@code until},
+     * returns 0 when it is no longer due, e.g. because another instance claimed it.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentCapture c SET c.status = :capturing, c.captureAfter = :until, c.updatedAt = :now "
+            + "WHERE c.paymentId = :paymentId AND c.status IN :due AND c.captureAfter <= :now")
+    int claim(@Param("paymentId") String paymentId, @Param("due") Collection<PaymentCaptureStatus> due,
+              @Param("capturing") PaymentCaptureStatus capturing, @Param("now") Instant now,
+              @Param("until") Instant until);
+
+    /**
+     * Makes a capture still in {@code pending} due at {@code now}, returns 0 when it is not pending
+     * or already due.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentCapture c SET c.captureAfter = :now, c.updatedAt = :now "
+            + "WHERE c.paymentId = :paymentId AND c.status = :pending AND c.captureAfter > :now")
+    int makeDue(@Param("paymentId") String paymentId, @Param("pending") PaymentCaptureStatus pending,
+                @Param("now") Instant now);
+
+    /**
+     * Moves the capture from status {@code from} to {@code to}, returns 0 when it is no longer in
+     * {@code from}.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentCapture c SET c.status = :to, c.captureAfter = :captureAfter, c.updatedAt = :now "
+            + "WHERE c.paymentId = :paymentId AND c.status = :from")
+    int updateStatus(@Param("paymentId") String paymentId, @Param("from") PaymentCaptureStatus from,
+                     @Param("to") PaymentCaptureStatus to, @Param("captureAfter") Instant captureAfter,
+                     @Param("now") Instant now);
+
+    /**
+     * Moves the capture to {@code cancelled} if it is still in one of {@code held}, returns 0 when
+     * it is not, e.g. because it is being captured.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentCapture c SET c.status = :cancelled, c.updatedAt = :now "
+            + "WHERE c.paymentId = :paymentId AND c.status IN :held")
+    int cancel(@Param("paymentId") String paymentId, @Param("held") Collection<PaymentCaptureStatus> held,
+               @Param("cancelled") PaymentCaptureStatus cancelled, @Param("now") Instant now);
+}
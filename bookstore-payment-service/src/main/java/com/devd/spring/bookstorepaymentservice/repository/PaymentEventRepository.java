@@ -0,0 +1,55 @@
+package com.devd.spring.bookstorepaymentservice.repository;
+
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEvent;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+
+    boolean existsByEventId(String eventId);
+
+    /**
+     * Events in {@code status} no instance holds a claim on at {@code now}, oldest first.
+     */
+    @Query("SELECT e FROM PaymentEvent e WHERE e.status = :status "
+            + "AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now) ORDER BY e.id")
+    List<PaymentEvent> findUnclaimed(@Param("status") PaymentEventStatus status, @Param("now") Instant now,
+                                     Pageable pageable);
+
+    /**
+     * Claims a pending event for this instance until {@code until}, returns 0 when it is no longer
+     * pending or another instance claimed it.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.claimedUntil = :until WHERE e.id = :id AND e.status = :pending "
+            + "AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now)")
+    int claim(@Param("id") long id, @Param("pending") PaymentEventStatus pending, @Param("now") Instant now,
+              @Param("until") Instant until);
+
+    PaymentEvent findFirstByStatusOrderByIdAsc(PaymentEventStatus status);
+
+    /**
+     * Processed events that changed the status of a payment, with an id between {@code after} and
+     * {@code before}, both exclusive.
+     */
+    @Query("SELECT e FROM PaymentEvent e WHERE e.id > :after AND e.id < :before "
+            + "AND e.paymentStatus IS NOT NULL ORDER BY e.id")
+    List<PaymentEvent> findPaymentStatusChanges(@Param("after") long after, @Param("before") long before,
+                                                Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PaymentEvent e WHERE e.status <> :pending AND e.receivedAt < :before")
+    int deleteDoneBefore(@Param("pending") PaymentEventStatus pending, @Param("before") Instant before);
+}
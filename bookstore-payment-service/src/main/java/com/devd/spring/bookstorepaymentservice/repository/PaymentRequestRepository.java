@@ -0,0 +1,24 @@
+package com.devd.spring.bookstorepaymentservice.repository;
+
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentRequest;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentRequestStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface PaymentRequestRepository extends JpaRepository<PaymentRequest, String> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentRequest r SET r.status = :status, r.failureReason = :reason, r.updatedAt = :now "
+            + "WHERE r.status = :pending AND r.createdAt < :before")
+    int updatePendingCreatedBefore(@Param("pending") PaymentRequestStatus pending, @Param("before") Instant before,
+                                   @Param("status") PaymentRequestStatus status, @Param("reason") String reason,
+                                   @Param("now") Instant now);
+}
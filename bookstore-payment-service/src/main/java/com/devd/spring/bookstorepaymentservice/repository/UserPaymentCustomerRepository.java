@@ -1,9 +1,17 @@
 package com.devd.spring.bookstorepaymentservice.repository;
 
 import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+
 /**
  * @author Devaraj Reddy, Date : 14-Dec-2020
  */
@@ -11,4 +19,15 @@ import org.springframework.stereotype.Repository;
 public interface UserPaymentCustomerRepository extends JpaRepository<UserPaymentCustomer, String> {
 
     UserPaymentCustomer findByUserId(String userId);
+
+    UserPaymentCustomer findByPaymentCustomerId(String paymentCustomerId);
+
+    //row locked until the calling transaction ends, so two syncs of one customer run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM UserPaymentCustomer c WHERE c.userPaymentCustomerId = :id")
+    UserPaymentCustomer lockById(@Param("id") String id);
+
+    @Query("SELECT c FROM UserPaymentCustomer c WHERE c.paymentMethodsSyncedAt IS NULL "
+            + "OR c.paymentMethodsSyncedAt < :before ORDER BY c.paymentMethodsSyncedAt")
+    List<UserPaymentCustomer> findPaymentMethodsSyncedBefore(@Param("before") Instant before, Pageable pageable);
 }
@@ -0,0 +1,15 @@
+package com.devd.spring.bookstorepaymentservice.repository;
+
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserPaymentMethodRepository extends JpaRepository<UserPaymentMethod, String> {
+
+    List<UserPaymentMethod> findByUserId(String userId);
+
+    List<UserPaymentMethod> findByPaymentCustomerId(String paymentCustomerId);
+}
@@ -0,0 +1,61 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+import com.devd.spring.bookstorecommons.util.DateAudit;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A payment held on the card at checkout, captured once {@code captureAfter} has passed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "PAYMENT_CAPTURE")
+@Builder
+public class PaymentCapture extends DateAudit {
+
+    @Id
+    @Column(name = "PAYMENT_ID", updatable = false, nullable = false)
+    private String paymentId;
+
+    @Column(name = "AUTHORIZATION_ID", updatable = false, nullable = false)
+    private String authorizationId;
+
+    @Column(name = "USER_ID", updatable = false, nullable = false)
+    private String userId;
+
+    @Column(name = "AMOUNT", updatable = false, nullable = false)
+    private long amount;
+
+    @Column(name = "CURRENCY", updatable = false, nullable = false)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false)
+    private PaymentCaptureStatus status;
+
+    @Column(name = "CAPTURE_AFTER", nullable = false)
+    private Instant captureAfter;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    @Column(name = "CAPTURED_AT")
+    private Instant capturedAt;
+
+    @Column(name = "FAILURE_REASON")
+    private String failureReason;
+}
@@ -0,0 +1,15 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+/**
+ * Where a {@link PaymentCapture} is. {@code AUTHORIZED} holds are not captured until their order
+ * confirmed them, which makes them {@code PENDING}; unconfirmed ones end {@code CANCELLED}. A
+ * pending capture is {@code CAPTURING} while an instance has claimed it, and can't be released then.
+ */
+public enum PaymentCaptureStatus {
+    AUTHORIZED,
+    PENDING,
+    CAPTURING,
+    CAPTURED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,83 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+import com.devd.spring.bookstorepaymentservice.web.PaymentStatusChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A webhook event of the payment gateway, stored as received before it is acknowledged. Once
+ * processed it carries the payment it is about and the status that payment moved to, if any.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "PAYMENT_EVENT")
+@Builder
+public class PaymentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID", updatable = false, nullable = false)
+    private Long id;
+
+    @Column(name = "EVENT_ID", updatable = false, nullable = false, unique = true)
+    private String eventId;
+
+    @Column(name = "EVENT_TYPE", updatable = false, nullable = false)
+    private String eventType;
+
+    @Lob
+    @Column(name = "PAYLOAD", updatable = false, nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false)
+    private PaymentEventStatus status;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    @Column(name = "PAYMENT_ID")
+    private String paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "PAYMENT_STATUS")
+    private PaymentStatus paymentStatus;
+
+    @Column(name = "OCCURRED_AT", updatable = false, nullable = false)
+    private Instant occurredAt;
+
+    @Column(name = "RECEIVED_AT", updatable = false, nullable = false)
+    private Instant receivedAt;
+
+    @Column(name = "PROCESSED_AT")
+    private Instant processedAt;
+
+    @Column(name = "CLAIMED_UNTIL")
+    private Instant claimedUntil;
+
+    public PaymentStatusChange toPaymentStatusChange() {
+        return PaymentStatusChange.builder()
+                .id(id)
+                .paymentId(paymentId)
+                .status(paymentStatus.name())
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
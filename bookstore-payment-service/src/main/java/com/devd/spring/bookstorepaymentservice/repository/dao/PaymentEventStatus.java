@@ -0,0 +1,11 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+/**
+ * Where a {@link PaymentEvent} is in the queue. Events that failed {@code max-attempts} times are
+ * left as {@code FAILED} so they stop holding back the ones behind them.
+ */
+public enum PaymentEventStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,84 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+import com.devd.spring.bookstorecommons.util.DateAudit;
+import com.devd.spring.bookstorepaymentservice.web.PaymentRequestResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+/**
+ * A payment queued on the payment pool, kept in the database so whichever instance the caller
+ * polls can answer.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "PAYMENT_REQUEST")
+@Builder
+public class PaymentRequest extends DateAudit {
+
+    @Id
+    @GeneratedValue(generator = "uuid")
+    @GenericGenerator(name = "uuid", strategy = "uuid2")
+    @Column(name = "ID", updatable = false, nullable = false)
+    private String paymentRequestId;
+
+    @Column(name = "USER_ID", nullable = false)
+    private String userId;
+
+    @Column(name = "PAYMENT_METHOD_ID", nullable = false)
+    private String paymentMethodId;
+
+    @Column(name = "AMOUNT", nullable = false)
+    private long amount;
+
+    @Column(name = "CURRENCY", nullable = false)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false)
+    private PaymentRequestStatus status;
+
+    @Column(name = "CAPTURED", nullable = false)
+    private boolean captured;
+
+    @Column(name = "PAYMENT_ID")
+    private String paymentId;
+
+    @Column(name = "PAID_AT")
+    private Instant paidAt;
+
+    @Column(name = "RECEIPT_URL")
+    private String receiptUrl;
+
+    @Column(name = "FAILURE_REASON")
+    private String failureReason;
+
+    public PaymentRequestResponse toPaymentRequestResponse() {
+        return PaymentRequestResponse.builder()
+                .paymentRequestId(paymentRequestId)
+                .status(status.name())
+                .paymentId(paymentId)
+                .paymentDate(paidAt != null ? LocalDateTime.ofInstant(paidAt, TimeZone.getDefault().toZoneId()) : null)
+                .captured(captured)
+                .receipt_url(receiptUrl)
+                .failureReason(failureReason)
+                .build();
+    }
+}
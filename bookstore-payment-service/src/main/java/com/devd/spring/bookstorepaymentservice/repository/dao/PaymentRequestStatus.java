@@ -0,0 +1,15 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+/**
+ * Where an asynchronous {@link PaymentRequest} is. {@code COMPLETED} payments may still be
+ * uncaptured, e.g. when the card needs an extra authentication step. {@code UNKNOWN} requests
+ * stayed {@code PENDING} too long, e.g. because the instance running them died, and may or may
+ * not have been charged.
+ */
+public enum PaymentRequestStatus {
+    PENDING,
+    COMPLETED,
+    DECLINED,
+    FAILED,
+    UNKNOWN
+}
@@ -0,0 +1,14 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+/**
+ * The state of a payment as reported by the webhook events of the payment gateway.
+ */
+public enum PaymentStatus {
+    AUTHORIZED,
+    PAID,
+    PARTIALLY_REFUNDED,
+    REFUNDED,
+    DISPUTED,
+    FAILED,
+    EXPIRED
+}
@@ -13,6 +13,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import java.time.Instant;
 
 /**
  * @author Devaraj Reddy, Date : 14-Dec-2020
@@ -39,4 +40,8 @@ public class UserPaymentCustomer extends DateAudit {
 
     @Column(name = "PAYMENT_CUSTOMER_ID", nullable = false, unique = true)
     private String paymentCustomerId;
+
+    //null until the payment methods of the customer were first copied from the payment gateway
+    @Column(name = "PAYMENT_METHODS_SYNCED_AT")
+    private Instant paymentMethodsSyncedAt;
 }
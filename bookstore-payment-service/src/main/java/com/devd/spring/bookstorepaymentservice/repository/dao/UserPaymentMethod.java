@@ -0,0 +1,64 @@
+package com.devd.spring.bookstorepaymentservice.repository.dao;
+
+import com.devd.spring.bookstorecommons.util.DateAudit;
+import com.devd.spring.bookstorepaymentservice.web.GetPaymentMethodResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The card display fields of a payment method attached at the payment gateway, never the card
+ * number or cvc.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "PAYMENT_METHOD")
+@Builder
+public class UserPaymentMethod extends DateAudit {
+
+    @Id
+    @Column(name = "PAYMENT_METHOD_ID", updatable = false, nullable = false)
+    private String paymentMethodId;
+
+    @Column(name = "USER_ID", nullable = false)
+    private String userId;
+
+    @Column(name = "PAYMENT_CUSTOMER_ID", nullable = false)
+    private String paymentCustomerId;
+
+    @Column(name = "CARD_TYPE")
+    private String cardType;
+
+    @Column(name = "CARD_LAST4_DIGITS")
+    private String cardLast4Digits;
+
+    @Column(name = "CARD_EXPIRATION_MONTH")
+    private Long cardExpirationMonth;
+
+    @Column(name = "CARD_EXPIRATION_YEAR")
+    private Long cardExpirationYear;
+
+    @Column(name = "CARD_COUNTRY")
+    private String cardCountry;
+
+    public GetPaymentMethodResponse toGetPaymentMethodResponse() {
+        return GetPaymentMethodResponse.builder()
+                .paymentMethodId(paymentMethodId)
+                .cardCountry(cardCountry)
+                .cardExpirationMonth(cardExpirationMonth)
+                .cardExpirationYear(cardExpirationYear)
+                .cardLast4Digits(cardLast4Digits)
+                .cardType(cardType)
+                .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.devd.spring.bookstorepaymentservice.service;
+
+import com.devd.spring.bookstorepaymentservice.web.PaymentStatusChange;
+
+import java.util.List;
+
+public interface PaymentEventService {
+
+    /**
+     * Verifies the signature of a Stripe webhook and queues its event, at most once per event id.
+     */
+    void receiveStripeEvent(String payload, String signature);
+
+    /**
+     * The payment status changes after the given feed id, in feed order. Stops before the first
+     * event still waiting to be processed. Ids are handed out when an event is inserted, not when
+     * it commits, so a change can still appear behind ones with higher ids; a consumer reads again
+     * from an id it saw a while ago to pick those up.
+     */
+    List<PaymentStatusChange> getPaymentStatusChanges(long after, int limit);
+}
@@ -2,10 +2,37 @@ package com.devd.spring.bookstorepaymentservice.service;
 
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentRequest;
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentResponse;
+import com.devd.spring.bookstorepaymentservice.web.PaymentRequestResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Devaraj Reddy, Date : 25-Jul-2020
  */
 public interface PaymentsService {
-    CreatePaymentResponse createPaymentRequest(CreatePaymentRequest createPaymentRequest);
+    /**
+     * Charges the card on the payment pool, the calling thread does not wait for it.
+     */
+    CompletableFuture<CreatePaymentResponse> createPaymentRequest(CreatePaymentRequest createPaymentRequest);
+
+    PaymentRequestResponse createPaymentRequestAsync(CreatePaymentRequest createPaymentRequest);
+
+    PaymentRequestResponse getPaymentRequest(String paymentRequestId);
+
+    /**
+     * Confirms that the order paid with an authorized payment was saved, so the payment is captured.
+     */
+    void confirmCapture(String paymentId);
+
+    /**
+     * Releases an authorized payment whose order could not be saved.
+     */
+    void releaseAuthorization(String paymentId);
+
+    /**
+     * Marks the payment requests still PENDING {@code maxAge} after they were made as UNKNOWN and
+     * returns how many.
+     */
+    int expirePaymentRequests(Duration maxAge);
 }
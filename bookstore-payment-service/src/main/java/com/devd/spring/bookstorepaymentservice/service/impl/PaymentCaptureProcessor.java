@@ -0,0 +1,294 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.gateway.GatewayPayment;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentDeclinedException;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayException;
+import com.devd.spring.bookstorepaymentservice.repository.PaymentCaptureRepository;
+import com.devd.spring.bookstorepaymentservice.repository.PaymentEventRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentCapture;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentCaptureStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEvent;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEventStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captures the payments authorized at checkout, off the checkout request path.
+ *
+ * A hold placed at checkout is only captured once the order service confirmed it for a saved
+ * order. A hold whose order failed is released right away, and one still unconfirmed after
+ * {@code confirm-within}, e.g. because the caller gave up waiting for it, is released then.
+ *
+ * A confirmed payment is due {@code delay} after checkout, or as soon as its order is delivered.
+ * Due payments are captured in batches at no more than {@code captures-per-second}, so a backlog
+ * does not run into the rate limits of the payment gateway. A capture that fails is retried later,
+ * up to {@code max-attempts}; a declined one is given up right away. Every capture is also appended
+ * to the payment status feed, so orders are marked paid without waiting for the webhook.
+ */
+@Component
+@Slf4j
+public class PaymentCaptureProcessor implements MeterBinder {
+
+    //well past the connect and read timeouts of one gateway call
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+
+    //a claimed capture is due again once its claim ran out
+    private static final Set<PaymentCaptureStatus> DUE = EnumSet.of(PaymentCaptureStatus.PENDING,
+            PaymentCaptureStatus.CAPTURING);
+
+    @Autowired
+    private PaymentCaptureRepository paymentCaptureRepository;
+
+    @Autowired
+    private PaymentEventRepository paymentEventRepository;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Value("${payment.capture.delay:3d}")
+    private Duration delay;
+
+    @Value("${payment.capture.confirm-within:1h}")
+    private Duration confirmWithin;
+
+    @Value("${payment.capture.captures-per-second:5}")
+    private double capturesPerSecond;
+
+    @Value("${payment.capture.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.capture.retry-delay:5m}")
+    private Duration retryDelay;
+
+    private final AtomicLong captured = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private long nextCaptureAt = System.nanoTime();
+
+    /**
+     * Records a hold placed at checkout, not captured until it is {@link #confirm}ed. A checkout
+     * retried with the same idempotency key gets the recorded hold back.
+     */
+    public PaymentCapture hold(String userId, GatewayPayment payment, long amount, String currency) {
+        return paymentCaptureRepository.findById(payment.getPaymentId())
+                .orElseGet(() -> paymentCaptureRepository.save(PaymentCapture.builder()
+                        .paymentId(payment.getPaymentId())
+                        .authorizationId(payment.getAuthorizationId())
+                        .userId(userId)
+                        .amount(amount)
+                        .currency(currency)
+                        .status(PaymentCaptureStatus.AUTHORIZED)
+                        .captureAfter(Instant.now().plus(confirmWithin))
+                        .build()));
+    }
+
+    /**
+     * Schedules the capture of a hold once its order is saved, due {@code delay} from now.
+     */
+    public void confirm(String paymentId, String userId) {
+        PaymentCapture capture = getCapture(paymentId, userId);
+        Instant now = Instant.now();
+        if (capture.getStatus() == PaymentCaptureStatus.AUTHORIZED && paymentCaptureRepository.updateStatus(paymentId,
+                PaymentCaptureStatus.AUTHORIZED, PaymentCaptureStatus.PENDING, now.plus(delay), now) == 0) {
+            capture = getCapture(paymentId, userId);
+        }
+        if (capture.getStatus() == PaymentCaptureStatus.CANCELLED) {
+            throw new RunTimeExceptionPlaceHolder("Payment authorization was already released!!");
+        }
+    }
+
+    /**
+     * Releases a hold whose order could not be saved, also when it was confirmed already, e.g.
+     * because the order service gave up waiting for the confirmation. A hold being captured, or
+     * captured, is left alone.
+     */
+    public void release(String paymentId, String userId) {
+        PaymentCapture capture = getCapture(paymentId, userId);
+        if (capture.getStatus() == PaymentCaptureStatus.AUTHORIZED || capture.getStatus() == PaymentCaptureStatus.PENDING) {
+            cancel(capture, EnumSet.of(PaymentCaptureStatus.AUTHORIZED, PaymentCaptureStatus.PENDING));
+        }
+    }
+
+    /**
+     * Releases up to {@code batchSize} holds no order confirmed within {@code confirm-within} and
+     * returns how many were tried.
+     */
+    public int releaseUnconfirmed(int batchSize) {
+        List<PaymentCapture> unconfirmed = paymentCaptureRepository.findByStatusAndCaptureAfterLessThanEqualOrderByCaptureAfterAsc(
+                PaymentCaptureStatus.AUTHORIZED, Instant.now(), PageRequest.of(0, batchSize));
+        unconfirmed.forEach(capture -> cancel(capture, EnumSet.of(PaymentCaptureStatus.AUTHORIZED)));
+        return unconfirmed.size();
+    }
+
+    /**
+     * Makes a pending capture due right away, it is taken by the next batch.
+     */
+    public void requestCapture(String paymentId) {
+        if (paymentCaptureRepository.makeDue(paymentId, PaymentCaptureStatus.PENDING, Instant.now()) == 0
+                && !paymentCaptureRepository.existsById(paymentId)) {
+            throw new RunTimeExceptionPlaceHolder("Payment capture doesn't exist!!");
+        }
+    }
+
+    /**
+     * Captures up to {@code batchSize} due payments, longest due first, and returns how many were
+     * tried. Every instance runs this, each capture is claimed before it is tried and saved right
+     * after, so a capture is tried by one instance at a time.
+     */
+    public synchronized int captureDue(int batchSize) {
+        List<PaymentCapture> due = paymentCaptureRepository.findByStatusInAndCaptureAfterLessThanEqualOrderByCaptureAfterAsc(
+                DUE, Instant.now(), PageRequest.of(0, batchSize));
+
+        int tried = 0;
+        for (PaymentCapture capture : due) {
+            if (!pace()) {
+                break;
+            }
+            if (!claim(capture)) {
+                continue;
+            }
+            capture(capture);
+            paymentCaptureRepository.save(capture);
+            tried++;
+        }
+        return tried;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("payment.captures.captured", captured, AtomicLong::doubleValue)
+                .description("Authorized payments captured")
+                .register(registry);
+        FunctionCounter.builder("payment.captures.failed", failed, AtomicLong::doubleValue)
+                .description("Authorized payments given up without capturing them")
+                .register(registry);
+    }
+
+    //holds the capture for CLAIM_TIMEOUT, after that it is due again e.g. when this instance stopped mid capture
+    private boolean claim(PaymentCapture capture) {
+        Instant now = Instant.now();
+        Instant until = now.plus(CLAIM_TIMEOUT);
+        if (paymentCaptureRepository.claim(capture.getPaymentId(), DUE, PaymentCaptureStatus.CAPTURING, now, until) == 0) {
+            return false;
+        }
+        capture.setStatus(PaymentCaptureStatus.CAPTURING);
+        capture.setCaptureAfter(until);
+        return true;
+    }
+
+    private void capture(PaymentCapture capture) {
+        capture.setAttempts(capture.getAttempts() + 1);
+        try {
+            GatewayPayment payment = paymentGateway.capture(capture.getAuthorizationId());
+            if (!payment.isCaptured()) {
+                throw new PaymentGatewayException("Payment " + capture.getPaymentId() + " was not captured");
+            }
+            capture.setStatus(PaymentCaptureStatus.CAPTURED);
+            capture.setCapturedAt(Instant.now());
+            record(capture, "capture_", "payment.captured", PaymentStatus.PAID);
+            captured.incrementAndGet();
+        } catch (PaymentDeclinedException e) {
+            giveUp(capture, e.getDeclineCode());
+        } catch (PaymentGatewayException e) {
+            log.warn("Could not capture payment {}, attempt {}: {}",
+                    capture.getPaymentId(), capture.getAttempts(), e.getMessage());
+            if (capture.getAttempts() >= maxAttempts) {
+                giveUp(capture, e.getMessage());
+            } else {
+                capture.setStatus(PaymentCaptureStatus.PENDING);
+                capture.setCaptureAfter(Instant.now().plus(retryDelay.multipliedBy(capture.getAttempts())));
+            }
+        }
+    }
+
+    //claims the hold first, so a confirmation or capture racing with it either wins or finds it released
+    private void cancel(PaymentCapture capture, Set<PaymentCaptureStatus> held) {
+        if (paymentCaptureRepository.cancel(capture.getPaymentId(), held, PaymentCaptureStatus.CANCELLED,
+                Instant.now()) == 0) {
+            return;
+        }
+        try {
+            paymentGateway.cancel(capture.getAuthorizationId());
+        } catch (PaymentGatewayException e) {
+            log.warn("Could not release payment {}, the hold lapses on its own: {}",
+                    capture.getPaymentId(), e.getMessage());
+        }
+        record(capture, "release_", "payment.released", PaymentStatus.EXPIRED);
+    }
+
+    private PaymentCapture getCapture(String paymentId, String userId) {
+        PaymentCapture capture = paymentCaptureRepository.findById(paymentId)
+                .orElseThrow(() -> new RunTimeExceptionPlaceHolder("Payment capture doesn't exist!!"));
+        if (!capture.getUserId().equals(userId)) {
+            throw new RunTimeExceptionPlaceHolder("UnAuthorized!!");
+        }
+        return capture;
+    }
+
+    private void giveUp(PaymentCapture capture, String reason) {
+        log.error("Gave up capturing payment {}: {}", capture.getPaymentId(), reason);
+        capture.setStatus(PaymentCaptureStatus.FAILED);
+        capture.setFailureReason(reason);
+        failed.incrementAndGet();
+    }
+
+    //appends the new status of the payment to the payment status feed
+    private void record(PaymentCapture capture, String eventIdPrefix, String eventType, PaymentStatus paymentStatus) {
+        //a capture retried after its claim ran out may find its event already recorded
+        String eventId = eventIdPrefix + capture.getPaymentId();
+        if (paymentEventRepository.existsByEventId(eventId)) {
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            paymentEventRepository.save(PaymentEvent.builder()
+                    .eventId(eventId)
+                    .eventType(eventType)
+                    .payload("{\"payment_id\":\"" + capture.getPaymentId() + "\"}")
+                    .status(PaymentEventStatus.PROCESSED)
+                    .attempts(1)
+                    .paymentId(capture.getPaymentId())
+                    .paymentStatus(paymentStatus)
+                    .occurredAt(now)
+                    .receivedAt(now)
+                    .processedAt(now)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Event {} was recorded concurrently", eventId);
+        }
+    }
+
+    //spaces the captures 1/captures-per-second apart, false when interrupted by a shutdown
+    private boolean pace() {
+        long wait = nextCaptureAt - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        nextCaptureAt = Math.max(nextCaptureAt, System.nanoTime()) + (long) (TimeUnit.SECONDS.toNanos(1) / capturesPerSecond);
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorepaymentservice.repository.PaymentEventRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentMethodRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEvent;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEventStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.model.Charge;
+import com.stripe.model.Dispute;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.PaymentMethod;
+import com.stripe.model.StripeObject;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works off the queued payment gateway events, a batch of the oldest pending ones at a time. Every
+ * instance runs this, each event is claimed before it is processed and saved right after, so an
+ * event is processed by one instance at a time and a failure loses no other event's result.
+ *
+ * Charge and dispute events record the status the charge moved to, which the payment status feed
+ * hands to the order service. Payment method events sync the customer's cards again. Other events
+ * are marked processed without a status. An event that keeps failing is given up after
+ * {@code max-attempts} tries.
+ */
+@Component
+@Slf4j
+public class PaymentEventProcessor implements MeterBinder {
+
+    //well past the connect and read timeouts of the gateway calls syncing the cards
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+
+    @Autowired
+    private PaymentEventRepository paymentEventRepository;
+
+    @Autowired
+    private UserPaymentCustomerRepository userPaymentCustomerRepository;
+
+    @Autowired
+    private UserPaymentMethodRepository userPaymentMethodRepository;
+
+    @Autowired
+    private PaymentMethodSynchronizer paymentMethodSynchronizer;
+
+    @Value("${payment.events.max-attempts:5}")
+    private int maxAttempts;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Processes up to {@code batchSize} pending events in the order they were received and returns
+     * how many were tried.
+     */
+    public int processBatch(int batchSize) {
+        List<PaymentEvent> events = paymentEventRepository
+                .findUnclaimed(PaymentEventStatus.PENDING, Instant.now(), PageRequest.of(0, batchSize));
+
+        int tried = 0;
+        for (PaymentEvent event : events) {
+            if (!claim(event)) {
+                continue;
+            }
+            event.setAttempts(event.getAttempts() + 1);
+            try {
+                process(event);
+                event.setStatus(PaymentEventStatus.PROCESSED);
+                event.setProcessedAt(Instant.now());
+                processed.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.warn("Could not process payment event {} ({}), attempt {}: {}",
+                        event.getEventId(), event.getEventType(), event.getAttempts(), e.getMessage());
+                if (event.getAttempts() >= maxAttempts) {
+                    event.setStatus(PaymentEventStatus.FAILED);
+                    event.setProcessedAt(Instant.now());
+                    failed.incrementAndGet();
+                } else {
+                    event.setClaimedUntil(null);
+                }
+            }
+            paymentEventRepository.save(event);
+            tried++;
+        }
+        return tried;
+    }
+
+    /**
+     * Drops processed and failed events received before {@code retention} ago.
+     */
+    public int purge(Duration retention) {
+        return paymentEventRepository.deleteDoneBefore(PaymentEventStatus.PENDING, Instant.now().minus(retention));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("payment.events.lag", this, TimeUnit.MILLISECONDS, PaymentEventProcessor::lagMillis)
+                .description("How long the oldest pending payment gateway event has been waiting")
+                .register(registry);
+        FunctionCounter.builder("payment.events.processed", processed, AtomicLong::doubleValue)
+                .description("Payment gateway events processed")
+                .register(registry);
+        FunctionCounter.builder("payment.events.failed", failed, AtomicLong::doubleValue)
+                .description("Payment gateway events given up after the maximum attempts")
+                .register(registry);
+    }
+
+    double lagMillis() {
+        PaymentEvent oldest = paymentEventRepository.findFirstByStatusOrderByIdAsc(PaymentEventStatus.PENDING);
+        return oldest == null ? 0 : Math.max(0, Instant.now().toEpochMilli() - oldest.getReceivedAt().toEpochMilli());
+    }
+
+    //holds the event for CLAIM_TIMEOUT, after that it is pending again e.g. when this instance stopped mid event
+    private boolean claim(PaymentEvent event) {
+        Instant now = Instant.now();
+        Instant until = now.plus(CLAIM_TIMEOUT);
+        if (paymentEventRepository.claim(event.getId(), PaymentEventStatus.PENDING, now, until) == 0) {
+            return false;
+        }
+        event.setClaimedUntil(until);
+        return true;
+    }
+
+    private void process(PaymentEvent event) {
+        Event stripeEvent = ApiResource.GSON.fromJson(event.getPayload(), Event.class);
+
+        switch (stripeEvent.getType()) {
+            case "charge.succeeded":
+                Charge succeeded = (Charge) dataObject(stripeEvent);
+                record(event, succeeded.getId(),
+                        Boolean.TRUE.equals(succeeded.getCaptured()) ? PaymentStatus.PAID : PaymentStatus.AUTHORIZED);
+                break;
+            case "charge.captured":
+                record(event, ((Charge) dataObject(stripeEvent)).getId(), PaymentStatus.PAID);
+                break;
+            case "charge.refunded":
+                Charge refunded = (Charge) dataObject(stripeEvent);
+                record(event, refunded.getId(),
+                        Boolean.TRUE.equals(refunded.getRefunded()) ? PaymentStatus.REFUNDED : PaymentStatus.PARTIALLY_REFUNDED);
+                break;
+            case "charge.failed":
+                record(event, ((Charge) dataObject(stripeEvent)).getId(), PaymentStatus.FAILED);
+                break;
+            case "charge.expired":
+                record(event, ((Charge) dataObject(stripeEvent)).getId(), PaymentStatus.EXPIRED);
+                break;
+            case "charge.dispute.created":
+                record(event, ((Dispute) dataObject(stripeEvent)).getCharge(), PaymentStatus.DISPUTED);
+                break;
+            case "payment_method.attached":
+            case "payment_method.detached":
+            case "payment_method.updated":
+            case "payment_method.automatically_updated":
+                syncPaymentMethods((PaymentMethod) dataObject(stripeEvent));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void record(PaymentEvent event, String paymentId, PaymentStatus status) {
+        event.setPaymentId(paymentId);
+        event.setPaymentStatus(status);
+    }
+
+    //a detached card no longer names its customer, the stored copy of the card still does
+    private void syncPaymentMethods(PaymentMethod paymentMethod) {
+        String customerId = paymentMethod.getCustomer();
+        if (customerId == null) {
+            customerId = userPaymentMethodRepository.findById(paymentMethod.getId())
+                    .map(UserPaymentMethod::getPaymentCustomerId)
+                    .orElse(null);
+        }
+        UserPaymentCustomer customer = customerId != null
+                ? userPaymentCustomerRepository.findByPaymentCustomerId(customerId) : null;
+        if (customer != null) {
+            paymentMethodSynchronizer.sync(customer);
+        }
+    }
+
+    private static StripeObject dataObject(Event event) {
+        EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+        if (deserializer.getObject().isPresent()) {
+            return deserializer.getObject().get();
+        }
+        //sent with another api version than the library's, the fields read here are the same in both
+        try {
+            return deserializer.deserializeUnsafe();
+        } catch (EventDataObjectDeserializationException e) {
+            throw new IllegalStateException("Cannot read the data of event " + event.getId(), e);
+        }
+    }
+}
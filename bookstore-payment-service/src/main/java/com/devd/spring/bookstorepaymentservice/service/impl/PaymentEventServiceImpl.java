@@ -0,0 +1,84 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.repository.PaymentEventRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEvent;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEventStatus;
+import com.devd.spring.bookstorepaymentservice.service.PaymentEventService;
+import com.devd.spring.bookstorepaymentservice.web.PaymentStatusChange;
+import com.google.gson.JsonParseException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stripe webhooks are only verified and appended to the PAYMENT_EVENT table here, so Stripe gets
+ * its answer right away; {@link PaymentEventProcessor} works the events off in batches.
+ */
+@Service
+@Slf4j
+public class PaymentEventServiceImpl implements PaymentEventService {
+
+    private static final int MAX_FEED_PAGE = 500;
+
+    @Autowired
+    private PaymentEventRepository paymentEventRepository;
+
+    @Value("${payment.webhook.stripe.signing-secret:}")
+    private String signingSecret;
+
+    @Override
+    public void receiveStripeEvent(String payload, String signature) {
+        if (!StringUtils.hasText(signingSecret)) {
+            throw new RunTimeExceptionPlaceHolder("Stripe webhooks are not configured");
+        }
+
+        Event event;
+        try {
+            event = Webhook.constructEvent(payload, signature, signingSecret);
+        } catch (SignatureVerificationException | JsonParseException e) {
+            log.warn("Rejected Stripe webhook: {}", e.getMessage());
+            throw new RunTimeExceptionPlaceHolder("Invalid Stripe webhook");
+        }
+
+        //stripe delivers at least once, a retried delivery is acknowledged without queueing it again
+        if (paymentEventRepository.existsByEventId(event.getId())) {
+            return;
+        }
+        try {
+            paymentEventRepository.save(PaymentEvent.builder()
+                    .eventId(event.getId())
+                    .eventType(event.getType())
+                    .payload(payload)
+                    .status(PaymentEventStatus.PENDING)
+                    .occurredAt(Instant.ofEpochSecond(event.getCreated()))
+                    .receivedAt(Instant.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Stripe event {} was queued by a concurrent delivery", event.getId());
+        }
+    }
+
+    @Override
+    public List<PaymentStatusChange> getPaymentStatusChanges(long after, int limit) {
+        PaymentEvent firstPending = paymentEventRepository.findFirstByStatusOrderByIdAsc(PaymentEventStatus.PENDING);
+        long before = firstPending != null ? firstPending.getId() : Long.MAX_VALUE;
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE));
+        return paymentEventRepository.findPaymentStatusChanges(after, before, PageRequest.of(0, pageSize))
+                .stream()
+                .map(PaymentEvent::toPaymentStatusChange)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,26 +1,26 @@
 package com.devd.spring.bookstorepaymentservice.service.impl;
 
 import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.gateway.GatewayPaymentMethod;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayException;
 import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentMethodRepository;
 import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
 import com.devd.spring.bookstorepaymentservice.service.PaymentMethodService;
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentMethodRequest;
 import com.devd.spring.bookstorepaymentservice.web.GetPaymentMethodResponse;
-import com.stripe.Stripe;
-import com.stripe.exception.StripeException;
-import com.stripe.model.Customer;
-import com.stripe.model.PaymentMethod;
-import com.stripe.model.PaymentMethodCollection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.devd.spring.bookstorecommons.util.CommonUtilityMethods.getUserIdFromToken;
 import static com.devd.spring.bookstorecommons.util.CommonUtilityMethods.getUserNameFromToken;
@@ -35,6 +35,15 @@ public class PaymentMethodServiceImpl implements PaymentMethodService {
     @Autowired
     private UserPaymentCustomerRepository userPaymentCustomerRepository;
 
+    @Autowired
+    private UserPaymentMethodRepository userPaymentMethodRepository;
+
+    @Autowired
+    private PaymentMethodSynchronizer paymentMethodSynchronizer;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
     public PaymentMethodServiceImpl() {
     }
 
@@ -47,26 +56,28 @@ public class PaymentMethodServiceImpl implements PaymentMethodService {
 
         UserPaymentCustomer paymentCustomer = userPaymentCustomerRepository.findByUserId(userIdFromToken);
 
-        String customerId;
         if (paymentCustomer == null) {
-            // Create Customer at stripe end;
-            customerId = createCustomerAtStripe();
+            // Create Customer at the payment gateway;
+            String customerId = createPaymentCustomer(userIdFromToken);
             // save
             UserPaymentCustomer userPaymentCustomer = new UserPaymentCustomer();
             userPaymentCustomer.setUserId(userIdFromToken);
             userPaymentCustomer.setUserName(userNameFromToken);
             userPaymentCustomer.setPaymentCustomerId(customerId);
-            userPaymentCustomerRepository.save(userPaymentCustomer);
-        } else {
-            customerId = paymentCustomer.getPaymentCustomerId();
+            //a new customer has no other payment methods, nothing to sync
+            userPaymentCustomer.setPaymentMethodsSyncedAt(Instant.now());
+            paymentCustomer = userPaymentCustomerRepository.save(userPaymentCustomer);
         }
 
         // create Payment Method
-        String paymentMethod = createPaymentMethodAtStripe(createPaymentMethodRequest);
+        String paymentMethod = createPaymentMethodAtGateway(createPaymentMethodRequest);
 
         // link customer and Payment Method
-        linkCustomerAndPaymentMethod(paymentMethod, customerId);
+        GatewayPaymentMethod attachedPaymentMethod = linkCustomerAndPaymentMethod(paymentMethod,
+                paymentCustomer.getPaymentCustomerId());
 
+        // keep the card display fields, reads are served from them
+        paymentMethodSynchronizer.save(paymentCustomer, attachedPaymentMethod);
     }
 
     @Override
@@ -75,29 +86,16 @@ public class PaymentMethodServiceImpl implements PaymentMethodService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userIdFromToken = getUserIdFromToken(authentication);
 
-        List<GetPaymentMethodResponse> list = new ArrayList<>();
-
         UserPaymentCustomer paymentCustomer = userPaymentCustomerRepository.findByUserId(userIdFromToken);
 
-        if (paymentCustomer != null) {
-            PaymentMethodCollection paymentMethods = getAllPaymentMethodsForCustomerFromStripe(
-                    paymentCustomer.getPaymentCustomerId());
-
-            paymentMethods.getData().forEach(pm -> {
-                GetPaymentMethodResponse getPaymentMethodResponse = GetPaymentMethodResponse.builder()
-                        .paymentMethodId(pm.getId())
-                        .cardCountry(pm.getCard().getCountry())
-                        .cardExpirationMonth(pm.getCard().getExpMonth())
-                        .cardExpirationYear(pm.getCard().getExpYear())
-                        .cardLast4Digits(pm.getCard().getLast4())
-                        .cardType(pm.getCard().getBrand())
-                        .build();
-
-                list.add(getPaymentMethodResponse);
-            });
+        if (paymentCustomer == null) {
+            return new ArrayList<>();
         }
 
-        return list;
+        return getPaymentMethods(paymentCustomer)
+                .stream()
+                .map(UserPaymentMethod::toGetPaymentMethodResponse)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -108,61 +106,37 @@ public class PaymentMethodServiceImpl implements PaymentMethodService {
 
         UserPaymentCustomer paymentCustomer = userPaymentCustomerRepository.findByUserId(userIdFromToken);
 
-        try {
-            PaymentMethod paymentMethod = PaymentMethod.retrieve(paymentMethodId);
-
-            if (!paymentCustomer.getPaymentCustomerId().equals(paymentMethod.getCustomer())) {
-                throw new RunTimeExceptionPlaceHolder("PaymentMethod doesn't belong to this User");
-            }
-            GetPaymentMethodResponse getPaymentMethodResponse = GetPaymentMethodResponse.builder()
-                    .paymentMethodId(paymentMethod.getId())
-                    .cardCountry(paymentMethod.getCard().getCountry())
-                    .cardExpirationMonth(paymentMethod.getCard().getExpMonth())
-                    .cardExpirationYear(paymentMethod.getCard().getExpYear())
-                    .cardLast4Digits(paymentMethod.getCard().getLast4())
-                    .cardType(paymentMethod.getCard().getBrand())
-                    .build();
-            return getPaymentMethodResponse;
-        } catch (StripeException e) {
-            throw new RunTimeExceptionPlaceHolder("Error while fetching payment method.");
-        }
-    }
-
-    private PaymentMethodCollection getAllPaymentMethodsForCustomerFromStripe(String paymentCustomerId) {
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("customer", paymentCustomerId);
-        params.put("type", "card");
-
-        try {
-            return PaymentMethod.list(params);
-        } catch (StripeException e) {
-            throw new RunTimeExceptionPlaceHolder("Error while retrieving customer.");
+        if (paymentCustomer == null) {
+            throw new RunTimeExceptionPlaceHolder("PaymentMethod doesn't belong to this User");
         }
 
+        return getPaymentMethods(paymentCustomer)
+                .stream()
+                .filter(paymentMethod -> paymentMethod.getPaymentMethodId().equals(paymentMethodId))
+                .findAny()
+                .map(UserPaymentMethod::toGetPaymentMethodResponse)
+                .orElseThrow(() -> new RunTimeExceptionPlaceHolder("PaymentMethod doesn't belong to this User"));
     }
 
-    private void linkCustomerAndPaymentMethod(String paymentMethodId, String customerId) {
-
-        PaymentMethod paymentMethod = null;
-        try {
-            paymentMethod = PaymentMethod.retrieve(paymentMethodId);
-        } catch (StripeException e) {
-            throw new RunTimeExceptionPlaceHolder("Error while retrieving payment method.");
+    //customers from before the local copy existed are listed at the gateway once, on their first read
+    private List<UserPaymentMethod> getPaymentMethods(UserPaymentCustomer paymentCustomer) {
+        if (paymentCustomer.getPaymentMethodsSyncedAt() == null) {
+            return paymentMethodSynchronizer.sync(paymentCustomer);
         }
+        return userPaymentMethodRepository.findByUserId(paymentCustomer.getUserId());
+    }
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("customer", customerId);
+    private GatewayPaymentMethod linkCustomerAndPaymentMethod(String paymentMethodId, String customerId) {
 
         try {
-            PaymentMethod updatedPaymentMethod = paymentMethod.attach(params);
-        } catch (StripeException e) {
+            return paymentGateway.attachPaymentMethod(paymentMethodId, customerId);
+        } catch (PaymentGatewayException e) {
             throw new RunTimeExceptionPlaceHolder("Error while attaching payment method.");
         }
 
     }
 
-    private String createPaymentMethodAtStripe(CreatePaymentMethodRequest createPaymentMethodRequest) {
+    private String createPaymentMethodAtGateway(CreatePaymentMethodRequest createPaymentMethodRequest) {
         // Validate card number
         String cardNumber = createPaymentMethodRequest.getCard().getCardNumber().replaceAll("\\s+", "");
         if (cardNumber.length() < 13 || cardNumber.length() > 19) {
@@ -191,45 +165,19 @@ public class PaymentMethodServiceImpl implements PaymentMethodService {
             throw new RunTimeExceptionPlaceHolder("Card has expired. Please enter a valid expiration date.");
         }
 
-        Map<String, Object> card = new HashMap<>();
-        card.put("number", cardNumber);
-        card.put("exp_month", expMonth);
-        card.put("exp_year", expYear);
-        card.put("cvc", createPaymentMethodRequest.getCard().getCvv());
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("type", "card");
-        params.put("card", card);
-
         try {
-            log.info("Creating payment method with params: {}", params);
-            PaymentMethod paymentMethod = PaymentMethod.create(params);
-            log.info("Successfully created payment method: {}", paymentMethod.getId());
-            return paymentMethod.getId();
-        } catch (StripeException e) {
-            log.error("Stripe error while creating payment method: {}", e.getMessage());
+            return paymentGateway.createPaymentMethod(cardNumber, expMonth, expYear,
+                    createPaymentMethodRequest.getCard().getCvv());
+        } catch (PaymentGatewayException e) {
             throw new RunTimeExceptionPlaceHolder("Error while setting up payment method: " + e.getMessage());
         }
     }
 
-    private String createCustomerAtStripe() {
-        // Check if Stripe API key is configured
-        if (Stripe.apiKey == null || Stripe.apiKey.isEmpty() || Stripe.apiKey.contains("your_stripe")) {
-            throw new RunTimeExceptionPlaceHolder(
-                    "Stripe API key is not configured. Please set STRIPE_API_KEY in your environment variables.");
-        }
-
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userIdFromToken = getUserIdFromToken(authentication);
-        Map<String, Object> params = new HashMap<>();
-        params.put(
-                "description",
-                "Creating Customer Account for UserId : " + userIdFromToken);
+    private String createPaymentCustomer(String userId) {
 
         try {
-            return Customer.create(params).getId();
-        } catch (StripeException e) {
-            log.error("Stripe API error while creating customer: {}", e.getMessage());
+            return paymentGateway.createCustomer("Creating Customer Account for UserId : " + userId);
+        } catch (PaymentGatewayException e) {
             throw new RunTimeExceptionPlaceHolder("Error while setting up payment customer: " + e.getMessage());
         }
 
@@ -0,0 +1,146 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.gateway.GatewayPaymentMethod;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayException;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentMethodRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the PAYMENT_METHOD table in line with the cards attached to each customer at the payment
+ * gateway, so the payment methods are read locally.
+ *
+ * A method attached through this service is stored right away. Customers are listed at the
+ * gateway again once their copy is older than the configured max age, which picks up cards
+ * detached, expired or changed there.
+ */
+@Component
+@Slf4j
+public class PaymentMethodSynchronizer {
+
+    @Autowired
+    private UserPaymentCustomerRepository userPaymentCustomerRepository;
+
+    @Autowired
+    private UserPaymentMethodRepository userPaymentMethodRepository;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    //the proxy, so each customer is stored in its own transaction
+    @Autowired
+    @Lazy
+    private PaymentMethodSynchronizer self;
+
+    public UserPaymentMethod save(UserPaymentCustomer customer, GatewayPaymentMethod paymentMethod) {
+        return userPaymentMethodRepository.save(toUserPaymentMethod(customer, paymentMethod));
+    }
+
+    /**
+     * Replaces the stored payment methods of the customer with the cards the gateway lists for it.
+     *
+     * The cards are listed before any transaction starts, so no connection or row lock is held
+     * across the gateway call.
+     */
+    public List<UserPaymentMethod> sync(UserPaymentCustomer customer) {
+        Instant listedAt = Instant.now();
+        List<GatewayPaymentMethod> listed;
+        try {
+            listed = paymentGateway.listPaymentMethods(customer.getPaymentCustomerId());
+        } catch (PaymentGatewayException e) {
+            throw new RunTimeExceptionPlaceHolder("Error while retrieving customer.");
+        }
+        return self.replace(customer, listed, listedAt);
+    }
+
+    /**
+     * Stores the cards listed at {@code listedAt} in place of the stored ones.
+     *
+     * Runs in one transaction holding the customer row, so a reader never sees the cards half
+     * replaced and a background sync and a first-read sync of the same customer do not interleave.
+     * A copy listed after {@code listedAt} and stored meanwhile is newer, it is kept.
+     */
+    @Transactional
+    public List<UserPaymentMethod> replace(UserPaymentCustomer customer, List<GatewayPaymentMethod> listed,
+                                           Instant listedAt) {
+        UserPaymentCustomer locked = userPaymentCustomerRepository.lockById(customer.getUserPaymentCustomerId());
+        if (locked != null) {
+            customer = locked;
+        }
+        if (customer.getPaymentMethodsSyncedAt() != null && customer.getPaymentMethodsSyncedAt().isAfter(listedAt)) {
+            return userPaymentMethodRepository.findByPaymentCustomerId(customer.getPaymentCustomerId());
+        }
+
+        List<UserPaymentMethod> paymentMethods = new ArrayList<>();
+        for (GatewayPaymentMethod paymentMethod : listed) {
+            paymentMethods.add(toUserPaymentMethod(customer, paymentMethod));
+        }
+
+        Set<String> attached = new HashSet<>();
+        paymentMethods.forEach(paymentMethod -> attached.add(paymentMethod.getPaymentMethodId()));
+        List<UserPaymentMethod> detached = new ArrayList<>();
+        userPaymentMethodRepository.findByPaymentCustomerId(customer.getPaymentCustomerId()).forEach(stored -> {
+            if (!attached.contains(stored.getPaymentMethodId())) {
+                detached.add(stored);
+            }
+        });
+
+        userPaymentMethodRepository.deleteAll(detached);
+        List<UserPaymentMethod> saved = userPaymentMethodRepository.saveAll(paymentMethods);
+        //when the cards were listed, not stored, so a copy listed earlier but stored later doesn't look newer
+        customer.setPaymentMethodsSyncedAt(listedAt);
+        userPaymentCustomerRepository.save(customer);
+        return saved;
+    }
+
+    /**
+     * Syncs up to {@code batchSize} customers whose copy is older than {@code maxAge}, least
+     * recently synced first, and returns how many were synced.
+     */
+    public int syncStale(Duration maxAge, int batchSize) {
+        List<UserPaymentCustomer> customers = userPaymentCustomerRepository
+                .findPaymentMethodsSyncedBefore(Instant.now().minus(maxAge), PageRequest.of(0, batchSize));
+
+        int synced = 0;
+        for (UserPaymentCustomer customer : customers) {
+            try {
+                self.sync(customer);
+                synced++;
+            } catch (RuntimeException e) {
+                log.warn("Could not sync the payment methods of customer {}: {}",
+                        customer.getPaymentCustomerId(), e.getMessage());
+            }
+        }
+        return synced;
+    }
+
+    private static UserPaymentMethod toUserPaymentMethod(UserPaymentCustomer customer,
+                                                         GatewayPaymentMethod paymentMethod) {
+        return UserPaymentMethod.builder()
+                .paymentMethodId(paymentMethod.getPaymentMethodId())
+                .userId(customer.getUserId())
+                .paymentCustomerId(customer.getPaymentCustomerId())
+                .cardType(paymentMethod.getCardType())
+                .cardLast4Digits(paymentMethod.getCardLast4Digits())
+                .cardExpirationMonth(paymentMethod.getCardExpirationMonth())
+                .cardExpirationYear(paymentMethod.getCardExpirationYear())
+                .cardCountry(paymentMethod.getCardCountry())
+                .build();
+    }
+}
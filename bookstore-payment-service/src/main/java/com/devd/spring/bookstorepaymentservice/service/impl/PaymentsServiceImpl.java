@@ -1,25 +1,34 @@
 package com.devd.spring.bookstorepaymentservice.service.impl;
 
 import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.gateway.GatewayPayment;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentBulkhead;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentDeclinedException;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayBusyException;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayException;
+import com.devd.spring.bookstorepaymentservice.repository.PaymentRequestRepository;
 import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentRequest;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentRequestStatus;
 import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
 import com.devd.spring.bookstorepaymentservice.service.PaymentsService;
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentRequest;
 import com.devd.spring.bookstorepaymentservice.web.CreatePaymentResponse;
-import com.stripe.exception.StripeException;
-import com.stripe.model.Charge;
-import com.stripe.model.PaymentIntent;
+import com.devd.spring.bookstorepaymentservice.web.PaymentRequestResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static com.devd.spring.bookstorecommons.util.CommonUtilityMethods.getUserIdFromToken;
 
@@ -27,47 +36,188 @@ import static com.devd.spring.bookstorecommons.util.CommonUtilityMethods.getUser
  * @author Devaraj Reddy, Date : 25-Jul-2020
  */
 @Service
+@Slf4j
 public class PaymentsServiceImpl implements PaymentsService {
 
+    private static final String DEFERRED_CAPTURE = "deferred";
+
     @Autowired
     private UserPaymentCustomerRepository userPaymentCustomerRepository;
 
+    @Autowired
+    private PaymentRequestRepository paymentRequestRepository;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private PaymentBulkhead paymentBulkhead;
+
+    @Autowired
+    private PaymentCaptureProcessor paymentCaptureProcessor;
+
+    @Value("${payment.capture.mode:immediate}")
+    private String captureMode;
+
+    @Override
+    public CompletableFuture<CreatePaymentResponse> createPaymentRequest(CreatePaymentRequest createPaymentRequest) {
+
+        UserPaymentCustomer customer = getCustomer();
+
+        String idempotencyKey = idempotencyKey(customer, createPaymentRequest,
+                createPaymentRequest.getIdempotencyKey());
+        return paymentBulkhead.call(() -> charge(customer,
+                createPaymentRequest.getPaymentMethodId(), createPaymentRequest.getAmount(),
+                createPaymentRequest.getCurrency(), idempotencyKey))
+                .handle((payment, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        if (cause instanceof PaymentGatewayException) {
+                            cause.printStackTrace();
+                            throw new RunTimeExceptionPlaceHolder("Error while doing payment!!");
+                        }
+                        throw failure instanceof CompletionException
+                                ? (CompletionException) failure : new CompletionException(failure);
+                    }
+                    CreatePaymentResponse createPaymentResponse = new CreatePaymentResponse();
+
+                    if (payment.isCaptured()) {
+                        createPaymentResponse.setPaymentId(payment.getPaymentId());
+                        LocalDateTime paymentTime = LocalDateTime.ofInstant(payment.getPaidAt(), TimeZone.getDefault().toZoneId());
+                        createPaymentResponse.setPaymentDate(paymentTime);
+                        createPaymentResponse.setCaptured(true);
+                        createPaymentResponse.setReceipt_url(payment.getReceiptUrl());
+                    } else if (payment.getAuthorizationId() != null) {
+                        createPaymentResponse.setPaymentId(payment.getPaymentId());
+                        createPaymentResponse.setCaptured(false);
+                        createPaymentResponse.setAuthorized(true);
+                    } else {
+                        createPaymentResponse.setCaptured(false);
+                    }
+                    return createPaymentResponse;
+                });
+    }
+
+    @Override
+    public PaymentRequestResponse createPaymentRequestAsync(CreatePaymentRequest createPaymentRequest) {
+
+        UserPaymentCustomer customer = getCustomer();
+        PaymentRequest paymentRequest = paymentRequestRepository.save(PaymentRequest.builder()
+                .userId(customer.getUserId())
+                .paymentMethodId(createPaymentRequest.getPaymentMethodId())
+                .amount(createPaymentRequest.getAmount())
+                .currency(createPaymentRequest.getCurrency())
+                .status(PaymentRequestStatus.PENDING)
+                .build());
+
+        //without a key of the caller the request id still keeps a retried gateway call from charging twice
+        String idempotencyKey = idempotencyKey(customer, createPaymentRequest,
+                createPaymentRequest.getIdempotencyKey() != null
+                        ? createPaymentRequest.getIdempotencyKey() : paymentRequest.getPaymentRequestId());
+        try {
+            paymentBulkhead.submit(() -> charge(customer, paymentRequest.getPaymentMethodId(),
+                    paymentRequest.getAmount(), paymentRequest.getCurrency(), idempotencyKey))
+                    .whenComplete((payment, failure) -> {
+                        try {
+                            complete(paymentRequest.getPaymentRequestId(), payment, failure);
+                        } catch (RuntimeException e) {
+                            //left PENDING, expirePaymentRequests marks it UNKNOWN later
+                            log.error("Could not record the outcome of payment request {}",
+                                    paymentRequest.getPaymentRequestId(), e);
+                        }
+                    });
+        } catch (PaymentGatewayBusyException e) {
+            paymentRequestRepository.delete(paymentRequest);
+            throw e;
+        }
+        return paymentRequest.toPaymentRequestResponse();
+    }
+
     @Override
-    public CreatePaymentResponse createPaymentRequest(CreatePaymentRequest createPaymentRequest) {
+    public PaymentRequestResponse getPaymentRequest(String paymentRequestId) {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userIdFromToken = getUserIdFromToken(authentication);
-        UserPaymentCustomer customer = userPaymentCustomerRepository.findByUserId(userIdFromToken);
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("amount", createPaymentRequest.getAmount());
-        params.put("currency", createPaymentRequest.getCurrency());
-        params.put("payment_method", createPaymentRequest.getPaymentMethodId());
-        params.put("customer", customer.getPaymentCustomerId());
-        params.put("confirm", true);
+        PaymentRequest paymentRequest = paymentRequestRepository.findById(paymentRequestId)
+                .orElseThrow(() -> new RunTimeExceptionPlaceHolder("Payment request doesn't exist!!"));
+        if (!paymentRequest.getUserId().equals(userIdFromToken)) {
+            throw new RunTimeExceptionPlaceHolder("UnAuthorized!!");
+        }
+        return paymentRequest.toPaymentRequestResponse();
+    }
 
-        try {
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
-            CreatePaymentResponse createPaymentResponse = new CreatePaymentResponse();
-
-            Optional<Charge> paidRecord = paymentIntent.getCharges().getData().stream().filter(Charge::getPaid).findAny();
-
-            if (paidRecord.isPresent()) {
-                createPaymentResponse.setPaymentId(paidRecord.get().getId());
-                LocalDateTime paymentTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(paidRecord.get().getCreated()), TimeZone.getDefault().toZoneId());
-                createPaymentResponse.setPaymentDate(paymentTime);
-                createPaymentResponse.setCaptured(true);
-                createPaymentResponse.setReceipt_url(paidRecord.get().getReceiptUrl());
-                return createPaymentResponse;
-            } else {
-                createPaymentResponse.setCaptured(false);
-                return createPaymentResponse;
-            }
-
-        } catch (StripeException e) {
-            e.printStackTrace();
-            throw new RunTimeExceptionPlaceHolder("Error while doing payment!!");
+    @Override
+    public void confirmCapture(String paymentId) {
+        paymentCaptureProcessor.confirm(paymentId, getUserIdFromToken(SecurityContextHolder.getContext().getAuthentication()));
+    }
+
+    @Override
+    public void releaseAuthorization(String paymentId) {
+        paymentCaptureProcessor.release(paymentId, getUserIdFromToken(SecurityContextHolder.getContext().getAuthentication()));
+    }
+
+    @Override
+    public int expirePaymentRequests(Duration maxAge) {
+        Instant now = Instant.now();
+        return paymentRequestRepository.updatePendingCreatedBefore(PaymentRequestStatus.PENDING, now.minus(maxAge),
+                PaymentRequestStatus.UNKNOWN, "Payment outcome not recorded, check the payment gateway", now);
+    }
+
+    //in deferred mode checkout only holds the amount on the card, PaymentCaptureProcessor captures it once the order confirmed it
+    private GatewayPayment charge(UserPaymentCustomer customer, String paymentMethodId, long amount, String currency,
+                                  String idempotencyKey) {
+        if (!DEFERRED_CAPTURE.equals(captureMode)) {
+            return paymentGateway.pay(customer.getPaymentCustomerId(), paymentMethodId, amount, currency,
+                    idempotencyKey);
+        }
+        GatewayPayment payment = paymentGateway.authorize(customer.getPaymentCustomerId(), paymentMethodId, amount,
+                currency, idempotencyKey);
+        if (payment.getAuthorizationId() != null) {
+            paymentCaptureProcessor.hold(customer.getUserId(), payment, amount, currency);
         }
+        return payment;
+    }
+
+    //gateway keys are shared by all users, and a changed amount or card is another payment, not a retry
+    private static String idempotencyKey(UserPaymentCustomer customer, CreatePaymentRequest createPaymentRequest,
+                                         String key) {
+        if (key == null) {
+            return null;
+        }
+        return String.join("_", "pay", customer.getUserId(), key, createPaymentRequest.getPaymentMethodId(),
+                String.valueOf(createPaymentRequest.getAmount()), createPaymentRequest.getCurrency());
+    }
 
+    private UserPaymentCustomer getCustomer() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userIdFromToken = getUserIdFromToken(authentication);
+        return userPaymentCustomerRepository.findByUserId(userIdFromToken);
+    }
+
+    //runs on the payment pool once the gateway answered
+    private void complete(String paymentRequestId, GatewayPayment payment, Throwable failure) {
+        PaymentRequest paymentRequest = paymentRequestRepository.findById(paymentRequestId).orElse(null);
+        if (paymentRequest == null) {
+            log.warn("Payment request {} disappeared before its payment completed", paymentRequestId);
+            return;
+        }
+
+        Throwable cause = failure != null && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause == null) {
+            paymentRequest.setStatus(PaymentRequestStatus.COMPLETED);
+            paymentRequest.setCaptured(payment.isCaptured());
+            paymentRequest.setPaymentId(payment.getPaymentId());
+            paymentRequest.setPaidAt(payment.getPaidAt());
+            paymentRequest.setReceiptUrl(payment.getReceiptUrl());
+        } else if (cause instanceof PaymentDeclinedException) {
+            paymentRequest.setStatus(PaymentRequestStatus.DECLINED);
+            paymentRequest.setFailureReason(((PaymentDeclinedException) cause).getDeclineCode());
+        } else {
+            log.error("Payment request {} failed: {}", paymentRequestId, cause.getMessage());
+            paymentRequest.setStatus(PaymentRequestStatus.FAILED);
+            paymentRequest.setFailureReason("Error while doing payment!!");
+        }
+        paymentRequestRepository.save(paymentRequest);
     }
 }
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 /**
  * @author Devaraj Reddy - 17-Dec-2020
@@ -19,5 +20,8 @@ public class CreatePaymentRequest {
     private String currency;
     @NotBlank
     private String paymentMethodId;
+    //optional, a retry with the same key gets the first payment back instead of a second charge
+    @Size(max = 100)
+    private String idempotencyKey;
 
 }
@@ -19,4 +19,5 @@ public class CreatePaymentResponse {
     private LocalDateTime paymentDate;
     private boolean captured;
     private String receipt_url;
+    private boolean authorized;
 }
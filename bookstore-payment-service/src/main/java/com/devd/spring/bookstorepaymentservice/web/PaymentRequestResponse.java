@@ -0,0 +1,26 @@
+package com.devd.spring.bookstorepaymentservice.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An asynchronous payment, {@code status} is PENDING until it completed, was declined or failed, or UNKNOWN
+ * when its outcome was never recorded.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaymentRequestResponse {
+    private String paymentRequestId;
+    private String status;
+    private String paymentId;
+    private LocalDateTime paymentDate;
+    private boolean captured;
+    private String receipt_url;
+    private String failureReason;
+}
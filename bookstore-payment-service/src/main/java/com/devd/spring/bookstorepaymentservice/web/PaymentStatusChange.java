@@ -0,0 +1,22 @@
+package com.devd.spring.bookstorepaymentservice.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An entry of the payment status feed, {@code id} increases along the feed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaymentStatusChange {
+    private long id;
+    private String paymentId;
+    private String status;
+    private Instant occurredAt;
+}
@@ -0,0 +1,19 @@
+-- local copy of the cards attached at Stripe, only what is shown to the user; reads never go to Stripe
+CREATE TABLE IF NOT EXISTS PAYMENT_METHOD (
+  PAYMENT_METHOD_ID VARCHAR(255) NOT NULL,
+  USER_ID VARCHAR(255) NOT NULL,
+  PAYMENT_CUSTOMER_ID VARCHAR(255) NOT NULL,
+  CARD_TYPE VARCHAR(50),
+  CARD_LAST4_DIGITS VARCHAR(4),
+  CARD_EXPIRATION_MONTH BIGINT,
+  CARD_EXPIRATION_YEAR BIGINT,
+  CARD_COUNTRY VARCHAR(2),
+  CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UPDATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (PAYMENT_METHOD_ID)
+);
+CREATE INDEX PAYMENT_METHOD_USER_ID_INDEX ON PAYMENT_METHOD (USER_ID);
+
+-- when the payment methods of the customer were last listed at Stripe, NULL until the first sync
+ALTER TABLE USER_PAYMENT_CUSTOMER ADD COLUMN PAYMENT_METHODS_SYNCED_AT TIMESTAMP NULL;
+CREATE INDEX USER_PAYMENT_CUSTOMER_SYNCED_AT_INDEX ON USER_PAYMENT_CUSTOMER (PAYMENT_METHODS_SYNCED_AT);
@@ -0,0 +1,18 @@
+-- payments queued through POST /pay/async, polled by id until they leave PENDING
+CREATE TABLE IF NOT EXISTS PAYMENT_REQUEST (
+  ID VARCHAR(255) NOT NULL,
+  USER_ID VARCHAR(255) NOT NULL,
+  PAYMENT_METHOD_ID VARCHAR(255) NOT NULL,
+  AMOUNT BIGINT NOT NULL,
+  CURRENCY VARCHAR(3) NOT NULL,
+  STATUS VARCHAR(20) NOT NULL,
+  CAPTURED BOOLEAN NOT NULL DEFAULT FALSE,
+  PAYMENT_ID VARCHAR(255),
+  PAID_AT TIMESTAMP NULL,
+  RECEIPT_URL VARCHAR(1024),
+  FAILURE_REASON VARCHAR(1024),
+  CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UPDATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (ID)
+);
+CREATE INDEX PAYMENT_REQUEST_USER_ID_INDEX ON PAYMENT_REQUEST (USER_ID);
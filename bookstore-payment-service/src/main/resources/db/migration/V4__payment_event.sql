@@ -0,0 +1,18 @@
+-- webhook events from Stripe, appended as received and worked off oldest first; ID is the order of the
+-- payment status feed the order service polls
+CREATE TABLE IF NOT EXISTS PAYMENT_EVENT (
+  ID BIGINT NOT NULL AUTO_INCREMENT,
+  EVENT_ID VARCHAR(255) NOT NULL UNIQUE,
+  EVENT_TYPE VARCHAR(100) NOT NULL,
+  PAYLOAD LONGTEXT NOT NULL,
+  STATUS VARCHAR(20) NOT NULL,
+  ATTEMPTS INT NOT NULL DEFAULT 0,
+  PAYMENT_ID VARCHAR(255),
+  PAYMENT_STATUS VARCHAR(30),
+  OCCURRED_AT TIMESTAMP NOT NULL,
+  RECEIVED_AT TIMESTAMP NOT NULL,
+  PROCESSED_AT TIMESTAMP NULL,
+  PRIMARY KEY (ID)
+);
+CREATE INDEX PAYMENT_EVENT_STATUS_INDEX ON PAYMENT_EVENT (STATUS, ID);
+CREATE INDEX PAYMENT_EVENT_RECEIVED_AT_INDEX ON PAYMENT_EVENT (RECEIVED_AT);
@@ -0,0 +1,17 @@
+-- payments authorized at checkout and captured later, in batches, once due or once the order is delivered
+CREATE TABLE IF NOT EXISTS PAYMENT_CAPTURE (
+  PAYMENT_ID VARCHAR(255) NOT NULL,
+  AUTHORIZATION_ID VARCHAR(255) NOT NULL,
+  USER_ID VARCHAR(255) NOT NULL,
+  AMOUNT BIGINT NOT NULL,
+  CURRENCY VARCHAR(3) NOT NULL,
+  STATUS VARCHAR(20) NOT NULL,
+  CAPTURE_AFTER TIMESTAMP NOT NULL,
+  ATTEMPTS INT NOT NULL DEFAULT 0,
+  CAPTURED_AT TIMESTAMP NULL,
+  FAILURE_REASON VARCHAR(1024),
+  CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UPDATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (PAYMENT_ID)
+);
+CREATE INDEX PAYMENT_CAPTURE_DUE_INDEX ON PAYMENT_CAPTURE (STATUS, CAPTURE_AFTER);
@@ -0,0 +1,2 @@
+-- an instance processing a pending event claims it until CLAIMED_UNTIL, so the others skip it
+ALTER TABLE PAYMENT_EVENT ADD COLUMN CLAIMED_UNTIL TIMESTAMP NULL;
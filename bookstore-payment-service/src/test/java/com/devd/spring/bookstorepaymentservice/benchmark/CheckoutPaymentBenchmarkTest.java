@@ -0,0 +1,117 @@
+package com.devd.spring.bookstorepaymentservice.benchmark;
+
+import com.devd.spring.bookstorepaymentservice.gateway.LatencyDistribution;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentBulkhead;
+import com.devd.spring.bookstorepaymentservice.gateway.SimulatedPaymentGateway;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.service.impl.PaymentsServiceImpl;
+import com.devd.spring.bookstorepaymentservice.web.CreatePaymentRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency of {@code PaymentsServiceImpl.createPaymentRequest} against the simulated payment
+ * gateway, Stripe-like latencies, 1% failures and 2% declines, with many checkouts at once.
+ *
+ * Skipped by default, run it with {@code mvn test -Dtest=CheckoutPaymentBenchmarkTest -Dbenchmark=true}.
+ * It prints the payments per second, the p50 and p99 latency and how many payments failed.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutPaymentBenchmarkTest {
+
+    private static final int PAYMENTS = 2_000;
+    private static final int THREADS = 64;
+
+    @Test
+    void checkoutPaymentLatency() throws Exception {
+        SimulatedPaymentGateway gateway = new SimulatedPaymentGateway(
+                new LatencyDistribution(Duration.ofMillis(80), Duration.ofMillis(400), Duration.ofSeconds(30)),
+                new LatencyDistribution(Duration.ofMillis(300), Duration.ofMillis(1500), Duration.ofSeconds(30)),
+                0.01, 0.02, new Random(1));
+        String customerId = gateway.createCustomer("benchmark");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, customerId);
+
+        UserPaymentCustomerRepository customers = mock(UserPaymentCustomerRepository.class);
+        when(customers.findByUserId("bench")).thenReturn(UserPaymentCustomer.builder()
+                .userId("bench").userName("bench").paymentCustomerId(customerId).build());
+        PaymentsServiceImpl paymentsService = new PaymentsServiceImpl();
+        ReflectionTestUtils.setField(paymentsService, "userPaymentCustomerRepository", customers);
+        ReflectionTestUtils.setField(paymentsService, "paymentGateway", gateway);
+        PaymentBulkhead bulkhead = new PaymentBulkhead(THREADS, PAYMENTS, Duration.ofSeconds(20));
+        ReflectionTestUtils.setField(paymentsService, "paymentBulkhead", bulkhead);
+
+        CreatePaymentRequest request = new CreatePaymentRequest(1000, "USD", paymentMethodId, null);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < PAYMENTS; i++) {
+            results.add(executor.submit(() -> {
+                signIn("bench");
+                long began = System.nanoTime();
+                try {
+                    paymentsService.createPaymentRequest(request).join();
+                    return System.nanoTime() - began;
+                } catch (RuntimeException e) {
+                    return -1L;
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        int failed = 0;
+        for (Future<Long> result : results) {
+            long latency = result.get();
+            if (latency < 0) {
+                failed++;
+            } else {
+                latencies.add(latency);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        bulkhead.shutdown();
+
+        Collections.sort(latencies);
+        System.out.printf("payments/s: %.1f, p50: %d ms, p99: %d ms, failed: %d of %d%n",
+                PAYMENTS / seconds,
+                TimeUnit.NANOSECONDS.toMillis(latencies.get(latencies.size() / 2)),
+                TimeUnit.NANOSECONDS.toMillis(latencies.get(latencies.size() * 99 / 100)),
+                failed, PAYMENTS);
+        assertThat(failed).isLessThan(PAYMENTS / 10);
+    }
+
+    private static void signIn(String userId) {
+        Map<String, String> details = new HashMap<>();
+        details.put("user_id", userId);
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken(userId, null);
+        user.setDetails(details);
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        SecurityContextHolder.getContext().setAuthentication(new OAuth2Authentication(request, user));
+    }
+}
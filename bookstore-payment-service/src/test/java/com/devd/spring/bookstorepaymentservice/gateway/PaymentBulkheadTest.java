@@ -0,0 +1,101 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentBulkheadTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PaymentBulkhead bulkhead;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void runsThePaymentOnThePool() throws Exception {
+        bulkhead = new PaymentBulkhead(1, 1, Duration.ofSeconds(5));
+
+        assertThat(bulkhead.call(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS)).startsWith("payment-");
+        assertThat(bulkhead.submit(() -> "paid").get(5, TimeUnit.SECONDS)).isEqualTo("paid");
+    }
+
+    @Test
+    void passesGatewayFailuresThrough() {
+        bulkhead = new PaymentBulkhead(1, 1, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> bulkhead.call(() -> {
+            throw new PaymentDeclinedException("declined", "insufficient_funds");
+        }).join()).hasCauseInstanceOf(PaymentDeclinedException.class);
+    }
+
+    @Test
+    void rejectsRightAwayWhenThePoolIsSaturated() {
+        //one payment running and one waiting, the next one is turned away
+        bulkhead = new PaymentBulkhead(1, 1, Duration.ofSeconds(5));
+        bulkhead.submit(this::awaitRelease);
+        bulkhead.submit(this::awaitRelease);
+
+        assertThatThrownBy(() -> bulkhead.submit(this::awaitRelease))
+                .isInstanceOf(PaymentGatewayBusyException.class);
+        assertThatThrownBy(() -> bulkhead.call(this::awaitRelease))
+                .isInstanceOf(PaymentGatewayBusyException.class);
+    }
+
+    @Test
+    void stopsWaitingAfterTheTimeoutWithoutClaimingThePaymentFailed() {
+        bulkhead = new PaymentBulkhead(1, 1, Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> bulkhead.call(this::awaitRelease).join())
+                .hasCauseInstanceOf(PaymentOutcomeUnknownException.class);
+    }
+
+    @Test
+    void doesNotStartAPaymentThatTimedOutInTheQueue() throws Exception {
+        bulkhead = new PaymentBulkhead(1, 1, Duration.ofMillis(50));
+        AtomicBoolean started = new AtomicBoolean();
+        bulkhead.submit(this::awaitRelease);
+
+        CompletableFuture<String> queued = bulkhead.call(() -> {
+            started.set(true);
+            return "paid";
+        });
+        assertThatThrownBy(queued::join).hasCauseInstanceOf(PaymentOutcomeUnknownException.class);
+        release.countDown();
+        bulkhead.submit(() -> "paid").get(5, TimeUnit.SECONDS);
+
+        assertThat(started).isFalse();
+    }
+
+    @Test
+    void returnsWithoutWaitingForThePayment() {
+        bulkhead = new PaymentBulkhead(1, 1, Duration.ofSeconds(5));
+
+        CompletableFuture<String> payment = bulkhead.call(this::awaitRelease);
+
+        assertThat(payment).isNotDone();
+        release.countDown();
+        assertThat(payment.join()).isEqualTo("paid");
+    }
+
+    private String awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "paid";
+    }
+}
@@ -0,0 +1,161 @@
+package com.devd.spring.bookstorepaymentservice.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimulatedPaymentGatewayTest {
+
+    private static final LatencyDistribution NO_LATENCY =
+            new LatencyDistribution(Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofMillis(1));
+
+    @Test
+    void paysWithAttachedCard() {
+        SimulatedPaymentGateway gateway = gateway(0, 0);
+        String customerId = gateway.createCustomer("test");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+
+        GatewayPaymentMethod attached = gateway.attachPaymentMethod(paymentMethodId, customerId);
+        GatewayPayment payment = gateway.pay(customerId, paymentMethodId, 1000, "USD", null);
+
+        assertThat(attached.getCardType()).isEqualTo("visa");
+        assertThat(attached.getCardLast4Digits()).isEqualTo("4242");
+        assertThat(gateway.listPaymentMethods(customerId))
+                .extracting(GatewayPaymentMethod::getPaymentMethodId)
+                .containsExactly(paymentMethodId);
+        assertThat(payment.isCaptured()).isTrue();
+        assertThat(payment.getPaymentId()).isNotBlank();
+    }
+
+    @Test
+    void capturesAnAuthorizedPaymentOnce() {
+        SimulatedPaymentGateway gateway = gateway(0, 0);
+        String customerId = gateway.createCustomer("test");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, customerId);
+
+        GatewayPayment authorized = gateway.authorize(customerId, paymentMethodId, 1000, "USD", null);
+        GatewayPayment captured = gateway.capture(authorized.getAuthorizationId());
+        GatewayPayment capturedAgain = gateway.capture(authorized.getAuthorizationId());
+
+        assertThat(authorized.isCaptured()).isFalse();
+        assertThat(captured.isCaptured()).isTrue();
+        assertThat(captured.getPaymentId()).isEqualTo(authorized.getPaymentId());
+        assertThat(capturedAgain.isCaptured()).isTrue();
+        assertThat(capturedAgain.getPaymentId()).isEqualTo(authorized.getPaymentId());
+    }
+
+    @Test
+    void doesNotCaptureACancelledAuthorization() {
+        SimulatedPaymentGateway gateway = gateway(0, 0);
+        String customerId = gateway.createCustomer("test");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, customerId);
+
+        GatewayPayment authorized = gateway.authorize(customerId, paymentMethodId, 1000, "USD", null);
+        gateway.cancel(authorized.getAuthorizationId());
+
+        assertThatThrownBy(() -> gateway.capture(authorized.getAuthorizationId()))
+                .isInstanceOf(PaymentGatewayException.class);
+    }
+
+    @Test
+    void answersARepeatedIdempotencyKeyWithTheFirstPayment() {
+        SimulatedPaymentGateway gateway = gateway(0, 0);
+        String customerId = gateway.createCustomer("test");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, customerId);
+
+        GatewayPayment first = gateway.pay(customerId, paymentMethodId, 1000, "USD", "checkout-1");
+        GatewayPayment repeated = gateway.pay(customerId, paymentMethodId, 1000, "USD", "checkout-1");
+        GatewayPayment other = gateway.pay(customerId, paymentMethodId, 1000, "USD", "checkout-2");
+
+        assertThat(repeated.getPaymentId()).isEqualTo(first.getPaymentId());
+        assertThat(other.getPaymentId()).isNotEqualTo(first.getPaymentId());
+    }
+
+    @Test
+    void declinesStripeDeclineTestCards() {
+        SimulatedPaymentGateway gateway = gateway(0, 0);
+        String customerId = gateway.createCustomer("test");
+        String paymentMethodId = gateway.createPaymentMethod("4000000000009995", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, customerId);
+
+        assertThatThrownBy(() -> gateway.pay(customerId, paymentMethodId, 1000, "USD", null))
+                .isInstanceOf(PaymentDeclinedException.class)
+                .extracting("declineCode")
+                .isEqualTo("insufficient_funds");
+    }
+
+    @Test
+    void rejectsPaymentMethodOfAnotherCustomer() {
+        SimulatedPaymentGateway gateway = gateway(0, 0);
+        String customerId = gateway.createCustomer("test");
+        String otherCustomerId = gateway.createCustomer("other");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, otherCustomerId);
+
+        assertThatThrownBy(() -> gateway.pay(customerId, paymentMethodId, 1000, "USD", null))
+                .isInstanceOf(PaymentGatewayException.class)
+                .isNotInstanceOf(PaymentDeclinedException.class);
+    }
+
+    @Test
+    void declinesAtTheConfiguredRate() {
+        SimulatedPaymentGateway gateway = gateway(0, 0.2);
+        String customerId = gateway.createCustomer("test");
+        String paymentMethodId = gateway.createPaymentMethod("4242424242424242", 12, 2030, 123);
+        gateway.attachPaymentMethod(paymentMethodId, customerId);
+
+        int declined = 0;
+        for (int i = 0; i < 2_000; i++) {
+            try {
+                gateway.pay(customerId, paymentMethodId, 1000, "USD", null);
+            } catch (PaymentDeclinedException e) {
+                declined++;
+            }
+        }
+
+        assertThat(declined / 2_000.0).isBetween(0.16, 0.24);
+    }
+
+    @Test
+    void failsAtTheConfiguredRate() {
+        SimulatedPaymentGateway gateway = gateway(0.1, 0);
+
+        int failed = 0;
+        for (int i = 0; i < 2_000; i++) {
+            try {
+                gateway.createCustomer("test");
+            } catch (PaymentGatewayException e) {
+                failed++;
+            }
+        }
+
+        assertThat(failed / 2_000.0).isBetween(0.07, 0.13);
+    }
+
+    @Test
+    void latencyFollowsMedianAndP99() {
+        LatencyDistribution latency =
+                new LatencyDistribution(Duration.ofMillis(100), Duration.ofMillis(1000), Duration.ofSeconds(30));
+        Random random = new Random(42);
+        long[] samples = new long[10_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = latency.sampleMillis(random);
+        }
+        Arrays.sort(samples);
+
+        assertThat(samples[samples.length / 2]).isBetween(90L, 110L);
+        assertThat(samples[samples.length * 99 / 100]).isBetween(800L, 1250L);
+    }
+
+    private static SimulatedPaymentGateway gateway(double failureRate, double declineRate) {
+        return new SimulatedPaymentGateway(NO_LATENCY, NO_LATENCY, failureRate, declineRate, new Random(7));
+    }
+}
@@ -0,0 +1,257 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.gateway.GatewayPayment;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentDeclinedException;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGatewayException;
+import com.devd.spring.bookstorepaymentservice.repository.PaymentCaptureRepository;
+import com.devd.spring.bookstorepaymentservice.repository.PaymentEventRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentCapture;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentCaptureStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEvent;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentCaptureProcessorTest {
+
+    private final PaymentCaptureRepository paymentCaptureRepository = mock(PaymentCaptureRepository.class);
+
+    private final PaymentEventRepository paymentEventRepository = mock(PaymentEventRepository.class);
+
+    private final PaymentGateway paymentGateway = mock(PaymentGateway.class);
+
+    private final PaymentCaptureProcessor processor = new PaymentCaptureProcessor();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(processor, "paymentCaptureRepository", paymentCaptureRepository);
+        ReflectionTestUtils.setField(processor, "paymentEventRepository", paymentEventRepository);
+        ReflectionTestUtils.setField(processor, "paymentGateway", paymentGateway);
+        ReflectionTestUtils.setField(processor, "delay", Duration.ofDays(3));
+        ReflectionTestUtils.setField(processor, "confirmWithin", Duration.ofHours(1));
+        ReflectionTestUtils.setField(processor, "capturesPerSecond", 1000d);
+        ReflectionTestUtils.setField(processor, "maxAttempts", 2);
+        ReflectionTestUtils.setField(processor, "retryDelay", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void capturesTheDuePaymentsAndRecordsThemAsPaid() {
+        PaymentCapture capture = capture("ch_1", "pi_1");
+        due(capture);
+        when(paymentGateway.capture("pi_1")).thenReturn(GatewayPayment.builder().paymentId("ch_1").captured(true).build());
+
+        assertThat(processor.captureDue(10)).isEqualTo(1);
+
+        assertThat(capture.getStatus()).isEqualTo(PaymentCaptureStatus.CAPTURED);
+        assertThat(capture.getCapturedAt()).isNotNull();
+        verify(paymentCaptureRepository).save(capture);
+        ArgumentCaptor<PaymentEvent> event = ArgumentCaptor.forClass(PaymentEvent.class);
+        verify(paymentEventRepository).save(event.capture());
+        assertThat(event.getValue().getPaymentId()).isEqualTo("ch_1");
+        assertThat(event.getValue().getPaymentStatus()).isEqualTo(PaymentStatus.PAID);
+    }
+
+    @Test
+    void leavesACaptureAloneThatAnotherInstanceClaimed() {
+        PaymentCapture capture = capture("ch_1", "pi_1");
+        due(capture);
+        when(paymentCaptureRepository.claim(eq("ch_1"), any(), eq(PaymentCaptureStatus.CAPTURING),
+                any(Instant.class), any(Instant.class))).thenReturn(0);
+
+        assertThat(processor.captureDue(10)).isZero();
+
+        verify(paymentGateway, never()).capture(any());
+        verify(paymentCaptureRepository, never()).save(any());
+    }
+
+    @Test
+    void recordsACaptureRetriedAfterItsClaimRanOutOnce() {
+        PaymentCapture capture = capture("ch_1", "pi_1");
+        due(capture);
+        when(paymentGateway.capture("pi_1")).thenReturn(GatewayPayment.builder().paymentId("ch_1").captured(true).build());
+        when(paymentEventRepository.existsByEventId("capture_ch_1")).thenReturn(true);
+
+        processor.captureDue(10);
+
+        assertThat(capture.getStatus()).isEqualTo(PaymentCaptureStatus.CAPTURED);
+        verify(paymentEventRepository, never()).save(any());
+    }
+
+    @Test
+    void retriesAFailedCaptureLaterUntilTheMaximumAttempts() {
+        PaymentCapture capture = capture("ch_1", "pi_1");
+        due(capture);
+        when(paymentGateway.capture("pi_1")).thenThrow(new PaymentGatewayException("timed out"));
+
+        processor.captureDue(10);
+        assertThat(capture.getStatus()).isEqualTo(PaymentCaptureStatus.PENDING);
+        assertThat(capture.getCaptureAfter()).isAfter(Instant.now());
+
+        processor.captureDue(10);
+        assertThat(capture.getStatus()).isEqualTo(PaymentCaptureStatus.FAILED);
+        assertThat(capture.getAttempts()).isEqualTo(2);
+        verify(paymentEventRepository, never()).save(any());
+    }
+
+    @Test
+    void givesUpADeclinedCaptureRightAway() {
+        PaymentCapture capture = capture("ch_1", "pi_1");
+        due(capture);
+        when(paymentGateway.capture("pi_1")).thenThrow(new PaymentDeclinedException("expired", "expired_card"));
+
+        processor.captureDue(10);
+
+        assertThat(capture.getStatus()).isEqualTo(PaymentCaptureStatus.FAILED);
+        assertThat(capture.getFailureReason()).isEqualTo("expired_card");
+        assertThat(capture.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void holdsAnAuthorizationUntilItsOrderConfirmsIt() {
+        when(paymentCaptureRepository.findById("ch_1")).thenReturn(Optional.empty());
+        when(paymentCaptureRepository.save(any(PaymentCapture.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentCapture held = processor.hold("u1", GatewayPayment.builder()
+                .paymentId("ch_1").authorizationId("pi_1").build(), 1000, "USD");
+
+        assertThat(held.getStatus()).isEqualTo(PaymentCaptureStatus.AUTHORIZED);
+
+        when(paymentCaptureRepository.findById("ch_1")).thenReturn(Optional.of(held));
+        when(paymentCaptureRepository.updateStatus(eq("ch_1"), eq(PaymentCaptureStatus.AUTHORIZED),
+                eq(PaymentCaptureStatus.PENDING), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        processor.confirm("ch_1", "u1");
+
+        ArgumentCaptor<Instant> captureAfter = ArgumentCaptor.forClass(Instant.class);
+        verify(paymentCaptureRepository).updateStatus(eq("ch_1"), eq(PaymentCaptureStatus.AUTHORIZED),
+                eq(PaymentCaptureStatus.PENDING), captureAfter.capture(), any(Instant.class));
+        assertThat(captureAfter.getValue()).isAfter(Instant.now().plus(Duration.ofDays(2)));
+    }
+
+    @Test
+    void releasesAHoldNoOrderConfirmed() {
+        PaymentCapture held = capture("ch_1", "pi_1");
+        held.setStatus(PaymentCaptureStatus.AUTHORIZED);
+        when(paymentCaptureRepository.findByStatusAndCaptureAfterLessThanEqualOrderByCaptureAfterAsc(
+                eq(PaymentCaptureStatus.AUTHORIZED), any(Instant.class), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(held));
+        when(paymentCaptureRepository.cancel(eq("ch_1"), eq(EnumSet.of(PaymentCaptureStatus.AUTHORIZED)),
+                eq(PaymentCaptureStatus.CANCELLED), any(Instant.class))).thenReturn(1);
+
+        assertThat(processor.releaseUnconfirmed(10)).isEqualTo(1);
+
+        verify(paymentGateway).cancel("pi_1");
+        ArgumentCaptor<PaymentEvent> event = ArgumentCaptor.forClass(PaymentEvent.class);
+        verify(paymentEventRepository).save(event.capture());
+        assertThat(event.getValue().getPaymentStatus()).isEqualTo(PaymentStatus.EXPIRED);
+    }
+
+    @Test
+    void releasesAHoldWhoseOrderFailedAfterConfirmingIt() {
+        //the confirmation went through, but the order service timed out waiting for it and gave up the order
+        PaymentCapture confirmed = capture("ch_1", "pi_1");
+        confirmed.setCaptureAfter(Instant.now().plus(Duration.ofDays(3)));
+        when(paymentCaptureRepository.findById("ch_1")).thenReturn(Optional.of(confirmed));
+        when(paymentCaptureRepository.cancel(eq("ch_1"), eq(EnumSet.of(PaymentCaptureStatus.AUTHORIZED,
+                PaymentCaptureStatus.PENDING)), eq(PaymentCaptureStatus.CANCELLED), any(Instant.class))).thenReturn(1);
+
+        processor.release("ch_1", "u1");
+
+        verify(paymentGateway).cancel("pi_1");
+        ArgumentCaptor<PaymentEvent> event = ArgumentCaptor.forClass(PaymentEvent.class);
+        verify(paymentEventRepository).save(event.capture());
+        assertThat(event.getValue().getPaymentStatus()).isEqualTo(PaymentStatus.EXPIRED);
+    }
+
+    @Test
+    void leavesAHoldAloneThatIsBeingCaptured() {
+        PaymentCapture held = capture("ch_1", "pi_1");
+        held.setStatus(PaymentCaptureStatus.CAPTURING);
+        when(paymentCaptureRepository.findById("ch_1")).thenReturn(Optional.of(held));
+
+        processor.release("ch_1", "u1");
+
+        verify(paymentCaptureRepository, never()).cancel(any(), any(), any(), any());
+        verify(paymentGateway, never()).cancel(any());
+        verify(paymentEventRepository, never()).save(any());
+    }
+
+    @Test
+    void leavesAHoldAloneThatWasClaimedMeanwhile() {
+        PaymentCapture held = capture("ch_1", "pi_1");
+        when(paymentCaptureRepository.findById("ch_1")).thenReturn(Optional.of(held));
+
+        processor.release("ch_1", "u1");
+
+        verify(paymentGateway, never()).cancel(any());
+        verify(paymentEventRepository, never()).save(any());
+    }
+
+    @Test
+    void makesARequestedCaptureDueRightAway() {
+        when(paymentCaptureRepository.makeDue(eq("ch_1"), eq(PaymentCaptureStatus.PENDING), any(Instant.class)))
+                .thenReturn(1);
+
+        processor.requestCapture("ch_1");
+
+        verify(paymentCaptureRepository).makeDue(eq("ch_1"), eq(PaymentCaptureStatus.PENDING), any(Instant.class));
+        verify(paymentCaptureRepository, never()).save(any());
+    }
+
+    @Test
+    void leavesACaptureAloneThatIsNoLongerPending() {
+        when(paymentCaptureRepository.existsById("ch_1")).thenReturn(true);
+
+        processor.requestCapture("ch_1");
+
+        verify(paymentCaptureRepository, never()).save(any());
+    }
+
+    @Test
+    void rejectsACaptureRequestForAnUnknownPayment() {
+        assertThatThrownBy(() -> processor.requestCapture("ch_1"))
+                .isInstanceOf(RunTimeExceptionPlaceHolder.class);
+    }
+
+    private void due(PaymentCapture... captures) {
+        when(paymentCaptureRepository.findByStatusInAndCaptureAfterLessThanEqualOrderByCaptureAfterAsc(
+                eq(EnumSet.of(PaymentCaptureStatus.PENDING, PaymentCaptureStatus.CAPTURING)), any(Instant.class),
+                any(Pageable.class)))
+                .thenReturn(Arrays.asList(captures));
+        when(paymentCaptureRepository.claim(any(), any(), eq(PaymentCaptureStatus.CAPTURING), any(Instant.class),
+                any(Instant.class))).thenReturn(1);
+    }
+
+    private static PaymentCapture capture(String paymentId, String authorizationId) {
+        return PaymentCapture.builder()
+                .paymentId(paymentId)
+                .authorizationId(authorizationId)
+                .userId("u1")
+                .amount(1000)
+                .currency("USD")
+                .status(PaymentCaptureStatus.PENDING)
+                .captureAfter(Instant.now().minusSeconds(1))
+                .build();
+    }
+}
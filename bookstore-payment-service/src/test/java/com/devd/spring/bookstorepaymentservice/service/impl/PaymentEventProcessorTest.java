@@ -0,0 +1,155 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorepaymentservice.repository.PaymentEventRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentMethodRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEvent;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentEventStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.PaymentStatus;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
+import com.stripe.Stripe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentEventProcessorTest {
+
+    private final PaymentEventRepository paymentEventRepository = mock(PaymentEventRepository.class);
+
+    private final UserPaymentCustomerRepository userPaymentCustomerRepository = mock(UserPaymentCustomerRepository.class);
+
+    private final UserPaymentMethodRepository userPaymentMethodRepository = mock(UserPaymentMethodRepository.class);
+
+    private final PaymentMethodSynchronizer paymentMethodSynchronizer = mock(PaymentMethodSynchronizer.class);
+
+    private final PaymentEventProcessor processor = new PaymentEventProcessor();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(processor, "paymentEventRepository", paymentEventRepository);
+        ReflectionTestUtils.setField(processor, "userPaymentCustomerRepository", userPaymentCustomerRepository);
+        ReflectionTestUtils.setField(processor, "userPaymentMethodRepository", userPaymentMethodRepository);
+        ReflectionTestUtils.setField(processor, "paymentMethodSynchronizer", paymentMethodSynchronizer);
+        ReflectionTestUtils.setField(processor, "maxAttempts", 3);
+    }
+
+    @Test
+    void recordsTheStatusEachChargeMovedTo() {
+        PaymentEvent captured = event("evt_1", "charge.succeeded", "{\"id\":\"ch_1\",\"object\":\"charge\",\"captured\":true}");
+        PaymentEvent authorized = event("evt_2", "charge.succeeded", "{\"id\":\"ch_2\",\"object\":\"charge\",\"captured\":false}");
+        PaymentEvent refunded = event("evt_3", "charge.refunded", "{\"id\":\"ch_3\",\"object\":\"charge\",\"refunded\":true}");
+        PaymentEvent partlyRefunded = event("evt_4", "charge.refunded", "{\"id\":\"ch_4\",\"object\":\"charge\",\"refunded\":false}");
+        PaymentEvent disputed = event("evt_5", "charge.dispute.created", "{\"id\":\"dp_1\",\"object\":\"dispute\",\"charge\":\"ch_5\"}");
+        PaymentEvent other = event("evt_6", "customer.created", "{\"id\":\"cus_1\",\"object\":\"customer\"}");
+        pending(captured, authorized, refunded, partlyRefunded, disputed, other);
+
+        assertThat(processor.processBatch(10)).isEqualTo(6);
+
+        assertThat(captured.getPaymentId()).isEqualTo("ch_1");
+        assertThat(captured.getPaymentStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(authorized.getPaymentStatus()).isEqualTo(PaymentStatus.AUTHORIZED);
+        assertThat(refunded.getPaymentStatus()).isEqualTo(PaymentStatus.REFUNDED);
+        assertThat(partlyRefunded.getPaymentStatus()).isEqualTo(PaymentStatus.PARTIALLY_REFUNDED);
+        assertThat(disputed.getPaymentId()).isEqualTo("ch_5");
+        assertThat(disputed.getPaymentStatus()).isEqualTo(PaymentStatus.DISPUTED);
+        assertThat(other.getPaymentStatus()).isNull();
+        assertThat(Arrays.asList(captured, authorized, refunded, partlyRefunded, disputed, other))
+                .extracting(PaymentEvent::getStatus)
+                .containsOnly(PaymentEventStatus.PROCESSED);
+    }
+
+    @Test
+    void retriesAFailingEventUntilTheMaximumAttempts() {
+        PaymentEvent broken = PaymentEvent.builder()
+                .id(1L).eventId("evt_1").eventType("charge.succeeded").payload("not json")
+                .status(PaymentEventStatus.PENDING).receivedAt(Instant.now()).build();
+        pending(broken);
+
+        processor.processBatch(10);
+        processor.processBatch(10);
+        assertThat(broken.getStatus()).isEqualTo(PaymentEventStatus.PENDING);
+
+        processor.processBatch(10);
+        assertThat(broken.getStatus()).isEqualTo(PaymentEventStatus.FAILED);
+        assertThat(broken.getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void leavesAnEventAloneThatAnotherInstanceClaimed() {
+        PaymentEvent claimed = event("evt_1", "charge.captured", "{\"id\":\"ch_1\",\"object\":\"charge\"}");
+        pending(claimed);
+        when(paymentEventRepository.claim(eq(claimed.getId()), eq(PaymentEventStatus.PENDING), any(Instant.class),
+                any(Instant.class))).thenReturn(0);
+
+        assertThat(processor.processBatch(10)).isZero();
+
+        assertThat(claimed.getStatus()).isEqualTo(PaymentEventStatus.PENDING);
+        assertThat(claimed.getAttempts()).isZero();
+        verify(paymentEventRepository, never()).save(any());
+    }
+
+    @Test
+    void keepsTheEventsProcessedBeforeOneThatCouldNotBeSaved() {
+        PaymentEvent first = event("evt_1", "charge.captured", "{\"id\":\"ch_1\",\"object\":\"charge\"}");
+        PaymentEvent second = event("evt_2", "charge.captured", "{\"id\":\"ch_2\",\"object\":\"charge\"}");
+        pending(first, second);
+        when(paymentEventRepository.save(second)).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThatThrownBy(() -> processor.processBatch(10)).isInstanceOf(IllegalStateException.class);
+
+        verify(paymentEventRepository).save(first);
+        assertThat(first.getStatus()).isEqualTo(PaymentEventStatus.PROCESSED);
+    }
+
+    @Test
+    void syncsTheCardsOfTheCustomerADetachedCardBelongedTo() {
+        UserPaymentCustomer customer = UserPaymentCustomer.builder().userId("u1").paymentCustomerId("cus_1").build();
+        when(userPaymentMethodRepository.findById("pm_1")).thenReturn(Optional.of(
+                UserPaymentMethod.builder().paymentMethodId("pm_1").paymentCustomerId("cus_1").build()));
+        when(userPaymentCustomerRepository.findByPaymentCustomerId("cus_1")).thenReturn(customer);
+        pending(event("evt_1", "payment_method.detached",
+                "{\"id\":\"pm_1\",\"object\":\"payment_method\",\"customer\":null}"));
+
+        processor.processBatch(10);
+
+        verify(paymentMethodSynchronizer).sync(customer);
+    }
+
+    private void pending(PaymentEvent... events) {
+        when(paymentEventRepository.findUnclaimed(eq(PaymentEventStatus.PENDING), any(Instant.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(events));
+        when(paymentEventRepository.claim(anyLong(), eq(PaymentEventStatus.PENDING), any(Instant.class),
+                any(Instant.class))).thenReturn(1);
+    }
+
+    private static PaymentEvent event(String eventId, String type, String dataObject) {
+        String payload = "{\"id\":\"" + eventId + "\",\"object\":\"event\",\"type\":\"" + type + "\","
+                + "\"created\":1700000000,\"api_version\":\"" + Stripe.API_VERSION + "\","
+                + "\"data\":{\"object\":" + dataObject + "}}";
+        return PaymentEvent.builder()
+                .id(Long.valueOf(eventId.substring("evt_".length())))
+                .eventId(eventId)
+                .eventType(type)
+                .payload(payload)
+                .status(PaymentEventStatus.PENDING)
+                .occurredAt(Instant.ofEpochSecond(1700000000))
+                .receivedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorecommons.exception.RunTimeExceptionPlaceHolder;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentMethodRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
+import com.devd.spring.bookstorepaymentservice.web.GetPaymentMethodResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentMethodServiceImplTest {
+
+    private final UserPaymentCustomerRepository userPaymentCustomerRepository = mock(UserPaymentCustomerRepository.class);
+
+    private final UserPaymentMethodRepository userPaymentMethodRepository = mock(UserPaymentMethodRepository.class);
+
+    private final PaymentMethodSynchronizer paymentMethodSynchronizer = mock(PaymentMethodSynchronizer.class);
+
+    private final PaymentMethodServiceImpl paymentMethodService = new PaymentMethodServiceImpl();
+
+    private final UserPaymentMethod visa = UserPaymentMethod.builder()
+            .paymentMethodId("pm_1")
+            .userId("u1")
+            .paymentCustomerId("cus_1")
+            .cardType("visa")
+            .cardLast4Digits("4242")
+            .cardExpirationMonth(12L)
+            .cardExpirationYear(2030L)
+            .cardCountry("US")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentMethodService, "userPaymentCustomerRepository", userPaymentCustomerRepository);
+        ReflectionTestUtils.setField(paymentMethodService, "userPaymentMethodRepository", userPaymentMethodRepository);
+        ReflectionTestUtils.setField(paymentMethodService, "paymentMethodSynchronizer", paymentMethodSynchronizer);
+        signIn("u1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readsSyncedPaymentMethodsLocally() {
+        when(userPaymentCustomerRepository.findByUserId("u1")).thenReturn(customer(Instant.now()));
+        when(userPaymentMethodRepository.findByUserId("u1")).thenReturn(Collections.singletonList(visa));
+
+        GetPaymentMethodResponse paymentMethod = paymentMethodService.getMyPaymentMethodById("pm_1");
+
+        assertThat(paymentMethod.getCardLast4Digits()).isEqualTo("4242");
+        assertThat(paymentMethodService.getAllMyPaymentMethods())
+                .extracting(GetPaymentMethodResponse::getPaymentMethodId)
+                .containsExactly("pm_1");
+        verify(paymentMethodSynchronizer, never()).sync(any());
+    }
+
+    @Test
+    void syncsCustomerOnFirstRead() {
+        UserPaymentCustomer customer = customer(null);
+        when(userPaymentCustomerRepository.findByUserId("u1")).thenReturn(customer);
+        when(paymentMethodSynchronizer.sync(customer)).thenReturn(Collections.singletonList(visa));
+
+        assertThat(paymentMethodService.getAllMyPaymentMethods()).hasSize(1);
+        verify(userPaymentMethodRepository, never()).findByUserId("u1");
+    }
+
+    @Test
+    void rejectsPaymentMethodOfAnotherUser() {
+        when(userPaymentCustomerRepository.findByUserId("u1")).thenReturn(customer(Instant.now()));
+        when(userPaymentMethodRepository.findByUserId("u1")).thenReturn(Collections.singletonList(visa));
+
+        assertThatThrownBy(() -> paymentMethodService.getMyPaymentMethodById("pm_other"))
+                .isInstanceOf(RunTimeExceptionPlaceHolder.class);
+    }
+
+    private static UserPaymentCustomer customer(Instant paymentMethodsSyncedAt) {
+        return UserPaymentCustomer.builder()
+                .userId("u1")
+                .userName("devd")
+                .paymentCustomerId("cus_1")
+                .paymentMethodsSyncedAt(paymentMethodsSyncedAt)
+                .build();
+    }
+
+    private static void signIn(String userId) {
+        Map<String, String> details = new HashMap<>();
+        details.put("user_id", userId);
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken("devd", null);
+        user.setDetails(details);
+        OAuth2Request request = new OAuth2Request(null, "client", null, true, null, null, null, null, null);
+        SecurityContextHolder.getContext().setAuthentication(new OAuth2Authentication(request, user));
+    }
+}
@@ -0,0 +1,77 @@
+package com.devd.spring.bookstorepaymentservice.service.impl;
+
+import com.devd.spring.bookstorepaymentservice.gateway.GatewayPaymentMethod;
+import com.devd.spring.bookstorepaymentservice.gateway.PaymentGateway;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentCustomerRepository;
+import com.devd.spring.bookstorepaymentservice.repository.UserPaymentMethodRepository;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentCustomer;
+import com.devd.spring.bookstorepaymentservice.repository.dao.UserPaymentMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentMethodSynchronizerTest {
+
+    private final UserPaymentCustomerRepository userPaymentCustomerRepository = mock(UserPaymentCustomerRepository.class);
+
+    private final UserPaymentMethodRepository userPaymentMethodRepository = mock(UserPaymentMethodRepository.class);
+
+    private final PaymentGateway paymentGateway = mock(PaymentGateway.class);
+
+    private final PaymentMethodSynchronizer synchronizer = new PaymentMethodSynchronizer();
+
+    private final UserPaymentCustomer customer = UserPaymentCustomer.builder()
+            .userPaymentCustomerId("upc_1").userId("u1").paymentCustomerId("cus_1").build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(synchronizer, "userPaymentCustomerRepository", userPaymentCustomerRepository);
+        ReflectionTestUtils.setField(synchronizer, "userPaymentMethodRepository", userPaymentMethodRepository);
+        ReflectionTestUtils.setField(synchronizer, "paymentGateway", paymentGateway);
+        ReflectionTestUtils.setField(synchronizer, "self", synchronizer);
+        when(paymentGateway.listPaymentMethods("cus_1")).thenReturn(Collections.singletonList(
+                GatewayPaymentMethod.builder().paymentMethodId("pm_1").cardType("visa").cardLast4Digits("4242").build()));
+    }
+
+    @Test
+    void listsTheCardsBeforeLockingTheCustomer() {
+        when(userPaymentCustomerRepository.lockById("upc_1")).thenReturn(customer);
+
+        synchronizer.sync(customer);
+
+        InOrder inOrder = inOrder(paymentGateway, userPaymentCustomerRepository, userPaymentMethodRepository);
+        inOrder.verify(paymentGateway).listPaymentMethods("cus_1");
+        inOrder.verify(userPaymentCustomerRepository).lockById("upc_1");
+        inOrder.verify(userPaymentMethodRepository).saveAll(anyList());
+        assertThat(customer.getPaymentMethodsSyncedAt()).isNotNull();
+    }
+
+    @Test
+    void keepsACopyListedAfterItsOwn() {
+        UserPaymentCustomer newer = UserPaymentCustomer.builder()
+                .userPaymentCustomerId("upc_1").userId("u1").paymentCustomerId("cus_1")
+                .paymentMethodsSyncedAt(Instant.now().plus(Duration.ofSeconds(1))).build();
+        when(userPaymentCustomerRepository.lockById("upc_1")).thenReturn(newer);
+        when(userPaymentMethodRepository.findByPaymentCustomerId("cus_1")).thenReturn(Collections.singletonList(
+                UserPaymentMethod.builder().paymentMethodId("pm_2").build()));
+
+        assertThat(synchronizer.sync(customer)).extracting(UserPaymentMethod::getPaymentMethodId).containsExactly("pm_2");
+
+        verify(userPaymentMethodRepository, never()).saveAll(anyList());
+        verify(userPaymentCustomerRepository, never()).save(any());
+    }
+}
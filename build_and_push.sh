@@ -31,6 +31,7 @@ echo -e "${GREEN}Building images in $MODE mode with tag: $GIT_SHA_TAG ${NC}"
 
 # Danh sách các service cần build bằng Maven
 MAVEN_SERVICES=(
+    "bookstore-loadbalancer"
     "bookstore-commons"
     "bookstore-feign"
     "bookstore-account-service"